@@ -0,0 +1,207 @@
+package elements;
+
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Abstract class AreaLight, the common part of the area light sources :
+ * Intensity (Io), Position (Pl) of the center, Factors (kC, kL, kQ) for attenuation with distance (d),
+ * as for PointLight, and the stratified sampling of the surface.
+ * Far from the light source, its intensity is the intensity of a PointLight at its center
+ * (times the cosine of the emission angle for the planar light sources).
+ * Extends Light.
+ * Implements AreaLightSource.
+ */
+public abstract class AreaLight extends Light implements AreaLightSource {
+    /**
+     * The position of the center of the AreaLight.
+     */
+    protected Point3D _position;
+
+    /**
+     * The coefficient to calculate the attenuation of the light with the distance.
+     */
+    protected double _kC = 1.0;
+    protected double _kL = 0.00005;
+    protected double _kQ = 0.0000025;
+
+    /**
+     * AreaLight constructor, receiving 2 parameters.
+     * @param intensity for _intensity.
+     * @param position  for _position.
+     * @throw IllegalArgumentException if position is null.
+     */
+    protected AreaLight(Color intensity, Point3D position) {
+        super(intensity);
+        if (position == null) {
+            throw new IllegalArgumentException("position must be not null");
+        }
+        _position = position;
+    }
+
+    /**
+     * To get the radius of the smallest sphere around _position containing the light source.
+     * @return the radius.
+     */
+    public abstract double getRadius();
+
+    /**
+     * To sample one point of the surface, as seen from a point.
+     * @param p            the lit point.
+     * @param u            first coordinate of the sample in [0,1[ (stratified).
+     * @param v            second coordinate of the sample in [0,1[ (stratified).
+     * @param numOfSamples the total number of samples.
+     * @return the sample, or null if it does not contribute to the intensity at p.
+     */
+    protected abstract Sample sample(Point3D p, double u, double v, int numOfSamples);
+
+    @Override
+    public List<Sample> sample(Point3D p, int numOfSamples, Random random) {
+        int strata = (int) Math.ceil(Math.sqrt(Math.max(1, numOfSamples)));
+        int total = strata * strata;
+        List<Sample> samples = new ArrayList<>(total);
+        for (int i = 0; i < strata; i++) {
+            for (int j = 0; j < strata; j++) {
+                Sample sample = sample(p, (i + random.nextDouble()) / strata, (j + random.nextDouble()) / strata,
+                        total);
+                if (sample != null) {
+                    samples.add(sample);
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * To make the sample of a point of a planar light source (one-sided, emitting towards its normal).
+     * Helper method for the planar light sources.
+     * @param p            the lit point.
+     * @param position     the point sampled on the surface (uniformly on its area).
+     * @param normal       the normalized normal of the surface (direction of the emission).
+     * @param numOfSamples the total number of samples.
+     * @return the sample, with the intensity Io * cos(emission angle) / (kC + kL * d + kQ * d^2) / numOfSamples,
+     * or null if p is behind the surface.
+     */
+    protected Sample planarSample(Point3D p, Point3D position, Vector normal, int numOfSamples) {
+        if (position.equals(p)) {
+            return null;
+        }
+        Vector direction = position.subtract(p);
+        double distance = direction.length();
+        direction.normalize();
+        double cosine = alignZero(-direction.dotProduct(normal));
+        if (cosine <= 0) {
+            return null;
+        }
+        return new Sample(position, direction, distance,
+                _intensity.scale(cosine * attenuation(distance) / numOfSamples));
+    }
+
+    /**
+     * To calculate the attenuation of the light with the distance.
+     * @param d the distance.
+     * @return 1 / (kC + kL * d + kQ * d^2).
+     */
+    protected double attenuation(double d) {
+        return alignZero(1d / (_kC + _kL * d + _kQ * d * d));
+    }
+
+    /**
+     * Approximation of the intensity at p, as a PointLight at the center of the light source.
+     * The exact intensity is the sum of the intensities of the samples (see sample(Point3D, int, Random)).
+     * @param p the point to get its color.
+     * @return the approximated intensity at p.
+     */
+    @Override
+    public Color getIntensity(Point3D p) {
+        return _intensity.scale(attenuation(_position.distance(p)));
+    }
+
+    @Override
+    public Vector getL(Point3D p) {
+        return (p.subtract(_position)).normalized();
+    }
+
+    @Override
+    public double getDistance(Point3D point) {
+        return _position.distance(point);
+    }
+
+    /**
+     * The edge size of the square containing the light source.
+     * @return 2 * getRadius().
+     */
+    @Override
+    public double getSquareEdgeSize() {
+        return 2 * getRadius();
+    }
+
+    /**
+     * The radius of influence, as for PointLight, plus the radius of the light source.
+     * @param threshold the minimal intensity (on each of the components r, g, b) to be taken into account.
+     * @return the distance from _position beyond which the intensity of the light source is below threshold.
+     */
+    @Override
+    public double getCutoffDistance(double threshold) {
+        double maxIntensity = Math.max(_intensity.r, Math.max(_intensity.g, _intensity.b));
+        double c = _kC - maxIntensity / threshold;
+        if (c >= 0) {     // below the threshold even at the surface of the light
+            return getRadius();
+        }
+        if (_kQ > 0) {
+            return getRadius() + (-_kL + Math.sqrt(_kL * _kL - 4 * _kQ * c)) / (2 * _kQ);
+        }
+        if (_kL > 0) {
+            return getRadius() - c / _kL;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Getter of _position.
+     * @return _position.
+     */
+    public Point3D getPosition() {
+        return _position;
+    }
+
+    /**
+     * Setter of _kC.
+     * Chaining method.
+     * @param kC the new value for _kC.
+     * @return this.
+     */
+    public AreaLight setKc(double kC) {
+        _kC = kC;
+        return this;
+    }
+
+    /**
+     * Setter of _kL.
+     * Chaining method.
+     * @param kL the new value for _kL.
+     * @return this.
+     */
+    public AreaLight setKl(double kL) {
+        _kL = kL;
+        return this;
+    }
+
+    /**
+     * Setter of _kQ.
+     * Chaining method.
+     * @param kQ the new value for _kQ.
+     * @return this.
+     */
+    public AreaLight setKq(double kQ) {
+        _kQ = kQ;
+        return this;
+    }
+}
@@ -0,0 +1,54 @@
+package elements;
+
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Interface AreaLightSource, implemented by classes representing light sources with an area
+ * (rectangle, disk, sphere), whose soft shadows are calculated by sampling their surface.
+ * Extends LightSource.
+ */
+public interface AreaLightSource extends LightSource {
+
+    /**
+     * Class Sample, one point sampled on the surface of an area light source, as seen from a point :
+     * the direction and the distance of the sample from the point, and the contribution of the sample
+     * to the intensity at the point (already divided by the number of samples).
+     * The same sample is used for the shadow ray and for the intensity.
+     */
+    public static class Sample {
+        public final Point3D _position;
+        public final Vector _direction;
+        public final double _distance;
+        public final Color _intensity;
+
+        /**
+         * Sample constructor, receiving 4 parameters.
+         * @param position  the point sampled on the light source.
+         * @param direction the normalized direction from the lit point towards position.
+         * @param distance  the distance between the lit point and position.
+         * @param intensity the contribution of the sample to the intensity at the lit point.
+         */
+        public Sample(Point3D position, Vector direction, double distance, Color intensity) {
+            _position = position;
+            _direction = direction;
+            _distance = distance;
+            _intensity = intensity;
+        }
+    }
+
+    /**
+     * To sample the surface of the light source as seen from a point, with stratified samples.
+     * The sum of the intensities of the samples (without shadows) is an unbiased estimation
+     * of the intensity at the point.
+     * @param p            the lit point.
+     * @param numOfSamples the number of samples (rounded up to a square number, for the strata).
+     * @param random       the random generator.
+     * @return the samples that may contribute to the intensity at p (the others are not returned).
+     */
+    public List<Sample> sample(Point3D p, int numOfSamples, Random random);
+}
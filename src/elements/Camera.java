@@ -108,6 +108,22 @@ public class Camera {
         return this;
     }
 
+    /**
+     * To build the Camera moved by a transform (as for a frame of an animation) :
+     * the same View Plane, with the transformed position and directions.
+     * @param transform the transform, which must keep the directions orthogonal (a rigid motion).
+     * @return a new Camera.
+     * @throws IllegalArgumentException if the transformed vUp and vTo are not orthogonal.
+     */
+    public Camera transform(Transform transform) {
+        Camera camera = new Camera(transform.apply(_p0), transform.applyToVector(_vTo),
+                transform.applyToVector(_vUp));
+        camera._width = _width;
+        camera._height = _height;
+        camera._distance = _distance;
+        return camera;
+    }
+
     /**
      * To construct a ray through a pixel. The method :
      * Image center : pc = _p0 + d . vTo
@@ -161,6 +177,45 @@ public class Camera {
 
     }
 
+    /**
+     * To find the depth of a point in front of the Camera : its distance from _p0 along _vTo
+     * (negative if the point is behind the Camera).
+     * @param point the point.
+     * @return the depth of point.
+     */
+    public double depth(Point3D point) {
+        return (point.getX() - _p0.getX()) * _vTo.getHead().getX()
+                + (point.getY() - _p0.getY()) * _vTo.getHead().getY()
+                + (point.getZ() - _p0.getZ()) * _vTo.getHead().getZ();
+    }
+
+    /**
+     * To project a point on the View Plane : the inverse of constructRayThroughPixel.
+     * The method :
+     * v = point - _p0 ; depth = v.vTo
+     * Xj = (v.vRight) . d / depth   ;   Yi = (v.vUp) . d / depth
+     * j = Xj / Rx + (nX - 1) / 2    ;   i = - Yi / Ry + (nY - 1) / 2
+     * @param point the point, in front of the Camera.
+     * @param nX    an integer representing the number of columns.
+     * @param nY    an integer representing the number of lines.
+     * @return {j, i} : the (not rounded) column and line of the pixel whose ray passes through point.
+     * @throws IllegalArgumentException if point is not in front of the Camera.
+     */
+    public double[] project(Point3D point, int nX, int nY) {
+        double depth = depth(point);
+        if (depth <= 0) {
+            throw new IllegalArgumentException("the point must be in front of the camera");
+        }
+        double vx = point.getX() - _p0.getX();
+        double vy = point.getY() - _p0.getY();
+        double vz = point.getZ() - _p0.getZ();
+        Point3D right = _vRight.getHead();
+        Point3D up = _vUp.getHead();
+        double xj = (vx * right.getX() + vy * right.getY() + vz * right.getZ()) * _distance / depth;
+        double yi = (vx * up.getX() + vy * up.getY() + vz * up.getZ()) * _distance / depth;
+        return new double[]{xj / (_width / nX) + (nX - 1) / 2d, -yi / (_height / nY) + (nY - 1) / 2d};
+    }
+
     /**
      * Getter of _p0.
      * @return _p0.
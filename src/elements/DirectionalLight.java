@@ -14,9 +14,10 @@ import primitives.Vector;
  */
 public class DirectionalLight extends Light implements LightSource {
     /**
-     * For Soft Shadows effect.
+     * For Soft Shadows effect : the edge size of the square of the light source
+     * (0 : no size, the square is the one seen under the angle of the soft shadows, see BasicRayTracer).
      */
-    private static final double DEFAULT_SQUARE_EDGE_SIZE = 110.0;
+    private static final double DEFAULT_SQUARE_EDGE_SIZE = 0;
     private double _squareEdgeSize = DEFAULT_SQUARE_EDGE_SIZE;
     private static final double DEFAULT_DISTANCE = 10000; //10000
     private double _distance = DEFAULT_DISTANCE;
@@ -0,0 +1,108 @@
+package elements;
+
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Class DiskLight, representing a disk-shaped area light source (as a round ceiling lamp),
+ * emitting on one side (towards its direction).
+ * Intensity (Io), Position (Pl) of the center, Direction (normal), Radius, Attenuation factors (kC, kL, kQ).
+ * Intensity at a point p : average on the disk of Io * cos(emission angle) / (kC + kL * d + kQ * d^2).
+ * Extends AreaLight.
+ */
+public class DiskLight extends AreaLight {
+    private final Vector _direction;
+    private final Vector _axisU;
+    private final Vector _axisV;
+    private final double _radius;
+
+    /**
+     * DiskLight constructor, receiving 4 parameters.
+     * @param intensity for _intensity.
+     * @param position  for _position (center of the disk).
+     * @param direction for _direction (normal of the disk, side of the emission).
+     * @param radius    the radius of the disk.
+     * @throw IllegalArgumentException if direction is null or if radius <= 0.
+     */
+    public DiskLight(Color intensity, Point3D position, Vector direction, double radius) {
+        super(intensity, position);
+        if (direction == null) {
+            throw new IllegalArgumentException("direction must be not null");
+        }
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be > 0");
+        }
+        _direction = direction.normalized();
+        _axisU = _direction.findOrthogonal();
+        _axisV = _direction.crossProduct(_axisU);
+        _radius = radius;
+    }
+
+    /**
+     * Uniform stratified sampling of the area of the disk,
+     * with the concentric mapping of the square [0,1[^2 to the disk (which keeps the strata compact).
+     */
+    @Override
+    protected Sample sample(Point3D p, double u, double v, int numOfSamples) {
+        double a = 2 * u - 1;
+        double b = 2 * v - 1;
+        double r;
+        double phi;
+        if (a * a > b * b) {
+            r = a;
+            phi = (Math.PI / 4) * (b / a);
+        } else if (b != 0) {
+            r = b;
+            phi = (Math.PI / 2) - (Math.PI / 4) * (a / b);
+        } else {
+            r = 0;
+            phi = 0;
+        }
+        double du = _radius * r * Math.cos(phi);
+        double dv = _radius * r * Math.sin(phi);
+        Point3D position = _position;
+        if (!isZero(du)) {
+            position = position.add(_axisU.scale(du));
+        }
+        if (!isZero(dv)) {
+            position = position.add(_axisV.scale(dv));
+        }
+        return planarSample(p, position, _direction, numOfSamples);
+    }
+
+    @Override
+    public double getRadius() {
+        return _radius;
+    }
+
+    /**
+     * The cone of the DiskLight : the points in front of its plane.
+     * @param p the point to check.
+     * @return true if p is in front of the disk, false either.
+     */
+    @Override
+    public boolean isInCone(Point3D p) {
+        if (p.equals(_position)) {
+            return false;
+        }
+        return alignZero(p.subtract(_position).dotProduct(_direction)) > 0;
+    }
+
+    /**
+     * Approximation of the intensity at p, as a PointLight at the center of the disk
+     * (with the cosine of the emission angle).
+     * @param p the point to get its color.
+     * @return the approximated intensity at p.
+     */
+    @Override
+    public Color getIntensity(Point3D p) {
+        if (!isInCone(p)) {
+            return Color.BLACK;
+        }
+        return super.getIntensity(p).scale(alignZero(getL(p).dotProduct(_direction)));
+    }
+}
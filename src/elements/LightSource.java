@@ -31,5 +31,26 @@ public interface LightSource {
 
     public double getSquareEdgeSize();
 
+    /**
+     * To get the distance from the light source beyond which its intensity is below a threshold,
+     * that is to say the radius of influence of the light source.
+     * Default : no attenuation with distance, the light source influences the whole scene.
+     * @param threshold the minimal intensity (on each of the components r, g, b) to be taken into account.
+     * @return the distance beyond which the intensity of the light source is below threshold.
+     */
+    default double getCutoffDistance(double threshold) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * To check if the point p is inside the cone of the light source,
+     * that is to say if the light source may illuminate it (without checking shadows).
+     * Default : the light source illuminates in all the directions.
+     * @param p the point to check.
+     * @return true if the light source may illuminate p, false either.
+     */
+    default boolean isInCone(Point3D p) {
+        return true;
+    }
 
 }
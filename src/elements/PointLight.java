@@ -29,9 +29,10 @@ public class PointLight extends Light implements LightSource {
     protected double _kQ = 0.0000025;
 
     /**
-     * For Soft Shadows effect.
+     * For Soft Shadows effect : the edge size of the square of the light source
+     * (0 : no size, the square is the one seen under the angle of the soft shadows, see BasicRayTracer).
      */
-    private static final double DEFAULT_SQUARE_EDGE_SIZE = 110.0;
+    private static final double DEFAULT_SQUARE_EDGE_SIZE = 0;
     private double _squareEdgeSize = DEFAULT_SQUARE_EDGE_SIZE;
 
     /**
@@ -78,6 +79,36 @@ public class PointLight extends Light implements LightSource {
         return _squareEdgeSize;
     }
 
+    /**
+     * The radius of influence, solving : max(Io) / (kC + kL * d + kQ * d^2) = threshold
+     * => kQ * d^2 + kL * d + (kC - max(Io) / threshold) = 0
+     * @param threshold the minimal intensity (on each of the components r, g, b) to be taken into account.
+     * @return the distance beyond which the intensity of the light source is below threshold.
+     */
+    @Override
+    public double getCutoffDistance(double threshold) {
+        double maxIntensity = Math.max(_intensity.r, Math.max(_intensity.g, _intensity.b));
+        double c = _kC - maxIntensity / threshold;
+        if (c >= 0) {     // below the threshold even at the position of the light
+            return 0;
+        }
+        if (_kQ > 0) {
+            return (-_kL + Math.sqrt(_kL * _kL - 4 * _kQ * c)) / (2 * _kQ);
+        }
+        if (_kL > 0) {
+            return -c / _kL;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Getter of _position.
+     * @return _position.
+     */
+    public Point3D getPosition() {
+        return _position;
+    }
+
     /**
      * Setter of _kC.
      * Chaining method.
@@ -0,0 +1,116 @@
+package elements;
+
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Class RectangleLight, representing a rectangular area light source (as a panel),
+ * emitting on one side (towards its direction).
+ * Intensity (Io), Position (Pl) of the center, Direction (normal), Axes, Width, Height,
+ * Attenuation factors (kC, kL, kQ).
+ * Intensity at a point p : average on the rectangle of Io * cos(emission angle) / (kC + kL * d + kQ * d^2).
+ * Extends AreaLight.
+ */
+public class RectangleLight extends AreaLight {
+    private final Vector _direction;
+    private final Vector _axisU;
+    private final Vector _axisV;
+    private final double _width;
+    private final double _height;
+
+    /**
+     * RectangleLight constructor, receiving 6 parameters.
+     * @param intensity for _intensity.
+     * @param position  for _position (center of the rectangle).
+     * @param direction for _direction (normal of the rectangle, side of the emission).
+     * @param axisU     direction of the width of the rectangle, orthogonal to direction.
+     * @param width     the width of the rectangle.
+     * @param height    the height of the rectangle.
+     * @throw IllegalArgumentException if a parameter is null, if axisU is not orthogonal to direction,
+     * or if width or height <= 0.
+     */
+    public RectangleLight(Color intensity, Point3D position, Vector direction, Vector axisU,
+                          double width, double height) {
+        super(intensity, position);
+        if (direction == null || axisU == null) {
+            throw new IllegalArgumentException("direction and axisU must be not null");
+        }
+        if (!isZero(direction.dotProduct(axisU))) {
+            throw new IllegalArgumentException("axisU must be orthogonal to direction");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("width and height must be > 0");
+        }
+        _direction = direction.normalized();
+        _axisU = axisU.normalized();
+        _axisV = _direction.crossProduct(_axisU);
+        _width = width;
+        _height = height;
+    }
+
+    /**
+     * RectangleLight constructor, receiving 5 parameters (the axes of the rectangle are chosen).
+     * @param intensity for _intensity.
+     * @param position  for _position (center of the rectangle).
+     * @param direction for _direction (normal of the rectangle, side of the emission).
+     * @param width     the width of the rectangle.
+     * @param height    the height of the rectangle.
+     * @throw IllegalArgumentException if direction is null, or if width or height <= 0.
+     */
+    public RectangleLight(Color intensity, Point3D position, Vector direction, double width, double height) {
+        this(intensity, position, direction, direction == null ? null : direction.findOrthogonal(), width, height);
+    }
+
+    /**
+     * Uniform stratified sampling of the area of the rectangle.
+     */
+    @Override
+    protected Sample sample(Point3D p, double u, double v, int numOfSamples) {
+        Point3D position = _position;
+        double du = (u - 0.5) * _width;
+        double dv = (v - 0.5) * _height;
+        if (!isZero(du)) {
+            position = position.add(_axisU.scale(du));
+        }
+        if (!isZero(dv)) {
+            position = position.add(_axisV.scale(dv));
+        }
+        return planarSample(p, position, _direction, numOfSamples);
+    }
+
+    @Override
+    public double getRadius() {
+        return Math.sqrt(_width * _width + _height * _height) / 2;
+    }
+
+    /**
+     * The cone of the RectangleLight : the points in front of its plane.
+     * @param p the point to check.
+     * @return true if p is in front of the rectangle, false either.
+     */
+    @Override
+    public boolean isInCone(Point3D p) {
+        if (p.equals(_position)) {
+            return false;
+        }
+        return alignZero(p.subtract(_position).dotProduct(_direction)) > 0;
+    }
+
+    /**
+     * Approximation of the intensity at p, as a PointLight at the center of the rectangle
+     * (with the cosine of the emission angle).
+     * @param p the point to get its color.
+     * @return the approximated intensity at p.
+     */
+    @Override
+    public Color getIntensity(Point3D p) {
+        if (!isInCone(p)) {
+            return Color.BLACK;
+        }
+        return super.getIntensity(p).scale(alignZero(getL(p).dotProduct(_direction)));
+    }
+}
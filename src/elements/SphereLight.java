@@ -0,0 +1,83 @@
+package elements;
+
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Class SphereLight, representing a spherical area light source (as a globe lamp), emitting in all directions.
+ * Intensity (Io), Position (Pl) of the center, Radius (R), Attenuation factors (kC, kL, kQ).
+ * Intensity at a point p, integrating on the solid angle Omega of the sphere as seen from p :
+ * Il = Integral of Io * d^2 / (kC + kL * d + kQ * d^2) / (PI * R^2) over Omega
+ * (d : distance to the sphere in the direction), so far from the sphere, Il = Io / (kC + kL * d + kQ * d^2).
+ * Extends AreaLight.
+ */
+public class SphereLight extends AreaLight {
+    private final double _radius;
+
+    /**
+     * SphereLight constructor, receiving 3 parameters.
+     * @param intensity for _intensity.
+     * @param position  for _position (center of the sphere).
+     * @param radius    the radius of the sphere.
+     * @throw IllegalArgumentException if radius <= 0.
+     */
+    public SphereLight(Color intensity, Point3D position, double radius) {
+        super(intensity, position);
+        if (radius <= 0) {
+            throw new IllegalArgumentException("radius must be > 0");
+        }
+        _radius = radius;
+    }
+
+    /**
+     * Uniform stratified sampling of the solid angle of the sphere as seen from p :
+     * cos(theta) uniform in [cos(thetaMax), 1] (sin(thetaMax) = R / distance to the center), phi in [0, 2PI[.
+     * Probability density of each direction : 1 / Omega, Omega = 2PI * (1 - cos(thetaMax)).
+     */
+    @Override
+    protected Sample sample(Point3D p, double u, double v, int numOfSamples) {
+        double distanceCenter = _position.distance(p);
+        if (alignZero(distanceCenter - _radius) <= 0) {    // p inside the light source
+            return null;
+        }
+        Vector w = _position.subtract(p).normalize();
+        double sinMax = _radius / distanceCenter;
+        double cosMax = Math.sqrt(Math.max(0, 1 - sinMax * sinMax));
+        double omega = 2 * Math.PI * (1 - cosMax);
+
+        double cosTheta = 1 - u * (1 - cosMax);
+        double sinTheta = Math.sqrt(Math.max(0, 1 - cosTheta * cosTheta));
+        double phi = 2 * Math.PI * v;
+
+        Vector direction = w.scale(cosTheta);
+        Vector axisU = w.findOrthogonal();
+        Vector axisV = w.crossProduct(axisU);
+        double du = sinTheta * Math.cos(phi);
+        double dv = sinTheta * Math.sin(phi);
+        if (alignZero(du) != 0) {
+            direction = direction.add(axisU.scale(du));
+        }
+        if (alignZero(dv) != 0) {
+            direction = direction.add(axisV.scale(dv));
+        }
+        direction.normalize();
+
+        // distance to the nearest intersection of the sphere in that direction
+        double sin2 = sinTheta * sinTheta;
+        double distance = distanceCenter * cosTheta
+                - Math.sqrt(Math.max(0, _radius * _radius - distanceCenter * distanceCenter * sin2));
+        Point3D position = p.add(direction.scale(distance));
+
+        double intensity = attenuation(distance) * distance * distance * omega
+                / (Math.PI * _radius * _radius * numOfSamples);
+        return new Sample(position, direction, distance, _intensity.scale(intensity));
+    }
+
+    @Override
+    public double getRadius() {
+        return _radius;
+    }
+}
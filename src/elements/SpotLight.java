@@ -47,4 +47,17 @@ public class SpotLight extends PointLight {
 
     }
 
+    /**
+     * The cone of the SpotLight : the points p such as direction . l > 0.
+     * @param p the point to check.
+     * @return true if p is in front of the SpotLight, false either.
+     */
+    @Override
+    public boolean isInCone(Point3D p) {
+        if (p.equals(_position)) {
+            return false;
+        }
+        return alignZero(_direction.dotProduct(getL(p))) > 0;
+    }
+
 }
@@ -0,0 +1,30 @@
+package geometries;
+
+/**
+ * Interface Accelerator, a spatial index over the 3D-objects of a group (see Geometries.buildAccelerator),
+ * so that a ray is tested only against the objects near its path.
+ * Implemented by BVH (a bounding volume hierarchy) and Grid (a uniform grid).
+ */
+public interface Accelerator extends Intersectable {
+    /**
+     * Enum Kind, the kinds of accelerators :
+     * - BVH : a bounding volume hierarchy, for any scene.
+     * - GRID : a uniform grid, for the scenes of many objects of similar sizes spread evenly.
+     * - AUTO : a grid if the statistics of the objects suit it (see Grid.suits), else a BVH.
+     */
+    enum Kind {
+        BVH, GRID, AUTO
+    }
+
+    /**
+     * To update the accelerator after the objects moved, without adding nor removing objects.
+     * Must not be called while rays are intersected with the accelerator.
+     */
+    void refit();
+
+    /**
+     * Getter of the memory of the accelerator (the objects are not counted).
+     * @return the number of bytes of its arrays.
+     */
+    long getMemory();
+}
@@ -0,0 +1,412 @@
+package geometries;
+
+import primitives.Point3D;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Class BVH, a bounding volume hierarchy over 3D-objects : a binary tree of axis-aligned boxes,
+ * so that a ray is tested only against the objects whose boxes it crosses.
+ * Built in parallel (see BVHBuilder), by median split, by the surface area heuristic (the default),
+ * or by Morton codes (see Build), until at most LEAF_SIZE objects are left in a leaf
+ * (or a few more, when the surface area heuristic finds a leaf cheaper).
+ * The objects with an infinite or empty box (planes, tubes, empty groups) are not in the tree :
+ * they are tested for every ray.
+ * The tree is stored in flat arrays (the bounds of the nodes, their links, and the objects in the order
+ * of the leaves), in depth-first order, so that a traversal reads contiguous memory instead of following
+ * references between node objects; a traversal uses an int stack kept by its thread, without allocation.
+ * The tree can be compressed (see compress), for the scenes whose hierarchy takes too much memory.
+ * The boxes of the nodes can be refitted in place (see refit()) after the objects moved, keeping the tree :
+ * the tree stays valid, though less efficient if the objects moved far from each other.
+ * Not thread-safe for refit() : the objects must not be intersected while the boxes are refitted.
+ */
+public class BVH implements Accelerator {
+    /**
+     * Enum Build, the modes of the build of the tree (see BVHBuilder) :
+     * - MEDIAN : division of the objects into two halves on the longest axis of their centers.
+     * - SAH : division by the binned surface area heuristic, for the best trees (slower to build).
+     * - LBVH : division by the Morton codes of the centers, for the fastest builds (for the scenes
+     * rebuilt at each frame), with less efficient trees.
+     */
+    public enum Build {
+        MEDIAN, SAH, LBVH
+    }
+
+    /**
+     * Maximal number of objects in a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Relative widening of the boxes in the ray-box test.
+     */
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Initial depth of the stacks of the traversals.
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * Class Stacks, the stacks of the traversals of a thread : one per level of nesting of the traversals
+     * (an object of a leaf may be a group with its own hierarchy, traversed inside the traversal of this one).
+     * Allocated once per thread and level, and grown when a tree is deeper.
+     */
+    static class Stacks {
+        private int[][] _stacks = new int[4][];
+        private int _depth = 0;
+
+        /**
+         * To begin a traversal (to be ended by exit()).
+         * @return the stack of the traversal.
+         */
+        int[] enter() {
+            int level = _depth++;
+            if (level == _stacks.length) {
+                _stacks = Arrays.copyOf(_stacks, 2 * level);
+            }
+            if (_stacks[level] == null) {
+                _stacks[level] = new int[STACK_SIZE];
+            }
+            return _stacks[level];
+        }
+
+        /**
+         * To grow the stack of the current traversal.
+         * @param stack the full stack.
+         * @return the new stack, with the same content.
+         */
+        int[] grow(int[] stack) {
+            return _stacks[_depth - 1] = Arrays.copyOf(stack, 2 * stack.length);
+        }
+
+        /**
+         * To end a traversal.
+         */
+        void exit() {
+            _depth--;
+        }
+    }
+
+    /**
+     * The stacks of the traversals of each thread (shared by all the hierarchies).
+     */
+    static final ThreadLocal<Stacks> STACKS = ThreadLocal.withInitial(Stacks::new);
+
+    /**
+     * The bounds of the nodes, in depth-first order (6 per node : minX, minY, minZ, maxX, maxY, maxZ).
+     * Not final values, to be refitted in place (null when the tree is compressed).
+     */
+    private double[] _bounds;
+
+    /**
+     * The links of the nodes, 2 per node : for an inner node, the index of its second child
+     * (its first child follows it) and 0; for a leaf, the index of its first object in _primitives
+     * and its number of objects.
+     */
+    private int[] _links;
+
+    /**
+     * The compressed tree (null if the tree is not compressed, see compress).
+     */
+    private CompressedNodes _compressed = null;
+
+    /**
+     * The bounded objects, in the order of the leaves.
+     */
+    private final Intersectable[] _primitives;
+
+    /**
+     * The objects tested for every ray : with an infinite or empty box, or huge (see Partition).
+     */
+    private final Intersectable[] _unbounded;
+
+    /**
+     * Number of nodes of the tree.
+     */
+    private final int _nodes;
+
+    /**
+     * The mode of the build of the tree.
+     */
+    private final Build _build;
+
+    /**
+     * BVH constructor : builds the tree over a list of objects.
+     * @param intersectables the objects.
+     * @param build          the mode of the build.
+     */
+    public BVH(List<Intersectable> intersectables, Build build) {
+        Partition partition = new Partition(intersectables);
+        _unbounded = partition._separate;
+        _build = build;
+
+        BVHBuilder builder = new BVHBuilder(partition._bounded, partition._boxes, build, LEAF_SIZE);
+        builder.build();
+        _nodes = builder.getNodes();
+        _bounds = new double[6 * _nodes];
+        _links = new int[2 * _nodes];
+        _primitives = new Intersectable[partition._bounded.length];
+        builder.flatten(_bounds, _links, _primitives);
+    }
+
+    /**
+     * BVH constructor : builds the tree over a list of objects, by the surface area heuristic.
+     * @param intersectables the objects.
+     */
+    public BVH(List<Intersectable> intersectables) {
+        this(intersectables, Build.SAH);
+    }
+
+    /**
+     * Getter of _build.
+     * @return the mode of the build of the tree.
+     */
+    public Build getBuild() {
+        return _build;
+    }
+
+    /**
+     * To compress the tree, for the scenes whose hierarchy takes too much memory : the binary tree
+     * (56 bytes per node) is replaced by a wide tree whose nodes store the bounds of their children quantized
+     * relative to their own box (see CompressedNodes). The boxes are rounded outwards : a ray crosses
+     * a few more boxes, and the traversal decodes them, but finds the same intersections.
+     * Must not be called while rays are intersected with the hierarchy.
+     * @param width the number of children of a node (4 or 8).
+     * @param bits  the number of bits of a quantized bound (8 or 16).
+     * @throws IllegalArgumentException if width is not 4 or 8, or bits is not 8 or 16,
+     *                                  or if there are too many objects (more than 2^26).
+     */
+    public void compress(int width, int bits) {
+        if (width != 4 && width != 8 || bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("the width must be 4 or 8, and the bits 8 or 16");
+        }
+        if (_primitives.length >= CompressedNodes.MAX_OBJECTS) {
+            throw new IllegalArgumentException("too many objects for a compressed hierarchy");
+        }
+        if (_compressed != null || _nodes == 0) {
+            return;
+        }
+        _compressed = new CompressedNodes(_bounds, _links, _nodes, width, bits);
+        _bounds = null;
+        _links = null;
+    }
+
+    /**
+     * Getter of the number of children of a node.
+     * @return 2 for a binary tree, or the width of the compressed tree.
+     */
+    public int getWidth() {
+        return _compressed == null ? 2 : _compressed.getWidth();
+    }
+
+    /**
+     * Getter of the number of bits of a bound of a node.
+     * @return 64 for a binary tree (doubles), or the bits of the quantized bounds of the compressed tree.
+     */
+    public int getBits() {
+        return _compressed == null ? 64 : _compressed.getBits();
+    }
+
+    /**
+     * Getter of the memory of the nodes (the objects are not counted).
+     * @return the number of bytes of the arrays of the nodes.
+     */
+    @Override
+    public long getMemory() {
+        return _compressed == null ? 8L * _bounds.length + 4L * _links.length : _compressed.getMemory();
+    }
+
+    /**
+     * To refit the boxes of the nodes to the current boxes of the objects, from the leaves to the root
+     * (from the last node to the first one : the children of a node follow it), without changing the tree.
+     * An object whose box became infinite is kept in its leaf, which gets an infinite box :
+     * it is then tested by every ray reaching its leaf.
+     */
+    @Override
+    public void refit() {
+        if (_compressed != null) {
+            _compressed.refit(_primitives);
+            return;
+        }
+        for (int node = _nodes - 1; node >= 0; node--) {
+            int b = 6 * node;
+            int count = _links[2 * node + 1];
+            if (count == 0) {
+                int left = 6 * (node + 1), right = 6 * _links[2 * node];
+                for (int axis = 0; axis < 3; axis++) {
+                    _bounds[b + axis] = Math.min(_bounds[left + axis], _bounds[right + axis]);
+                    _bounds[b + axis + 3] = Math.max(_bounds[left + axis + 3], _bounds[right + axis + 3]);
+                }
+                continue;
+            }
+            BoundingBox box = BoundingBox.EMPTY;
+            for (int k = _links[2 * node]; k < _links[2 * node] + count; k++) {
+                box = box.union(_primitives[k].getBoundingBox());
+            }
+            _bounds[b] = box._minX;
+            _bounds[b + 1] = box._minY;
+            _bounds[b + 2] = box._minZ;
+            _bounds[b + 3] = box._maxX;
+            _bounds[b + 4] = box._maxY;
+            _bounds[b + 5] = box._maxZ;
+        }
+    }
+
+    /**
+     * Getter of the number of nodes of the tree.
+     * @return the number of nodes (of the compressed tree, if it is compressed).
+     */
+    public int getNodes() {
+        return _compressed == null ? _nodes : _compressed.getNodes();
+    }
+
+    /**
+     * To return the list of the intersection GeoPoints between a ray and the objects of the hierarchy :
+     * the objects of the leaves whose boxes (and the boxes of their ancestors) the ray crosses,
+     * and the unbounded objects.
+     * @param ray the Ray object to find the intersections between it and the objects.
+     * @return List<GeoPoint> of the intersection GeoPoints (null if there is none).
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        List<GeoPoint> result = null;
+        for (Intersectable object : _unbounded) {
+            result = addIntersections(result, object, ray);
+        }
+        if (_nodes == 0) {
+            return result;
+        }
+        if (_compressed != null) {
+            return _compressed.findGeoIntersections(ray, _primitives, result);
+        }
+
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        double oX = p0.getX(), oY = p0.getY(), oZ = p0.getZ();
+        double iX = 1 / dir.getX(), iY = 1 / dir.getY(), iZ = 1 / dir.getZ();
+
+        Stacks stacks = STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (!crosses(_bounds, 6 * node, oX, oY, oZ, iX, iY, iZ)) {
+                    continue;
+                }
+                int count = _links[2 * node + 1];
+                if (count > 0) {
+                    int first = _links[2 * node];
+                    for (int k = first; k < first + count; k++) {
+                        result = addIntersections(result, _primitives[k], ray);
+                    }
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = stacks.grow(stack);
+                    }
+                    stack[top++] = _links[2 * node];
+                    stack[top++] = node + 1;
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        return result;
+    }
+
+    /**
+     * Helper method : to add the intersections of a ray with an object to a list.
+     * @param result the list (null if it is empty).
+     * @param object the object.
+     * @param ray    the ray.
+     * @return the list (null if it is still empty).
+     */
+    static List<GeoPoint> addIntersections(List<GeoPoint> result, Intersectable object, Ray ray) {
+        List<GeoPoint> objectList = object.findGeoIntersections(ray);
+        if (objectList != null) {
+            if (result == null) {
+                result = new LinkedList<>();
+            }
+            result.addAll(objectList);
+        }
+        return result;
+    }
+
+    /**
+     * To check if a ray (a half-line) crosses the box of a node, by the slab method.
+     * @param bounds the bounds of the nodes.
+     * @param b      the index of the bounds of the node.
+     * @param oX     the X coordinate of the origin of the ray (and oY, oZ).
+     * @param iX     the inverse of the X coordinate of the direction of the ray (and iY, iZ).
+     * @return true if the ray crosses the box.
+     */
+    private static boolean crosses(double[] bounds, int b,
+                                   double oX, double oY, double oZ, double iX, double iY, double iZ) {
+        return crosses(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                oX, oY, oZ, iX, iY, iZ);
+    }
+
+    /**
+     * To check if a ray (a half-line) crosses a box, by the slab method.
+     * A NaN bound (an unbounded slab, or a ray parallel to the slab and on its bound) does not restrict the ray.
+     * @param minX the minimal X of the box (and minY, minZ, maxX, maxY, maxZ).
+     * @param oX   the X coordinate of the origin of the ray (and oY, oZ).
+     * @param iX   the inverse of the X coordinate of the direction of the ray (and iY, iZ).
+     * @return true if the ray crosses the box.
+     */
+    static boolean crosses(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                           double oX, double oY, double oZ, double iX, double iY, double iZ) {
+        double near = 0;
+        double far = Double.POSITIVE_INFINITY;
+        // the far bounds are widened by a relative epsilon, for the rounding errors on flat boxes
+        double t1 = (minX - oX) * iX, t2 = (maxX - oX) * iX;
+        if (!Double.isNaN(t1) && !Double.isNaN(t2)) {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2) * (1 + EPSILON));
+        }
+        t1 = (minY - oY) * iY;
+        t2 = (maxY - oY) * iY;
+        if (!Double.isNaN(t1) && !Double.isNaN(t2)) {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2) * (1 + EPSILON));
+        }
+        t1 = (minZ - oZ) * iZ;
+        t2 = (maxZ - oZ) * iZ;
+        if (!Double.isNaN(t1) && !Double.isNaN(t2)) {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2) * (1 + EPSILON));
+        }
+        return near <= far;
+    }
+
+    /**
+     * To find the box containing all the objects.
+     * @return the union of the box of the root and of the boxes of the unbounded objects.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = _nodes == 0 ? BoundingBox.EMPTY
+                : _compressed != null ? _compressed.getBoundingBox()
+                : new BoundingBox(_bounds[0], _bounds[1], _bounds[2], _bounds[3], _bounds[4], _bounds[5]);
+        for (Intersectable object : _unbounded) {
+            box = box.union(object.getBoundingBox());
+        }
+        return box;
+    }
+
+    @Override
+    public String toString() {
+        int nodes = getNodes();
+        return "BVH{build=" + _build +
+                ", width=" + getWidth() +
+                ", bits=" + getBits() +
+                ", nodes=" + nodes +
+                ", bytesPerNode=" + (nodes == 0 ? 0 : getMemory() / nodes) +
+                '}';
+    }
+}
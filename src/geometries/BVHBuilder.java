@@ -0,0 +1,542 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Class BVHBuilder, helper class of BVH : builds the tree over the bounded objects, in parallel
+ * (the subtrees of more than PARALLEL_THRESHOLD objects are built by tasks of the common fork-join pool).
+ * The objects are referred to by their indices in _objects; their boxes and the centers of their boxes
+ * are kept in arrays of doubles, and each subtree reorders in place its range of _order :
+ * the objects of a leaf are a range of _order.
+ * The tree of Node objects of the build is then flattened (see flatten) into the arrays of BVH,
+ * in depth-first order.
+ * The modes (see BVH.Build) :
+ * - MEDIAN : the objects of a node are divided into two halves on the longest axis of their centers.
+ * - SAH : the division of the objects minimizing the surface area heuristic (the expected cost of a ray
+ * crossing the node, proportional to the area of the box of each child times its number of objects),
+ * among the BINS - 1 planes dividing the centers on each axis into bins.
+ * - LBVH : the objects are sorted once by the Morton code of their centers (the interleaved bits of the
+ * quantized coordinates, so that close objects have close codes), and each node is divided where
+ * the highest bit of the codes of its objects changes : no geometric computation per node.
+ */
+class BVHBuilder {
+    /**
+     * The subtrees with more objects are built by their own tasks.
+     */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * Number of bins per axis of the SAH mode.
+     */
+    private static final int BINS = 16;
+
+    /**
+     * Cost of the traversal of a node, relative to the cost of the intersection of an object.
+     */
+    private static final double TRAVERSAL_COST = 1;
+
+    /**
+     * Number of bits of each coordinate in the Morton codes.
+     */
+    private static final int MORTON_BITS = 10;
+
+    private final Intersectable[] _objects;
+    private final double[] _boxes;      // minX, minY, minZ, maxX, maxY, maxZ of each object
+    private final double[] _centers;    // x, y, z of the center of the box of each object
+    private final int[] _order;
+    private final BVH.Build _build;
+    private final int _leafSize;
+    private final AtomicInteger _nodes = new AtomicInteger();
+    private Node _root;
+    private int[] _codes;               // the Morton codes, in the order of _order (LBVH)
+
+    /**
+     * BVHBuilder constructor.
+     * @param objects  the bounded objects.
+     * @param boxes    their boxes.
+     * @param build    the mode of the build.
+     * @param leafSize the maximal number of objects in a leaf.
+     */
+    BVHBuilder(Intersectable[] objects, BoundingBox[] boxes, BVH.Build build, int leafSize) {
+        this(objects, toArray(boxes), build, leafSize);
+    }
+
+    /**
+     * BVHBuilder constructor, for objects which are not Intersectable objects (as the triangles of a mesh) :
+     * the objects are their indices (see getOrder).
+     * @param boxes    the boxes of the objects (6 per object : minX, minY, minZ, maxX, maxY, maxZ),
+     *                 kept by the builder.
+     * @param build    the mode of the build.
+     * @param leafSize the maximal number of objects in a leaf.
+     */
+    BVHBuilder(double[] boxes, BVH.Build build, int leafSize) {
+        this(null, boxes, build, leafSize);
+    }
+
+    /**
+     * BVHBuilder constructor.
+     * @param objects  the bounded objects (null : the objects are their indices).
+     * @param boxes    their boxes (6 per object).
+     * @param build    the mode of the build.
+     * @param leafSize the maximal number of objects in a leaf.
+     */
+    private BVHBuilder(Intersectable[] objects, double[] boxes, BVH.Build build, int leafSize) {
+        int n = boxes.length / 6;
+        _objects = objects;
+        _build = build;
+        _leafSize = leafSize;
+        _boxes = boxes;
+        _centers = new double[3 * n];
+        _order = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int axis = 0; axis < 3; axis++) {
+                _centers[3 * i + axis] = (_boxes[6 * i + axis] + _boxes[6 * i + axis + 3]) / 2;
+            }
+            _order[i] = i;
+        });
+    }
+
+    /**
+     * Helper method : the bounds of boxes in an array.
+     * @param boxes the boxes.
+     * @return their bounds (6 per box).
+     */
+    private static double[] toArray(BoundingBox[] boxes) {
+        double[] array = new double[6 * boxes.length];
+        IntStream.range(0, boxes.length).parallel().forEach(i -> {
+            BoundingBox box = boxes[i];
+            array[6 * i] = box._minX;
+            array[6 * i + 1] = box._minY;
+            array[6 * i + 2] = box._minZ;
+            array[6 * i + 3] = box._maxX;
+            array[6 * i + 4] = box._maxY;
+            array[6 * i + 5] = box._maxZ;
+        });
+        return array;
+    }
+
+    /**
+     * Class Node, a node of the tree being built : its box, and its two children or its range of _order
+     * (for a leaf).
+     */
+    private static class Node {
+        final double[] _bounds = new double[6];
+        Node _left;
+        Node _right;
+        int _first;
+        int _count;
+    }
+
+    /**
+     * To build the tree (see flatten to get it).
+     */
+    void build() {
+        if (_order.length == 0) {
+            return;
+        }
+        if (_build == BVH.Build.LBVH) {
+            sortByMortonCode();
+        }
+        _root = ForkJoinPool.commonPool().invoke(new BuildTask(0, _order.length));
+    }
+
+    /**
+     * Getter of the number of nodes built.
+     * @return the number of nodes.
+     */
+    int getNodes() {
+        return _nodes.get();
+    }
+
+    /**
+     * To flatten the tree into arrays, in depth-first order : the first child of a node follows it.
+     * @param bounds     the bounds of the nodes (6 per node : minX, minY, minZ, maxX, maxY, maxZ).
+     * @param links      2 per node : the index of the second child and 0 for an inner node,
+     *                   the index of the first object and the number of objects for a leaf.
+     * @param primitives the objects, in the order of the leaves.
+     */
+    void flatten(double[] bounds, int[] links, Intersectable[] primitives) {
+        for (int k = 0; k < _order.length; k++) {
+            primitives[k] = _objects[_order[k]];
+        }
+        if (_root != null) {
+            flatten(_root, 0, bounds, links);
+        }
+    }
+
+    /**
+     * To flatten the tree into arrays, for objects which are their indices (see flatten above).
+     * @param bounds the bounds of the nodes.
+     * @param links  the links of the nodes.
+     */
+    void flatten(double[] bounds, int[] links) {
+        if (_root != null) {
+            flatten(_root, 0, bounds, links);
+        }
+    }
+
+    /**
+     * Getter of _order.
+     * @return the indices of the objects, in the order of the leaves (after the build).
+     */
+    int[] getOrder() {
+        return _order;
+    }
+
+    /**
+     * To flatten a subtree (recursively).
+     * @param node   the root of the subtree.
+     * @param index  the index of the root in the arrays.
+     * @param bounds the bounds of the nodes.
+     * @param links  the links of the nodes.
+     * @return the index after the last node of the subtree.
+     */
+    private static int flatten(Node node, int index, double[] bounds, int[] links) {
+        System.arraycopy(node._bounds, 0, bounds, 6 * index, 6);
+        if (node._left == null) {
+            links[2 * index] = node._first;
+            links[2 * index + 1] = node._count;
+            return index + 1;
+        }
+        int second = flatten(node._left, index + 1, bounds, links);
+        links[2 * index] = second;
+        links[2 * index + 1] = 0;
+        return flatten(node._right, second, bounds, links);
+    }
+
+    /**
+     * Class BuildTask, the task building a subtree.
+     */
+    private class BuildTask extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final int _lo;
+        private final int _hi;
+
+        /**
+         * BuildTask constructor.
+         * @param lo the first index of the range of _order of the subtree.
+         * @param hi the index after the last one.
+         */
+        BuildTask(int lo, int hi) {
+            _lo = lo;
+            _hi = hi;
+        }
+
+        @Override
+        protected Node compute() {
+            return buildNode(_lo, _hi);
+        }
+    }
+
+    /**
+     * To build a subtree (recursively, forking the big subtrees).
+     * @param lo the first index of the range of _order of the subtree.
+     * @param hi the index after the last one.
+     * @return the root of the subtree.
+     */
+    private Node buildNode(int lo, int hi) {
+        Node node = new Node();
+        _nodes.incrementAndGet();
+        int mid = hi - lo <= _leafSize ? -1 : split(lo, hi);
+        if (mid < 0) {
+            node._first = lo;
+            node._count = hi - lo;
+            Arrays.fill(node._bounds, 0, 3, Double.POSITIVE_INFINITY);
+            Arrays.fill(node._bounds, 3, 6, Double.NEGATIVE_INFINITY);
+            for (int k = lo; k < hi; k++) {
+                int i = _order[k];
+                for (int axis = 0; axis < 3; axis++) {
+                    node._bounds[axis] = Math.min(node._bounds[axis], _boxes[6 * i + axis]);
+                    node._bounds[axis + 3] = Math.max(node._bounds[axis + 3], _boxes[6 * i + axis + 3]);
+                }
+            }
+            return node;
+        }
+
+        if (hi - lo > PARALLEL_THRESHOLD) {
+            BuildTask left = new BuildTask(lo, mid);
+            left.fork();
+            node._right = buildNode(mid, hi);
+            node._left = left.join();
+        } else {
+            node._left = buildNode(lo, mid);
+            node._right = buildNode(mid, hi);
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            node._bounds[axis] = Math.min(node._left._bounds[axis], node._right._bounds[axis]);
+            node._bounds[axis + 3] = Math.max(node._left._bounds[axis + 3], node._right._bounds[axis + 3]);
+        }
+        return node;
+    }
+
+    /**
+     * To divide the objects of a node (reordering its range of _order).
+     * @param lo the first index of the range of _order of the node.
+     * @param hi the index after the last one.
+     * @return the index of the first object of the second child, or -1 to make the node a leaf.
+     */
+    private int split(int lo, int hi) {
+        switch (_build) {
+            case LBVH:
+                return splitMorton(lo, hi);
+            case SAH:
+                return splitSah(lo, hi);
+            default:
+                return splitMedian(lo, hi, longestAxis(centerBounds(lo, hi)));
+        }
+    }
+
+    /**
+     * To find the bounds of the centers of the objects of a range.
+     * @param lo the first index of the range of _order.
+     * @param hi the index after the last one.
+     * @return minX, minY, minZ, maxX, maxY, maxZ of the centers.
+     */
+    private double[] centerBounds(int lo, int hi) {
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int k = lo; k < hi; k++) {
+            int i = _order[k];
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[axis] = Math.min(bounds[axis], _centers[3 * i + axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], _centers[3 * i + axis]);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * To find the longest axis of bounds.
+     * @param bounds minX, minY, minZ, maxX, maxY, maxZ.
+     * @return 0, 1 or 2 for X, Y or Z.
+     */
+    private static int longestAxis(double[] bounds) {
+        double dx = bounds[3] - bounds[0], dy = bounds[4] - bounds[1], dz = bounds[5] - bounds[2];
+        return dx >= dy && dx >= dz ? 0 : dy >= dz ? 1 : 2;
+    }
+
+    /**
+     * To divide a range into two halves on an axis : the objects of the first half have the smallest centers
+     * (selection by quickselect, without sorting the halves).
+     * @param lo   the first index of the range of _order.
+     * @param hi   the index after the last one.
+     * @param axis the axis.
+     * @return the middle of the range.
+     */
+    private int splitMedian(int lo, int hi, int axis) {
+        int mid = (lo + hi) >>> 1;
+        int left = lo, right = hi - 1;
+        while (left < right) {
+            double pivot = _centers[3 * _order[(left + right) >>> 1] + axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (_centers[3 * _order[i] + axis] < pivot) {
+                    i++;
+                }
+                while (_centers[3 * _order[j] + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = _order[i];
+                    _order[i++] = _order[j];
+                    _order[j--] = swap;
+                }
+            }
+            if (mid <= j) {
+                right = j;
+            } else if (mid >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+        return mid;
+    }
+
+    /**
+     * To divide a range by the binned surface area heuristic.
+     * @param lo the first index of the range of _order.
+     * @param hi the index after the last one.
+     * @return the index of the first object of the second child, or -1 if a leaf is cheaper.
+     */
+    private int splitSah(int lo, int hi) {
+        double[] centers = centerBounds(lo, hi);
+        int n = hi - lo;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = -1;
+        double nodeArea = 0;
+        int[] counts = new int[BINS];
+        double[] bins = new double[6 * BINS];
+        double[] rightAreas = new double[BINS];
+
+        for (int axis = 0; axis < 3; axis++) {
+            double min = centers[axis], extent = centers[axis + 3] - min;
+            if (extent <= 0) {
+                continue;
+            }
+            double scale = BINS / extent;
+            Arrays.fill(counts, 0);
+            for (int b = 0; b < BINS; b++) {
+                Arrays.fill(bins, 6 * b, 6 * b + 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(bins, 6 * b + 3, 6 * b + 6, Double.NEGATIVE_INFINITY);
+            }
+            for (int k = lo; k < hi; k++) {
+                int i = _order[k];
+                int b = Math.min(BINS - 1, (int) ((_centers[3 * i + axis] - min) * scale));
+                counts[b]++;
+                for (int c = 0; c < 3; c++) {
+                    bins[6 * b + c] = Math.min(bins[6 * b + c], _boxes[6 * i + c]);
+                    bins[6 * b + c + 3] = Math.max(bins[6 * b + c + 3], _boxes[6 * i + c + 3]);
+                }
+            }
+            // sweeping from the right, then from the left
+            double[] box = emptyBox();
+            for (int b = BINS - 1; b > 0; b--) {
+                grow(box, bins, b);
+                rightAreas[b] = area(box);
+            }
+            box = emptyBox();
+            int leftCount = 0;
+            for (int b = 0; b < BINS - 1; b++) {
+                grow(box, bins, b);
+                leftCount += counts[b];
+                if (leftCount == 0 || leftCount == n) {
+                    continue;
+                }
+                double cost = area(box) * leftCount + rightAreas[b + 1] * (n - leftCount);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+            grow(box, bins, BINS - 1);
+            nodeArea = area(box);
+        }
+
+        if (bestAxis < 0) {
+            // all the centers are at the same place (or in the same bin)
+            return n > 4 * _leafSize ? (lo + hi) >>> 1 : -1;
+        }
+        double splitCost = TRAVERSAL_COST + (nodeArea > 0 ? bestCost / nodeArea : n);
+        if (n <= 4 * _leafSize && splitCost >= n) {
+            return -1;
+        }
+
+        // partitioning the range by the bin of the centers
+        double min = centers[bestAxis], scale = BINS / (centers[bestAxis + 3] - min);
+        int i = lo, j = hi - 1;
+        while (i <= j) {
+            int b = Math.min(BINS - 1, (int) ((_centers[3 * _order[i] + bestAxis] - min) * scale));
+            if (b <= bestBin) {
+                i++;
+            } else {
+                int swap = _order[i];
+                _order[i] = _order[j];
+                _order[j--] = swap;
+            }
+        }
+        return i == lo || i == hi ? splitMedian(lo, hi, bestAxis) : i;
+    }
+
+    /**
+     * Helper method : an empty box.
+     * @return the bounds of the empty box.
+     */
+    private static double[] emptyBox() {
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    /**
+     * Helper method : to grow a box to contain a bin.
+     * @param box  the bounds of the box.
+     * @param bins the bounds of the bins.
+     * @param b    the index of the bin.
+     */
+    private static void grow(double[] box, double[] bins, int b) {
+        for (int c = 0; c < 3; c++) {
+            box[c] = Math.min(box[c], bins[6 * b + c]);
+            box[c + 3] = Math.max(box[c + 3], bins[6 * b + c + 3]);
+        }
+    }
+
+    /**
+     * Helper method : the half of the area of the surface of a box.
+     * @param box the bounds of the box.
+     * @return the half area (0 if the box is empty).
+     */
+    private static double area(double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return dx < 0 || dy < 0 || dz < 0 ? 0 : dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * To sort the objects by the Morton codes of their centers (in parallel).
+     */
+    private void sortByMortonCode() {
+        int n = _order.length;
+        double[] bounds = centerBounds(0, n);
+        double cells = (1 << MORTON_BITS) - 1;
+        long[] keys = new long[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int code = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                double extent = bounds[axis + 3] - bounds[axis];
+                int cell = extent > 0 ? (int) ((_centers[3 * i + axis] - bounds[axis]) / extent * cells) : 0;
+                code |= spread(cell) << (2 - axis);
+            }
+            keys[i] = (long) code << 32 | i;
+        });
+        Arrays.parallelSort(keys);
+        _codes = new int[n];
+        for (int k = 0; k < n; k++) {
+            _order[k] = (int) keys[k];
+            _codes[k] = (int) (keys[k] >>> 32);
+        }
+    }
+
+    /**
+     * Helper method : to spread the bits of a 10-bit integer, two zeros between two bits.
+     * @param value the integer.
+     * @return the spread bits.
+     */
+    private static int spread(int value) {
+        value &= 0x3FF;
+        value = (value | value << 16) & 0x030000FF;
+        value = (value | value << 8) & 0x0300F00F;
+        value = (value | value << 4) & 0x030C30C3;
+        value = (value | value << 2) & 0x09249249;
+        return value;
+    }
+
+    /**
+     * To divide a range sorted by Morton codes where the highest bit of the codes changes.
+     * @param lo the first index of the range of _order.
+     * @param hi the index after the last one.
+     * @return the index of the first object of the second child.
+     */
+    private int splitMorton(int lo, int hi) {
+        int first = _codes[lo], last = _codes[hi - 1];
+        if (first == last) {
+            return (lo + hi) >>> 1;     // the same cell : divided by count
+        }
+        int prefix = Integer.numberOfLeadingZeros(first ^ last);
+        // binary search of the last code with the same prefix as the first one
+        int split = lo;
+        int step = hi - 1 - lo;
+        do {
+            step = (step + 1) >>> 1;
+            int next = split + step;
+            if (next < hi - 1 && Integer.numberOfLeadingZeros(first ^ _codes[next]) > prefix) {
+                split = next;
+            }
+        } while (step > 1);
+        return split + 1;
+    }
+}
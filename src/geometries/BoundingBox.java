@@ -0,0 +1,178 @@
+package geometries;
+
+import primitives.Point3D;
+import primitives.Transform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class BoundingBox, an axis-aligned box containing a geometry (or a group of geometries).
+ * An unbounded geometry (as a plane or a tube) has the infinite box INFINITE.
+ * Immutable.
+ */
+public class BoundingBox {
+    /**
+     * The box of the unbounded geometries.
+     */
+    public static final BoundingBox INFINITE = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /**
+     * The empty box (of an empty group), neutral for union.
+     */
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    final double _minX, _minY, _minZ;
+    final double _maxX, _maxY, _maxZ;
+
+    /**
+     * BoundingBox constructor, receiving the bounds on each axis.
+     * @param minX the minimal x.
+     * @param minY the minimal y.
+     * @param minZ the minimal z.
+     * @param maxX the maximal x.
+     * @param maxY the maximal y.
+     * @param maxZ the maximal z.
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        _minX = minX;
+        _minY = minY;
+        _minZ = minZ;
+        _maxX = maxX;
+        _maxY = maxY;
+        _maxZ = maxZ;
+    }
+
+    /**
+     * To build the smallest box containing points.
+     * @param points the points.
+     * @return the box of the points.
+     */
+    public static BoundingBox of(List<Point3D> points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point3D point : points) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            minZ = Math.min(minZ, point.getZ());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+            maxZ = Math.max(maxZ, point.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * To build the smallest box containing this and other.
+     * @param other the other box.
+     * @return the union of the boxes.
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(_minX, other._minX), Math.min(_minY, other._minY),
+                Math.min(_minZ, other._minZ), Math.max(_maxX, other._maxX), Math.max(_maxY, other._maxY),
+                Math.max(_maxZ, other._maxZ));
+    }
+
+    /**
+     * To find the box containing this box, transformed.
+     * @param transform the transform.
+     * @return the box of the transformed corners (the same box if it is infinite or empty).
+     */
+    public BoundingBox transform(Transform transform) {
+        if (isInfinite() || isEmpty()) {
+            return this;
+        }
+        List<Point3D> corners = new ArrayList<>(8);
+        for (Point3D corner : getCorners()) {
+            corners.add(transform.apply(corner));
+        }
+        return of(corners);
+    }
+
+    /**
+     * To check if the box is unbounded (on any axis).
+     * @return true if a bound is infinite.
+     */
+    public boolean isInfinite() {
+        return Double.isInfinite(_minX) || Double.isInfinite(_minY) || Double.isInfinite(_minZ)
+                || Double.isInfinite(_maxX) || Double.isInfinite(_maxY) || Double.isInfinite(_maxZ);
+    }
+
+    /**
+     * To check if the box is empty.
+     * @return true if it contains no point.
+     */
+    public boolean isEmpty() {
+        return _minX > _maxX || _minY > _maxY || _minZ > _maxZ;
+    }
+
+    /**
+     * To find the 8 corners of a bounded box.
+     * @return the corners.
+     * @throws IllegalStateException if the box is infinite or empty.
+     */
+    public List<Point3D> getCorners() {
+        if (isInfinite() || isEmpty()) {
+            throw new IllegalStateException("an infinite or empty box has no corners");
+        }
+        return List.of(new Point3D(_minX, _minY, _minZ), new Point3D(_maxX, _minY, _minZ),
+                new Point3D(_minX, _maxY, _minZ), new Point3D(_maxX, _maxY, _minZ),
+                new Point3D(_minX, _minY, _maxZ), new Point3D(_maxX, _minY, _maxZ),
+                new Point3D(_minX, _maxY, _maxZ), new Point3D(_maxX, _maxY, _maxZ));
+    }
+
+    /**
+     * To find the length of the diagonal of the box.
+     * @return the diagonal (0 if the box is empty).
+     */
+    public double getDiagonal() {
+        if (isEmpty()) {
+            return 0;
+        }
+        double dx = _maxX - _minX, dy = _maxY - _minY, dz = _maxZ - _minZ;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Getter of the minimal corner.
+     * @return the point (minX, minY, minZ).
+     */
+    public Point3D getMin() {
+        return new Point3D(_minX, _minY, _minZ);
+    }
+
+    /**
+     * Getter of the maximal corner.
+     * @return the point (maxX, maxY, maxZ).
+     */
+    public Point3D getMax() {
+        return new Point3D(_maxX, _maxY, _maxZ);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BoundingBox)) return false;
+        BoundingBox box = (BoundingBox) o;
+        return _minX == box._minX && _minY == box._minY && _minZ == box._minZ
+                && _maxX == box._maxX && _maxY == box._maxY && _maxZ == box._maxZ;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new double[]{_minX, _minY, _minZ, _maxX, _maxY, _maxZ});
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" +
+                "min=(" + _minX + ", " + _minY + ", " + _minZ + ")" +
+                ", max=(" + _maxX + ", " + _maxY + ", " + _maxZ + ")" +
+                '}';
+    }
+}
@@ -0,0 +1,433 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point3D;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class CompressedNodes, the compressed form of the tree of a BVH (see BVH.compress) :
+ * a wide tree (4 or 8 children per node, collapsed from the binary tree by replacing the child
+ * with the largest box by its two children), whose nodes store the boxes of their children
+ * quantized to 8 or 16 bits relative to the box of the node.
+ * For each node :
+ * - its frame : the origin and the scale on each axis (6 floats), such that
+ * origin + q * scale is a bound of a child, for q between 0 and 2^bits - 1;
+ * - the quantized bounds of its children (6 per child, 1 or 2 bytes each), rounded outwards,
+ * so that a decoded box contains the exact box of the child;
+ * - its children (1 int per child) : the index of an inner node, or -(1 + (first << 5 | count))
+ * for a leaf (its objects are a range of the objects of the BVH), or EMPTY for an unused child.
+ * An axis of a frame on which a child box is infinite (after a refit) has a NaN origin and scale :
+ * the decoded bounds are NaN, and do not restrict the rays on that axis.
+ * The bounds are decoded on the fly during the traversal.
+ */
+class CompressedNodes {
+    /**
+     * The child of an unused slot.
+     */
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    /**
+     * Maximal number of objects of a leaf, and of the index of its first object.
+     */
+    private static final int MAX_COUNT = 31;
+
+    /**
+     * A subtree of the binary tree with at most MERGED_LEAF objects becomes a leaf (its objects are a range) :
+     * else the small subtrees left at the bottom of the tree would become nodes with few children.
+     */
+    private static final int MERGED_LEAF = 4;
+    static final int MAX_OBJECTS = 1 << 26;
+
+    private final int _width;
+    private final int _bits;
+    private final int _max;         // 2^bits - 1
+    private final int _bytes;       // bytes per quantized bound
+    private int _nodes = 0;
+    private float[] _frames;
+    private byte[] _quantized;
+    private int[] _children;
+
+    /**
+     * CompressedNodes constructor : compresses a binary tree (see BVH for its arrays).
+     * @param bounds the bounds of the nodes of the binary tree.
+     * @param links  the links of the nodes of the binary tree.
+     * @param nodes  the number of nodes of the binary tree (at least 1).
+     * @param width  the number of children of a node (4 or 8).
+     * @param bits   the number of bits of a quantized bound (8 or 16).
+     */
+    CompressedNodes(double[] bounds, int[] links, int nodes, int width, int bits) {
+        _width = width;
+        _bits = bits;
+        _max = (1 << bits) - 1;
+        _bytes = bits / 8;
+        // each node but the root replaces at least one inner node of the binary tree
+        int capacity = nodes / 2 + 1;
+        _frames = new float[6 * capacity];
+        _quantized = new byte[6 * _bytes * width * capacity];
+        _children = new int[width * capacity];
+        // the number of leaves of the subtree of each node of the binary tree (its children follow it)
+        int[] leaves = new int[nodes];
+        for (int binary = nodes - 1; binary >= 0; binary--) {
+            leaves[binary] = links[2 * binary + 1] > 0 ? 1 : leaves[binary + 1] + leaves[links[2 * binary]];
+        }
+        collapse(bounds, links, leaves, 0);
+        _frames = Arrays.copyOf(_frames, 6 * _nodes);
+        _quantized = Arrays.copyOf(_quantized, 6 * _bytes * width * _nodes);
+        _children = Arrays.copyOf(_children, width * _nodes);
+    }
+
+    /**
+     * Getter of the number of nodes.
+     * @return the number of nodes.
+     */
+    int getNodes() {
+        return _nodes;
+    }
+
+    /**
+     * Getter of _width.
+     * @return the number of children of a node.
+     */
+    int getWidth() {
+        return _width;
+    }
+
+    /**
+     * Getter of _bits.
+     * @return the number of bits of a quantized bound.
+     */
+    int getBits() {
+        return _bits;
+    }
+
+    /**
+     * Getter of the memory of the nodes.
+     * @return the number of bytes of the frames, of the quantized bounds and of the children.
+     */
+    long getMemory() {
+        return 4L * _frames.length + _quantized.length + 4L * _children.length;
+    }
+
+    /**
+     * To collapse a subtree of the binary tree into a node (recursively, in depth-first order).
+     * @param bounds the bounds of the nodes of the binary tree.
+     * @param links  the links of the nodes of the binary tree.
+     * @param leaves the number of leaves of the subtree of each node of the binary tree.
+     * @param binary the root of the subtree in the binary tree.
+     * @return the index of the node.
+     */
+    private int collapse(double[] bounds, int[] links, int[] leaves, int binary) {
+        int node = _nodes++;
+        int[] slots = new int[_width];
+        int count;
+        if (objects(links, binary) > 0) {
+            slots[0] = binary;      // a leaf root
+            count = 1;
+        } else {
+            slots[0] = binary + 1;
+            slots[1] = links[2 * binary];
+            count = 2;
+        }
+        // replacing the inner child with the largest box by its two children, while there are free slots
+        // (or first an inner child whose leaves fit in the free slots : else it would become a node
+        // with few children)
+        while (count < _width) {
+            int best = -1;
+            double bestArea = -1;
+            int bestLeaves = 0;
+            for (int s = 0; s < count; s++) {
+                if (objects(links, slots[s]) > 0) {
+                    continue;
+                }
+                int subtree = leaves[slots[s]];
+                boolean fits = subtree <= _width - count + 1;
+                double area = area(bounds, slots[s]);
+                if (fits ? subtree > bestLeaves || subtree == bestLeaves && area > bestArea
+                        : bestLeaves == 0 && area > bestArea) {
+                    best = s;
+                    bestArea = area;
+                    bestLeaves = fits ? subtree : 0;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            int inner = slots[best];
+            slots[best] = inner + 1;
+            slots[count++] = links[2 * inner];
+        }
+
+        double[] boxes = new double[6 * _width];
+        for (int s = 0; s < _width; s++) {
+            if (s < count) {
+                System.arraycopy(bounds, 6 * slots[s], boxes, 6 * s, 6);
+            }
+        }
+        for (int s = 0; s < _width; s++) {
+            int child = EMPTY;
+            if (s < count) {
+                int slot = slots[s];
+                int objects = objects(links, slot);
+                child = objects > 0 ? leaf(first(links, slot), objects) : collapse(bounds, links, leaves, slot);
+            }
+            _children[_width * node + s] = child;
+        }
+        encode(node, boxes);
+        return node;
+    }
+
+    /**
+     * Helper method : the number of objects of a node of the binary tree, if it becomes a leaf.
+     * @param links  the links of the nodes of the binary tree.
+     * @param binary the node.
+     * @return the number of objects of its subtree if it is a leaf or a small subtree (see MERGED_LEAF),
+     * else 0.
+     */
+    private static int objects(int[] links, int binary) {
+        if (links[2 * binary + 1] > 0) {
+            return links[2 * binary + 1];
+        }
+        int last = binary;
+        while (links[2 * last + 1] == 0) {
+            last = links[2 * last];     // the second child
+        }
+        int count = links[2 * last] + links[2 * last + 1] - first(links, binary);
+        return count <= MERGED_LEAF ? count : 0;
+    }
+
+    /**
+     * Helper method : the index of the first object of a subtree of the binary tree.
+     * @param links  the links of the nodes of the binary tree.
+     * @param binary the root of the subtree.
+     * @return the index of the first object of its first leaf.
+     */
+    private static int first(int[] links, int binary) {
+        while (links[2 * binary + 1] == 0) {
+            binary++;                   // the first child
+        }
+        return links[2 * binary];
+    }
+
+    /**
+     * Helper method : the half of the area of the surface of the box of a node of the binary tree.
+     * @param bounds the bounds of the nodes of the binary tree.
+     * @param binary the node.
+     * @return the half area.
+     */
+    private static double area(double[] bounds, int binary) {
+        int b = 6 * binary;
+        double dx = bounds[b + 3] - bounds[b], dy = bounds[b + 4] - bounds[b + 1], dz = bounds[b + 5] - bounds[b + 2];
+        return dx * dy + dy * dz + dz * dx;
+    }
+
+    /**
+     * Helper method : the child of a leaf.
+     * @param first the index of its first object.
+     * @param count its number of objects.
+     * @return the encoded child.
+     */
+    private static int leaf(int first, int count) {
+        if (count > MAX_COUNT) {
+            throw new IllegalArgumentException("a leaf of a compressed hierarchy has at most 31 objects");
+        }
+        return -(1 + (first << 5 | count));
+    }
+
+    /**
+     * To set the frame of a node and the quantized bounds of its children.
+     * @param node  the node.
+     * @param boxes the exact bounds of its children (6 per child, ignored for the unused slots).
+     */
+    private void encode(int node, double[] boxes) {
+        for (int axis = 0; axis < 3; axis++) {
+            double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+            for (int s = 0; s < _width; s++) {
+                if (_children[_width * node + s] != EMPTY) {
+                    lo = Math.min(lo, boxes[6 * s + axis]);
+                    hi = Math.max(hi, boxes[6 * s + axis + 3]);
+                }
+            }
+            float origin = Float.NaN, scale = Float.NaN;
+            if (Double.isFinite(lo) && Double.isFinite(hi)) {
+                origin = (float) lo;
+                if (origin > lo) {
+                    origin = Math.nextDown(origin);
+                }
+                scale = (float) ((hi - origin) / _max);
+                while ((double) origin + _max * (double) scale < hi) {
+                    scale = Math.nextUp(scale);
+                }
+            }
+            _frames[6 * node + axis] = origin;
+            _frames[6 * node + axis + 3] = scale;
+
+            for (int s = 0; s < _width; s++) {
+                int q = 6 * (_width * node + s) + axis;
+                int low = 0, high = _max;
+                if (!Float.isNaN(origin) && scale > 0 && _children[_width * node + s] != EMPTY) {
+                    double childLo = boxes[6 * s + axis], childHi = boxes[6 * s + axis + 3];
+                    low = (int) Math.max(0, Math.min(_max, Math.floor((childLo - origin) / scale)));
+                    while (low > 0 && origin + low * (double) scale > childLo) {
+                        low--;
+                    }
+                    high = (int) Math.max(0, Math.min(_max, Math.ceil((childHi - origin) / scale)));
+                    while (high < _max && origin + high * (double) scale < childHi) {
+                        high++;
+                    }
+                } else if (scale == 0) {
+                    high = 0;
+                }
+                setQuantized(q, low);
+                setQuantized(q + 3, high);
+            }
+        }
+    }
+
+    /**
+     * Helper method : to set a quantized bound.
+     * @param index the index of the bound.
+     * @param value the quantized value.
+     */
+    private void setQuantized(int index, int value) {
+        if (_bytes == 1) {
+            _quantized[index] = (byte) value;
+        } else {
+            _quantized[2 * index] = (byte) (value >>> 8);
+            _quantized[2 * index + 1] = (byte) value;
+        }
+    }
+
+    /**
+     * Helper method : to decode a quantized bound.
+     * @param node  the node.
+     * @param index the index of the bound.
+     * @param axis  the axis of the bound.
+     * @return the bound.
+     */
+    private double decode(int node, int index, int axis) {
+        int value = _bytes == 1 ? _quantized[index] & 0xFF
+                : (_quantized[2 * index] & 0xFF) << 8 | _quantized[2 * index + 1] & 0xFF;
+        return _frames[6 * node + axis] + value * (double) _frames[6 * node + axis + 3];
+    }
+
+    /**
+     * To refit the boxes of the nodes to the current boxes of the objects, re-encoding all the nodes.
+     * @param primitives the objects of the BVH.
+     */
+    void refit(Intersectable[] primitives) {
+        refit(0, primitives, new double[6]);
+    }
+
+    /**
+     * To refit a subtree (recursively).
+     * @param node       the root of the subtree.
+     * @param primitives the objects of the BVH.
+     * @param box        to receive the exact bounds of the subtree.
+     */
+    private void refit(int node, Intersectable[] primitives, double[] box) {
+        double[] boxes = new double[6 * _width];
+        double[] childBox = new double[6];
+        Arrays.fill(box, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(box, 3, 6, Double.NEGATIVE_INFINITY);
+        for (int s = 0; s < _width; s++) {
+            int child = _children[_width * node + s];
+            if (child == EMPTY) {
+                continue;
+            }
+            if (child >= 0) {
+                refit(child, primitives, childBox);
+            } else {
+                int encoded = -child - 1;
+                BoundingBox union = BoundingBox.EMPTY;
+                for (int k = encoded >>> 5; k < (encoded >>> 5) + (encoded & MAX_COUNT); k++) {
+                    union = union.union(primitives[k].getBoundingBox());
+                }
+                childBox[0] = union._minX;
+                childBox[1] = union._minY;
+                childBox[2] = union._minZ;
+                childBox[3] = union._maxX;
+                childBox[4] = union._maxY;
+                childBox[5] = union._maxZ;
+            }
+            System.arraycopy(childBox, 0, boxes, 6 * s, 6);
+            for (int axis = 0; axis < 3; axis++) {
+                box[axis] = Math.min(box[axis], childBox[axis]);
+                box[axis + 3] = Math.max(box[axis + 3], childBox[axis + 3]);
+            }
+        }
+        encode(node, boxes);
+    }
+
+    /**
+     * To find the box of the root.
+     * @return the decoded box containing all the children of the root.
+     */
+    BoundingBox getBoundingBox() {
+        double[] bounds = new double[6];
+        Arrays.fill(bounds, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(bounds, 3, 6, Double.NEGATIVE_INFINITY);
+        for (int s = 0; s < _width; s++) {
+            if (_children[s] == EMPTY) {
+                continue;
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                double lo = decode(0, 6 * s + axis, axis), hi = decode(0, 6 * s + axis + 3, axis);
+                bounds[axis] = Math.min(bounds[axis], Double.isNaN(lo) ? Double.NEGATIVE_INFINITY : lo);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], Double.isNaN(hi) ? Double.POSITIVE_INFINITY : hi);
+            }
+        }
+        return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * To add the intersections of a ray with the objects of the leaves whose boxes the ray crosses.
+     * @param ray        the ray.
+     * @param primitives the objects of the BVH.
+     * @param result     the list of the intersections (null if it is empty).
+     * @return the list (null if it is still empty).
+     */
+    List<GeoPoint> findGeoIntersections(Ray ray, Intersectable[] primitives, List<GeoPoint> result) {
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        double oX = p0.getX(), oY = p0.getY(), oZ = p0.getZ();
+        double iX = 1 / dir.getX(), iY = 1 / dir.getY(), iZ = 1 / dir.getZ();
+
+        BVH.Stacks stacks = BVH.STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                for (int s = _width - 1; s >= 0; s--) {
+                    int child = _children[_width * node + s];
+                    int q = 6 * (_width * node + s);
+                    if (child == EMPTY || !BVH.crosses(
+                            decode(node, q, 0), decode(node, q + 1, 1), decode(node, q + 2, 2),
+                            decode(node, q + 3, 0), decode(node, q + 4, 1), decode(node, q + 5, 2),
+                            oX, oY, oZ, iX, iY, iZ)) {
+                        continue;
+                    }
+                    if (child < 0) {
+                        int encoded = -child - 1;
+                        int first = encoded >>> 5;
+                        for (int k = first; k < first + (encoded & MAX_COUNT); k++) {
+                            result = BVH.addIntersections(result, primitives[k], ray);
+                        }
+                    } else {
+                        if (top == stack.length) {
+                            stack = stacks.grow(stack);
+                        }
+                        stack[top++] = child;
+                    }
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        return result;
+    }
+}
@@ -2,8 +2,14 @@ package geometries;
 
 import primitives.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class Geometries, composite class representing a group of 3D-objects.
@@ -16,6 +22,40 @@ public class Geometries implements Intersectable {
      */
     private List<Intersectable> _intersectables;
 
+    /**
+     * The accelerator over _intersectables : a bounding volume hierarchy or a grid (null if it is not built).
+     */
+    private Accelerator _accelerator = null;
+
+    /**
+     * The kind of the accelerator, and the mode of the build of a hierarchy
+     * (the ones of the last build, also used by refit()).
+     */
+    private Accelerator.Kind _kind = Accelerator.Kind.BVH;
+    private BVH.Build _build = BVH.Build.SAH;
+
+    /**
+     * The compression of the hierarchy (see BVH.compress) : the width of the nodes (2 : not compressed),
+     * and the bits of the quantized bounds.
+     */
+    private int _width = 2;
+    private int _bits = 64;
+
+    /**
+     * The subgroups merged into the accelerator (see elements()), with their numbers of modifications at the build.
+     */
+    private final Map<Geometries, Integer> _merged = new IdentityHashMap<>();
+
+    /**
+     * The groups into whose accelerators this group is merged (see elements()) : their accelerators are dropped
+     * when 3D-objects are added to (or removed from) this group.
+     */
+    private final Set<Geometries> _mergedInto = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Number of modifications (additions and removals of 3D-objects) of the group.
+     */
+    private int _modifications = 0;
 
     /**
      * Geometries constructor, receiving no parameter.
@@ -35,13 +75,18 @@ public class Geometries implements Intersectable {
 
     /**
      * To return the list of the intersection GeoPoints between a ray and _intersectables of this.
-     * Adding the intersection GeoPoints for each Intersectable, one Intersectable after another.
+     * Adding the intersection GeoPoints for each Intersectable, one Intersectable after another
+     * (or only for the ones near the ray, if the accelerator is built).
      * @param ray the Ray object to find the intersections between it and _intersectables of this.
-     * @param maxDistance
      * @return  List<GeoPoint> of the intersection GeoPoints between ray and _intersectables of this.
      */
     @Override
     public List<GeoPoint> findGeoIntersections(Ray ray) {
+        Accelerator accelerator = _accelerator;
+        if (accelerator != null) {
+            return accelerator.findGeoIntersections(ray);
+        }
+
         List<GeoPoint> result = null;
 
         // to find the intersection GeoPoints between ray and each element of _intersectable, one one
@@ -58,13 +103,291 @@ public class Geometries implements Intersectable {
         return result;
     }
 
+    /**
+     * To find the box containing all the 3D-objects of the group (the union of their boxes,
+     * or the box of the accelerator if it is built).
+     * @return the bounding box of the group (empty if the group is empty).
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Accelerator accelerator = _accelerator;
+        if (accelerator != null) {
+            return accelerator.getBoundingBox();
+        }
+        BoundingBox box = BoundingBox.EMPTY;
+        for (Intersectable element : _intersectables) {
+            box = box.union(element.getBoundingBox());
+        }
+        return box;
+    }
+
+    /**
+     * To build the accelerator over the 3D-objects of the group (and of its subgroups,
+     * and of the groups of its instances : once for a group shared by many instances),
+     * used by findGeoIntersections until the group is modified.
+     * With AUTO, each group gets a grid if the statistics of its objects suit it (see Grid.suits),
+     * else a bounding volume hierarchy.
+     * Chaining method.
+     * @param kind  the kind of the accelerator.
+     * @param build the mode of the build of a hierarchy (see BVH.Build).
+     * @param width the number of children of the nodes of a hierarchy
+     *              (2 : a binary tree, not compressed; 4 or 8 : compressed).
+     * @param bits  the number of bits of the quantized bounds of a compressed tree (8 or 16).
+     * @return this.
+     * @throws IllegalArgumentException if width is not 2, 4 or 8, or if the tree is compressed
+     *                                  and bits is not 8 or 16.
+     */
+    public Geometries buildAccelerator(Accelerator.Kind kind, BVH.Build build, int width, int bits) {
+        if (width != 2 && width != 4 && width != 8 || width != 2 && bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("the width must be 2, 4 or 8, and the bits 8 or 16");
+        }
+        _kind = kind;
+        _build = build;
+        _width = width;
+        _bits = width == 2 ? 64 : bits;
+        buildAccelerator(Collections.newSetFromMap(new IdentityHashMap<>()));
+        return this;
+    }
+
+    /**
+     * To build the accelerator, with the settings of a hierarchy of the last build.
+     * Wrapper method.
+     * Chaining method.
+     * @param kind the kind of the accelerator.
+     * @return this.
+     */
+    public Geometries buildAccelerator(Accelerator.Kind kind) {
+        return buildAccelerator(kind, _build, _width, _bits);
+    }
+
+    /**
+     * To build a bounding volume hierarchy as accelerator.
+     * Wrapper method.
+     * Chaining method.
+     * @param build the mode of the build (see BVH.Build).
+     * @param width the number of children of the nodes (2 : a binary tree, not compressed; 4 or 8 : compressed).
+     * @param bits  the number of bits of the quantized bounds of a compressed tree (8 or 16).
+     * @return this.
+     * @throws IllegalArgumentException if width is not 2, 4 or 8, or if the tree is compressed
+     *                                  and bits is not 8 or 16.
+     */
+    public Geometries buildHierarchy(BVH.Build build, int width, int bits) {
+        return buildAccelerator(Accelerator.Kind.BVH, build, width, bits);
+    }
+
+    /**
+     * To build a bounding volume hierarchy, not compressed.
+     * Wrapper method.
+     * Chaining method.
+     * @param build the mode of the build (see BVH.Build).
+     * @return this.
+     */
+    public Geometries buildHierarchy(BVH.Build build) {
+        return buildHierarchy(build, 2, 64);
+    }
+
+    /**
+     * To build the accelerator, with the kind and the settings of the last build
+     * (by default, a hierarchy built by SAH, not compressed).
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public Geometries buildHierarchy() {
+        return buildAccelerator(_kind, _build, _width, _bits);
+    }
+
+    /**
+     * To build the accelerator of the group and of the groups it contains, unless they are built by this call.
+     * @param built the groups built by this call.
+     */
+    private void buildAccelerator(Set<Geometries> built) {
+        if (!built.add(this)) {
+            return;
+        }
+        for (Intersectable element : _intersectables) {
+            Geometries group = groupOf(element);
+            if (group != null) {
+                group._kind = _kind;
+                group._build = _build;
+                group._width = _width;
+                group._bits = _bits;
+                group.buildAccelerator(built);
+            }
+        }
+        List<Intersectable> elements = elements();
+        if (_kind == Accelerator.Kind.GRID || _kind == Accelerator.Kind.AUTO && Grid.suits(elements)) {
+            _accelerator = new Grid(elements);
+            return;
+        }
+        BVH hierarchy = new BVH(elements, _build);
+        if (_width > 2) {
+            hierarchy.compress(_width, _bits);
+        }
+        _accelerator = hierarchy;
+    }
+
+    /**
+     * Helper method : the 3D-objects indexed by the accelerator : the elements of the group, except its subgroups
+     * with an unbounded object (as a floor plane), replaced by their own elements (recursively).
+     * So the unbounded objects of a subgroup are tested separately, and its other objects are bounded tightly
+     * (see Partition), instead of the whole subgroup being tested for every ray.
+     * @return the objects.
+     */
+    private List<Intersectable> elements() {
+        for (Geometries subgroup : _merged.keySet()) {
+            subgroup._mergedInto.remove(this);
+        }
+        _merged.clear();
+        List<Intersectable> elements = new ArrayList<>();
+        addElements(this, elements);
+        return elements;
+    }
+
+    /**
+     * Helper method : to add the elements of a group, merging its unbounded subgroups (see elements()).
+     * @param group    the group.
+     * @param elements the objects indexed by the accelerator.
+     */
+    private void addElements(Geometries group, List<Intersectable> elements) {
+        for (Intersectable element : group._intersectables) {
+            if (element instanceof Geometries && element != this && !_merged.containsKey(element)
+                    && element.getBoundingBox().isInfinite()) {
+                Geometries subgroup = (Geometries) element;
+                _merged.put(subgroup, subgroup._modifications);
+                subgroup._mergedInto.add(this);
+                addElements(subgroup, elements);
+            } else {
+                elements.add(element);
+            }
+        }
+    }
+
+    /**
+     * To refit the accelerator (and the accelerators of the subgroups, and of the groups
+     * of its instances) after 3D-objects moved (see Accelerator.refit()), or to build it if it is not built,
+     * or if 3D-objects were added to (or removed from) a subgroup merged into it (see elements()) :
+     * the accelerator sees these modifications after this call only.
+     * Must not be called while rays are intersected with the group.
+     */
+    public void refit() {
+        refit(Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * To refit the accelerator of the group and of the groups it contains, unless they are refitted by this call.
+     * @param refitted the groups refitted by this call.
+     */
+    private void refit(Set<Geometries> refitted) {
+        if (!refitted.add(this)) {
+            return;
+        }
+        if (_accelerator == null) {
+            refitted.remove(this);
+            buildAccelerator(refitted);
+            return;
+        }
+        for (Intersectable element : _intersectables) {
+            Geometries group = groupOf(element);
+            if (group != null) {
+                group.refit(refitted);
+            }
+        }
+        for (Map.Entry<Geometries, Integer> merged : _merged.entrySet()) {
+            if (merged.getKey()._modifications != merged.getValue()) {
+                // objects were added to (or removed from) a merged subgroup : the accelerator is rebuilt
+                refitted.remove(this);
+                buildAccelerator(refitted);
+                return;
+            }
+        }
+        _accelerator.refit();
+    }
+
+    /**
+     * To find the group of an element : the element itself, or the group of an instance.
+     * @param element an element of a group.
+     * @return the group (null if the element is not a group, nor an instance of a group).
+     */
+    private static Geometries groupOf(Intersectable element) {
+        while (element instanceof Instance) {
+            element = ((Instance) element).getGeometry();
+        }
+        return element instanceof Geometries ? (Geometries) element : null;
+    }
+
+    /**
+     * Getter of the hierarchy.
+     * @return the accelerator if it is a bounding volume hierarchy (null if it is not built, or if it is a grid).
+     */
+    public BVH getHierarchy() {
+        Accelerator accelerator = _accelerator;
+        return accelerator instanceof BVH ? (BVH) accelerator : null;
+    }
+
+    /**
+     * Getter of _accelerator.
+     * @return the accelerator (null if it is not built).
+     */
+    public Accelerator getAccelerator() {
+        return _accelerator;
+    }
+
+    /**
+     * Getter of _kind.
+     * @return the kind of accelerator of the last build.
+     */
+    public Accelerator.Kind getAcceleratorKind() {
+        return _kind;
+    }
+
+    /**
+     * Getter of the 3D-objects of the group.
+     * @return an unmodifiable view of _intersectables.
+     */
+    public List<Intersectable> getIntersectables() {
+        return Collections.unmodifiableList(_intersectables);
+    }
+
+    /**
+     * To remove a 3D-object from the group (the same object, not an equal one).
+     * The accelerator, if built, is dropped (see modified()).
+     * @param intersectable the Intersectable object to remove.
+     * @return true if it was in the group.
+     */
+    public boolean remove(Intersectable intersectable) {
+        Iterator<Intersectable> iterator = _intersectables.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == intersectable) {
+                iterator.remove();
+                modified();
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * To add 3D-objects to the group, that is to add Intersectable object(s) to this._intersectables.
+     * The accelerator, if built, is dropped (see modified()).
      * @param intersectables the Intersectable objects to add.
      */
     public void add(Intersectable... intersectables) {
         for (Intersectable current : intersectables) {
             _intersectables.add(current);
         }
+        modified();
+    }
+
+    /**
+     * Helper method : to record a modification of the group : its accelerator is dropped,
+     * and the accelerators of the groups it is merged into (which index its 3D-objects, see elements()).
+     */
+    private void modified() {
+        _accelerator = null;
+        _modifications++;
+        for (Geometries group : _mergedInto) {
+            group.modified();
+        }
     }
 }
@@ -65,4 +65,34 @@ public abstract class Geometry implements Intersectable {
         _material = material;
         return this;
     }
+
+    /**
+     * To return the normal at an intersection point of the geometry.
+     * Default implementation : the normal at gp._point (see Instance, for the points found in object space).
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the normal at gp.
+     */
+    public Vector getNormalAt(GeoPoint gp) {
+        return getNormal(gp._point);
+    }
+
+    /**
+     * To return the emission at an intersection point of the geometry.
+     * Default implementation : the emission of the geometry.
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the emission at gp.
+     */
+    public Color getEmissionAt(GeoPoint gp) {
+        return getEmission();
+    }
+
+    /**
+     * To return the material at an intersection point of the geometry.
+     * Default implementation : the material of the geometry.
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the material at gp.
+     */
+    public Material getMaterialAt(GeoPoint gp) {
+        return getMaterial();
+    }
 }
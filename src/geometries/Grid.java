@@ -0,0 +1,404 @@
+package geometries;
+
+import primitives.Point3D;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class Grid, a uniform grid over 3D-objects : the box of the objects is divided into cells of the same size,
+ * and each cell lists the objects whose boxes overlap it. A ray visits the cells along its path
+ * by a 3D digital differential analyzer (3D-DDA : from a cell to the next one, through the nearest face),
+ * and is tested against the objects of these cells only.
+ * Faster to build than a BVH, and often faster to traverse, for the scenes of many objects of similar sizes
+ * spread evenly (see suits); slow for the scenes of objects of various sizes, or gathered in a few places.
+ * The resolution is chosen from the number of objects : about DENSITY cells per object,
+ * with cubic cells as far as possible.
+ * The cells are kept as two arrays : the index of the first object of each cell in the list of the objects
+ * of the cells, and this list (indices in _objects).
+ * An object in many cells is tested once per ray, by mailboxing : the thread remembers the last ray
+ * which tested each object.
+ * The objects with an infinite or empty box (planes, tubes, empty groups) and the few huge ones
+ * (floors, backdrops) are not in the grid : they are tested for every ray (see Partition),
+ * and the grid is fitted to the other objects.
+ */
+public class Grid implements Accelerator {
+    /**
+     * Number of cells per object.
+     */
+    private static final double DENSITY = 3;
+
+    /**
+     * Maximal number of cells on an axis.
+     */
+    private static final int MAX_RESOLUTION = 256;
+
+    /**
+     * Minimal number of bounded objects for which a grid may be chosen (see suits).
+     */
+    private static final int MIN_OBJECTS = 64;
+
+    /**
+     * Maximal coefficient of variation of the sizes of the objects for which a grid may be chosen.
+     */
+    private static final double MAX_SIZE_VARIATION = 1;
+
+    /**
+     * Minimal proportion of the occupied cells of a coarse grid (4 objects per cell) of the centers
+     * of the objects, for which a grid may be chosen.
+     */
+    private static final double MIN_OCCUPANCY = 0.5;
+
+    /**
+     * Class Mailbox, the mailbox of a thread : for each object, the last ray which tested it.
+     */
+    private static class Mailbox {
+        int[] _rays;
+        int _ray = 0;
+    }
+
+    private final List<Intersectable> _intersectables;
+    private Intersectable[] _objects;
+    private Intersectable[] _unbounded;
+    private final ThreadLocal<Mailbox> _mailboxes = ThreadLocal.withInitial(Mailbox::new);
+
+    // the grid : its box, its resolution and the size of its cells on each axis
+    private final double[] _min = new double[3];
+    private final double[] _max = new double[3];
+    private final int[] _resolution = new int[3];
+    private final double[] _cellSize = new double[3];
+    private int[] _cellStart;
+    private int[] _cellObjects;
+
+    /**
+     * Grid constructor : builds the grid over a list of objects.
+     * @param intersectables the objects.
+     */
+    public Grid(List<Intersectable> intersectables) {
+        _intersectables = new ArrayList<>(intersectables);
+        build();
+    }
+
+    /**
+     * To build the grid over the current boxes of the objects.
+     */
+    private void build() {
+        Partition partition = new Partition(_intersectables);
+        BoundingBox[] boxes = partition._boxes;
+        BoundingBox all = partition._box;
+        _objects = partition._bounded;
+        _unbounded = partition._separate;
+        int n = _objects.length;
+        if (n == 0) {
+            _cellStart = new int[1];
+            _cellObjects = new int[0];
+            return;
+        }
+
+        // the box is widened by a relative epsilon, for the rounding errors of the rays grazing it
+        double pad = 1e-9 * Math.max(1, Math.max(all._maxX - all._minX,
+                Math.max(all._maxY - all._minY, all._maxZ - all._minZ)));
+        double[] bounds = {all._minX - pad, all._minY - pad, all._minZ - pad,
+                all._maxX + pad, all._maxY + pad, all._maxZ + pad};
+        int[] resolution = resolution(bounds, DENSITY * n);
+        for (int axis = 0; axis < 3; axis++) {
+            _min[axis] = bounds[axis];
+            _max[axis] = bounds[axis + 3];
+            _resolution[axis] = resolution[axis];
+            _cellSize[axis] = (_max[axis] - _min[axis]) / resolution[axis];
+        }
+
+        // counting the objects of each cell, then listing them
+        int cells = _resolution[0] * _resolution[1] * _resolution[2];
+        int[][] ranges = new int[n][];
+        _cellStart = new int[cells + 1];
+        for (int i = 0; i < n; i++) {
+            ranges[i] = cellRange(boxes[i]);
+            int[] r = ranges[i];
+            for (int z = r[2]; z <= r[5]; z++) {
+                for (int y = r[1]; y <= r[4]; y++) {
+                    for (int x = r[0]; x <= r[3]; x++) {
+                        _cellStart[cell(x, y, z) + 1]++;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            _cellStart[c + 1] += _cellStart[c];
+        }
+        _cellObjects = new int[_cellStart[cells]];
+        int[] next = Arrays.copyOf(_cellStart, cells);
+        for (int i = 0; i < n; i++) {
+            int[] r = ranges[i];
+            for (int z = r[2]; z <= r[5]; z++) {
+                for (int y = r[1]; y <= r[4]; y++) {
+                    for (int x = r[0]; x <= r[3]; x++) {
+                        _cellObjects[next[cell(x, y, z)]++] = i;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * To choose the resolution of a grid : about a number of cells, as cubic as possible.
+     * @param bounds the box of the grid : minX, minY, minZ, maxX, maxY, maxZ.
+     * @param cells  the number of cells.
+     * @return the number of cells on each axis.
+     */
+    private static int[] resolution(double[] bounds, double cells) {
+        double longest = Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+        // the flat axes count as a thousandth of the longest one
+        double[] extents = new double[3];
+        for (int axis = 0; axis < 3; axis++) {
+            extents[axis] = Math.max(bounds[axis + 3] - bounds[axis], longest * 1e-3);
+        }
+        double perLength = Math.cbrt(cells / (extents[0] * extents[1] * extents[2]));
+        int[] resolution = new int[3];
+        for (int axis = 0; axis < 3; axis++) {
+            resolution[axis] = bounds[axis + 3] - bounds[axis] <= 0 ? 1
+                    : (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extents[axis] * perLength)));
+        }
+        return resolution;
+    }
+
+    /**
+     * Helper method : the range of the cells overlapped by a box.
+     * @param box the box.
+     * @return the first and the last cells on each axis : x0, y0, z0, x1, y1, z1.
+     */
+    private int[] cellRange(BoundingBox box) {
+        double[] bounds = {box._minX, box._minY, box._minZ, box._maxX, box._maxY, box._maxZ};
+        int[] range = new int[6];
+        for (int axis = 0; axis < 3; axis++) {
+            range[axis] = cellOf(bounds[axis], axis);
+            range[axis + 3] = cellOf(bounds[axis + 3], axis);
+        }
+        return range;
+    }
+
+    /**
+     * Helper method : the cell of a coordinate on an axis.
+     * @param value the coordinate.
+     * @param axis  the axis.
+     * @return the index of the cell on the axis (clamped into the grid).
+     */
+    private int cellOf(double value, int axis) {
+        if (_cellSize[axis] <= 0) {
+            return 0;
+        }
+        int index = (int) Math.floor((value - _min[axis]) / _cellSize[axis]);
+        return Math.max(0, Math.min(_resolution[axis] - 1, index));
+    }
+
+    /**
+     * Helper method : the index of a cell.
+     * @param x the index of the cell on the X axis (and y, z).
+     * @return the index of the cell in _cellStart.
+     */
+    private int cell(int x, int y, int z) {
+        return (z * _resolution[1] + y) * _resolution[0] + x;
+    }
+
+    /**
+     * To rebuild the cells over the current boxes of the objects (the grid is fast to build).
+     */
+    @Override
+    public void refit() {
+        build();
+    }
+
+    /**
+     * Getter of the memory of the cells.
+     * @return the number of bytes of the arrays of the cells.
+     */
+    @Override
+    public long getMemory() {
+        return 4L * _cellStart.length + 4L * _cellObjects.length;
+    }
+
+    /**
+     * To return the list of the intersection GeoPoints between a ray and the objects of the grid :
+     * the objects of the cells along the ray, and the unbounded objects.
+     * @param ray the Ray object to find the intersections between it and the objects.
+     * @return List<GeoPoint> of the intersection GeoPoints (null if there is none).
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        List<GeoPoint> result = null;
+        for (Intersectable object : _unbounded) {
+            result = BVH.addIntersections(result, object, ray);
+        }
+        if (_objects.length == 0) {
+            return result;
+        }
+
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        double oX = p0.getX(), oY = p0.getY(), oZ = p0.getZ();
+        double dX = dir.getX(), dY = dir.getY(), dZ = dir.getZ();
+
+        // the part of the ray in the box of the grid
+        double near = 0, far = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double origin = axis == 0 ? oX : axis == 1 ? oY : oZ;
+            double d = axis == 0 ? dX : axis == 1 ? dY : dZ;
+            if (d == 0) {
+                if (origin < _min[axis] || origin > _max[axis]) {
+                    return result;
+                }
+                continue;
+            }
+            double t1 = (_min[axis] - origin) / d, t2 = (_max[axis] - origin) / d;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        if (near > far) {
+            return result;
+        }
+
+        // the first cell, the next crossing of a face on each axis, and the distance between two crossings
+        int x = cellOf(oX + near * dX, 0), y = cellOf(oY + near * dY, 1), z = cellOf(oZ + near * dZ, 2);
+        int stepX = dX > 0 ? 1 : -1, stepY = dY > 0 ? 1 : -1, stepZ = dZ > 0 ? 1 : -1;
+        double nextX = crossing(x, stepX, oX, dX, 0), nextY = crossing(y, stepY, oY, dY, 1);
+        double nextZ = crossing(z, stepZ, oZ, dZ, 2);
+        double deltaX = _cellSize[0] / Math.abs(dX), deltaY = _cellSize[1] / Math.abs(dY);
+        double deltaZ = _cellSize[2] / Math.abs(dZ);
+
+        Mailbox mailbox = _mailboxes.get();
+        if (mailbox._rays == null || mailbox._rays.length < _objects.length) {
+            mailbox._rays = new int[_objects.length];
+        }
+        int[] rays = mailbox._rays;
+        int current = ++mailbox._ray;
+        if (current == 0) {
+            Arrays.fill(rays, 0);   // after an overflow of the counter
+            current = mailbox._ray = 1;
+        }
+
+        while (true) {
+            int cell = cell(x, y, z);
+            for (int k = _cellStart[cell]; k < _cellStart[cell + 1]; k++) {
+                int object = _cellObjects[k];
+                if (rays[object] != current) {
+                    rays[object] = current;
+                    result = BVH.addIntersections(result, _objects[object], ray);
+                }
+            }
+            // to the next cell, through the nearest face
+            if (nextX <= nextY && nextX <= nextZ) {
+                if (nextX > far || (x += stepX) < 0 || x >= _resolution[0]) {
+                    break;
+                }
+                nextX += deltaX;
+            } else if (nextY <= nextZ) {
+                if (nextY > far || (y += stepY) < 0 || y >= _resolution[1]) {
+                    break;
+                }
+                nextY += deltaY;
+            } else {
+                if (nextZ > far || (z += stepZ) < 0 || z >= _resolution[2]) {
+                    break;
+                }
+                nextZ += deltaZ;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Helper method : the distance along a ray to the next face of the cells on an axis.
+     * @param index  the index of the current cell on the axis.
+     * @param step   the direction of the ray on the axis (+1 or -1).
+     * @param origin the coordinate of the origin of the ray on the axis.
+     * @param dir    the coordinate of the direction of the ray on the axis.
+     * @param axis   the axis.
+     * @return the distance (infinite if the ray does not cross the faces of this axis).
+     */
+    private double crossing(int index, int step, double origin, double dir, int axis) {
+        if (dir == 0 || _resolution[axis] == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double face = _min[axis] + (index + (step > 0 ? 1 : 0)) * _cellSize[axis];
+        return (face - origin) / dir;
+    }
+
+    /**
+     * To find the box containing all the objects.
+     * @return the union of the box of the grid and of the boxes of the objects tested for every ray.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = _objects.length == 0 ? BoundingBox.EMPTY
+                : new BoundingBox(_min[0], _min[1], _min[2], _max[0], _max[1], _max[2]);
+        for (Intersectable object : _unbounded) {
+            box = box.union(object.getBoundingBox());
+        }
+        return box;
+    }
+
+    /**
+     * To check if a grid suits a list of objects, from the statistics of the bounded ones (see Partition) :
+     * enough objects (at least MIN_OBJECTS), of similar sizes (the coefficient of variation of the sizes of their boxes
+     * at most MAX_SIZE_VARIATION), spread evenly (at least MIN_OCCUPANCY of the cells of a coarse grid
+     * of 4 objects per cell contain a center of a box).
+     * @param intersectables the objects.
+     * @return true if a grid suits the objects, false if a BVH is better.
+     */
+    public static boolean suits(List<Intersectable> intersectables) {
+        List<double[]> centers = new ArrayList<>();
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double sum = 0, sumOfSquares = 0;
+        for (BoundingBox box : new Partition(intersectables)._boxes) {
+            double size = Partition.size(box);
+            sum += size;
+            sumOfSquares += size * size;
+            double[] center = {(box._minX + box._maxX) / 2, (box._minY + box._maxY) / 2, (box._minZ + box._maxZ) / 2};
+            centers.add(center);
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[axis] = Math.min(bounds[axis], center[axis]);
+                bounds[axis + 3] = Math.max(bounds[axis + 3], center[axis]);
+            }
+        }
+        int n = centers.size();
+        if (n < MIN_OBJECTS) {
+            return false;
+        }
+        double mean = sum / n;
+        double variance = Math.max(0, sumOfSquares / n - mean * mean);
+        if (mean <= 0 || Math.sqrt(variance) / mean > MAX_SIZE_VARIATION) {
+            return false;
+        }
+
+        // the occupancy of a coarse grid of the centers
+        int[] resolution = resolution(bounds, n / 4.0);
+        boolean[] occupied = new boolean[resolution[0] * resolution[1] * resolution[2]];
+        int count = 0;
+        for (double[] center : centers) {
+            int cell = 0;
+            for (int axis = 2; axis >= 0; axis--) {
+                double extent = bounds[axis + 3] - bounds[axis];
+                int index = extent <= 0 ? 0 : Math.min(resolution[axis] - 1,
+                        (int) ((center[axis] - bounds[axis]) / extent * resolution[axis]));
+                cell = cell * resolution[axis] + index;
+            }
+            if (!occupied[cell]) {
+                occupied[cell] = true;
+                count++;
+            }
+        }
+        return count >= MIN_OCCUPANCY * occupied.length;
+    }
+
+    @Override
+    public String toString() {
+        return "Grid{cells=" + _resolution[0] + "x" + _resolution[1] + "x" + _resolution[2] +
+                ", objects=" + _objects.length +
+                ", references=" + _cellObjects.length +
+                ", bytes=" + getMemory() +
+                '}';
+    }
+}
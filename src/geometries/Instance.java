@@ -0,0 +1,265 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Class Instance, a 3D-object (a geometry, or a group as a mesh) placed in the scene by an affine transform :
+ * the rays are transformed into the space of the object (object space), intersected with it,
+ * and the intersection points and the normals are transformed back.
+ * The object is not copied : many instances can share it (as 500 copies of a mesh), each with its transform.
+ * A shared group has its own hierarchy (the bottom level, built once in object space by
+ * Geometries.buildHierarchy()), and the hierarchy of the group containing the instances is the top level,
+ * over the boxes of the instances.
+ * The transform can be changed, to move the instance between two frames of an animation
+ * (it must not be changed while rays are traced).
+ * The intersection points found through the instance have the instance as geometry, and carry the point found
+ * in object space (GeoPoint._local) : its geometry gives the normal, the emission and the material at shading,
+ * with no object per geometry of the group.
+ * The emission and the material are the ones of the object (of each geometry of a group),
+ * unless they are set on the instance : they then replace them for this instance only.
+ */
+public class Instance extends Geometry {
+    /**
+     * The object, in object space.
+     */
+    private final Intersectable _object;
+
+    /**
+     * The transform from object space to the scene.
+     */
+    private volatile Transform _transform;
+
+    /**
+     * Are the emission and the material set on the instance.
+     */
+    private boolean _ownEmission = false;
+    private boolean _ownMaterial = false;
+
+    /**
+     * Distance from a point of the object to the origins of the probe rays (see findLocal),
+     * relative to the coordinates of the point.
+     */
+    private static final double PROBE = 1e-6;
+
+    /**
+     * The directions of the probe rays (see findLocal).
+     */
+    private static final Vector[] AXES = {new Vector(1, 0, 0), new Vector(0, 1, 0), new Vector(0, 0, 1)};
+
+    /**
+     * Instance constructor, receiving 2 parameters.
+     * @param object    the object (a geometry or a group), which may be shared by other instances.
+     * @param transform the transform from object space to the scene.
+     */
+    public Instance(Intersectable object, Transform transform) {
+        _object = object;
+        _transform = transform;
+    }
+
+    /**
+     * Instance constructor, with the identity transform.
+     * @param object the object (a geometry or a group).
+     */
+    public Instance(Intersectable object) {
+        this(object, Transform.IDENTITY);
+    }
+
+    /**
+     * Getter of _object.
+     * @return _object.
+     */
+    public Intersectable getGeometry() {
+        return _object;
+    }
+
+    /**
+     * Getter of _transform.
+     * @return _transform.
+     */
+    public Transform getTransform() {
+        return _transform;
+    }
+
+    /**
+     * Setter of _transform.
+     * Chaining method.
+     * @param transform the new transform from object space to the scene.
+     * @return this.
+     */
+    public Instance setTransform(Transform transform) {
+        _transform = transform;
+        return this;
+    }
+
+    /**
+     * To intersect a ray with the object, in object space.
+     * @param ray the ray, in the scene.
+     * @return the intersection GeoPoints in the scene, with this as geometry, and the GeoPoints found
+     * in object space as local points (null if there is none).
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        Transform transform = _transform;
+        Ray local = new Ray(transform.applyInverse(ray.getP0()), transform.applyInverseToVector(ray.getDir()));
+        List<GeoPoint> localList = _object.findGeoIntersections(local);
+        if (localList == null) {
+            return null;
+        }
+        List<GeoPoint> result = new LinkedList<>();
+        for (GeoPoint gp : localList) {
+            result.add(new GeoPoint(this, transform.apply(gp._point), gp));
+        }
+        return result;
+    }
+
+    /**
+     * To find the normal of the object at a point : the normal of the geometry of the group found by probe rays
+     * (see findLocal), if the object is a group.
+     * @param point a point of the object, in the scene.
+     * @return the normal at point, in the scene.
+     * @throws IllegalArgumentException if the object is a group and point is not on it.
+     */
+    @Override
+    public Vector getNormal(Point3D point) {
+        Transform transform = _transform;
+        Point3D local = transform.applyInverse(point);
+        GeoPoint gp = _object instanceof Geometry ? new GeoPoint((Geometry) _object, local) : findLocal(local);
+        return transform.applyToNormal(gp._geometry.getNormalAt(gp)).normalize();
+    }
+
+    /**
+     * To find the normal at an intersection point of the instance : the normal of the geometry
+     * of its local point, transformed.
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the normal at gp, in the scene.
+     */
+    @Override
+    public Vector getNormalAt(GeoPoint gp) {
+        if (gp._local == null) {
+            return getNormal(gp._point);
+        }
+        return _transform.applyToNormal(gp._local._geometry.getNormalAt(gp._local)).normalize();
+    }
+
+    /**
+     * Helper method : to find the geometry of the group at a point, by probe rays along the axes
+     * from the point moved back by PROBE : the intersection point nearest to the point.
+     * @param point a point of the group, in object space.
+     * @return the GeoPoint of the group at point.
+     * @throws IllegalArgumentException if point is not on the group.
+     */
+    private GeoPoint findLocal(Point3D point) {
+        double probe = PROBE * Math.max(1,
+                Math.max(Math.abs(point.getX()), Math.max(Math.abs(point.getY()), Math.abs(point.getZ()))));
+        GeoPoint nearest = null;
+        double distance = Double.POSITIVE_INFINITY;
+        for (Vector axis : AXES) {
+            List<GeoPoint> gpList = _object.findGeoIntersections(new Ray(point.add(axis.scale(-probe)), axis));
+            if (gpList == null) {
+                continue;
+            }
+            for (GeoPoint gp : gpList) {
+                double current = gp._point.distance(point);
+                if (current < distance) {
+                    distance = current;
+                    nearest = gp;
+                }
+            }
+        }
+        if (nearest == null || distance > probe) {
+            throw new IllegalArgumentException("point is not on the object of the instance");
+        }
+        return nearest;
+    }
+
+    /**
+     * To find the box containing the transformed object (the box of the transformed box of the object).
+     * @return the bounding box of this.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return _object.getBoundingBox().transform(_transform);
+    }
+
+    /**
+     * Getter of the emission : the one set on the instance, or the one of the object (if it is a geometry).
+     * @return the emission.
+     */
+    @Override
+    public Color getEmission() {
+        return !_ownEmission && _object instanceof Geometry ? ((Geometry) _object).getEmission() : _emission;
+    }
+
+    /**
+     * Getter of the emission at an intersection point : the one set on the instance,
+     * or the one of the geometry of its local point.
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the emission at gp.
+     */
+    @Override
+    public Color getEmissionAt(GeoPoint gp) {
+        return _ownEmission || gp._local == null ? getEmission() : gp._local._geometry.getEmissionAt(gp._local);
+    }
+
+    /**
+     * Setter of the emission of the instance, replacing the emission of the object for this instance.
+     * Chaining method.
+     * @param emission the new value of the color of the light emitted by the instance.
+     * @return this.
+     */
+    @Override
+    public Instance setEmission(Color emission) {
+        _emission = emission;
+        _ownEmission = true;
+        return this;
+    }
+
+    /**
+     * Getter of the material : the one set on the instance, or the one of the object (if it is a geometry).
+     * @return the material.
+     */
+    @Override
+    public Material getMaterial() {
+        return !_ownMaterial && _object instanceof Geometry ? ((Geometry) _object).getMaterial() : _material;
+    }
+
+    /**
+     * Getter of the material at an intersection point : the one set on the instance,
+     * or the one of the geometry of its local point.
+     * @param gp an intersection GeoPoint whose geometry is this.
+     * @return the material at gp.
+     */
+    @Override
+    public Material getMaterialAt(GeoPoint gp) {
+        return _ownMaterial || gp._local == null ? getMaterial() : gp._local._geometry.getMaterialAt(gp._local);
+    }
+
+    /**
+     * Setter of the material of the instance, replacing the material of the object for this instance.
+     * Chaining method.
+     * @param material the new value of the material of the instance.
+     * @return this.
+     */
+    @Override
+    public Instance setMaterial(Material material) {
+        _material = material;
+        _ownMaterial = true;
+        return this;
+    }
+
+    /**
+     * To check if the material is set on the instance.
+     * @return true if the material of the instance replaces the materials of the object.
+     */
+    public boolean hasOwnMaterial() {
+        return _ownMaterial;
+    }
+}
@@ -20,6 +20,12 @@ public interface Intersectable {
         public Geometry _geometry;
         public Point3D _point;
 
+        /**
+         * The intersection GeoPoint in the space of the object of an instance, if _geometry is an Instance
+         * (null otherwise) : the geometry of the object actually hit, for its normal and its material.
+         */
+        public GeoPoint _local = null;
+
         /**
          * GeoPoint constructor, receiving 2 parameters.
          * @param geometry the Geometry.
@@ -33,6 +39,17 @@ public interface Intersectable {
             _point = point;
         }
 
+        /**
+         * GeoPoint constructor, receiving 3 parameters.
+         * @param geometry the Geometry (an Instance).
+         * @param point the Point3D.
+         * @param local the intersection GeoPoint in the space of the object of the instance.
+         */
+        public GeoPoint(Geometry geometry, Point3D point, GeoPoint local) {
+            this(geometry, point);
+            _local = local;
+        }
+
         /**
          * To check if _geometry of this and _geometry of o are the SAME object
          * AND if _point of this and _point of o are equals.
@@ -73,5 +90,14 @@ public interface Intersectable {
      */
     List<GeoPoint> findGeoIntersections(Ray ray);
 
+    /**
+     * To find the axis-aligned box containing this.
+     * Default implementation : the infinite box (for the unbounded geometries, as planes and tubes).
+     * @return the bounding box of this.
+     */
+    default BoundingBox getBoundingBox() {
+        return BoundingBox.INFINITE;
+    }
+
 
 }
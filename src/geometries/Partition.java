@@ -0,0 +1,93 @@
+package geometries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class Partition, the split of the objects of an accelerator (see Accelerator) into :
+ * - the bounded objects, indexed by the accelerator with their boxes.
+ * - the separate objects, tested for every ray : the unbounded ones (as planes and tubes, with an infinite box),
+ * the empty ones, and the few huge ones (as floors and backdrops, see OUTLIER_RATIO), which would stretch
+ * the box of the accelerator around the other objects.
+ */
+class Partition {
+    /**
+     * Minimal number of bounded objects for which the huge objects are separated.
+     */
+    private static final int MIN_OBJECTS = 16;
+
+    /**
+     * Ratio between the size of the box of a huge object and the median size of the boxes of the objects.
+     */
+    private static final double OUTLIER_RATIO = 8;
+
+    /**
+     * Maximal number of huge objects separated (the largest ones).
+     */
+    private static final int MAX_OUTLIERS = 8;
+
+    final Intersectable[] _bounded;
+    final BoundingBox[] _boxes;
+    final Intersectable[] _separate;
+
+    /**
+     * The union of the boxes of the bounded objects.
+     */
+    final BoundingBox _box;
+
+    /**
+     * Partition constructor : splits a list of objects.
+     * @param intersectables the objects.
+     */
+    Partition(List<Intersectable> intersectables) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        List<Intersectable> separate = new ArrayList<>();
+        for (Intersectable intersectable : intersectables) {
+            BoundingBox box = intersectable.getBoundingBox();
+            if (box.isInfinite() || box.isEmpty()) {
+                separate.add(intersectable);
+            } else {
+                bounded.add(intersectable);
+                boxes.add(box);
+            }
+        }
+
+        // the huge objects
+        int n = bounded.size();
+        if (n >= MIN_OBJECTS) {
+            double[] sizes = new double[n];
+            for (int i = 0; i < n; i++) {
+                sizes[i] = size(boxes.get(i));
+            }
+            double[] sorted = sizes.clone();
+            Arrays.sort(sorted);
+            double threshold = Math.max(OUTLIER_RATIO * sorted[n / 2], sorted[n - MAX_OUTLIERS - 1]);
+            for (int i = n - 1; i >= 0; i--) {      // removed from the end, the indices stay valid
+                if (sizes[i] > threshold) {
+                    separate.add(bounded.remove(i));
+                    boxes.remove(i);
+                }
+            }
+        }
+
+        _bounded = bounded.toArray(new Intersectable[0]);
+        _boxes = boxes.toArray(new BoundingBox[0]);
+        _separate = separate.toArray(new Intersectable[0]);
+        BoundingBox box = BoundingBox.EMPTY;
+        for (BoundingBox current : _boxes) {
+            box = box.union(current);
+        }
+        _box = box;
+    }
+
+    /**
+     * Helper method : the size of a box, the mean of its extents on the axes.
+     * @param box the box.
+     * @return the size.
+     */
+    static double size(BoundingBox box) {
+        return (box._maxX - box._minX + box._maxY - box._minY + box._maxZ - box._minZ) / 3;
+    }
+}
@@ -99,6 +99,11 @@ public class Polygon extends Geometry {
                 '}';
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(_vertices);
+    }
+
     @Override
     public Vector getNormal(Point3D point) {
         // return _plane.getNormal();
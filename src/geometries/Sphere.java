@@ -63,6 +63,12 @@ public class Sphere extends Geometry {
                 '}';
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(_center.getX() - _radius, _center.getY() - _radius, _center.getZ() - _radius,
+                _center.getX() + _radius, _center.getY() + _radius, _center.getZ() + _radius);
+    }
+
     @Override
     public Vector getNormal(Point3D point) {
         if (point.equals(_center)) {
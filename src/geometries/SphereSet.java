@@ -0,0 +1,376 @@
+package geometries;
+
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Class SphereSet, a set of many spheres (particles, bubbles...) stored as a structure of arrays :
+ * the coordinates of the centers, the radii and the indices of the materials of the spheres are kept
+ * in parallel arrays of primitives, with no object per sphere.
+ * The set has its own bounding volume hierarchy (flat, see BVH), and the arrays are sorted in the order
+ * of its leaves, so that the spheres of a leaf are contiguous and tested by a simple loop over the arrays
+ * (without any allocation but the found points).
+ * Each sphere has the material and the emission of one of the members of the set (see getMember) :
+ * the members are the geometries of the found GeoPoints, one per index of material (the indices are 0 to n-1,
+ * each with at least one sphere).
+ * Thread-safe for the intersections.
+ */
+public class SphereSet implements Intersectable {
+    /**
+     * Maximal number of spheres in a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Distance under which a point is on a sphere (see getNormal), relative to its radius.
+     */
+    private static final double TOLERANCE = 1e-6;
+
+    private final int _count;
+    private final double[] _x;
+    private final double[] _y;
+    private final double[] _z;
+    private final double[] _radii;
+    private final int[] _materials;
+
+    /**
+     * The flat hierarchy : 6 bounds and 2 links per node (see BVH).
+     */
+    private final double[] _bounds;
+    private final int[] _links;
+    private final int _nodes;
+
+    /**
+     * The members of the set, one per index of material.
+     */
+    private final Member[] _members;
+
+    /**
+     * Class Member, the spheres of a set with the same index of material :
+     * the geometry of their points, with their material and their emission.
+     * Intersected by the hierarchy of the set, filtered by its index of material.
+     */
+    private class Member extends Geometry {
+        private final int _index;
+        private final BoundingBox _box;
+
+        /**
+         * Member constructor.
+         * @param index the index of material of the spheres of the member.
+         * @param box   the box containing the spheres of the member.
+         */
+        Member(int index, BoundingBox box) {
+            _index = index;
+            _box = box;
+        }
+
+        @Override
+        public Vector getNormal(Point3D point) {
+            return normal(point, _index);
+        }
+
+        @Override
+        public List<GeoPoint> findGeoIntersections(Ray ray) {
+            return intersect(ray, _index);
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            return _box;
+        }
+    }
+
+    /**
+     * SphereSet constructor : copies the spheres and builds the hierarchy.
+     * @param centers   the coordinates of the centers (x, y, z of each sphere).
+     * @param radii     the radii of the spheres.
+     * @param materials the indices of the materials of the spheres (the members, see getMember).
+     * @param build     the mode of the build of the hierarchy.
+     * @throws IllegalArgumentException if the lengths of the arrays do not match, if a radius is not > 0,
+     *                                  or if the indices of material are not 0 to n-1, each with a sphere.
+     */
+    public SphereSet(double[] centers, double[] radii, int[] materials, BVH.Build build) {
+        _count = radii.length;
+        if (centers.length != 3 * _count || materials.length != _count) {
+            throw new IllegalArgumentException("a sphere has 3 coordinates of center, a radius and a material");
+        }
+        int memberCount = 0;
+        double[] boxes = new double[6 * _count];
+        for (int i = 0; i < _count; i++) {
+            if (!(radii[i] > 0)) {
+                throw new IllegalArgumentException("radius of a sphere must be > 0");
+            }
+            if (materials[i] < 0) {
+                throw new IllegalArgumentException("index of material of a sphere must be >= 0");
+            }
+            memberCount = Math.max(memberCount, materials[i] + 1);
+            for (int axis = 0; axis < 3; axis++) {
+                boxes[6 * i + axis] = centers[3 * i + axis] - radii[i];
+                boxes[6 * i + axis + 3] = centers[3 * i + axis] + radii[i];
+            }
+        }
+
+        BVHBuilder builder = new BVHBuilder(boxes, build, LEAF_SIZE);
+        builder.build();
+        _nodes = builder.getNodes();
+        _bounds = new double[6 * _nodes];
+        _links = new int[2 * _nodes];
+        builder.flatten(_bounds, _links);
+
+        // the spheres in the order of the leaves
+        int[] order = builder.getOrder();
+        _x = new double[_count];
+        _y = new double[_count];
+        _z = new double[_count];
+        _radii = new double[_count];
+        _materials = new int[_count];
+        for (int k = 0; k < _count; k++) {
+            int i = order[k];
+            _x[k] = centers[3 * i];
+            _y[k] = centers[3 * i + 1];
+            _z[k] = centers[3 * i + 2];
+            _radii[k] = radii[i];
+            _materials[k] = materials[i];
+        }
+
+        // the boxes of the members
+        BoundingBox[] memberBoxes = new BoundingBox[memberCount];
+        for (int i = 0; i < _count; i++) {
+            BoundingBox box = new BoundingBox(boxes[6 * i], boxes[6 * i + 1], boxes[6 * i + 2],
+                    boxes[6 * i + 3], boxes[6 * i + 4], boxes[6 * i + 5]);
+            int m = materials[i];
+            memberBoxes[m] = memberBoxes[m] == null ? box : memberBoxes[m].union(box);
+        }
+        _members = new Member[memberCount];
+        for (int m = 0; m < memberCount; m++) {
+            if (memberBoxes[m] == null) {
+                throw new IllegalArgumentException("index of material " + m + " has no sphere");
+            }
+            _members[m] = new Member(m, memberBoxes[m]);
+        }
+    }
+
+    /**
+     * SphereSet constructor, with a hierarchy built by the surface area heuristic.
+     * @param centers   the coordinates of the centers (x, y, z of each sphere).
+     * @param radii     the radii of the spheres.
+     * @param materials the indices of the materials of the spheres (the members, see getMember).
+     */
+    public SphereSet(double[] centers, double[] radii, int[] materials) {
+        this(centers, radii, materials, BVH.Build.SAH);
+    }
+
+    /**
+     * SphereSet constructor, all the spheres with the same material (the member 0).
+     * @param centers the coordinates of the centers (x, y, z of each sphere).
+     * @param radii   the radii of the spheres.
+     */
+    public SphereSet(double[] centers, double[] radii) {
+        this(centers, radii, new int[radii.length]);
+    }
+
+    /**
+     * Getter of a member of the set, to set the material and the emission of its spheres.
+     * @param index the index of material of the spheres of the member.
+     * @return the member.
+     * @throws IllegalArgumentException if no sphere has this index of material.
+     */
+    public Geometry getMember(int index) {
+        if (index < 0 || index >= _members.length) {
+            throw new IllegalArgumentException("no sphere of the set has this index of material");
+        }
+        return _members[index];
+    }
+
+    /**
+     * Getter of the number of members.
+     * @return the number of indices of material of the spheres.
+     */
+    public int getMemberCount() {
+        return _members.length;
+    }
+
+    /**
+     * Getter of _count.
+     * @return the number of spheres.
+     */
+    public int getCount() {
+        return _count;
+    }
+
+    /**
+     * Getter of the memory of the set.
+     * @return the number of bytes of its arrays.
+     */
+    public long getMemory() {
+        return 36L * _count + 8L * _bounds.length + 4L * _links.length;
+    }
+
+    @Override
+    public String toString() {
+        return "SphereSet{" +
+                "spheres=" + _count +
+                ", members=" + _members.length +
+                ", nodes=" + _nodes +
+                '}';
+    }
+
+    /**
+     * To return the list of the intersection GeoPoints between a ray and the spheres of the set,
+     * testing the spheres of the leaves whose boxes the ray crosses.
+     * For each sphere : u = center - P0, tm = v.u, th^2 = r^2 - (u^2 - tm^2), t = tm +- th.
+     * @param ray the Ray object to find the intersections between it and the set.
+     * @return List<GeoPoint> of the intersection GeoPoints (null if there is none).
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        return intersect(ray, -1);
+    }
+
+    /**
+     * Helper method : to find the intersection GeoPoints between a ray and the spheres of a member
+     * (or of the whole set).
+     * @param ray   the Ray object to find the intersections between it and the spheres.
+     * @param index the index of material of the member (-1 for all the spheres).
+     * @return List<GeoPoint> of the intersection GeoPoints (null if there is none).
+     */
+    private List<GeoPoint> intersect(Ray ray, int index) {
+        if (_nodes == 0) {
+            return null;
+        }
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        double oX = p0.getX(), oY = p0.getY(), oZ = p0.getZ();
+        double dX = dir.getX(), dY = dir.getY(), dZ = dir.getZ();
+        double iX = 1 / dX, iY = 1 / dY, iZ = 1 / dZ;
+        List<GeoPoint> result = null;
+
+        BVH.Stacks stacks = BVH.STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int b = 6 * node;
+                if (!BVH.crosses(_bounds[b], _bounds[b + 1], _bounds[b + 2], _bounds[b + 3], _bounds[b + 4],
+                        _bounds[b + 5], oX, oY, oZ, iX, iY, iZ)) {
+                    continue;
+                }
+                int count = _links[2 * node + 1];
+                if (count == 0) {
+                    if (top + 2 > stack.length) {
+                        stack = stacks.grow(stack);
+                    }
+                    stack[top++] = _links[2 * node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                int first = _links[2 * node];
+                for (int i = first; i < first + count; i++) {
+                    if (index >= 0 && _materials[i] != index) {
+                        continue;
+                    }
+                    double uX = _x[i] - oX, uY = _y[i] - oY, uZ = _z[i] - oZ;
+                    double tm = uX * dX + uY * dY + uZ * dZ;
+                    double th2 = alignZero(_radii[i] * _radii[i] - (uX * uX + uY * uY + uZ * uZ - tm * tm));
+                    if (th2 <= 0) {
+                        continue;       // the ray misses the sphere, or is tangent to it
+                    }
+                    double th = Math.sqrt(th2);
+                    double t1 = alignZero(tm + th);
+                    if (t1 <= 0) {
+                        continue;       // the sphere is behind the ray
+                    }
+                    if (result == null) {
+                        result = new LinkedList<>();
+                    }
+                    Member member = _members[_materials[i]];
+                    result.add(new GeoPoint(member, ray.getPoint(t1)));
+                    double t2 = alignZero(tm - th);
+                    if (t2 > 0) {
+                        result.add(new GeoPoint(member, ray.getPoint(t2)));
+                    }
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        return result;
+    }
+
+    /**
+     * To find the normal at a point of a sphere of a member : the sphere of the member whose surface is
+     * the nearest to the point (among the spheres of the leaves whose boxes contain the point).
+     * @param point a point on a sphere of the member.
+     * @param index the index of material of the member.
+     * @return the normal of the sphere at the point (normalized, outwards).
+     * @throws IllegalArgumentException if the point is not on a sphere of the member.
+     */
+    private Vector normal(Point3D point, int index) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+
+        BVH.Stacks stacks = BVH.STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            if (_nodes > 0) {
+                stack[top++] = 0;
+            }
+            while (top > 0) {
+                int node = stack[--top];
+                int b = 6 * node;
+                double eps = TOLERANCE * Math.max(1, _bounds[b + 3] - _bounds[b]);
+                if (x < _bounds[b] - eps || y < _bounds[b + 1] - eps || z < _bounds[b + 2] - eps
+                        || x > _bounds[b + 3] + eps || y > _bounds[b + 4] + eps || z > _bounds[b + 5] + eps) {
+                    continue;
+                }
+                int count = _links[2 * node + 1];
+                if (count == 0) {
+                    if (top + 2 > stack.length) {
+                        stack = stacks.grow(stack);
+                    }
+                    stack[top++] = _links[2 * node];
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                int first = _links[2 * node];
+                for (int i = first; i < first + count; i++) {
+                    if (_materials[i] != index) {
+                        continue;
+                    }
+                    double uX = x - _x[i], uY = y - _y[i], uZ = z - _z[i];
+                    double distance = Math.abs(Math.sqrt(uX * uX + uY * uY + uZ * uZ) - _radii[i]) / _radii[i];
+                    if (distance < bestDistance) {
+                        best = i;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        if (best < 0 || bestDistance > TOLERANCE) {
+            throw new IllegalArgumentException("point is not on a sphere of the set");
+        }
+        return new Vector(x - _x[best], y - _y[best], z - _z[best]).normalize();
+    }
+
+    /**
+     * To find the box containing the spheres of the set.
+     * @return the box of the root of the hierarchy (empty if the set has no sphere).
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return _nodes == 0 ? BoundingBox.EMPTY
+                : new BoundingBox(_bounds[0], _bounds[1], _bounds[2], _bounds[3], _bounds[4], _bounds[5]);
+    }
+}
@@ -0,0 +1,510 @@
+package geometries;
+
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Class TriangleMesh, a mesh of triangles stored outside the heap : its vertices (3 floats each),
+ * its triangles (3 indices of vertices each), and its own bounding volume hierarchy (6 floats of bounds
+ * and 2 ints of links per node, see BVH) are kept in direct buffers, or in a file mapped in memory.
+ * There is no object per triangle : the garbage collector sees a few buffer objects whatever the size
+ * of the mesh, and the intersections read the buffers directly.
+ * The hierarchy is built when the mesh is created from arrays (with temporary arrays on the heap),
+ * and written with the mesh (see write) : a mapped mesh is used without any build.
+ * The bounds of the nodes are rounded outwards to floats.
+ * The triangles are flat (the normal of a point is the normal of its triangle, found by the hierarchy),
+ * and the points on their edges are on both triangles (no crack between the triangles).
+ * The whole mesh is one geometry, with one emission and one material.
+ * File : a header (magic, version, number of vertices, of triangles and of nodes), then the vertices,
+ * the triangles (in the order of the leaves), the bounds and the links of the nodes.
+ * Thread-safe for the intersections.
+ */
+public class TriangleMesh extends Geometry implements AutoCloseable {
+    private static final int MAGIC = 0x52544D53;    // "RTMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Maximal number of triangles in a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    private final int _vertexCount;
+    private final int _triangleCount;
+    private final int _nodes;
+    private final FloatBuffer _vertices;
+    private final IntBuffer _triangles;
+    private final FloatBuffer _bounds;
+    private final IntBuffer _links;
+
+    /**
+     * The mapped file (null if the mesh is in direct buffers).
+     */
+    private final FileChannel _channel;
+
+    /**
+     * Distance under which a point is on a triangle (see getNormal), relative to the size of the mesh.
+     */
+    private final double _tolerance;
+
+    /**
+     * TriangleMesh constructor : copies a mesh into direct buffers and builds its hierarchy.
+     * @param vertices  the coordinates of the vertices (x, y, z of each vertex).
+     * @param triangles the indices of the vertices of the triangles (3 per triangle).
+     * @param build     the mode of the build of the hierarchy.
+     * @throws IllegalArgumentException if the lengths of the arrays are not multiples of 3,
+     *                                  if an index is not the index of a vertex,
+     *                                  or if the mesh is too big for a buffer (2GB per array).
+     */
+    public TriangleMesh(float[] vertices, int[] triangles, BVH.Build build) {
+        if (vertices.length % 3 != 0 || triangles.length % 3 != 0) {
+            throw new IllegalArgumentException("a vertex has 3 coordinates, and a triangle 3 vertices");
+        }
+        _vertexCount = vertices.length / 3;
+        _triangleCount = triangles.length / 3;
+        for (int index : triangles) {
+            if (index < 0 || index >= _vertexCount) {
+                throw new IllegalArgumentException("an index of a triangle is not the index of a vertex");
+            }
+        }
+
+        // the hierarchy, over the boxes of the triangles
+        double[] boxes = new double[6 * _triangleCount];
+        for (int t = 0; t < _triangleCount; t++) {
+            for (int axis = 0; axis < 3; axis++) {
+                double a = vertices[3 * triangles[3 * t] + axis];
+                double b = vertices[3 * triangles[3 * t + 1] + axis];
+                double c = vertices[3 * triangles[3 * t + 2] + axis];
+                boxes[6 * t + axis] = Math.min(a, Math.min(b, c));
+                boxes[6 * t + axis + 3] = Math.max(a, Math.max(b, c));
+            }
+        }
+        BVHBuilder builder = new BVHBuilder(boxes, build, LEAF_SIZE);
+        builder.build();
+        _nodes = builder.getNodes();
+        double[] bounds = new double[6 * _nodes];
+        int[] links = new int[2 * _nodes];
+        builder.flatten(bounds, links);
+        int[] order = builder.getOrder();
+
+        _vertices = allocate(4L * vertices.length).asFloatBuffer().put(vertices);
+        _triangles = allocate(4L * triangles.length).asIntBuffer();
+        for (int k = 0; k < _triangleCount; k++) {
+            _triangles.put(triangles, 3 * order[k], 3);
+        }
+        _bounds = allocate(4L * bounds.length).asFloatBuffer();
+        for (int i = 0; i < bounds.length; i++) {
+            _bounds.put(i % 6 < 3 ? down(bounds[i]) : up(bounds[i]));
+        }
+        _links = allocate(4L * links.length).asIntBuffer().put(links);
+        _channel = null;
+        _tolerance = tolerance();
+    }
+
+    /**
+     * TriangleMesh constructor, with a hierarchy built by the surface area heuristic.
+     * @param vertices  the coordinates of the vertices (x, y, z of each vertex).
+     * @param triangles the indices of the vertices of the triangles (3 per triangle).
+     */
+    public TriangleMesh(float[] vertices, int[] triangles) {
+        this(vertices, triangles, BVH.Build.SAH);
+    }
+
+    /**
+     * TriangleMesh constructor : maps a mesh file (see write), read-only.
+     * @param path the file of the mesh.
+     * @throws IllegalArgumentException if the file is not a mesh file.
+     * @throws UncheckedIOException     if the file cannot be read.
+     */
+    public TriangleMesh(Path path) {
+        try {
+            _channel = new RandomAccessFile(path.toFile(), "r").getChannel();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            _channel.read(header, 0);
+            header.rewind();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException("the file is not a mesh file");
+            }
+            _vertexCount = header.getInt();
+            _triangleCount = header.getInt();
+            _nodes = header.getInt();
+            long offset = HEADER_SIZE;
+            _vertices = map(offset, 12L * _vertexCount).asFloatBuffer();
+            offset += 12L * _vertexCount;
+            _triangles = map(offset, 12L * _triangleCount).asIntBuffer();
+            offset += 12L * _triangleCount;
+            _bounds = map(offset, 24L * _nodes).asFloatBuffer();
+            offset += 24L * _nodes;
+            _links = map(offset, 8L * _nodes).asIntBuffer();
+        } catch (IOException e) {
+            closeAfter(e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            closeAfter(e);
+            throw e;
+        }
+        _tolerance = tolerance();
+    }
+
+    /**
+     * Helper method : to close the file after a failure of the mapping of the mesh.
+     * @param failure the failure, to which a failure of the closing is added as suppressed.
+     */
+    private void closeAfter(Exception failure) {
+        try {
+            _channel.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Helper method : to allocate a direct buffer, in the native byte order.
+     * @param size the size in bytes.
+     * @return the buffer.
+     * @throws IllegalArgumentException if the size is too big for a buffer.
+     */
+    private static ByteBuffer allocate(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("the mesh is too big for a buffer");
+        }
+        return ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Helper method : to map a section of the file, in the byte order of the files (big-endian).
+     * @param offset the offset of the section.
+     * @param size   the size of the section in bytes.
+     * @return the mapped section.
+     * @throws IOException if the section cannot be mapped.
+     */
+    private ByteBuffer map(long offset, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("a section of the mesh file is too big to be mapped");
+        }
+        return _channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+    }
+
+    /**
+     * Helper method : a double rounded down to a float.
+     * @param value the double.
+     * @return the greatest float not greater than value.
+     */
+    private static float down(double value) {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * Helper method : a double rounded up to a float.
+     * @param value the double.
+     * @return the smallest float not less than value.
+     */
+    private static float up(double value) {
+        float f = (float) value;
+        return f < value ? Math.nextUp(f) : f;
+    }
+
+    /**
+     * Helper method : the distance under which a point is on a triangle, from the size of the box of the mesh.
+     * @return the tolerance.
+     */
+    private double tolerance() {
+        if (_nodes == 0) {
+            return 0;
+        }
+        double size = Math.abs(_bounds.get(3) - _bounds.get(0)) + Math.abs(_bounds.get(4) - _bounds.get(1))
+                + Math.abs(_bounds.get(5) - _bounds.get(2));
+        return 1e-6 * Math.max(1, size);
+    }
+
+    /**
+     * To write the mesh (with its hierarchy) into a file, to be mapped later (see TriangleMesh(Path)).
+     * @param path the file.
+     * @throws UncheckedIOException if the file cannot be written.
+     */
+    public void write(Path path) {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+             FileChannel channel = file.getChannel()) {
+            file.setLength(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(_vertexCount).putInt(_triangleCount).putInt(_nodes);
+            header.rewind();
+            channel.write(header, 0);
+            long offset = HEADER_SIZE;
+            ByteBuffer section = channel.map(FileChannel.MapMode.READ_WRITE, offset, 12L * _vertexCount);
+            for (int i = 0; i < 3 * _vertexCount; i++) {
+                section.putFloat(_vertices.get(i));
+            }
+            offset += 12L * _vertexCount;
+            section = channel.map(FileChannel.MapMode.READ_WRITE, offset, 12L * _triangleCount);
+            for (int i = 0; i < 3 * _triangleCount; i++) {
+                section.putInt(_triangles.get(i));
+            }
+            offset += 12L * _triangleCount;
+            section = channel.map(FileChannel.MapMode.READ_WRITE, offset, 32L * _nodes);
+            for (int i = 0; i < 6 * _nodes; i++) {
+                section.putFloat(_bounds.get(i));
+            }
+            for (int i = 0; i < 2 * _nodes; i++) {
+                section.putInt(_links.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * To close the mapped file (nothing for a mesh in direct buffers).
+     * The mesh must not be used anymore.
+     */
+    @Override
+    public void close() {
+        if (_channel != null) {
+            try {
+                _channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Getter of _triangleCount.
+     * @return the number of triangles.
+     */
+    public int getTriangleCount() {
+        return _triangleCount;
+    }
+
+    /**
+     * Getter of the memory of the mesh outside the heap.
+     * @return the number of bytes of the vertices, the triangles and the nodes.
+     */
+    public long getOffHeapMemory() {
+        return 12L * _vertexCount + 12L * _triangleCount + 32L * _nodes;
+    }
+
+    /**
+     * To return the list of the intersection GeoPoints between a ray and the triangles of the mesh
+     * (by the Moller-Trumbore algorithm, on the triangles of the leaves whose boxes the ray crosses).
+     * @param ray the Ray object to find the intersections between it and the mesh.
+     * @return List<GeoPoint> of the intersection GeoPoints (null if there is none).
+     */
+    @Override
+    public List<GeoPoint> findGeoIntersections(Ray ray) {
+        if (_nodes == 0) {
+            return null;
+        }
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        double oX = p0.getX(), oY = p0.getY(), oZ = p0.getZ();
+        double dX = dir.getX(), dY = dir.getY(), dZ = dir.getZ();
+        double iX = 1 / dX, iY = 1 / dY, iZ = 1 / dZ;
+        List<GeoPoint> result = null;
+
+        BVH.Stacks stacks = BVH.STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int b = 6 * node;
+                if (!BVH.crosses(_bounds.get(b), _bounds.get(b + 1), _bounds.get(b + 2),
+                        _bounds.get(b + 3), _bounds.get(b + 4), _bounds.get(b + 5), oX, oY, oZ, iX, iY, iZ)) {
+                    continue;
+                }
+                int count = _links.get(2 * node + 1);
+                if (count == 0) {
+                    if (top + 2 > stack.length) {
+                        stack = stacks.grow(stack);
+                    }
+                    stack[top++] = _links.get(2 * node);
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                int first = _links.get(2 * node);
+                for (int t = first; t < first + count; t++) {
+                    double distance = intersect(t, oX, oY, oZ, dX, dY, dZ);
+                    if (distance > 0) {
+                        if (result == null) {
+                            result = new LinkedList<>();
+                        }
+                        result.add(new GeoPoint(this, ray.getPoint(distance)));
+                    }
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        return result;
+    }
+
+    /**
+     * To intersect a ray with a triangle (Moller-Trumbore), the points on the edges included.
+     * @param t  the index of the triangle.
+     * @param oX the X coordinate of the origin of the ray (and oY, oZ).
+     * @param dX the X coordinate of the direction of the ray (and dY, dZ).
+     * @return the distance of the intersection along the ray (0 if there is none).
+     */
+    private double intersect(int t, double oX, double oY, double oZ, double dX, double dY, double dZ) {
+        int a = 3 * _triangles.get(3 * t), b = 3 * _triangles.get(3 * t + 1), c = 3 * _triangles.get(3 * t + 2);
+        double aX = _vertices.get(a), aY = _vertices.get(a + 1), aZ = _vertices.get(a + 2);
+        double e1X = _vertices.get(b) - aX, e1Y = _vertices.get(b + 1) - aY, e1Z = _vertices.get(b + 2) - aZ;
+        double e2X = _vertices.get(c) - aX, e2Y = _vertices.get(c + 1) - aY, e2Z = _vertices.get(c + 2) - aZ;
+        // p = d x e2
+        double pX = dY * e2Z - dZ * e2Y, pY = dZ * e2X - dX * e2Z, pZ = dX * e2Y - dY * e2X;
+        double det = e1X * pX + e1Y * pY + e1Z * pZ;
+        if (alignZero(det) == 0) {
+            return 0;       // parallel to the triangle (or a degenerate triangle)
+        }
+        double inverse = 1 / det;
+        double sX = oX - aX, sY = oY - aY, sZ = oZ - aZ;
+        double u = (sX * pX + sY * pY + sZ * pZ) * inverse;
+        if (u < 0 || u > 1) {
+            return 0;
+        }
+        // q = s x e1
+        double qX = sY * e1Z - sZ * e1Y, qY = sZ * e1X - sX * e1Z, qZ = sX * e1Y - sY * e1X;
+        double v = (dX * qX + dY * qY + dZ * qZ) * inverse;
+        if (v < 0 || u + v > 1) {
+            return 0;
+        }
+        double distance = alignZero((e2X * qX + e2Y * qY + e2Z * qZ) * inverse);
+        return distance > 0 ? distance : 0;
+    }
+
+    /**
+     * To find the normal of the mesh at a point : the normal of the triangle containing the point
+     * (the nearest one, among the triangles of the leaves whose boxes contain the point).
+     * @param point a point of the mesh.
+     * @return the normal of its triangle (normalized, in the direction of (v1 - v0) x (v2 - v0)).
+     * @throws IllegalArgumentException if the point is not on the mesh.
+     */
+    @Override
+    public Vector getNormal(Point3D point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        double eps = _tolerance;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+
+        BVH.Stacks stacks = BVH.STACKS.get();
+        int[] stack = stacks.enter();
+        try {
+            int top = 0;
+            if (_nodes > 0) {
+                stack[top++] = 0;
+            }
+            while (top > 0) {
+                int node = stack[--top];
+                int b = 6 * node;
+                if (x < _bounds.get(b) - eps || y < _bounds.get(b + 1) - eps || z < _bounds.get(b + 2) - eps
+                        || x > _bounds.get(b + 3) + eps || y > _bounds.get(b + 4) + eps || z > _bounds.get(b + 5) + eps) {
+                    continue;
+                }
+                int count = _links.get(2 * node + 1);
+                if (count == 0) {
+                    if (top + 2 > stack.length) {
+                        stack = stacks.grow(stack);
+                    }
+                    stack[top++] = _links.get(2 * node);
+                    stack[top++] = node + 1;
+                    continue;
+                }
+                int first = _links.get(2 * node);
+                for (int t = first; t < first + count; t++) {
+                    double distance = distance(t, x, y, z);
+                    if (distance < bestDistance) {
+                        best = t;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        } finally {
+            stacks.exit();
+        }
+        if (best < 0 || bestDistance > eps) {
+            throw new IllegalArgumentException("the point is not on the mesh");
+        }
+        double[] normal = normal(best);
+        return new Vector(normal[0], normal[1], normal[2]).normalize();
+    }
+
+    /**
+     * Helper method : the normal of a triangle, (v1 - v0) x (v2 - v0).
+     * @param t the index of the triangle.
+     * @return the coordinates of the normal (not normalized).
+     */
+    private double[] normal(int t) {
+        int a = 3 * _triangles.get(3 * t), b = 3 * _triangles.get(3 * t + 1), c = 3 * _triangles.get(3 * t + 2);
+        double e1X = _vertices.get(b) - _vertices.get(a), e1Y = _vertices.get(b + 1) - _vertices.get(a + 1);
+        double e1Z = _vertices.get(b + 2) - _vertices.get(a + 2);
+        double e2X = _vertices.get(c) - _vertices.get(a), e2Y = _vertices.get(c + 1) - _vertices.get(a + 1);
+        double e2Z = _vertices.get(c + 2) - _vertices.get(a + 2);
+        return new double[]{e1Y * e2Z - e1Z * e2Y, e1Z * e2X - e1X * e2Z, e1X * e2Y - e1Y * e2X};
+    }
+
+    /**
+     * Helper method : the distance between a point and a triangle, if the point projects into the triangle
+     * (with the tolerance on the edges).
+     * @param t the index of the triangle.
+     * @param x the X coordinate of the point (and y, z).
+     * @return the distance from the point to the plane of the triangle (infinite if the point does not
+     * project into the triangle, or if the triangle is degenerate).
+     */
+    private double distance(int t, double x, double y, double z) {
+        double[] n = normal(t);
+        double length = Math.sqrt(n[0] * n[0] + n[1] * n[1] + n[2] * n[2]);
+        if (length == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        int[] vertices = {3 * _triangles.get(3 * t), 3 * _triangles.get(3 * t + 1), 3 * _triangles.get(3 * t + 2)};
+        double eps = _tolerance;
+        // the point must be on the inner side of each edge (up to the tolerance)
+        for (int k = 0; k < 3; k++) {
+            int from = vertices[k], to = vertices[(k + 1) % 3];
+            double eX = _vertices.get(to) - _vertices.get(from), eY = _vertices.get(to + 1) - _vertices.get(from + 1);
+            double eZ = _vertices.get(to + 2) - _vertices.get(from + 2);
+            double pX = x - _vertices.get(from), pY = y - _vertices.get(from + 1), pZ = z - _vertices.get(from + 2);
+            // (e x p) . n / |n| / |e| : the signed distance from the edge, in the plane
+            double side = ((eY * pZ - eZ * pY) * n[0] + (eZ * pX - eX * pZ) * n[1] + (eX * pY - eY * pX) * n[2])
+                    / length / Math.sqrt(eX * eX + eY * eY + eZ * eZ);
+            if (side < -eps) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        int a = vertices[0];
+        return Math.abs((x - _vertices.get(a)) * n[0] + (y - _vertices.get(a + 1)) * n[1]
+                + (z - _vertices.get(a + 2)) * n[2]) / length;
+    }
+
+    /**
+     * To find the box containing the mesh.
+     * @return the box of the root of the hierarchy (empty if the mesh has no triangle).
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return _nodes == 0 ? BoundingBox.EMPTY : new BoundingBox(_bounds.get(0), _bounds.get(1), _bounds.get(2),
+                _bounds.get(3), _bounds.get(4), _bounds.get(5));
+    }
+}
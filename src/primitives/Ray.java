@@ -1,6 +1,5 @@
 package primitives;
 
-import geometries.Geometry;
 import geometries.Intersectable.GeoPoint;
 
 import java.util.List;
@@ -137,34 +136,27 @@ public class Ray {
 
     /**
      * As for findClosestPoint, but using Intersectable.GeoPoint instead of Point3D.
-     * @return a GeoPoint, composed of the Point3D that is the closest to this,
-     * and of the corresponding Geometry.
+     * @return the GeoPoint of gpList that is the closest to this (the GeoPoint itself, with its local point
+     * if it was found through an instance), or null if there is none.
      *
      * CLOSEST IN WHICH DIRECTION ??
      */
     public GeoPoint findClosestGeoPoint(List<GeoPoint> gpList) {
         // searching for the minimal distance
         double distance = Double.POSITIVE_INFINITY;
-        Geometry nearGeometry = null;
-        Point3D nearPoint = null;
+        GeoPoint nearGeoPoint = null;
 
         if (gpList != null) {
             for (GeoPoint gp : gpList) {
-                Point3D point = gp._point;
-                double currentDistance = point.distance(_p0);
+                double currentDistance = gp._point.distance(_p0);
                 if (currentDistance < distance) {
                     distance = currentDistance;
-                    nearGeometry = gp._geometry;
-                    nearPoint = point;
+                    nearGeoPoint = gp;
                 }
             }
         }
 
-        if (nearGeometry == null) {
-            return null;
-        }
-        return new GeoPoint(nearGeometry, nearPoint);
-
+        return nearGeoPoint;
     }
 
 }
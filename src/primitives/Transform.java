@@ -0,0 +1,246 @@
+package primitives;
+
+import java.util.Arrays;
+
+/**
+ * Class Transform, an affine transformation of the 3D space (a linear part, 3x3 matrix, and a translation) :
+ * p' = M . p + t for the points, v' = M . v for the vectors, and n' = (M^-1)^T . n for the normals.
+ * The inverse is computed once, when the transform is built.
+ * Immutable.
+ */
+public class Transform {
+    /**
+     * The identity transform.
+     */
+    public static final Transform IDENTITY = new Transform(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, 0, 0, 0);
+
+    /**
+     * The linear part, row by row.
+     */
+    private final double[] _m;
+    /**
+     * The translation.
+     */
+    private final double _tX, _tY, _tZ;
+    /**
+     * The linear part of the inverse, row by row.
+     */
+    private final double[] _inverse;
+
+    /**
+     * Transform constructor, receiving the linear part and the translation.
+     * @param m  the 3x3 matrix of the linear part, row by row.
+     * @param tX the translation on the X axis.
+     * @param tY the translation on the Y axis.
+     * @param tZ the translation on the Z axis.
+     * @throws IllegalArgumentException if m has not 9 values or is not invertible.
+     */
+    public Transform(double[] m, double tX, double tY, double tZ) {
+        if (m.length != 9) {
+            throw new IllegalArgumentException("the linear part must be a 3x3 matrix");
+        }
+        _m = m.clone();
+        _tX = tX;
+        _tY = tY;
+        _tZ = tZ;
+        _inverse = invert(_m);
+    }
+
+    /**
+     * To build a translation.
+     * @param vector the vector of the translation.
+     * @return the transform p -> p + vector.
+     */
+    public static Transform translation(Vector vector) {
+        Point3D head = vector.getHead();
+        return translation(head.getX(), head.getY(), head.getZ());
+    }
+
+    /**
+     * To build a translation (possibly null, unlike a Vector).
+     * @param x the translation on the X axis.
+     * @param y the translation on the Y axis.
+     * @param z the translation on the Z axis.
+     * @return the transform p -> p + (x, y, z).
+     */
+    public static Transform translation(double x, double y, double z) {
+        return new Transform(IDENTITY._m, x, y, z);
+    }
+
+    /**
+     * To build a scaling around the origin.
+     * @param x the factor on the X axis.
+     * @param y the factor on the Y axis.
+     * @param z the factor on the Z axis.
+     * @return the scaling.
+     * @throws IllegalArgumentException if a factor is 0.
+     */
+    public static Transform scaling(double x, double y, double z) {
+        return new Transform(new double[]{x, 0, 0, 0, y, 0, 0, 0, z}, 0, 0, 0);
+    }
+
+    /**
+     * To build a uniform scaling around the origin.
+     * Wrapper method.
+     * @param factor the factor on each axis.
+     * @return the scaling.
+     */
+    public static Transform scaling(double factor) {
+        return scaling(factor, factor, factor);
+    }
+
+    /**
+     * To build a rotation around an axis passing through the origin (Rodrigues' formula).
+     * @param axis  the direction of the axis.
+     * @param angle the angle of the rotation, in radians (counterclockwise when the axis points to the viewer).
+     * @return the rotation.
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Point3D u = axis.normalized().getHead();
+        double x = u.getX(), y = u.getY(), z = u.getZ();
+        double cos = Math.cos(angle), sin = Math.sin(angle), k = 1 - cos;
+        return new Transform(new double[]{
+                cos + x * x * k, x * y * k - z * sin, x * z * k + y * sin,
+                y * x * k + z * sin, cos + y * y * k, y * z * k - x * sin,
+                z * x * k - y * sin, z * y * k + x * sin, cos + z * z * k}, 0, 0, 0);
+    }
+
+    /**
+     * To build the transform applying this, then other.
+     * @param other the transform applied after this.
+     * @return the composition other o this.
+     */
+    public Transform then(Transform other) {
+        double[] a = other._m, b = _m;
+        double[] m = new double[9];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                m[3 * row + col] = a[3 * row] * b[col] + a[3 * row + 1] * b[3 + col] + a[3 * row + 2] * b[6 + col];
+            }
+        }
+        return new Transform(m,
+                a[0] * _tX + a[1] * _tY + a[2] * _tZ + other._tX,
+                a[3] * _tX + a[4] * _tY + a[5] * _tZ + other._tY,
+                a[6] * _tX + a[7] * _tY + a[8] * _tZ + other._tZ);
+    }
+
+    /**
+     * To build the inverse transform.
+     * @return the transform p' -> p.
+     */
+    public Transform inverse() {
+        double[] m = _inverse;
+        return new Transform(m, -(m[0] * _tX + m[1] * _tY + m[2] * _tZ),
+                -(m[3] * _tX + m[4] * _tY + m[5] * _tZ), -(m[6] * _tX + m[7] * _tY + m[8] * _tZ));
+    }
+
+    /**
+     * To transform a point.
+     * @param point the point.
+     * @return M . point + t.
+     */
+    public Point3D apply(Point3D point) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        return new Point3D(_m[0] * x + _m[1] * y + _m[2] * z + _tX,
+                _m[3] * x + _m[4] * y + _m[5] * z + _tY,
+                _m[6] * x + _m[7] * y + _m[8] * z + _tZ);
+    }
+
+    /**
+     * To transform a point with the inverse transform.
+     * @param point the transformed point.
+     * @return M^-1 . (point - t).
+     */
+    public Point3D applyInverse(Point3D point) {
+        double x = point.getX() - _tX, y = point.getY() - _tY, z = point.getZ() - _tZ;
+        double[] m = _inverse;
+        return new Point3D(m[0] * x + m[1] * y + m[2] * z, m[3] * x + m[4] * y + m[5] * z,
+                m[6] * x + m[7] * y + m[8] * z);
+    }
+
+    /**
+     * To transform a vector (the translation does not apply).
+     * @param vector the vector.
+     * @return M . vector.
+     */
+    public Vector applyToVector(Vector vector) {
+        Point3D v = vector.getHead();
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        return new Vector(_m[0] * x + _m[1] * y + _m[2] * z, _m[3] * x + _m[4] * y + _m[5] * z,
+                _m[6] * x + _m[7] * y + _m[8] * z);
+    }
+
+    /**
+     * To transform a vector with the inverse transform.
+     * @param vector the transformed vector.
+     * @return M^-1 . vector.
+     */
+    public Vector applyInverseToVector(Vector vector) {
+        Point3D v = vector.getHead();
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        double[] m = _inverse;
+        return new Vector(m[0] * x + m[1] * y + m[2] * z, m[3] * x + m[4] * y + m[5] * z,
+                m[6] * x + m[7] * y + m[8] * z);
+    }
+
+    /**
+     * To transform a normal, so that it stays orthogonal to the transformed surface.
+     * @param normal the normal.
+     * @return (M^-1)^T . normal (not normalized).
+     */
+    public Vector applyToNormal(Vector normal) {
+        Point3D n = normal.getHead();
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        double[] m = _inverse;
+        return new Vector(m[0] * x + m[3] * y + m[6] * z, m[1] * x + m[4] * y + m[7] * z,
+                m[2] * x + m[5] * y + m[8] * z);
+    }
+
+    /**
+     * Helper method : to invert a 3x3 matrix (by its adjugate).
+     * The matrix is singular if its determinant is zero relatively to the product of the lengths of its rows
+     * (the greatest determinant of rows of these lengths), so that the scale of the matrix does not matter.
+     * @param m the matrix, row by row.
+     * @return the inverse matrix, row by row.
+     * @throws IllegalArgumentException if m is not invertible.
+     */
+    private static double[] invert(double[] m) {
+        double c0 = m[4] * m[8] - m[5] * m[7];
+        double c1 = m[5] * m[6] - m[3] * m[8];
+        double c2 = m[3] * m[7] - m[4] * m[6];
+        double det = m[0] * c0 + m[1] * c1 + m[2] * c2;
+        double scale = Math.sqrt(m[0] * m[0] + m[1] * m[1] + m[2] * m[2])
+                * Math.sqrt(m[3] * m[3] + m[4] * m[4] + m[5] * m[5])
+                * Math.sqrt(m[6] * m[6] + m[7] * m[7] + m[8] * m[8]);
+        if (scale == 0 || Util.isZero(det / scale)) {
+            throw new IllegalArgumentException("the transform must be invertible");
+        }
+        double inv = 1 / det;
+        return new double[]{
+                c0 * inv, (m[2] * m[7] - m[1] * m[8]) * inv, (m[1] * m[5] - m[2] * m[4]) * inv,
+                c1 * inv, (m[0] * m[8] - m[2] * m[6]) * inv, (m[2] * m[3] - m[0] * m[5]) * inv,
+                c2 * inv, (m[1] * m[6] - m[0] * m[7]) * inv, (m[0] * m[4] - m[1] * m[3]) * inv};
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Transform)) return false;
+        Transform transform = (Transform) o;
+        return Arrays.equals(_m, transform._m)
+                && _tX == transform._tX && _tY == transform._tY && _tZ == transform._tZ;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(_m) + Arrays.hashCode(new double[]{_tX, _tY, _tZ});
+    }
+
+    @Override
+    public String toString() {
+        return "Transform{" +
+                "m=" + Arrays.toString(_m) +
+                ", t=(" + _tX + ", " + _tY + ", " + _tZ + ")" +
+                '}';
+    }
+}
@@ -209,6 +209,28 @@ public class Vector {
         return new Vector(x / length, y / length, z / length);
     }
 
+    /**
+     * To find a normalized vector orthogonal to this.
+     * The cross product is made with the axis the least aligned with this,
+     * so that the result is well defined whatever the direction of this.
+     * @return a new normalized Vector, orthogonal to this.
+     */
+    public Vector findOrthogonal() {
+        double x = Math.abs(_head._x.coord);
+        double y = Math.abs(_head._y.coord);
+        double z = Math.abs(_head._z.coord);
+
+        Vector axis;
+        if (x <= y && x <= z) {
+            axis = new Vector(1, 0, 0);
+        } else if (y <= z) {
+            axis = new Vector(0, 1, 0);
+        } else {
+            axis = new Vector(0, 0, 1);
+        }
+        return crossProduct(axis).normalize();
+    }
+
 
 
 }
@@ -1,5 +1,6 @@
 package renderer;
 
+import elements.AreaLightSource;
 import elements.DirectionalLight;
 import elements.LightSource;
 import geometries.Geometry;
@@ -7,7 +8,10 @@ import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -26,6 +30,68 @@ public class BasicRayTracer extends RayTracerBase {
     private static final double INITIAL_K = 1.0;
     private static final double MIN_CALC_COLOR_K = 0.001;
 
+    /**
+     * For Russian roulette : from the level ROULETTE_LEVEL (number of bounces before the roulette),
+     * a secondary ray is traced with the survival probability min(_maxSurvival, k),
+     * and its color is divided by that probability (unbiased termination). 0 : roulette off.
+     */
+    private static final int DEFAULT_ROULETTE_LEVEL = 2;
+    private static final double DEFAULT_MAX_SURVIVAL = 0.8;
+    private int _rouletteLevel = 0;
+    private double _maxSurvival = DEFAULT_MAX_SURVIVAL;
+
+    /**
+     * Maximal number of secondary rays (reflected and refracted) per render (0 : no limit),
+     * and the share of each pixel of the render (see beginPixels).
+     */
+    private long _rayBudget = 0;
+    private double _pixelBudget = 0;
+
+    /**
+     * The number of the current render, and the secondary rays left to each thread for its current pixels :
+     * {render, rays left}. The rays left of a previous render are reset to the share of one pixel.
+     */
+    private int _render = 0;
+    private final ThreadLocal<long[]> _raysLeft = ThreadLocal.withInitial(() -> new long[]{-1, 0});
+
+    /**
+     * The queue of secondary rays of each thread, for the iterative evaluation of the global effects.
+     */
+    private final ThreadLocal<RayQueue> _rayQueues = ThreadLocal.withInitial(RayQueue::new);
+
+    /**
+     * The buffers of each thread, for the wavefront mode (see traceBatch(RayBuffer, double[])).
+     */
+    private final ThreadLocal<WavefrontBuffers> _wavefrontBuffers = ThreadLocal.withInitial(WavefrontBuffers::new);
+
+    /**
+     * Interface RaySink, a destination for the secondary rays of a point (see pushGlobalEffects).
+     */
+    interface RaySink {
+        /**
+         * To add a secondary ray.
+         * @param ray        the secondary ray.
+         * @param k          the attenuation coefficient of the ray.
+         * @param weight     the coefficient of the color of the point the ray hits.
+         * @param missWeight the coefficient of the background color if the ray hits nothing.
+         * @param level      the level of recursion of the point the ray hits.
+         */
+        void push(Ray ray, double k, double weight, double missWeight, int level);
+    }
+
+    /**
+     * Class WavefrontBuffers, the buffers of one thread for the wavefront mode :
+     * two buffers of secondary rays (the current stage and the next one), one buffer of shadow rays,
+     * and the rays and the closest points of the current stage.
+     */
+    private static class WavefrontBuffers {
+        private final RayBuffer _a = new RayBuffer();
+        private final RayBuffer _b = new RayBuffer();
+        private final RayBuffer _shadows = new RayBuffer();
+        private Ray[] _rays = new Ray[0];
+        private GeoPoint[] _hits = new GeoPoint[0];
+    }
+
     /**
      * For Soft Shadows effect.
      * DEFAULT_NUM_OF_SAMPLES must be an odd number.
@@ -36,7 +102,43 @@ public class BasicRayTracer extends RayTracerBase {
     private double _angle = DEFAULT_ANGLE;
     private double _tan_angle = Math.tan(_angle);
     private boolean softShadowsFlag = false;
+    /**
+     * Maximal difference between the ktr of the samples of a region of the square of the soft shadows,
+     * to interpolate the other samples of the region instead of casting them.
+     */
+    private double _softShadowsTolerance = 0.0;
 
+    /**
+     * For the area light sources (AreaLightSource) : number of samples of the surface for each point.
+     */
+    private static final int DEFAULT_AREA_LIGHT_SAMPLES = 16;
+    private int _areaLightSamples = DEFAULT_AREA_LIGHT_SAMPLES;
+
+    /**
+     * For the shading cache of the soft shadows (null : cache off).
+     * The proportion of shadowing of a point is interpolated from the SAMPLES_PER_CELL values
+     * already calculated in its cell, when they differ by at most the tolerance.
+     */
+    private static final double DEFAULT_CELL_SIZE = 2.0;
+    private static final double DEFAULT_CACHE_TOLERANCE = 0.02;
+    private static final int SAMPLES_PER_CELL = 4;
+    private ShadingCache _shadingCache = null;
+
+    /**
+     * For light culling.
+     * Under LIGHT_TREE_MIN_LIGHTS light sources, all the light sources are visited for each point;
+     * else, the light sources are put in a LightTree, built at the beginning of the render.
+     * The spheres of influence of the tree are computed for a material with kD + kS <= MAX_KD_KS.
+     */
+    private static final int LIGHT_TREE_MIN_LIGHTS = 8;
+    private static final double MAX_KD_KS = 2.0;
+    private LightTree _lightTree = null;
+
+    /**
+     * For many-lights mode : number of light sources sampled for each point (0 : mode off).
+     */
+    private static final int DEFAULT_MANY_LIGHTS_SAMPLES = 8;
+    private int _manyLightsSamples = 0;
 
     /**
      * RayTracerBasic constructor, receiving 1 parameter.
@@ -66,7 +168,7 @@ public class BasicRayTracer extends RayTracerBase {
      * with calcColor(Geopoint, Ray, int level, double k) :
      * - to add to it the color of the light emitted by the object.
      * - for each light source, to add : [ kD * |l.n| + kS * (max(0,-v.r))^nShininess ] * Il
-     * - to add refraction / reflection effects
+     * - to add refraction / reflection effects (iteratively, with the RayQueue of the thread)
      *
      * @param closestPoint the point to find the color of it
      *                     (note : using the method through traceRay(Ray), it is the closest point of
@@ -84,28 +186,277 @@ public class BasicRayTracer extends RayTracerBase {
 
     }
 
+    /**
+     * To trace a batch of camera rays stage by stage (wavefront), instead of one ray after the other :
+     * - intersection stage : finding the closest point of all the rays of the stage;
+     * - shading stage : adding the background color for the rays without intersection,
+     * the emission (and the ambient light for the camera rays) of the points hit,
+     * filling the buffer of shadow rays (one per point and light source, with its unshadowed contribution),
+     * and pushing the secondary rays of the points into the buffer of the next stage;
+     * - shadow stage : tracing all the shadow rays, adding the contributions of the unshadowed light sources.
+     * The secondary rays of the next stage are then traced the same way, until there is no more ray.
+     * With soft shadows or many-lights, the light sources are calculated in the shading stage
+     * (calcLocalEffects), without the shadow stage.
+     * Same result as traceRay(Ray) for each ray.
+     *
+     * @param rays   the camera rays.
+     * @param colors the colors of the pixels : r, g, b of the pixel i at 3i, 3i+1, 3i+2.
+     */
+    @Override
+    void traceBatch(RayBuffer rays, double[] colors) {
+        WavefrontBuffers buffers = _wavefrontBuffers.get();
+        Color background = _scene._background;
+        Color ambient = _scene._ambientLight.getIntensity();
+        boolean batchShadows = !softShadowsFlag && _manyLightsSamples == 0;
+
+        RayBuffer current = rays;
+        while (current._size > 0) {
+            boolean cameraRays = current == rays;
+            int size = current._size;
+            if (buffers._hits.length < size) {
+                buffers._rays = new Ray[current._ox.length];
+                buffers._hits = new GeoPoint[current._ox.length];
+            }
+            Ray[] stageRays = buffers._rays;
+            GeoPoint[] hits = buffers._hits;
+
+            // intersection stage
+            for (int i = 0; i < size; i++) {
+                stageRays[i] = current.getRay(i);
+                hits[i] = findClosestIntersection(stageRays[i]);
+            }
+
+            // shading stage
+            RayBuffer next = current == buffers._a ? buffers._b : buffers._a;
+            next.clear();
+            RayBuffer shadows = buffers._shadows;
+            shadows.clear();
+            for (int i = 0; i < size; i++) {
+                int pixel = current._pixel[i];
+                double weight = current._weight[i];
+                GeoPoint gp = hits[i];
+                hits[i] = null;
+                if (gp == null) {
+                    addColor(colors, pixel, background, current._missWeight[i]);
+                    continue;
+                }
+                int level = cameraRays ? MAX_CALC_COLOR_LEVEL : current._level[i];
+                double k = cameraRays ? INITIAL_K : current._k[i];
+                Color color = gp._geometry.getEmissionAt(gp);
+                if (cameraRays) {
+                    color = color.add(ambient);
+                }
+                if (batchShadows) {
+                    addShadowRays(gp, stageRays[i], k, weight, pixel, shadows);
+                } else {
+                    color = color.add(calcLocalEffects(gp, stageRays[i], k));
+                }
+                addColor(colors, pixel, color, weight);
+                if (1 != level) {
+                    pushGlobalEffects(gp, stageRays[i], level, k, weight,
+                            (ray, kx, w, missWeight, l) -> next.add(ray, pixel, l, kx, w, missWeight));
+                }
+            }
+
+            // shadow stage
+            for (int j = 0; j < shadows._size; j++) {
+                double ktr = transparency(shadows.getRay(j), shadows.getPoint(j), shadows._distance[j]);
+                if (ktr * shadows._k[j] > MIN_CALC_COLOR_K) {
+                    int p = 3 * shadows._pixel[j];
+                    colors[p] += shadows._r[j] * ktr;
+                    colors[p + 1] += shadows._g[j] * ktr;
+                    colors[p + 2] += shadows._b[j] * ktr;
+                }
+            }
+
+            current = next;
+        }
+    }
+
+    /**
+     * Helper method for traceBatch : to add a weighted color to the color of a pixel.
+     * @param colors the colors of the pixels.
+     * @param pixel  the index of the pixel.
+     * @param color  the color to add.
+     * @param weight the coefficient of color.
+     */
+    private static void addColor(double[] colors, int pixel, Color color, double weight) {
+        int p = 3 * pixel;
+        colors[p] += color.r * weight;
+        colors[p + 1] += color.g * weight;
+        colors[p + 2] += color.b * weight;
+    }
+
+    /**
+     * Helper method for traceBatch : to add to the buffer the shadow rays of a point
+     * (one per light source that may contribute to its color), with their unshadowed weighted contribution.
+     *
+     * @param intersection the point.
+     * @param ray          the ray that hits the point.
+     * @param k            the attenuation coefficient of the ray.
+     * @param weight       the coefficient of the color of the point in the color of the pixel.
+     * @param pixel        the index of the pixel.
+     * @param shadows      the buffer of shadow rays.
+     */
+    private void addShadowRays(GeoPoint intersection, Ray ray, double k, double weight, int pixel,
+                               RayBuffer shadows) {
+        Geometry geometry = intersection._geometry;
+        Point3D point = intersection._point;
+        Material material = geometry.getMaterialAt(intersection);
+
+        Vector v = ray.getDir();
+        Vector n = geometry.getNormalAt(intersection);
+        double nv = alignZero(n.dotProduct(v));
+        double kMax = k * (material._kD + material._kS);
+        if (nv == 0 || kMax <= 0) {
+            return;
+        }
+
+        for (LightSource light : findLights(point)) {
+            if (!isInfluencing(light, point, kMax)) {
+                continue;
+            }
+            if (light instanceof AreaLightSource) {     // one shadow ray per sample of the surface
+                for (AreaLightSource.Sample sample : ((AreaLightSource) light).sample(point, _areaLightSamples,
+                        ThreadLocalRandom.current())) {
+                    Vector l = sample._direction.scale(-1);
+                    double nl = alignZero(n.dotProduct(l));
+                    if (nl * nv > 0) {
+                        Color contribution = calcDiffusive(material._kD, nl, sample._intensity)
+                                .add(calcSpecular(material._kS, l, n, v, material._nShininess, sample._intensity))
+                                .scale(weight);
+                        shadows.addShadowRay(new Ray(point, sample._direction, n), pixel, point, sample._distance, k,
+                                contribution.r, contribution.g, contribution.b);
+                    }
+                }
+                continue;
+            }
+            Vector l = light.getL(point);
+            double nl = alignZero(n.dotProduct(l));
+            if (nl * nv > 0) {      // sign(nl) == sign(nv)
+                Color lightIntensity = light.getIntensity(point);
+                Color contribution = calcDiffusive(material._kD, nl, lightIntensity)
+                        .add(calcSpecular(material._kS, l, n, v, material._nShininess, lightIntensity))
+                        .scale(weight);
+                shadows.addShadowRay(new Ray(point, l.scale(-1), n), pixel, point, light.getDistance(point), k,
+                        contribution.r, contribution.g, contribution.b);
+            }
+        }
+    }
+
+    /**
+     * To reset the ray budget (all of it for each pixel : the number of pixels is not known, see beginRender(int)),
+     * to empty the shading cache, and to build the LightTree of the scene, if there are enough light sources.
+     */
+    @Override
+    public void beginRender() {
+        super.beginRender();
+        _render++;
+        _pixelBudget = _rayBudget;
+        if (_shadingCache != null) {
+            _shadingCache.clear();
+        }
+        _lightTree = _scene._lights.size() < LIGHT_TREE_MIN_LIGHTS && _manyLightsSamples == 0 ? null
+                : new LightTree(_scene._lights, MIN_CALC_COLOR_K / MAX_KD_KS);
+    }
+
+    /**
+     * To prepare a new render, with the ray budget shared evenly among its pixels.
+     * @param pixels the number of pixels of the image (or of its crop window).
+     */
+    @Override
+    public void beginRender(int pixels) {
+        beginRender();
+        if (pixels > 0) {
+            _pixelBudget = (double) _rayBudget / pixels;
+        }
+    }
+
+    /**
+     * To give to the current thread the share of the ray budget of some pixels :
+     * the integer part of their share, plus one ray with the probability of its fractional part.
+     * @param pixels the number of pixels.
+     */
+    @Override
+    void beginPixels(int pixels) {
+        if (_rayBudget > 0) {
+            long[] left = _raysLeft.get();
+            left[0] = _render;
+            left[1] = share(pixels * _pixelBudget);
+        }
+    }
+
+    /**
+     * Helper method : the number of rays of a share of the budget.
+     * @param share the share (a real number of rays).
+     * @return its integer part, plus one with the probability of its fractional part.
+     */
+    private static long share(double share) {
+        long rays = (long) share;
+        return ThreadLocalRandom.current().nextDouble() < share - rays ? rays + 1 : rays;
+    }
+
     /**
      * To return the color of a point.
      * Helper method.
-     * The method :
-     * - to find the color of the light emitted by the object.
-     * - for each light source, to add : [ kD * |l.n| + kS * (max(0,-v.r))^nShininess ] * Il
-     * with calcGlobalEffects(Geopoint, Ray, int level, double k) :
-     * - to add refraction / reflection effects
+     * The method, iterative (no recursion between the levels) :
+     * - to find the color of the point itself (calcLocalColor), and to push the reflected/refracted rays
+     * (the secondary rays) into the RayQueue of the thread;
+     * - while the queue is not empty, to find the closest intersection of its head ray,
+     * and to add the weighted color of that point (pushing its own secondary rays),
+     * or the weighted background color if there is no intersection.
+     * The queue is FIFO : the secondary rays of a same level are traced one after the other.
+     * Equivalent to the recursion : color = local + kR * color(reflected) + kT * color(refracted).
      *
      * @param intersection the Geopoint of intersection to calculate the color of it.
      * @param ray          the ray.
-     * @param level        the level of recursion for calcGlobalEffects.
-     * @param k
+     * @param level        the level of recursion (the maximal number of levels of secondary rays + 1).
+     * @param k            the attenuation coefficient of the ray.
      * @return the color of the point of intersection.
      */
     private Color calcColor(GeoPoint intersection, Ray ray, int level, double k) {
         if (intersection == null) { // add it
             return Color.BLACK;
         }
-        Color color = intersection._geometry.getEmission();
+        RayQueue queue = _rayQueues.get();
+        queue.clear();
+        Color color = calcLocalColor(intersection, ray, level, k, 1.0, queue);
+
+        while (!queue.isEmpty()) {
+            Ray secondaryRay = queue.poll();
+            double weight = queue.getWeight();
+            GeoPoint gp = findClosestIntersection(secondaryRay);
+            if (gp == null) {
+                color = color.add(_scene._background.scale(queue.getMissWeight()));
+            } else {
+                color = color.add(calcLocalColor(gp, secondaryRay, queue.getLevel(), queue.getK(), weight, queue)
+                        .scale(weight));
+            }
+        }
+        return color;
+    }
+
+    /**
+     * To return the color of a point without its reflection/refraction effects,
+     * and to push its secondary rays into the queue (if level > 1).
+     * Helper method.
+     *
+     * @param intersection the Geopoint of intersection to calculate the color of it.
+     * @param ray          the ray.
+     * @param level        the level of recursion of the point.
+     * @param k            the attenuation coefficient of the ray.
+     * @param weight       the coefficient of the color of the point in the final color.
+     * @param queue        the queue of secondary rays.
+     * @return the emission and the lightSourcePart of the point.
+     */
+    private Color calcLocalColor(GeoPoint intersection, Ray ray, int level, double k, double weight,
+                                 RayQueue queue) {
+        Color color = intersection._geometry.getEmissionAt(intersection);
         color = color.add(calcLocalEffects(intersection, ray, k));
-        return 1 == level ? color : color.add(calcGlobalEffects(intersection, ray, level, k));
+        if (1 != level) {
+            pushGlobalEffects(intersection, ray, level, k, weight, queue);
+        }
+        return color;
     }
 
     /**
@@ -119,10 +470,10 @@ public class BasicRayTracer extends RayTracerBase {
     private Color calcLocalEffects(GeoPoint intersection, Ray ray, double k) {
         Geometry geometry = intersection._geometry;
         Point3D point = intersection._point;
-        Material material = geometry.getMaterial();
+        Material material = geometry.getMaterialAt(intersection);
 
         Vector v = ray.getDir();
-        Vector n = geometry.getNormal(point);
+        Vector n = geometry.getNormalAt(intersection);
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0) {
             return Color.BLACK;
@@ -130,32 +481,166 @@ public class BasicRayTracer extends RayTracerBase {
 
         double kD = material._kD;
         double kS = material._kS;
-        int nShininess = material._nShininess;
+        // upper bound of the contribution of a light source of intensity 1 : k * (kD * |l.n| + kS * vr^n)
+        double kMax = k * (kD + kS);
+        if (kMax <= 0) {
+            return Color.BLACK;
+        }
+
+        LightTree lightTree = _lightTree;
+        if (_manyLightsSamples > 0 && lightTree != null && lightTree.size() == _scene._lights.size()) {
+            return calcSampledLightsEffects(intersection, lightTree, v, n, nv, k, kMax);
+        }
 
         Color color = Color.BLACK;
-        for (LightSource light : _scene._lights) {
-            Vector l = light.getL(point);
-            Vector towardsLight = l.scale(-1);
-            double nl = alignZero(n.dotProduct(l));
-            if (nl * nv > 0) {      // sign(nl) == sign(nv), to fix wrong illumination
-                //if (unshaded(l, n, light, intersection)) {
-                double ktr;
-                if (softShadowsFlag) {
-                    ktr = transparencyAndSoftShadows(towardsLight, n, light, intersection);
-                } else {
-                    ktr = transparency(towardsLight, n, light, intersection);
-                }
+        for (LightSource light : findLights(point)) {
+            color = color.add(calcLightEffect(intersection, light, v, n, nv, k, kMax));
+        }
+        return color;
+    }
 
+    /**
+     * Helper method, to calculate the lightSourcePart of one light source.
+     *
+     * @param intersection the point to calculate its light intensity
+     * @param light        the light source
+     * @param v            the direction of the ray between the viewer and the object
+     * @param n            the normal at the point
+     * @param nv           the dot product of n and v
+     * @param k            the attenuation coefficient of the current level
+     * @param kMax         upper bound of the coefficient of the light intensity at the point
+     * @return [ kD * |l.n| + kS * (max(0,-v.r))^nShininess ] * Il   of light
+     */
+    private Color calcLightEffect(GeoPoint intersection, LightSource light, Vector v, Vector n, double nv,
+                                  double k, double kMax) {
+        Point3D point = intersection._point;
+        if (!isInfluencing(light, point, kMax)) {
+            return Color.BLACK;
+        }
+        if (light instanceof AreaLightSource) {
+            return calcAreaLightEffect(intersection, (AreaLightSource) light, v, n, nv, k);
+        }
+        Vector l = light.getL(point);
+        Vector towardsLight = l.scale(-1);
+        double nl = alignZero(n.dotProduct(l));
+        if (nl * nv > 0) {      // sign(nl) == sign(nv), to fix wrong illumination
+            //if (unshaded(l, n, light, intersection)) {
+            double ktr;
+            if (softShadowsFlag) {
+                ktr = cachedSoftShadows(towardsLight, n, light, intersection);
+            } else {
+                ktr = transparency(towardsLight, n, light, intersection);
+            }
+
+            if (ktr * k > MIN_CALC_COLOR_K) {
+                Material material = intersection._geometry.getMaterialAt(intersection);
+                Color lightIntensity = light.getIntensity(point).scale(ktr);
+                return calcDiffusive(material._kD, nl, lightIntensity)
+                        .add(calcSpecular(material._kS, l, n, v, material._nShininess, lightIntensity));
+            }
+        }
+        return Color.BLACK;
+    }
+
+    /**
+     * Helper method, to calculate the lightSourcePart of one area light source :
+     * sum on the samples of the surface of the light source of
+     * [ kD * |l.n| + kS * (max(0,-v.r))^nShininess ] * Il(sample) * ktr(sample),
+     * each sample giving both the direction of its shadow ray and its intensity.
+     *
+     * @param intersection the point to calculate its light intensity
+     * @param light        the area light source
+     * @param v            the direction of the ray between the viewer and the object
+     * @param n            the normal at the point
+     * @param nv           the dot product of n and v
+     * @param k            the attenuation coefficient of the current level
+     * @return the estimation of the lightSourcePart of light
+     */
+    private Color calcAreaLightEffect(GeoPoint intersection, AreaLightSource light, Vector v, Vector n, double nv,
+                                      double k) {
+        Point3D point = intersection._point;
+        Material material = intersection._geometry.getMaterialAt(intersection);
+        Color color = Color.BLACK;
+        for (AreaLightSource.Sample sample : light.sample(point, _areaLightSamples, ThreadLocalRandom.current())) {
+            Vector l = sample._direction.scale(-1);
+            double nl = alignZero(n.dotProduct(l));
+            if (nl * nv > 0) {      // sign(nl) == sign(nv)
+                double ktr = transparency(new Ray(point, sample._direction, n), point, sample._distance);
                 if (ktr * k > MIN_CALC_COLOR_K) {
-                    Color lightIntensity = light.getIntensity(point).scale(ktr);
-                    color = color.add(calcDiffusive(kD, nl, lightIntensity),
-                            calcSpecular(kS, l, n, v, nShininess, lightIntensity));
+                    Color lightIntensity = sample._intensity.scale(ktr);
+                    color = color.add(calcDiffusive(material._kD, nl, lightIntensity),
+                            calcSpecular(material._kS, l, n, v, material._nShininess, lightIntensity));
                 }
             }
         }
         return color;
     }
 
+    /**
+     * Helper method, to calculate the lightSourcePart in many-lights mode :
+     * the global light sources (without attenuation) are all calculated,
+     * and _manyLightsSamples light sources are sampled among the others with the LightTree,
+     * the contribution of each sample being divided by its probability and by the number of samples
+     * (unbiased estimator of the sum of the contributions of all the light sources).
+     * A sample which reaches no light source influencing the point (see LightTree.sample) counts as 0,
+     * and the other samples are still taken.
+     *
+     * @param intersection the point to calculate its light intensity
+     * @param lightTree    the LightTree of the scene
+     * @param v            the direction of the ray between the viewer and the object
+     * @param n            the normal at the point
+     * @param nv           the dot product of n and v
+     * @param k            the attenuation coefficient of the current level
+     * @param kMax         upper bound of the coefficient of the light intensity at the point
+     * @return estimation of the sum of [ kD * |l.n| + kS * (max(0,-v.r))^nShininess ] * Il   of all lightSources
+     */
+    private Color calcSampledLightsEffects(GeoPoint intersection, LightTree lightTree, Vector v, Vector n,
+                                           double nv, double k, double kMax) {
+        Color color = Color.BLACK;
+        for (LightSource light : lightTree.getGlobalLights()) {
+            color = color.add(calcLightEffect(intersection, light, v, n, nv, k, kMax));
+        }
+
+        Random random = ThreadLocalRandom.current();
+        for (int i = 0; i < _manyLightsSamples; i++) {
+            LightTree.LightSample sample = lightTree.sample(intersection._point, random);
+            if (sample == null) {   // the descent reached light sources which do not influence the point
+                continue;
+            }
+            color = color.add(calcLightEffect(intersection, sample._light, v, n, nv, k, kMax)
+                    .scale(1d / (_manyLightsSamples * sample._probability)));
+        }
+        return color;
+    }
+
+    /**
+     * To return the light sources that may influence a point.
+     * @param point the point.
+     * @return the light sources of the LightTree that may influence point,
+     * or all the light sources of the scene if there is no LightTree.
+     */
+    private List<LightSource> findLights(Point3D point) {
+        LightTree lightTree = _lightTree;
+        if (lightTree == null || lightTree.size() != _scene._lights.size()) {
+            return _scene._lights;
+        }
+        return lightTree.findLights(point);
+    }
+
+    /**
+     * To check, before any shadow ray is cast, if a light source may contribute to the color of a point :
+     * the point must be in the cone of the light source, and its contribution must not fall
+     * below MIN_CALC_COLOR_K (according to the cutoff distance of the light source).
+     * @param light the light source.
+     * @param point the point.
+     * @param kMax  upper bound of the coefficient of the light intensity at point.
+     * @return true if the light source may contribute to the color of point, false either.
+     */
+    private boolean isInfluencing(LightSource light, Point3D point, double kMax) {
+        return light.isInCone(point)
+                && light.getDistance(point) <= light.getCutoffDistance(MIN_CALC_COLOR_K / kMax);
+    }
+
     /**
      * Helper method, to calculate the diffusive part of the effect of a lightSource at a point.
      *
@@ -214,7 +699,7 @@ public class BasicRayTracer extends RayTracerBase {
         for (GeoPoint intersection : intersections) {
             if (alignZero(intersection._point.distance(gp._point) - lightDistance) <= 0
                     // part about transparency
-                    && intersection._geometry.getMaterial()._kT == 0) {
+                    && intersection._geometry.getMaterialAt(intersection)._kT == 0) {
                 return false;
             }
         }
@@ -225,37 +710,84 @@ public class BasicRayTracer extends RayTracerBase {
 
 
     /**
+     * To push into the queue the secondary rays of a point (reflected and refracted rays),
+     * if their attenuation coefficient is significant, with Russian roulette and within the ray budget.
+     * The color of the point hit by a secondary ray is weighted by kx / survival probability,
+     * and the background (no point hit) by 1 / survival probability.
      *
-     * @param gp
-     * @param ray
-     * @param level
-     * @param k
-     * @return
-     *
+     * @param gp     the point and its geometry.
+     * @param ray    the ray that hits gp.
+     * @param level  the level of recursion of gp.
+     * @param k      the attenuation coefficient of the ray.
+     * @param weight the coefficient of the color of gp in the final color.
+     * @param queue  the destination of the secondary rays.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, double k) {
-        Color color = Color.BLACK;
-        Vector n = gp._geometry.getNormal(gp._point);
-        Material material = gp._geometry.getMaterial();
+    private void pushGlobalEffects(GeoPoint gp, Ray ray, int level, double k, double weight, RaySink queue) {
+        Vector n = gp._geometry.getNormalAt(gp);
+        Material material = gp._geometry.getMaterialAt(gp);
 
         double kkr = k * material._kR;
         if (kkr > MIN_CALC_COLOR_K) {
-            color = calcGlobalEffect(constructReflectedRay(gp, ray, n), level, material._kR, kkr);
+            Ray reflectedRay = constructReflectedRay(gp, ray, n);
+            double survival = reflectedRay == null ? 0 : survivalProbability(level, kkr);
+            if (survival > 0 && consumeRay()) {
+                queue.push(reflectedRay, kkr, weight * material._kR / survival, weight / survival, level - 1);
+            }
         }
 
         double kkt = k * material._kT;
         if (kkt > MIN_CALC_COLOR_K) {
-            color = color.add
-                    (calcGlobalEffect(constructRefractedRay(gp, ray, n), level, material._kT, kkt));
-            //(gp._point, v, n)
+            double survival = survivalProbability(level, kkt);
+            if (survival > 0 && consumeRay()) {
+                queue.push(constructRefractedRay(gp, ray, n), kkt,
+                        weight * material._kT / survival, weight / survival, level - 1);
+            }
         }
+    }
 
-        return color;
+    /**
+     * Russian roulette : to decide if a secondary ray is traced.
+     * Before _rouletteLevel bounces (or if the roulette is off), the ray is always traced;
+     * after, it is traced with the probability min(_maxSurvival, kkx).
+     *
+     * @param level the level of recursion of the point the ray starts from.
+     * @param kkx   the attenuation coefficient of the ray.
+     * @return the survival probability if the ray is to be traced (its color is to be divided by it),
+     * 0 if the path is terminated.
+     */
+    private double survivalProbability(int level, double kkx) {
+        if (_rouletteLevel == 0 || MAX_CALC_COLOR_LEVEL - level < _rouletteLevel) {
+            return 1.0;
+        }
+        double survival = Math.min(_maxSurvival, kkx);
+        if (ThreadLocalRandom.current().nextDouble() < survival) {
+            return survival;
+        }
+        _metrics.countRouletteTermination();
+        return 0;
     }
 
-    private Color calcGlobalEffect(Ray ray, int level, double kx, double kkx) {
-        GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? _scene._background : calcColor(gp, ray, level - 1, kkx).scale(kx));
+    /**
+     * To take one secondary ray from the share of the ray budget of the current pixels of the thread
+     * (the share of one pixel if the thread has not begun pixels of the current render, see beginPixels).
+     *
+     * @return true if the ray may be traced, false if the share is exhausted.
+     */
+    private boolean consumeRay() {
+        if (_rayBudget > 0) {
+            long[] left = _raysLeft.get();
+            if (left[0] != _render) {
+                left[0] = _render;
+                left[1] = share(_pixelBudget);
+            }
+            if (left[1] <= 0) {
+                _metrics.countBudgetRefusal();
+                return false;
+            }
+            left[1]--;
+        }
+        _metrics.countSecondaryRay();
+        return true;
     }
 
     /**
@@ -318,17 +850,29 @@ public class BasicRayTracer extends RayTracerBase {
     private double transparency(Vector towardsLight, Vector n, LightSource light, GeoPoint gp) {
         // from point to light source, offset by delta
         Ray lightRay = new Ray(gp._point, towardsLight, n);
+        return transparency(lightRay, gp._point, light.getDistance(gp._point));
+    }
+
+    /**
+     * To calculate the proportion of shadowing of a point, along a shadow ray.
+     * @param lightRay      the shadow ray, from the point (offset by delta) towards the light source.
+     * @param point         the point.
+     * @param lightDistance the distance between point and the light source.
+     * @return 1.0 if there is no geometry between point and the light source,
+     * the proportion of shadowing either.
+     */
+    private double transparency(Ray lightRay, Point3D point, double lightDistance) {
+        _metrics.countShadowRay();
         List<GeoPoint> intersections = _scene._geometries.findGeoIntersections(lightRay);
 
         if (intersections == null) {
             return 1.0;
         }
 
-        double lightDistance = light.getDistance(gp._point);
         double ktr = 1.0;
         for (GeoPoint intersection : intersections) {
-            if (alignZero(intersection._point.distance(gp._point) - lightDistance) <= 0) {
-                ktr *= intersection._geometry.getMaterial()._kT;
+            if (alignZero(intersection._point.distance(point) - lightDistance) <= 0) {
+                ktr *= intersection._geometry.getMaterialAt(intersection)._kT;
                 if (ktr < MIN_CALC_COLOR_K) {
                     return 0.0;
                 }
@@ -340,27 +884,49 @@ public class BasicRayTracer extends RayTracerBase {
 
 
     /**
-     * To calculate soft shadows - deterministic.
-     * The method : averaging the coefficient ktr returned by transparency() of sample rays
+     * To calculate soft shadows through the shading cache (if it is set on) :
+     * interpolating the proportion of shadowing from the cache when possible,
+     * else calculating it with transparencyAndSoftShadows() and storing it into the cache.
+     * @param towardsLight the direction from point to light source
+     * @param n            the normal of gp._geometry at gp._point.
+     * @param light        the current light source.
+     * @param gp           the geopoint to check if it is unshaded or not.
+     * @return the (interpolated) average of the proportion of shadowing of the sample rays.
+     */
+    private double cachedSoftShadows(Vector towardsLight, Vector n, LightSource light, GeoPoint gp) {
+        ShadingCache cache = _shadingCache;
+        if (cache == null) {
+            return transparencyAndSoftShadows(towardsLight, n, light, gp);
+        }
+        double ktr = cache.lookup(gp._geometry, light, gp._point, n);
+        if (!Double.isNaN(ktr)) {
+            _metrics.countCacheHit();
+            return ktr;
+        }
+        ktr = transparencyAndSoftShadows(towardsLight, n, light, gp);
+        cache.store(gp._geometry, light, gp._point, n, ktr);
+        return ktr;
+    }
+
+    /**
+     * To calculate soft shadows - deterministic, adaptive.
+     * The method : estimating the average of the coefficient ktr returned by transparency() of sample rays
      * forming a pyramid around towardsLight, with square placed at light source as base of the pyramid.
      * More in details :
      * - finding the plane containing that square :
      * supposing a square orthogonal to towardsLight, and the position of light (P0) is its central point
-     * - finding two orthogonal vectors contained in that plane, in order to move from "pixel" to "pixel"
-     * in the square :
-     * supposing another point P contained in that plane
-     * => towardsLight . (P - P0) = 0
-     * => <a, b, c> . <x - x0, y - y0, z - z0> = 0
-     * => a * (x - x0) + b * (y - y0) + c * (z - z0) = 0
-     * supposing x - x0 = 1, y - y0 = 0 => x = 1 + x0, y = y0, z = z0 - a / c
-     * => the vector from P0 to P (v1) is contained in the plane of the square
-     * crossProduct with v1 and towardsLight to find another vector (v2),
-     * contained in that plane and orthogonal to v1
-     * - the edge size of the square is calculated using _angle : 2 * distance * tan(_angle)
-     * - finding the limits of the square and the step between two sample rays
-     * - finding the ktr value (proportion of shadowing, return value of transparency()) for each ray
-     * - summing up all the ktr values, then making average
-     * Adaptive (first approximation based on 5 rays)
+     * - finding two orthogonal unit vectors contained in that plane, in order to move from "pixel" to "pixel"
+     * in the square : v1 orthogonal to towardsLight (Vector.findOrthogonal(), well defined for any direction),
+     * and v2 = v1 x towardsLight
+     * - the edge size of the square is the one of the light source (getSquareEdgeSize()),
+     * or else calculated using _angle : 2 * distance * tan(_angle)
+     * - the sample rays go through the _numOfSamples x _numOfSamples points of a lattice on the square
+     * - adaptive subdivision (see SoftShadowsLattice) : a region of the square is sampled at its 4 corners
+     * and its center; if their ktr differ by at most _softShadowsTolerance, the ktr of the other points
+     * of the region are interpolated, else the region is divided into 4 subregions.
+     * So the umbra and the fully lit regions cost 5 rays, and only the penumbra costs up to the full lattice.
+     * Each sample ray is cast once (memoized in the lattice).
+     * - averaging the ktr of all the points of the lattice
      * @param towardsLight     the direction from point to light source
      * @param n     the normal of gp._geometry at gp._point.
      * @param light the current light source.
@@ -368,8 +934,6 @@ public class BasicRayTracer extends RayTracerBase {
      * @return the average of the proportion of shadowing of the sample rays.
      */
     private double transparencyAndSoftShadows(Vector towardsLight, Vector n, LightSource light, GeoPoint gp) {
-
-        Geometry geometry = gp._geometry;
         Point3D point = gp._point;
 
         // distance from point to light source
@@ -379,80 +943,195 @@ public class BasicRayTracer extends RayTracerBase {
         Point3D squarePosition = point.add(towardsLight.scale(distanceFull));
 
         // towardsLight is the normal to plane containing the square for the sample rays
-        Point3D head = towardsLight.getHead();
-        // getting one vector contained in the plane of the square
-        Point3D P1 = new Point3D(1 + squarePosition.getX(),
-                squarePosition.getY(),
-                squarePosition.getZ() - head.getX() / head.getZ());
-        Vector v1 = new Vector(P1);
-
-        // getting another vector contained in the plane of the square, perpendicular to the first one
-        Vector v2 = v1.crossProduct(towardsLight);
-
-        // to get the limits of the square and the width of one of its "pixels"
-        int halfStepsNumber = (_numOfSamples - 1) / 2; // odd number of samples
-        // 0.005 degrees ~ 0.00087 radians => small angle approximation tan(_angle) ~ _angle
-        double edgeSize = 2 * distanceFull * _tan_angle;
+        // getting one unit vector contained in the plane of the square
+        Vector v1 = towardsLight.findOrthogonal();
+
+        // getting another unit vector contained in the plane of the square, perpendicular to the first one
+        Vector v2 = v1.crossProduct(towardsLight).normalize();
+
+        // the edge size of the square of the light source, else the one seen under _angle
+        double edgeSize = light.getSquareEdgeSize() > 0 ? light.getSquareEdgeSize() : 2 * distanceFull * _tan_angle;
         double stepSize = edgeSize / _numOfSamples;
-        int lowerBound = -halfStepsNumber;
-        int upperBound = halfStepsNumber;
-
-        Point3D currentPoint;
-        Vector currentDir;
-
-        // first approximation
-        double fsKtr = 0.0;
-        currentPoint =
-                squarePosition.add(v1.scale(-edgeSize/2)).add(v2.scale(-edgeSize/2));
-        currentDir = currentPoint.subtract(point);
-        fsKtr += transparency(currentDir, n, light, gp);
-        currentPoint =
-                squarePosition.add(v1.scale(-edgeSize/2)).add(v2.scale(edgeSize/2));
-        currentDir = currentPoint.subtract(point);
-        fsKtr += transparency(currentDir, n, light, gp);
-        currentPoint =
-                squarePosition.add(v1.scale(edgeSize/2)).add(v2.scale(-edgeSize/2));
-        currentDir = currentPoint.subtract(point);
-        fsKtr += transparency(currentDir, n, light, gp);
-        currentPoint =
-                squarePosition.add(v1.scale(edgeSize/2)).add(v2.scale(edgeSize/2));
-        currentDir = currentPoint.subtract(point);
-        fsKtr += transparency(currentDir, n, light, gp);
-        double basicKtr = transparency(towardsLight, n, light, gp);
-        fsKtr += basicKtr;
-        double fsAvgKtr = fsKtr / 5;
-        double difference = fsAvgKtr - basicKtr;
-        if (isZero(alignZero(difference))) {
-            //System.out.print("basic : ");
-            //System.out.println(difference);
-            return fsAvgKtr;
-        }
-
-        //System.out.print("fullSamples : ");
-        //System.out.println(difference);
-        // to sum up the ktr of the sample rays
-        double totalKtr = 0.0;
-
-        // travelling through the "pixels" of the square of sample rays
-        for (int i = lowerBound; i <= upperBound; i++) {
-            for (int j = lowerBound; j <= upperBound; j++) {
-                // getting the direction from point to the current "pixel" (currentPoint)
-                currentPoint =
-                        squarePosition.add(v1.scale(i * stepSize)).add(v2.scale(j * stepSize));
-                currentDir = currentPoint.subtract(point);
-
-                totalKtr += transparency(currentDir, n, light, gp);
 
+        SoftShadowsLattice lattice = new SoftShadowsLattice(squarePosition, v1, v2, stepSize, n, light, gp);
+        int last = _numOfSamples - 1;
+        lattice.refine(0, 0, last, last);
+        return lattice.average();
+    }
+
+    /**
+     * Class SoftShadowsLattice, the lattice of the sample rays of the soft shadows of one point
+     * and one light source, with the ktr of its points (NaN : not calculated yet).
+     * Helper class for transparencyAndSoftShadows().
+     */
+    private class SoftShadowsLattice {
+        private final Point3D _squarePosition;
+        private final Vector _v1;
+        private final Vector _v2;
+        private final double _stepSize;
+        private final Vector _n;
+        private final LightSource _light;
+        private final GeoPoint _gp;
+        private final double[][] _ktr = new double[_numOfSamples][_numOfSamples];
+
+        /**
+         * SoftShadowsLattice constructor.
+         * @param squarePosition the center of the square.
+         * @param v1             first vector of the plane of the square.
+         * @param v2             second vector of the plane of the square.
+         * @param stepSize       the distance between two points of the lattice.
+         * @param n              the normal of gp._geometry at gp._point.
+         * @param light          the current light source.
+         * @param gp             the geopoint.
+         */
+        private SoftShadowsLattice(Point3D squarePosition, Vector v1, Vector v2, double stepSize,
+                                   Vector n, LightSource light, GeoPoint gp) {
+            _squarePosition = squarePosition;
+            _v1 = v1;
+            _v2 = v2;
+            _stepSize = stepSize;
+            _n = n;
+            _light = light;
+            _gp = gp;
+            for (double[] row : _ktr) {
+                Arrays.fill(row, Double.NaN);
             }
         }
 
-        // averaging
-        double resultKtr = totalKtr / (_numOfSamples * _numOfSamples);
+        /**
+         * To get the ktr of a point of the lattice, casting its sample ray if not done yet.
+         * @param i index of the point on v1.
+         * @param j index of the point on v2.
+         * @return the ktr of the sample ray through the point (i, j).
+         */
+        private double sample(int i, int j) {
+            if (Double.isNaN(_ktr[i][j])) {
+                // note : Vector.scale(0) returns the vector unscaled, so the center lines are not scaled
+                int half = (_numOfSamples - 1) / 2;
+                Point3D currentPoint = _squarePosition;
+                if (i != half) {
+                    currentPoint = currentPoint.add(_v1.scale((i - half) * _stepSize));
+                }
+                if (j != half) {
+                    currentPoint = currentPoint.add(_v2.scale((j - half) * _stepSize));
+                }
+                _ktr[i][j] = transparency(currentPoint.subtract(_gp._point), _n, _light, _gp);
+            }
+            return _ktr[i][j];
+        }
 
-        return resultKtr;
+        /**
+         * To calculate or interpolate the ktr of the points of the region [i0,i1] x [j0,j1] of the lattice.
+         * @param i0 first index on v1.
+         * @param j0 first index on v2.
+         * @param i1 last index on v1.
+         * @param j1 last index on v2.
+         */
+        private void refine(int i0, int j0, int i1, int j1) {
+            double k00 = sample(i0, j0);
+            double k01 = sample(i0, j1);
+            double k10 = sample(i1, j0);
+            double k11 = sample(i1, j1);
+            if (i1 - i0 <= 1 && j1 - j0 <= 1) {    // all the points of the region are calculated
+                return;
+            }
+            int mi = (i0 + i1) / 2;
+            int mj = (j0 + j1) / 2;
+            double center = sample(mi, mj);
+            double min = Math.min(Math.min(Math.min(k00, k01), Math.min(k10, k11)), center);
+            double max = Math.max(Math.max(Math.max(k00, k01), Math.max(k10, k11)), center);
+            if (max - min > _softShadowsTolerance) {   // penumbra : subdividing
+                refine(i0, j0, mi, mj);
+                refine(i0, mj, mi, j1);
+                refine(mi, j0, i1, mj);
+                refine(mi, mj, i1, j1);
+                return;
+            }
+            // no significant change of visibility : bilinear interpolation of the corners
+            for (int i = i0; i <= i1; i++) {
+                double u = i1 == i0 ? 0 : (double) (i - i0) / (i1 - i0);
+                for (int j = j0; j <= j1; j++) {
+                    if (Double.isNaN(_ktr[i][j])) {
+                        double w = j1 == j0 ? 0 : (double) (j - j0) / (j1 - j0);
+                        _ktr[i][j] = (1 - u) * ((1 - w) * k00 + w * k01) + u * ((1 - w) * k10 + w * k11);
+                    }
+                }
+            }
+        }
 
+        /**
+         * To average the ktr of all the points of the lattice (all calculated or interpolated).
+         * @return the average.
+         */
+        private double average() {
+            double totalKtr = 0.0;
+            for (double[] row : _ktr) {
+                for (double ktr : row) {
+                    totalKtr += ktr;
+                }
+            }
+            return totalKtr / (_numOfSamples * _numOfSamples);
+        }
+    }
+
+
+    /**
+     * To set on the feature Russian roulette for the reflected and refracted rays.
+     * Chaining method.
+     * @param rouletteLevel number of bounces before the roulette applies (0 to set off the feature).
+     * @param maxSurvival   maximal survival probability of a secondary ray, in ]0,1].
+     * @return this.
+     * @throws IllegalArgumentException if rouletteLevel < 0 or maxSurvival not in ]0,1].
+     */
+    public BasicRayTracer setRussianRoulette(int rouletteLevel, double maxSurvival) {
+        if (rouletteLevel < 0 || maxSurvival <= 0 || maxSurvival > 1) {
+            throw new IllegalArgumentException("rouletteLevel must be >= 0 and maxSurvival in ]0,1]");
+        }
+        _rouletteLevel = rouletteLevel;
+        _maxSurvival = maxSurvival;
+        return this;
+    }
+
+    /**
+     * To set on the feature Russian roulette.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public BasicRayTracer setRussianRoulette() {
+        return setRussianRoulette(DEFAULT_ROULETTE_LEVEL, DEFAULT_MAX_SURVIVAL);
+    }
+
+    /**
+     * To limit the number of secondary rays (reflected and refracted) traced during a render.
+     * The budget is shared evenly among the pixels of the render (see beginRender(int) and beginPixels),
+     * so that the last pixels rendered have the same share as the first ones.
+     * When the share of a pixel is exhausted, its points are colored without their reflection/refraction effects.
+     * Chaining method.
+     * @param rayBudget maximal number of secondary rays per render (0 for no limit).
+     * @return this.
+     * @throws IllegalArgumentException if rayBudget < 0.
+     */
+    public BasicRayTracer setRayBudget(long rayBudget) {
+        if (rayBudget < 0) {
+            throw new IllegalArgumentException("rayBudget must be >= 0");
+        }
+        _rayBudget = rayBudget;
+        _pixelBudget = rayBudget;
+        _render++;
+        return this;
     }
 
+    /**
+     * With soft shadows, the square of a light source without size is seen under _angle :
+     * its half diagonal makes an angle whose tangent is sqrt(2) * tan(_angle) with the direction of the light.
+     * (The light sources with a size are handled by Scene.getDirtyRegions.)
+     * @return the spread of the shadow rays.
+     */
+    @Override
+    double getShadowSpread() {
+        return softShadowsFlag ? Math.sqrt(2) * _tan_angle : 0;
+    }
 
     /**
      * To set on the feature soft shadows.
@@ -476,6 +1155,95 @@ public class BasicRayTracer extends RayTracerBase {
         return this;
     }
 
+    /**
+     * To set on the feature shading cache, for the soft shadows : the proportion of shadowing of a point
+     * is interpolated from the values already calculated in its cell (same geometry, light source,
+     * cell of space and orientation of the normal), if they differ by at most tolerance and surround the point :
+     * the error is bounded by tolerance, unless a shadow is thinner than the spacing of the values (see ShadingCache).
+     * The cache is emptied at the beginning of each render.
+     * Chaining method.
+     * @param cellSize  the edge size of the cells (0 to set off the feature).
+     * @param tolerance the maximal difference between the values of a cell to interpolate them.
+     * @return this.
+     * @throws IllegalArgumentException if cellSize < 0 or tolerance < 0.
+     */
+    public BasicRayTracer setShadingCache(double cellSize, double tolerance) {
+        if (cellSize < 0 || tolerance < 0) {
+            throw new IllegalArgumentException("cellSize and tolerance must be >= 0");
+        }
+        _shadingCache = cellSize == 0 ? null : new ShadingCache(cellSize, tolerance, SAMPLES_PER_CELL);
+        return this;
+    }
+
+    /**
+     * To set on the feature shading cache.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public BasicRayTracer setShadingCache() {
+        return setShadingCache(DEFAULT_CELL_SIZE, DEFAULT_CACHE_TOLERANCE);
+    }
+
+    /**
+     * Setter of _areaLightSamples.
+     * Chaining method.
+     * @param numOfSamples the number of samples of the surface of the area light sources for each point
+     *                     (rounded up to a square number).
+     * @return this.
+     * @throws IllegalArgumentException if numOfSamples < 1.
+     */
+    public BasicRayTracer setAreaLightSamples(int numOfSamples) {
+        if (numOfSamples < 1) {
+            throw new IllegalArgumentException("number of samples must be >= 1");
+        }
+        _areaLightSamples = numOfSamples;
+        return this;
+    }
+
+    /**
+     * Setter of _softShadowsTolerance.
+     * Chaining method.
+     * @param tolerance maximal difference between the ktr of the samples of a region of the square
+     *                  of the soft shadows to interpolate the region (0 : only identical samples).
+     * @return this.
+     * @throws IllegalArgumentException if tolerance < 0.
+     */
+    public BasicRayTracer setSoftShadowsTolerance(double tolerance) {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("tolerance must be >= 0");
+        }
+        _softShadowsTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * To set on the feature many-lights :
+     * for each point, instead of all the light sources, sampling numOfSamples light sources
+     * according to their estimated contribution (the light sources without attenuation are always calculated).
+     * Chaining method.
+     * @param numOfSamples number of light sources sampled for each point (0 to set off the feature).
+     * @return this.
+     * @throws IllegalArgumentException if numOfSamples < 0.
+     */
+    public BasicRayTracer setManyLights(int numOfSamples) {
+        if (numOfSamples < 0) {
+            throw new IllegalArgumentException("number of samples must be >= 0");
+        }
+        _manyLightsSamples = numOfSamples;
+        return this;
+    }
+
+    /**
+     * To set on the feature many-lights.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public BasicRayTracer setManyLights() {
+        return setManyLights(DEFAULT_MANY_LIGHTS_SAMPLES);
+    }
+
     /**
      * To set on the feature soft shadows.
      * Wrapper method.
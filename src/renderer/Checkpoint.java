@@ -0,0 +1,248 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class Checkpoint, the checkpoints of a render in wavefront mode, to resume it after an interruption :
+ * the bitmap of the completed tiles and the pixels of the image are written periodically to a file,
+ * by a background thread (the render threads only set the bit of their tile).
+ * The pixels are written only if the image is in the heap : a framebuffer file already keeps them
+ * (it is written before the bitmap). The checkpoint then holds the tag of the framebuffer
+ * (see MappedFrameBuffer.getTag), set at the beginning of the render, and it is resumed only with
+ * the same framebuffer file : not with a deleted or recreated one, nor one of another render.
+ * A checkpoint is used to resume only if its key (scene hash and render settings) and its dimensions
+ * are the same; else (or if it cannot be read) the render starts from the beginning.
+ * The file is written to a temporary file and then moved, so that a checkpoint is never partly written.
+ */
+class Checkpoint {
+    private static final int MAGIC = 0x5254434B;    // "RTCK"
+
+    private final Path _path;
+    private final String _sceneHash;
+    private final long _interval;
+
+    private String _key;
+    private ImageWriter _imageWriter;
+    private int _x0;
+    private int _y0;
+    private int _tilesX;
+    private int _tileSize;
+    private int _tiles;
+    private AtomicLongArray _done;
+    private long _tag;
+    private ScheduledExecutorService _scheduler;
+
+    /**
+     * Checkpoint constructor.
+     * @param path      the file of the checkpoints.
+     * @param sceneHash the hash of the scene and of the ray tracer settings.
+     * @param interval  the interval between two checkpoints, in milliseconds.
+     */
+    Checkpoint(Path path, String sceneHash, long interval) {
+        _path = path;
+        _sceneHash = sceneHash;
+        _interval = interval;
+    }
+
+    /**
+     * To begin a render : resuming from the checkpoint file if it matches, and starting the checkpoints.
+     * @param imageWriter the image writer of the render.
+     * @param settings    the settings of the render (with the hash of the scene, they form the key).
+     * @param x0          the column of the upper left pixel of the first tile.
+     * @param y0          the row of the upper left pixel of the first tile.
+     * @param tilesX      the number of tiles in a row.
+     * @param tileSize    the edge size of the tiles.
+     * @param tiles       the number of tiles.
+     * @return the number of tiles already completed.
+     */
+    int begin(ImageWriter imageWriter, String settings, int x0, int y0, int tilesX, int tileSize, int tiles) {
+        _key = _sceneHash + '|' + settings;
+        _imageWriter = imageWriter;
+        _x0 = x0;
+        _y0 = y0;
+        _tilesX = tilesX;
+        _tileSize = tileSize;
+        _tiles = tiles;
+        _done = new AtomicLongArray((tiles + 63) / 64);
+        int resumed = load();
+        MappedFrameBuffer frameBuffer = imageWriter.getFrameBuffer();
+        if (frameBuffer != null && resumed == 0) {
+            // a new render in that framebuffer : its checkpoints are valid only with its pixels
+            long tag;
+            do {
+                tag = ThreadLocalRandom.current().nextLong();
+            } while (tag == 0);
+            frameBuffer.setTag(tag);
+        }
+        _tag = frameBuffer == null ? 0 : frameBuffer.getTag();
+
+        _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _scheduler.scheduleWithFixedDelay(this::save, _interval, _interval, TimeUnit.MILLISECONDS);
+        return resumed;
+    }
+
+    /**
+     * To end a render : stopping the checkpoints, and deleting the file if the render is finished,
+     * else writing a last checkpoint.
+     * @param finished is the render finished.
+     */
+    void end(boolean finished) {
+        _scheduler.shutdown();
+        try {
+            _scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (finished) {
+                Files.deleteIfExists(_path);
+            } else {
+                save();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * To check if a tile is completed (by this render or by the resumed one).
+     * @param tile the index of the tile.
+     * @return true if the tile is completed.
+     */
+    boolean isDone(int tile) {
+        return (_done.get(tile >> 6) & (1L << tile)) != 0;
+    }
+
+    /**
+     * To mark a tile as completed (after all its pixels are written).
+     * @param tile the index of the tile.
+     */
+    void complete(int tile) {
+        _done.getAndAccumulate(tile >> 6, 1L << tile, (bits, bit) -> bits | bit);
+    }
+
+    /**
+     * To write a checkpoint : the bitmap (a snapshot, taken before the pixels are read,
+     * so that the pixels of its tiles are final), then the pixels if the image is in the heap.
+     */
+    private void save() {
+        long[] done = new long[_done.length()];
+        for (int i = 0; i < done.length; i++) {
+            done[i] = _done.get(i);
+        }
+        MappedFrameBuffer frameBuffer = _imageWriter.getFrameBuffer();
+        if (frameBuffer != null) {
+            frameBuffer.flush();
+        }
+
+        int nX = _imageWriter.getNx();
+        int nY = _imageWriter.getNy();
+        Path temporary = _path.resolveSibling(_path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(_key);
+            out.writeInt(nX);
+            out.writeInt(nY);
+            out.writeInt(_tileSize);
+            out.writeInt(_tiles);
+            for (long bits : done) {
+                out.writeLong(bits);
+            }
+            out.writeBoolean(frameBuffer == null);
+            if (frameBuffer != null) {
+                out.writeLong(_tag);
+            } else {
+                int[] rgb = new int[nX];
+                for (int y = 0; y < nY; y++) {
+                    _imageWriter.getRow(y, rgb);
+                    for (int x = 0; x < nX; x++) {
+                        out.writeInt(rgb[x]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return;     // the previous checkpoint is kept
+        }
+        try {
+            Files.move(temporary, _path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the previous checkpoint is kept
+        }
+    }
+
+    /**
+     * To read the checkpoint file, if it matches the render : the bitmap, and the pixels of the completed tiles.
+     * @return the number of tiles completed.
+     */
+    private int load() {
+        if (!Files.isRegularFile(_path)) {
+            return 0;
+        }
+        int nX = _imageWriter.getNx();
+        int nY = _imageWriter.getNy();
+        long[] done = new long[_done.length()];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(_path)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(_key) || in.readInt() != nX || in.readInt() != nY
+                    || in.readInt() != _tileSize || in.readInt() != _tiles) {
+                return 0;
+            }
+            for (int i = 0; i < done.length; i++) {
+                done[i] = in.readLong();
+            }
+            boolean pixels = in.readBoolean();
+            if (!pixels) {
+                // the pixels are in the framebuffer file, which must be the one of the checkpoint
+                MappedFrameBuffer frameBuffer = _imageWriter.getFrameBuffer();
+                long tag = in.readLong();
+                if (frameBuffer == null || tag == 0 || frameBuffer.getTag() != tag) {
+                    return 0;
+                }
+            }
+            if (pixels) {
+                int rows = (_tiles / _tilesX) * _tileSize;
+                int columns = _tilesX * _tileSize;
+                for (int y = 0; y < nY; y++) {
+                    for (int x = 0; x < nX; x++) {
+                        int rgb = in.readInt();
+                        if (x < _x0 || y < _y0 || x - _x0 >= columns || y - _y0 >= rows) {
+                            continue;   // out of the tiles of the render
+                        }
+                        int tile = ((y - _y0) / _tileSize) * _tilesX + (x - _x0) / _tileSize;
+                        if ((done[tile >> 6] & (1L << tile)) != 0) {
+                            _imageWriter.writePixel(x, y, new Color(new java.awt.Color(rgb)));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+
+        int resumed = 0;
+        for (int i = 0; i < done.length; i++) {
+            _done.set(i, done[i]);
+            resumed += Long.bitCount(done[i]);
+        }
+        return resumed;
+    }
+}
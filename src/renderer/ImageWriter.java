@@ -4,10 +4,16 @@ package renderer;
 
 import primitives.Color;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.MissingResourceException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
 
 import javax.imageio.*;
 
@@ -28,8 +34,18 @@ public class ImageWriter {
     private BufferedImage image;
     private String imageName;
 
+    // the out-of-core framebuffer of the image, instead of image (null if not used)
+    private MappedFrameBuffer frameBuffer = null;
+
     private Logger logger = Logger.getLogger("ImageWriter");
 
+    private boolean parallelEncoding = false;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    // the encoder streaming the finished parts of the image to its file, and the file
+    private PngEncoder stream = null;
+    private OutputStream streamFile = null;
+
     // ***************** Constructors ********************** //
     /**
      * Image Writer constructor accepting image name and View Plane parameters,
@@ -48,6 +64,22 @@ public class ImageWriter {
         image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
     }
 
+    /**
+     * Image Writer constructor accepting image name and an out-of-core framebuffer,
+     * which holds the pixel color matrix instead of the heap (for very big images).
+     * The png file is produced by the parallel encoder, reading the framebuffer row by row
+     *
+     * @param imageName   the name of png file
+     * @param frameBuffer the framebuffer of the pixels, which sets the resolution
+     */
+    public ImageWriter(String imageName, MappedFrameBuffer frameBuffer) {
+        this.imageName = imageName;
+        this.nX = frameBuffer.getNx();
+        this.nY = frameBuffer.getNy();
+        this.frameBuffer = frameBuffer;
+        this.parallelEncoding = true;
+    }
+
     // ***************** Getters/Setters ********************** //
     /**
      * View Plane Y axis resolution
@@ -67,21 +99,225 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * Function setParallelEncoding sets the png encoding of the image to the parallel
+     * encoder (bands of rows compressed in parallel), with a compression level
+     *
+     * @param compressionLevel the compression level, from 0 (fastest) to 9 (smallest),
+     *                         or -1 for the default level
+     * @return this image writer
+     * @throws IllegalArgumentException if the compression level is not valid
+     */
+    public ImageWriter setParallelEncoding(int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < 0 || compressionLevel > 9)) {
+            throw new IllegalArgumentException("compression level must be in [0,9], or -1 for the default level");
+        }
+        this.parallelEncoding = true;
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Function setParallelEncoding sets the png encoding of the image to the parallel
+     * encoder, with the default compression level
+     *
+     * @return this image writer
+     */
+    public ImageWriter setParallelEncoding() {
+        return setParallelEncoding(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Getter of the out-of-core framebuffer
+     *
+     * @return the framebuffer of the pixels, or null if the pixels are in the heap
+     */
+    public MappedFrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
     // ***************** Operations ******************** //
 
+    /**
+     * Function loadImage reads the png file of the image into the pixel color matrix,
+     * so that a render of a part of the image (see Render.setCropWindow) is composited into it
+     *
+     * @return this image writer
+     * @throws MissingResourceException if the file cannot be read
+     * @throws IllegalArgumentException if the file has another resolution
+     */
+    public ImageWriter loadImage() {
+        return loadImage(new File(FOLDER_PATH + '/' + imageName + ".png"));
+    }
+
+    /**
+     * Function loadImage reads an image file into the pixel color matrix,
+     * so that a render of a part of the image (see Render.setCropWindow) is composited into it
+     *
+     * @param file the image file
+     * @return this image writer
+     * @throws MissingResourceException if the file cannot be read
+     * @throws IllegalArgumentException if the file has another resolution
+     */
+    public ImageWriter loadImage(File file) {
+        BufferedImage loaded;
+        try {
+            loaded = ImageIO.read(file);
+        } catch (IOException e) {
+            loaded = null;
+        }
+        if (loaded == null) {
+            throw new MissingResourceException("cannot read the image file " + file, "ImageWriter", file.getName());
+        }
+        if (loaded.getWidth() != nX || loaded.getHeight() != nY) {
+            throw new IllegalArgumentException("the image file must have the resolution of the image writer");
+        }
+        int[] rgb = new int[nX];
+        for (int i = 0; i < nY; i++) {
+            loaded.getRGB(0, i, nX, 1, rgb, 0, nX);
+            if (frameBuffer == null) {
+                image.setRGB(0, i, nX, 1, rgb, 0, nX);
+            } else {
+                for (int j = 0; j < nX; j++) {
+                    frameBuffer.set(j, i, new Color(new java.awt.Color(rgb[j])), 1);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Function startStreaming opens the png file of the image and starts the parallel
+     * encoding of its parts as soon as they are completed (see completePixels), so that
+     * the beginning of the file is compressed and written while the rest is still rendered.
+     * The pixels of a completed part must not be written again.
+     * Sets the parallel encoding if it is not set yet
+     */
+    public void startStreaming() {
+        parallelEncoding = true;
+        try {
+            streamFile = new BufferedOutputStream(new FileOutputStream(FOLDER_PATH + '/' + imageName + ".png"));
+            stream = newEncoder(streamFile);
+            stream.start();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            closeStream();
+        }
+    }
+
+    /**
+     * Function completePixels declares a rectangle of pixels as final : when streaming,
+     * the bands of rows whose pixels are all final are compressed and written at once.
+     * Each pixel must be declared once. Does nothing when not streaming
+     *
+     * @param xIndex X axis index of the upper left pixel
+     * @param yIndex Y axis index of the upper left pixel
+     * @param width  width of the rectangle
+     * @param height height of the rectangle
+     */
+    public void completePixels(int xIndex, int yIndex, int width, int height) {
+        PngEncoder encoder = stream;
+        if (encoder != null) {
+            encoder.pixelsCompleted(xIndex, yIndex, width, height);
+        }
+    }
+
     /**
      * Function writeToImage produces unoptimized png file of the image according to
-     * pixel color matrix in the directory of the project
+     * pixel color matrix in the directory of the project.
+     * When streaming, the remaining parts of the image are compressed and the file is ended
      */
     public void writeToImage() {
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            if (stream != null) {
+                stream.finish();
+            } else if (parallelEncoding) {
+                try (OutputStream out = new BufferedOutputStream(
+                        new FileOutputStream(FOLDER_PATH + '/' + imageName + ".png"))) {
+                    writeTo(out);
+                }
+            } else {
+                File file = new File(FOLDER_PATH + '/' + imageName + ".png");
+                ImageIO.write(image, "png", file);
+            }
+            if (frameBuffer != null) {
+                frameBuffer.flush();
+            }
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
+        } finally {
+            closeStream();
+        }
+    }
+
+    /**
+     * Function newEncoder creates the parallel encoder of the image, from image or from the framebuffer
+     *
+     * @param out the stream to write the png image into
+     * @return the encoder
+     */
+    private PngEncoder newEncoder(OutputStream out) {
+        return new PngEncoder(nX, nY, this::getRow, out, compressionLevel);
+    }
+
+    /**
+     * Function getRow reads a row of the pixel color matrix, from image or from the framebuffer
+     *
+     * @param yIndex Y axis index of the row
+     * @param rgb    the array to fill with the packed RGB values of the pixels
+     */
+    void getRow(int yIndex, int[] rgb) {
+        if (frameBuffer != null) {
+            frameBuffer.getRow(yIndex, rgb);
+        } else {
+            image.getRGB(0, yIndex, nX, 1, rgb, 0, nX);
+        }
+    }
+
+    /**
+     * Function closeStream closes the file of the streaming encoding, if any
+     */
+    private void closeStream() {
+        stream = null;
+        if (streamFile != null) {
+            try {
+                streamFile.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "I/O error", e);
+            }
+            streamFile = null;
         }
     }
 
+    /**
+     * Function writeTo writes the png image of the pixel color matrix into a stream
+     * (for example, the response of a render server), instead of a file
+     *
+     * @param out the stream to write the png image into (not closed)
+     * @throws IOException if an error occurs while writing
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (parallelEncoding) {
+            PngEncoder encoder = newEncoder(out);
+            encoder.start();
+            encoder.finish();
+        } else if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("no png writer available");
+        }
+    }
+
+    /**
+     * Function toPngBytes produces the png image of the pixel color matrix in memory
+     *
+     * @return the bytes of the png image
+     * @throws IOException if an error occurs while encoding
+     */
+    public byte[] toPngBytes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
     /**
      * The function writePixel writes a color of a specific pixel into pixel color
      * matrix
@@ -91,7 +327,24 @@ public class ImageWriter {
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        writePixel(xIndex, yIndex, color, 1);
+    }
+
+    /**
+     * The function writePixel writes a color of a specific pixel into pixel color
+     * matrix, with the number of samples it is the average of (kept by the framebuffer)
+     *
+     * @param xIndex  X axis index of the pixel
+     * @param yIndex  Y axis index of the pixel
+     * @param color   final color of the pixel
+     * @param samples number of samples of the color
+     */
+    public void writePixel(int xIndex, int yIndex, Color color, int samples) {
+        if (frameBuffer != null) {
+            frameBuffer.set(xIndex, yIndex, color, samples);
+        } else {
+            image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        }
     }
 
 }
@@ -0,0 +1,353 @@
+package renderer;
+
+import elements.LightSource;
+import elements.PointLight;
+import primitives.Color;
+import primitives.Point3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class LightTree, a bounding volume hierarchy over the spheres of influence of the light sources of a scene,
+ * in order to visit, for a point, only the light sources that may influence it.
+ * The sphere of influence of a PointLight (or SpotLight) is centered at its position,
+ * with the cutoff distance of the light source as radius.
+ * The light sources without a finite cutoff distance (as DirectionalLight) are global :
+ * they are returned for all the points.
+ * The tree is also a light importance structure : each node knows the power of its light sources,
+ * in order to sample one light source for a point, with a probability according to its estimated contribution.
+ */
+class LightTree {
+    /**
+     * Maximal number of light sources in a leaf of the tree.
+     */
+    private static final int MAX_LEAF_SIZE = 4;
+
+    /**
+     * Minimal squared distance for the importance of a light source, to avoid division by 0.
+     */
+    private static final double MIN_DISTANCE2 = 1e-6;
+
+    /**
+     * The light sources influencing all the points of the scene.
+     */
+    private final List<LightSource> _globalLights = new LinkedList<>();
+
+    /**
+     * The root of the tree (null if there is no bounded light source).
+     */
+    private final Node _root;
+
+    /**
+     * Number of light sources in the tree (including the global ones).
+     */
+    private final int _size;
+
+    /**
+     * Class Node, a node of the tree : the bounding box of the spheres of influence of its light sources,
+     * and two children (for inner node) or the light sources themselves (for leaf).
+     */
+    private static class Node {
+        double _minX, _minY, _minZ, _maxX, _maxY, _maxZ;
+        Node _left;
+        Node _right;
+        PointLight[] _lights;
+        double[] _radii;
+
+        /**
+         * For importance sampling : the sum of the powers of the light sources of the node,
+         * and the bounding box of their positions (by its center and the square of its half diagonal).
+         */
+        double _power;
+        double _centerX, _centerY, _centerZ;
+        double _halfDiagonal2;
+        double[] _powers;
+
+        /**
+         * To check if the point is inside the bounding box of the node.
+         * @param x coordinate on the X axis.
+         * @param y coordinate on the Y axis.
+         * @param z coordinate on the Z axis.
+         * @return true if (x, y, z) is inside the box.
+         */
+        boolean contains(double x, double y, double z) {
+            return x >= _minX && x <= _maxX && y >= _minY && y <= _maxY && z >= _minZ && z <= _maxZ;
+        }
+    }
+
+    /**
+     * Class LightSample, a light source chosen by sample(), with the probability it was chosen with.
+     * Passive Data Structure.
+     */
+    static class LightSample {
+        final LightSource _light;
+        final double _probability;
+
+        /**
+         * LightSample constructor, receiving 2 parameters.
+         * @param light       the chosen light source.
+         * @param probability the probability the light source was chosen with.
+         */
+        LightSample(LightSource light, double probability) {
+            _light = light;
+            _probability = probability;
+        }
+    }
+
+    /**
+     * LightTree constructor, receiving 2 parameters.
+     * @param lights    the light sources of the scene.
+     * @param threshold the minimal intensity for the radii of the spheres of influence.
+     */
+    LightTree(List<LightSource> lights, double threshold) {
+        List<PointLight> bounded = new ArrayList<>();
+        List<Double> radii = new ArrayList<>();
+        for (LightSource light : lights) {
+            double radius = light.getCutoffDistance(threshold);
+            if (light instanceof PointLight && radius != Double.POSITIVE_INFINITY) {
+                if (radius > 0) {   // else, the light source does not influence any point
+                    bounded.add((PointLight) light);
+                    radii.add(radius);
+                }
+            } else {
+                _globalLights.add(light);
+            }
+        }
+        _size = lights.size();
+
+        int n = bounded.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        _root = n == 0 ? null : build(bounded, radii, order, 0, n);
+    }
+
+    /**
+     * To build the subtree over the light sources order[from..to[.
+     * Splitting at the median of the positions along the largest axis of their extent.
+     * @param lights the bounded light sources.
+     * @param radii  the radii of influence of the light sources.
+     * @param order  the indices of the light sources, reordered during the construction.
+     * @param from   first index (included) in order.
+     * @param to     last index (excluded) in order.
+     * @return the root of the subtree.
+     */
+    private Node build(List<PointLight> lights, List<Double> radii, Integer[] order, int from, int to) {
+        Node node = new Node();
+        node._minX = node._minY = node._minZ = Double.POSITIVE_INFINITY;
+        node._maxX = node._maxY = node._maxZ = Double.NEGATIVE_INFINITY;
+        double cMinX = Double.POSITIVE_INFINITY, cMinY = cMinX, cMinZ = cMinX;
+        double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = cMaxX, cMaxZ = cMaxX;
+        for (int i = from; i < to; i++) {
+            Point3D p = lights.get(order[i]).getPosition();
+            double r = radii.get(order[i]);
+            node._minX = Math.min(node._minX, p.getX() - r);
+            node._minY = Math.min(node._minY, p.getY() - r);
+            node._minZ = Math.min(node._minZ, p.getZ() - r);
+            node._maxX = Math.max(node._maxX, p.getX() + r);
+            node._maxY = Math.max(node._maxY, p.getY() + r);
+            node._maxZ = Math.max(node._maxZ, p.getZ() + r);
+            cMinX = Math.min(cMinX, p.getX());
+            cMinY = Math.min(cMinY, p.getY());
+            cMinZ = Math.min(cMinZ, p.getZ());
+            cMaxX = Math.max(cMaxX, p.getX());
+            cMaxY = Math.max(cMaxY, p.getY());
+            cMaxZ = Math.max(cMaxZ, p.getZ());
+            node._power += power(lights.get(order[i]));
+        }
+        node._centerX = (cMinX + cMaxX) / 2;
+        node._centerY = (cMinY + cMaxY) / 2;
+        node._centerZ = (cMinZ + cMaxZ) / 2;
+        node._halfDiagonal2 =
+                ((cMaxX - cMinX) * (cMaxX - cMinX) + (cMaxY - cMinY) * (cMaxY - cMinY)
+                        + (cMaxZ - cMinZ) * (cMaxZ - cMinZ)) / 4;
+
+        if (to - from <= MAX_LEAF_SIZE) {
+            node._lights = new PointLight[to - from];
+            node._radii = new double[to - from];
+            node._powers = new double[to - from];
+            for (int i = from; i < to; i++) {
+                node._lights[i - from] = lights.get(order[i]);
+                node._radii[i - from] = radii.get(order[i]);
+                node._powers[i - from] = power(lights.get(order[i]));
+            }
+            return node;
+        }
+
+        // sorting along the largest axis of the extent of the positions
+        double dx = cMaxX - cMinX, dy = cMaxY - cMinY, dz = cMaxZ - cMinZ;
+        Comparator<Integer> comparator;
+        if (dx >= dy && dx >= dz) {
+            comparator = Comparator.comparingDouble(i -> lights.get(i).getPosition().getX());
+        } else if (dy >= dz) {
+            comparator = Comparator.comparingDouble(i -> lights.get(i).getPosition().getY());
+        } else {
+            comparator = Comparator.comparingDouble(i -> lights.get(i).getPosition().getZ());
+        }
+        Arrays.sort(order, from, to, comparator);
+
+        int middle = (from + to) / 2;
+        node._left = build(lights, radii, order, from, middle);
+        node._right = build(lights, radii, order, middle, to);
+        return node;
+    }
+
+    /**
+     * To return the light sources that may influence a point :
+     * the global light sources, and the bounded ones whose sphere of influence contains the point.
+     * @param point the point.
+     * @return the list of the light sources that may influence point.
+     */
+    List<LightSource> findLights(Point3D point) {
+        List<LightSource> result = new ArrayList<>(_globalLights);
+        if (_root != null) {
+            findLights(_root, point.getX(), point.getY(), point.getZ(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Helper method for findLights(Point3D), recursive.
+     * @param node   the current node.
+     * @param x      coordinate of the point on the X axis.
+     * @param y      coordinate of the point on the Y axis.
+     * @param z      coordinate of the point on the Z axis.
+     * @param result the list to add the light sources to.
+     */
+    private void findLights(Node node, double x, double y, double z, List<LightSource> result) {
+        if (!node.contains(x, y, z)) {
+            return;
+        }
+        if (node._lights != null) {
+            for (int i = 0; i < node._lights.length; i++) {
+                Point3D p = node._lights[i].getPosition();
+                double dx = p.getX() - x, dy = p.getY() - y, dz = p.getZ() - z;
+                if (dx * dx + dy * dy + dz * dz <= node._radii[i] * node._radii[i]) {
+                    result.add(node._lights[i]);
+                }
+            }
+            return;
+        }
+        findLights(node._left, x, y, z, result);
+        findLights(node._right, x, y, z, result);
+    }
+
+    /**
+     * The power of a light source, for importance sampling : the maximal component of its intensity.
+     * @param light the light source.
+     * @return the power of light.
+     */
+    private static double power(PointLight light) {
+        Color intensity = light.getIntensity();
+        return Math.max(intensity.r, Math.max(intensity.g, intensity.b));
+    }
+
+    /**
+     * To sample one of the bounded light sources for a point, with a probability
+     * according to its estimated contribution at the point.
+     * The method : from the root, choosing one child with probability proportional to its importance
+     * (power / squared distance to the point, 0 if the point is outside the influence of the child),
+     * until a leaf, and then one of its light sources in the same way.
+     * The probability of the light source is the product of the probabilities of the choices :
+     * each light source that may influence the point has a probability > 0, so that dividing its
+     * contribution by that probability gives an unbiased estimator of the sum of the contributions.
+     * @param point  the point.
+     * @param random a random generator.
+     * @return the chosen light source and its probability, or null if no light source may influence point.
+     */
+    LightSample sample(Point3D point, Random random) {
+        if (_root == null) {
+            return null;
+        }
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        Node node = _root;
+        if (!node.contains(x, y, z)) {
+            return null;
+        }
+        double probability = 1.0;
+        while (node._lights == null) {
+            double wLeft = importance(node._left, x, y, z);
+            double wRight = importance(node._right, x, y, z);
+            double total = wLeft + wRight;
+            if (total <= 0) {
+                return null;
+            }
+            if (random.nextDouble() * total < wLeft) {
+                probability *= wLeft / total;
+                node = node._left;
+            } else {
+                probability *= wRight / total;
+                node = node._right;
+            }
+        }
+
+        // choosing one light source of the leaf
+        double[] weights = new double[node._lights.length];
+        double total = 0;
+        for (int i = 0; i < node._lights.length; i++) {
+            Point3D p = node._lights[i].getPosition();
+            double dx = p.getX() - x, dy = p.getY() - y, dz = p.getZ() - z;
+            double d2 = dx * dx + dy * dy + dz * dz;
+            if (d2 <= node._radii[i] * node._radii[i]) {
+                weights[i] = node._powers[i] / Math.max(d2, MIN_DISTANCE2);
+                total += weights[i];
+            }
+        }
+        if (total <= 0) {
+            return null;
+        }
+        double u = random.nextDouble() * total;
+        int chosen = -1;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) {
+                chosen = i;
+                if (u < weights[i]) {
+                    break;
+                }
+                u -= weights[i];
+            }
+        }
+        return new LightSample(node._lights[chosen], probability * weights[chosen] / total);
+    }
+
+    /**
+     * The importance of a node for a point : power / d^2,
+     * with d the distance between the point and the center of the positions of the light sources of the node,
+     * and at least the half diagonal of their bounding box (the lights may be as close as that).
+     * @param node the node.
+     * @param x    coordinate of the point on the X axis.
+     * @param y    coordinate of the point on the Y axis.
+     * @param z    coordinate of the point on the Z axis.
+     * @return the importance of node, 0 if the point is outside the influence of its light sources.
+     */
+    private static double importance(Node node, double x, double y, double z) {
+        if (!node.contains(x, y, z)) {
+            return 0;
+        }
+        double dx = node._centerX - x, dy = node._centerY - y, dz = node._centerZ - z;
+        double d2 = Math.max(dx * dx + dy * dy + dz * dz, node._halfDiagonal2);
+        return node._power / Math.max(d2, MIN_DISTANCE2);
+    }
+
+    /**
+     * Getter of _globalLights.
+     * @return the light sources influencing all the points of the scene.
+     */
+    List<LightSource> getGlobalLights() {
+        return _globalLights;
+    }
+
+    /**
+     * Getter of the number of light sources the tree was built with.
+     * @return the number of light sources.
+     */
+    int size() {
+        return _size;
+    }
+}
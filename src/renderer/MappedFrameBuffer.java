@@ -0,0 +1,352 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class MappedFrameBuffer, an out-of-core framebuffer : the pixels are stored in a file mapped in memory
+ * (outside the heap, paged by the operating system), so that the size of the image is not limited by the heap.
+ * Each pixel holds its HDR color (3 floats, not clamped) and its number of samples (int).
+ * The file is divided into tiles of _tileSize x _tileSize pixels, each stored contiguously,
+ * and a row of tiles is mapped as one region, when it is first accessed.
+ * File : a header (magic, version, nX, nY, tile size, tag), then the rows of tiles.
+ * The tag is 0 in a new file; it is set by the owner of the pixels (see Checkpoint), to recognize the file.
+ * An existing file with the same dimensions is reopened with its pixels (for example, to resume a render).
+ * Thread-safe for writes to distinct pixels.
+ */
+public class MappedFrameBuffer implements AutoCloseable {
+    private static final int MAGIC = 0x52544642;    // "RTFB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int PIXEL_SIZE = 16;       // r, g, b (float) and number of samples (int)
+    private static final int TAG_OFFSET = 24;
+
+    /**
+     * Default edge size of the tiles (the default tile size of the wavefront mode).
+     */
+    public static final int DEFAULT_TILE_SIZE = 16;
+
+    private final int _nX;
+    private final int _nY;
+    private final int _tileSize;
+    private final int _tilesX;
+    private final int _tilesY;
+    private final long _regionSize;
+
+    private final RandomAccessFile _file;
+    private final FileChannel _channel;
+    private final AtomicReferenceArray<MappedByteBuffer> _regions;
+
+    /**
+     * MappedFrameBuffer constructor : creates the file, or reopens it if it exists with the same dimensions.
+     * @param path     the file of the framebuffer.
+     * @param nX       the number of pixels in a row.
+     * @param nY       the number of pixels in a column.
+     * @param tileSize the edge size of the tiles.
+     * @throws IllegalArgumentException if a dimension is not positive, if a row of tiles is too big to be mapped,
+     *                                  or if the file exists with other dimensions.
+     * @throws UncheckedIOException     if the file cannot be opened.
+     */
+    public MappedFrameBuffer(Path path, int nX, int nY, int tileSize) {
+        if (nX <= 0 || nY <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("the dimensions of the framebuffer must be positive");
+        }
+        _nX = nX;
+        _nY = nY;
+        _tileSize = tileSize;
+        _tilesX = (nX + tileSize - 1) / tileSize;
+        _tilesY = (nY + tileSize - 1) / tileSize;
+        _regionSize = (long) _tilesX * tileSize * tileSize * PIXEL_SIZE;
+        if (_regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("a row of tiles is too big to be mapped, reduce the tile size");
+        }
+        _regions = new AtomicReferenceArray<>(_tilesY);
+
+        try {
+            _file = new RandomAccessFile(path.toFile(), "rw");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        _channel = _file.getChannel();
+        try {
+            if (_file.length() >= HEADER_SIZE) {
+                checkHeader();
+            } else {
+                writeHeader();
+            }
+            _file.setLength(HEADER_SIZE + _regionSize * _tilesY);
+        } catch (IOException e) {
+            closeAfter(e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            closeAfter(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Helper method : to close the file after a failure of the opening of the framebuffer.
+     * @param failure the failure, to which a failure of the closing is added as suppressed.
+     */
+    private void closeAfter(Exception failure) {
+        try {
+            _channel.close();
+            _file.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * MappedFrameBuffer constructor, with the default tile size.
+     * @param path the file of the framebuffer.
+     * @param nX   the number of pixels in a row.
+     * @param nY   the number of pixels in a column.
+     */
+    public MappedFrameBuffer(Path path, int nX, int nY) {
+        this(path, nX, nY, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * To write the header of a new file.
+     * @throws IOException if an error occurs while writing.
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(_nX).putInt(_nY).putInt(_tileSize);
+        header.rewind();
+        _channel.write(header, 0);
+    }
+
+    /**
+     * To check the header of an existing file.
+     * @throws IOException if an error occurs while reading.
+     */
+    private void checkHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        _channel.read(header, 0);
+        header.rewind();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IllegalArgumentException("the file is not a framebuffer");
+        }
+        if (header.getInt() != _nX || header.getInt() != _nY || header.getInt() != _tileSize) {
+            throw new IllegalArgumentException("the framebuffer file has other dimensions");
+        }
+    }
+
+    /**
+     * Getter of _nX.
+     * @return _nX.
+     */
+    public int getNx() {
+        return _nX;
+    }
+
+    /**
+     * Getter of _nY.
+     * @return _nY.
+     */
+    public int getNy() {
+        return _nY;
+    }
+
+    /**
+     * Getter of _tileSize.
+     * @return _tileSize.
+     */
+    public int getTileSize() {
+        return _tileSize;
+    }
+
+    /**
+     * To find the mapped region of a row of tiles (mapping it the first time).
+     * @param tileRow the index of the row of tiles.
+     * @return the region.
+     */
+    private MappedByteBuffer region(int tileRow) {
+        MappedByteBuffer region = _regions.get(tileRow);
+        if (region == null) {
+            try {
+                region = _channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + _regionSize * tileRow, _regionSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!_regions.compareAndSet(tileRow, null, region)) {
+                region = _regions.get(tileRow);
+            }
+        }
+        return region;
+    }
+
+    /**
+     * To find the offset of a pixel in the region of its row of tiles.
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     * @return the offset.
+     */
+    private int offset(int x, int y) {
+        if (x < 0 || x >= _nX || y < 0 || y >= _nY) {
+            throw new IllegalArgumentException("the pixel is out of the framebuffer");
+        }
+        return (((x / _tileSize) * _tileSize + y % _tileSize) * _tileSize + x % _tileSize) * PIXEL_SIZE;
+    }
+
+    /**
+     * To set the color of a pixel.
+     * @param x       the column of the pixel.
+     * @param y       the row of the pixel.
+     * @param color   the HDR color of the pixel.
+     * @param samples the number of samples the color is the average of.
+     */
+    public void set(int x, int y, Color color, int samples) {
+        int offset = offset(x, y);
+        ByteBuffer region = region(y / _tileSize);
+        region.putFloat(offset, (float) color.r);
+        region.putFloat(offset + 4, (float) color.g);
+        region.putFloat(offset + 8, (float) color.b);
+        region.putInt(offset + 12, samples);
+    }
+
+    /**
+     * To add samples to a pixel : its color becomes the average of all its samples.
+     * @param x       the column of the pixel.
+     * @param y       the row of the pixel.
+     * @param color   the average HDR color of the new samples.
+     * @param samples the number of new samples.
+     */
+    public void accumulate(int x, int y, Color color, int samples) {
+        int offset = offset(x, y);
+        ByteBuffer region = region(y / _tileSize);
+        int count = region.getInt(offset + 12);
+        double total = count + samples;
+        if (total <= 0) {
+            return;
+        }
+        region.putFloat(offset, (float) ((region.getFloat(offset) * count + color.r * samples) / total));
+        region.putFloat(offset + 4, (float) ((region.getFloat(offset + 4) * count + color.g * samples) / total));
+        region.putFloat(offset + 8, (float) ((region.getFloat(offset + 8) * count + color.b * samples) / total));
+        region.putInt(offset + 12, count + samples);
+    }
+
+    /**
+     * To get the color of a pixel.
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     * @return the HDR color of the pixel (black if it has no sample).
+     */
+    public Color getColor(int x, int y) {
+        int offset = offset(x, y);
+        ByteBuffer region = region(y / _tileSize);
+        return new Color(region.getFloat(offset), region.getFloat(offset + 4), region.getFloat(offset + 8));
+    }
+
+    /**
+     * To get the number of samples of a pixel.
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     * @return the number of samples (0 if it is not rendered yet).
+     */
+    public int getSamples(int x, int y) {
+        int offset = offset(x, y);
+        return region(y / _tileSize).getInt(offset + 12);
+    }
+
+    /**
+     * To read a row of pixels, clamped to 8 bits (for the png encoder).
+     * @param y   the row.
+     * @param rgb the array to fill with the packed RGB values of the pixels (at least _nX values).
+     */
+    public void getRow(int y, int[] rgb) {
+        offset(0, y);   // checking the row
+        ByteBuffer region = region(y / _tileSize);
+        for (int x = 0; x < _nX; x++) {
+            int offset = offset(x, y);
+            rgb[x] = 0xFF000000 | clamp(region.getFloat(offset)) << 16
+                    | clamp(region.getFloat(offset + 4)) << 8 | clamp(region.getFloat(offset + 8));
+        }
+    }
+
+    /**
+     * Helper method for getRow(int, int[]) : the same conversion as Color.getColor().
+     * @param value a component of an HDR color.
+     * @return the component clamped to [0,255].
+     */
+    private static int clamp(float value) {
+        int i = (int) value;
+        return i > 255 ? 255 : Math.max(i, 0);
+    }
+
+    /**
+     * To write the pixels of some rows to the file (the whole rows of tiles containing them).
+     * @param y0     the first row.
+     * @param height the number of rows.
+     */
+    public void flush(int y0, int height) {
+        for (int tileRow = y0 / _tileSize; tileRow <= (y0 + height - 1) / _tileSize; tileRow++) {
+            MappedByteBuffer region = _regions.get(tileRow);
+            if (region != null) {
+                region.force();
+            }
+        }
+    }
+
+    /**
+     * To read the tag of the file.
+     * @return the tag (0 if it was never set).
+     * @throws UncheckedIOException if the header cannot be read.
+     */
+    public long getTag() {
+        ByteBuffer tag = ByteBuffer.allocate(Long.BYTES);
+        try {
+            _channel.read(tag, TAG_OFFSET);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tag.getLong(0);
+    }
+
+    /**
+     * To write the tag of the file.
+     * @param tag the tag.
+     * @throws UncheckedIOException if the header cannot be written.
+     */
+    public void setTag(long tag) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, tag);
+        try {
+            _channel.write(buffer, TAG_OFFSET);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * To write all the pixels to the file.
+     */
+    public void flush() {
+        flush(0, _nY);
+    }
+
+    /**
+     * To write all the pixels and to close the file.
+     * The framebuffer must not be used after.
+     */
+    @Override
+    public void close() {
+        flush();
+        try {
+            _channel.close();
+            _file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Class PngEncoder, a png encoder (8 bits RGB) compressing the image by bands of rows in parallel,
+ * and streaming the compressed bands in order as soon as they are ready.
+ * The bands are compressed independently (raw deflate, flushed to a byte boundary at the end of each band,
+ * finished at the last one) and concatenated into a single zlib stream, whose Adler-32 checksum is
+ * calculated in order while the bands are written.
+ * The filter of each row is chosen among None, Sub, Up, Average and Paeth (minimal sum of absolute values).
+ * Up, Average and Paeth depend on the previous row : they are not tried for the first row of a band
+ * (None or Sub only), so that a band does not depend on the previous one.
+ * Usage : start(), then pixelsCompleted(...) as the parts of the image are final (the bands complete
+ * are compressed at once), then finish() (the remaining bands are compressed).
+ */
+public class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int BAND_BYTES = 256 * 1024;
+    private static final int MIN_BAND_HEIGHT = 16;
+
+    /**
+     * Interface Rows, the source of the pixels of the image, read row by row.
+     */
+    @FunctionalInterface
+    public interface Rows {
+        /**
+         * To read a row of pixels.
+         * @param y   the row.
+         * @param rgb the array to fill with the packed RGB values of the pixels.
+         */
+        void getRow(int y, int[] rgb);
+    }
+
+    private final Rows _rows;
+    private final DataOutputStream _out;
+    private final int _level;
+    private final Executor _executor;
+    private final int _width;
+    private final int _height;
+    private final int _bandHeight;
+    private final int _bands;
+
+    /**
+     * For each band : number of pixels not completed yet, and has it been submitted for compression.
+     */
+    private final AtomicInteger[] _remaining;
+    private final AtomicBoolean[] _submitted;
+    private final CompletableFuture<?>[] _compressed;
+
+    /**
+     * The compressed bands waiting for their turn to be written, and the next band to write.
+     */
+    private final byte[][] _ready;
+    private final byte[][] _raw;
+    private int _nextBand = 0;
+    private final Adler32 _adler = new Adler32();
+    private IOException _error = null;
+
+    /**
+     * PngEncoder constructor.
+     * @param width    the number of pixels in a row.
+     * @param height   the number of pixels in a column.
+     * @param rows     the source of the pixels (a row is read when its band is compressed).
+     * @param out      the stream to write the png file into (not closed).
+     * @param level    the compression level (0 - 9, or Deflater.DEFAULT_COMPRESSION).
+     * @param executor the executor of the compression tasks.
+     * @throws IllegalArgumentException if level is not a valid compression level.
+     */
+    public PngEncoder(int width, int height, Rows rows, OutputStream out, int level, Executor executor) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9)) {
+            throw new IllegalArgumentException("compression level must be in [0,9]");
+        }
+        _rows = rows;
+        _out = new DataOutputStream(out);
+        _level = level;
+        _executor = executor;
+        _width = width;
+        _height = height;
+        _bandHeight = Math.max(MIN_BAND_HEIGHT, BAND_BYTES / (3 * _width + 1));
+        _bands = (_height + _bandHeight - 1) / _bandHeight;
+        _remaining = new AtomicInteger[_bands];
+        _submitted = new AtomicBoolean[_bands];
+        for (int band = 0; band < _bands; band++) {
+            _remaining[band] = new AtomicInteger(_width * (Math.min(_height, (band + 1) * _bandHeight)
+                    - band * _bandHeight));
+            _submitted[band] = new AtomicBoolean();
+        }
+        _compressed = new CompletableFuture<?>[_bands];
+        _ready = new byte[_bands][];
+        _raw = new byte[_bands][];
+    }
+
+    /**
+     * PngEncoder constructor, with the common ForkJoinPool as executor.
+     * @param width  the number of pixels in a row.
+     * @param height the number of pixels in a column.
+     * @param rows   the source of the pixels.
+     * @param out    the stream to write the png file into (not closed).
+     * @param level  the compression level (0 - 9, or Deflater.DEFAULT_COMPRESSION).
+     */
+    public PngEncoder(int width, int height, Rows rows, OutputStream out, int level) {
+        this(width, height, rows, out, level, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * PngEncoder constructor, with the common ForkJoinPool as executor.
+     * @param image the image.
+     * @param out   the stream to write the png file into (not closed).
+     * @param level the compression level (0 - 9, or Deflater.DEFAULT_COMPRESSION).
+     */
+    public PngEncoder(BufferedImage image, OutputStream out, int level) {
+        this(image.getWidth(), image.getHeight(),
+                (y, rgb) -> image.getRGB(0, y, image.getWidth(), 1, rgb, 0, image.getWidth()), out, level);
+    }
+
+    /**
+     * To write the signature and the header of the png file.
+     * @throws IOException if an error occurs while writing.
+     */
+    public synchronized void start() throws IOException {
+        _out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        writeInt(ihdr, 0, _width);
+        writeInt(ihdr, 4, _height);
+        ihdr[8] = 8;    // bit depth
+        ihdr[9] = 2;    // color type : RGB
+        writeChunk("IHDR", ihdr, ihdr.length);
+    }
+
+    /**
+     * To declare a rectangle of pixels as final : the bands whose pixels are all final are compressed.
+     * Each pixel must be declared once.
+     * @param x0     the column of the upper left pixel.
+     * @param y0     the row of the upper left pixel.
+     * @param width  the width of the rectangle.
+     * @param height the height of the rectangle.
+     */
+    public void pixelsCompleted(int x0, int y0, int width, int height) {
+        int y = y0;
+        while (y < y0 + height) {
+            int band = y / _bandHeight;
+            int end = Math.min(y0 + height, (band + 1) * _bandHeight);
+            if (_remaining[band].addAndGet(-width * (end - y)) <= 0) {
+                submit(band);
+            }
+            y = end;
+        }
+    }
+
+    /**
+     * To compress the remaining bands, to write them, and to end the png file.
+     * @throws IOException if an error occurs while writing.
+     */
+    public void finish() throws IOException {
+        for (int band = 0; band < _bands; band++) {
+            submit(band);
+        }
+        try {
+            CompletableFuture.allOf(_compressed).join();
+        } catch (CompletionException e) {
+            throw new IOException("png compression failed", e.getCause());
+        }
+        synchronized (this) {
+            if (_error != null) {
+                throw _error;
+            }
+            byte[] adler = new byte[4];
+            writeInt(adler, 0, (int) _adler.getValue());
+            writeChunk("IDAT", adler, adler.length);
+            writeChunk("IEND", new byte[0], 0);
+            _out.flush();
+        }
+    }
+
+    /**
+     * To submit a band for compression (once).
+     * @param band the index of the band.
+     */
+    private void submit(int band) {
+        if (_submitted[band].compareAndSet(false, true)) {
+            _compressed[band] = CompletableFuture.runAsync(() -> compress(band), _executor);
+        }
+    }
+
+    /**
+     * To filter and compress a band, then to write the bands ready in order.
+     * @param band the index of the band.
+     */
+    private void compress(int band) {
+        int y0 = band * _bandHeight;
+        int y1 = Math.min(_height, y0 + _bandHeight);
+        int rowBytes = 3 * _width;
+        byte[] raw = new byte[(y1 - y0) * (rowBytes + 1)];
+        byte[] previous = null;
+        byte[] current = new byte[rowBytes];
+        int[] rgb = new int[_width];
+        byte[][] candidates = new byte[5][rowBytes];
+        for (int y = y0; y < y1; y++) {
+            _rows.getRow(y, rgb);
+            for (int x = 0; x < _width; x++) {
+                current[3 * x] = (byte) (rgb[x] >> 16);
+                current[3 * x + 1] = (byte) (rgb[x] >> 8);
+                current[3 * x + 2] = (byte) rgb[x];
+            }
+            int filter = filter(current, previous, candidates);
+            int offset = (y - y0) * (rowBytes + 1);
+            raw[offset] = (byte) filter;
+            System.arraycopy(candidates[filter], 0, raw, offset + 1, rowBytes);
+            if (previous == null) {
+                previous = new byte[rowBytes];
+            }
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Deflater deflater = new Deflater(_level, true);
+        deflater.setInput(raw);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] buffer = new byte[64 * 1024];
+        boolean last = band == _bands - 1;
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } else {
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                compressed.write(buffer, 0, n);
+            } while (n == buffer.length);
+        }
+        deflater.end();
+
+        synchronized (this) {
+            _ready[band] = compressed.toByteArray();
+            _raw[band] = raw;
+            drain();
+        }
+    }
+
+    /**
+     * To write the bands ready in order (the first one with the zlib header).
+     * Called with the lock of this.
+     */
+    private void drain() {
+        try {
+            while (_nextBand < _bands && _ready[_nextBand] != null) {
+                byte[] data = _ready[_nextBand];
+                if (_nextBand == 0) {
+                    byte[] withHeader = new byte[data.length + 2];
+                    withHeader[0] = 0x78;
+                    withHeader[1] = (byte) zlibFlags();
+                    System.arraycopy(data, 0, withHeader, 2, data.length);
+                    data = withHeader;
+                }
+                writeChunk("IDAT", data, data.length);
+                _adler.update(_raw[_nextBand]);
+                _ready[_nextBand] = null;
+                _raw[_nextBand] = null;
+                _nextBand++;
+            }
+        } catch (IOException e) {
+            _error = e;
+        }
+    }
+
+    /**
+     * To calculate the second byte of the zlib header (FLEVEL according to the level, FCHECK).
+     * @return the FLG byte.
+     */
+    private int zlibFlags() {
+        int flevel = _level == Deflater.DEFAULT_COMPRESSION || _level == 6 ? 2
+                : _level <= 1 ? 0 : _level <= 5 ? 1 : 3;
+        int flags = flevel << 6;
+        return flags + 31 - ((0x78 * 256 + flags) % 31);
+    }
+
+    /**
+     * To choose the filter of a row : the one with the minimal sum of the absolute values of its bytes.
+     * @param row        the bytes of the row.
+     * @param previous   the bytes of the previous row in the band (null for the first row).
+     * @param candidates the filtered rows, for each filter type (filled).
+     * @return the filter type chosen.
+     */
+    private static int filter(byte[] row, byte[] previous, byte[][] candidates) {
+        int n = row.length;
+        int types = previous == null ? 2 : 5;
+        long[] sums = new long[types];
+        for (int i = 0; i < n; i++) {
+            int a = i >= 3 ? row[i - 3] & 0xFF : 0;
+            int b = previous == null ? 0 : previous[i] & 0xFF;
+            int c = i >= 3 && previous != null ? previous[i - 3] & 0xFF : 0;
+            int x = row[i] & 0xFF;
+            candidates[0][i] = (byte) x;
+            candidates[1][i] = (byte) (x - a);
+            if (previous != null) {
+                candidates[2][i] = (byte) (x - b);
+                candidates[3][i] = (byte) (x - ((a + b) >> 1));
+                candidates[4][i] = (byte) (x - paeth(a, b, c));
+            }
+            for (int t = 0; t < types; t++) {
+                sums[t] += Math.abs((int) candidates[t][i]);
+            }
+        }
+        int best = 0;
+        for (int t = 1; t < types; t++) {
+            if (sums[t] < sums[best]) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The Paeth predictor of the png format.
+     * @param a the left byte.
+     * @param b the upper byte.
+     * @param c the upper left byte.
+     * @return the one of a, b, c the nearest to a + b - c.
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * To write a chunk of the png file.
+     * @param type   the type of the chunk (4 letters).
+     * @param data   the data of the chunk.
+     * @param length the length of the data.
+     * @throws IOException if an error occurs while writing.
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        _out.writeInt(length);
+        _out.write(typeBytes);
+        _out.write(data, 0, length);
+        _out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * To write an integer in big-endian order into an array.
+     * @param array  the array.
+     * @param offset the offset of the integer.
+     * @param value  the integer.
+     */
+    private static void writeInt(byte[] array, int offset, int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,171 @@
+package renderer;
+
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Class RayBuffer, a batch of rays for the wavefront mode of the render, stored as a structure of arrays
+ * (one array of primitives per field), in order to process all the rays of a stage one after the other.
+ * Fields of each ray :
+ * - origin (ox, oy, oz) and direction (dx, dy, dz)
+ * - pixel : index of the pixel (in the tile) the ray contributes to
+ * - level, k : level of recursion and attenuation coefficient (for camera and secondary rays)
+ * - weight, missWeight : coefficients of the color of the point hit, and of the background if nothing is hit
+ * - for shadow rays : the shaded point (px, py, pz), the distance to the light source,
+ * and the unshadowed contribution (r, g, b) of the light source to the pixel
+ * Not thread-safe : one buffer per thread and per stage.
+ */
+class RayBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+
+    double[] _ox, _oy, _oz, _dx, _dy, _dz;
+    int[] _pixel, _level;
+    double[] _k, _weight, _missWeight;
+    double[] _px, _py, _pz, _distance, _r, _g, _b;
+
+    /**
+     * Number of rays in the buffer.
+     */
+    int _size = 0;
+
+    /**
+     * RayBuffer constructor, with the default initial capacity.
+     */
+    RayBuffer() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * To (re)allocate the arrays, keeping the first _size rays.
+     * @param capacity the new capacity.
+     */
+    private void allocate(int capacity) {
+        _ox = copy(_ox, capacity);
+        _oy = copy(_oy, capacity);
+        _oz = copy(_oz, capacity);
+        _dx = copy(_dx, capacity);
+        _dy = copy(_dy, capacity);
+        _dz = copy(_dz, capacity);
+        _k = copy(_k, capacity);
+        _weight = copy(_weight, capacity);
+        _missWeight = copy(_missWeight, capacity);
+        _px = copy(_px, capacity);
+        _py = copy(_py, capacity);
+        _pz = copy(_pz, capacity);
+        _distance = copy(_distance, capacity);
+        _r = copy(_r, capacity);
+        _g = copy(_g, capacity);
+        _b = copy(_b, capacity);
+        int[] pixel = new int[capacity];
+        int[] level = new int[capacity];
+        if (_pixel != null) {
+            System.arraycopy(_pixel, 0, pixel, 0, _size);
+            System.arraycopy(_level, 0, level, 0, _size);
+        }
+        _pixel = pixel;
+        _level = level;
+    }
+
+    /**
+     * Helper method for allocate(int).
+     * @param array    the current array (may be null).
+     * @param capacity the new capacity.
+     * @return a new array, with the first _size values of array.
+     */
+    private double[] copy(double[] array, int capacity) {
+        double[] result = new double[capacity];
+        if (array != null) {
+            System.arraycopy(array, 0, result, 0, _size);
+        }
+        return result;
+    }
+
+    /**
+     * To empty the buffer.
+     */
+    void clear() {
+        _size = 0;
+    }
+
+    /**
+     * To add a camera ray at the end of the buffer (its level and k are set by the ray tracer).
+     * @param ray    the ray.
+     * @param pixel  index of the pixel the ray contributes to.
+     * @param weight the coefficient of the color of the ray in the color of the pixel.
+     */
+    void addCameraRay(Ray ray, int pixel, double weight) {
+        add(ray, pixel, 0, 1.0, weight, weight);
+    }
+
+    /**
+     * To add a camera or secondary ray at the end of the buffer.
+     * @param ray        the ray.
+     * @param pixel      index of the pixel the ray contributes to.
+     * @param level      the level of recursion of the point the ray hits.
+     * @param k          the attenuation coefficient of the ray.
+     * @param weight     the coefficient of the color of the point the ray hits.
+     * @param missWeight the coefficient of the background color if the ray hits nothing.
+     * @return the index of the ray in the buffer.
+     */
+    int add(Ray ray, int pixel, int level, double k, double weight, double missWeight) {
+        if (_size == _ox.length) {
+            allocate(_size * 2);
+        }
+        int i = _size++;
+        Point3D p0 = ray.getP0();
+        Point3D dir = ray.getDir().getHead();
+        _ox[i] = p0.getX();
+        _oy[i] = p0.getY();
+        _oz[i] = p0.getZ();
+        _dx[i] = dir.getX();
+        _dy[i] = dir.getY();
+        _dz[i] = dir.getZ();
+        _pixel[i] = pixel;
+        _level[i] = level;
+        _k[i] = k;
+        _weight[i] = weight;
+        _missWeight[i] = missWeight;
+        return i;
+    }
+
+    /**
+     * To add a shadow ray at the end of the buffer.
+     * @param ray      the shadow ray (from the point, offset by delta, towards the light source).
+     * @param pixel    index of the pixel the ray contributes to.
+     * @param point    the shaded point.
+     * @param distance the distance between the point and the light source.
+     * @param k        the attenuation coefficient of the ray the point was hit with.
+     * @param r        unshadowed contribution of the light source to the pixel (red).
+     * @param g        unshadowed contribution of the light source to the pixel (green).
+     * @param b        unshadowed contribution of the light source to the pixel (blue).
+     */
+    void addShadowRay(Ray ray, int pixel, Point3D point, double distance, double k, double r, double g, double b) {
+        int i = add(ray, pixel, 0, k, 1.0, 0.0);
+        _px[i] = point.getX();
+        _py[i] = point.getY();
+        _pz[i] = point.getZ();
+        _distance[i] = distance;
+        _r[i] = r;
+        _g[i] = g;
+        _b[i] = b;
+    }
+
+    /**
+     * To build the ray at index i.
+     * @param i the index of the ray in the buffer.
+     * @return a new Ray object.
+     */
+    Ray getRay(int i) {
+        return new Ray(new Point3D(_ox[i], _oy[i], _oz[i]), new Vector(_dx[i], _dy[i], _dz[i]));
+    }
+
+    /**
+     * To get the shaded point of the shadow ray at index i.
+     * @param i the index of the ray in the buffer.
+     * @return a new Point3D object.
+     */
+    Point3D getPoint(int i) {
+        return new Point3D(_px[i], _py[i], _pz[i]);
+    }
+}
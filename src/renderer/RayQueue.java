@@ -0,0 +1,166 @@
+package renderer;
+
+import primitives.Ray;
+
+import java.util.Arrays;
+
+/**
+ * Class RayQueue, a FIFO work queue of secondary rays, for the iterative evaluation of the
+ * reflection/refraction effects (instead of recursion).
+ * Each entry is (ray, k, weight, missWeight, level), stored in parallel arrays :
+ * - the ray itself (immutable, it is returned by poll() as it was pushed, without any copy)
+ * - k : the attenuation coefficient of the ray (for the stop conditions)
+ * - weight : the coefficient of the color of the point the ray hits
+ * - missWeight : the coefficient of the background color if the ray hits nothing
+ * - level : the level of recursion of the point the ray hits
+ * The entries of a same level are consecutive in the queue, and so may be processed together.
+ * Not thread-safe : one queue per thread.
+ */
+class RayQueue implements BasicRayTracer.RaySink {
+    /**
+     * Initial capacity of the queue.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Ray[] _rays = new Ray[INITIAL_CAPACITY];
+    private double[] _k = new double[INITIAL_CAPACITY];
+    private double[] _weight = new double[INITIAL_CAPACITY];
+    private double[] _missWeight = new double[INITIAL_CAPACITY];
+    private int[] _level = new int[INITIAL_CAPACITY];
+
+    /**
+     * Index of the first entry (head), and index after the last entry (tail).
+     */
+    private int _head = 0;
+    private int _tail = 0;
+
+    /**
+     * The values of the last entry returned by poll().
+     */
+    private double _currentK;
+    private double _currentWeight;
+    private double _currentMissWeight;
+    private int _currentLevel;
+
+    /**
+     * To empty the queue.
+     */
+    void clear() {
+        Arrays.fill(_rays, _head, _tail, null);
+        _head = 0;
+        _tail = 0;
+    }
+
+    /**
+     * To check if the queue is empty.
+     * @return true if there is no entry in the queue.
+     */
+    boolean isEmpty() {
+        return _head == _tail;
+    }
+
+    /**
+     * To add an entry at the tail of the queue.
+     * @param ray        the secondary ray.
+     * @param k          the attenuation coefficient of the ray.
+     * @param weight     the coefficient of the color of the point the ray hits.
+     * @param missWeight the coefficient of the background color if the ray hits nothing.
+     * @param level      the level of recursion of the point the ray hits.
+     */
+    @Override
+    public void push(Ray ray, double k, double weight, double missWeight, int level) {
+        if (_tail == _rays.length) {
+            grow();
+        }
+        _rays[_tail] = ray;
+        _k[_tail] = k;
+        _weight[_tail] = weight;
+        _missWeight[_tail] = missWeight;
+        _level[_tail] = level;
+        _tail++;
+    }
+
+    /**
+     * To remove the entry at the head of the queue.
+     * Its values (except the ray) are then available through the getters.
+     * @return the ray of the entry.
+     */
+    Ray poll() {
+        int i = _head++;
+        _currentK = _k[i];
+        _currentWeight = _weight[i];
+        _currentMissWeight = _missWeight[i];
+        _currentLevel = _level[i];
+        Ray ray = _rays[i];
+        _rays[i] = null;
+        if (_head == _tail) {   // empty : reusing the arrays from their beginning
+            clear();
+        }
+        return ray;
+    }
+
+    /**
+     * To make more space at the tail of the queue : moving the entries to the beginning of the arrays,
+     * or doubling the capacity if the queue is full.
+     */
+    private void grow() {
+        int size = _tail - _head;
+        int capacity = size * 2 > _rays.length ? _rays.length * 2 : _rays.length;
+        Ray[] rays = capacity == _rays.length ? _rays : new Ray[capacity];
+        System.arraycopy(_rays, _head, rays, 0, size);
+        Arrays.fill(rays, size, _tail, null);
+        _rays = rays;
+        _k = move(_k, capacity);
+        _weight = move(_weight, capacity);
+        _missWeight = move(_missWeight, capacity);
+        int[] level = capacity == _level.length ? _level : new int[capacity];
+        System.arraycopy(_level, _head, level, 0, size);
+        _level = level;
+        _head = 0;
+        _tail = size;
+    }
+
+    /**
+     * Helper method for grow().
+     * @param array    the array to move the entries of.
+     * @param capacity the capacity of the resulting array.
+     * @return the array (or a new one, if the capacity changes), with the entries from its beginning.
+     */
+    private double[] move(double[] array, int capacity) {
+        double[] result = capacity == array.length ? array : new double[capacity];
+        System.arraycopy(array, _head, result, 0, _tail - _head);
+        return result;
+    }
+
+    /**
+     * Getter of the attenuation coefficient of the last polled entry.
+     * @return k.
+     */
+    double getK() {
+        return _currentK;
+    }
+
+    /**
+     * Getter of the weight of the last polled entry.
+     * @return weight.
+     */
+    double getWeight() {
+        return _currentWeight;
+    }
+
+    /**
+     * Getter of the weight of the background of the last polled entry.
+     * @return missWeight.
+     */
+    double getMissWeight() {
+        return _currentMissWeight;
+    }
+
+    /**
+     * Getter of the level of the last polled entry.
+     * @return level.
+     */
+    int getLevel() {
+        return _currentLevel;
+    }
+}
@@ -16,6 +16,11 @@ public abstract class RayTracerBase {
      */
     protected Scene _scene;
 
+    /**
+     * Counters about the current (or last) render.
+     */
+    protected final RenderMetrics _metrics = new RenderMetrics();
+
     /**
      * RayTracerBase constructor, receiving 1 parameter.
      * @param scene the scene of the RayTracerBase.
@@ -36,5 +41,67 @@ public abstract class RayTracerBase {
      */
     public abstract Color traceRay(Ray ray);
 
+    /**
+     * To trace a batch of camera rays (wavefront mode of the render),
+     * adding the weighted color of each ray to the color of its pixel.
+     * Default : tracing the rays one by one with traceRay(Ray).
+     * @param rays   the camera rays.
+     * @param colors the colors of the pixels : r, g, b of the pixel i at 3i, 3i+1, 3i+2.
+     */
+    void traceBatch(RayBuffer rays, double[] colors) {
+        for (int i = 0; i < rays._size; i++) {
+            Color color = traceRay(rays.getRay(i));
+            int p = 3 * rays._pixel[i];
+            colors[p] += color.r * rays._weight[i];
+            colors[p + 1] += color.g * rays._weight[i];
+            colors[p + 2] += color.b * rays._weight[i];
+        }
+    }
+
+    /**
+     * To prepare the ray tracer for a new render, before the first ray is traced.
+     * Called by Render, once the scene is complete.
+     * Default : resetting the metrics.
+     */
+    public void beginRender() {
+        _metrics.reset();
+    }
+
+    /**
+     * To prepare the ray tracer for a new render of a number of pixels.
+     * Default : beginRender().
+     * @param pixels the number of pixels of the image (or of its crop window).
+     */
+    public void beginRender(int pixels) {
+        beginRender();
+    }
+
+    /**
+     * To begin the camera rays of some pixels (of one pixel, or of a tile before traceBatch).
+     * Called by Render, so that the shared resources of the render (as the ray budget) are given
+     * to the pixels evenly, whatever the order they are rendered in.
+     * Default : nothing.
+     * @param pixels the number of pixels.
+     */
+    void beginPixels(int pixels) {
+    }
+
+    /**
+     * The maximal tangent of the angle between a shadow ray and the direction of its light source,
+     * for the incremental render (see Scene.getDirtyRegions).
+     * Default : 0 (hard shadows).
+     * @return the spread of the shadow rays.
+     */
+    double getShadowSpread() {
+        return 0;
+    }
+
+    /**
+     * Getter of _metrics.
+     * @return the counters about the current (or last) render.
+     */
+    public RenderMetrics getMetrics() {
+        return _metrics;
+    }
 
 }
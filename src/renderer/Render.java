@@ -1,10 +1,26 @@
 package renderer;
 
 import elements.Camera;
+import geometries.Accelerator;
+import geometries.BVH;
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Intersectable.GeoPoint;
 import primitives.Color;
 import primitives.Ray;
 
+import java.awt.Rectangle;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static primitives.Util.alignZero;
 
@@ -97,6 +113,20 @@ public class Render {
         return this;
     }
 
+    /**
+     * Getter of the metrics of the last render.
+     *
+     * @return the metrics of _rayTracer.
+     * @throws MissingResourceException if _rayTracer is null.
+     */
+    public RenderMetrics getMetrics() throws MissingResourceException {
+        if (_rayTracer == null) {
+            throw new MissingResourceException(
+                    "_rayTracer of the Render object is null", "Render", "");
+        }
+        return _rayTracer.getMetrics();
+    }
+
     /**
      * To render the image, read to color each pixel of the image according to the intersection
      * between the rays of _camera with _scene,
@@ -119,10 +149,31 @@ public class Render {
             throw new IllegalArgumentException(
                     "imageName must be a non null string and the number of pixels must be > 0");
         }
+        setWindow(nX, nY);
+
+        _rayTracer.beginRender((_x1 - _x0) * (_y1 - _y0));
+        buildAccelerator();
+        beginTemporal(nX, nY);
+        _rayTracer._scene.clearEdits();   // the whole image is rendered
 
-        if (threadsCount == 0) {
-            for (int i = 0; i < nY; i++) {
-                for (int j = 0; j < nX; j++) {
+        if (_tileSize > 0) {
+            boolean finished = false;
+            try {
+                renderImageWavefront(null);
+                finished = true;
+            } finally {
+                if (_activeTemporal != null) {
+                    if (finished) {
+                        _activeTemporal.end();
+                    } else {
+                        _activeTemporal.clear();
+                    }
+                    _activeTemporal = null;
+                }
+            }
+        } else if (threadsCount == 0) {
+            for (int i = _y0; i < _y1; i++) {
+                for (int j = _x0; j < _x1; j++) {
                     System.out.println("for the pixel : " + i + ", " + j);
                     // for the pixel (j,i)
                     // casting a ray from _camera to the pixel (j,i)
@@ -191,6 +242,12 @@ public class Render {
 // Multithreading part
 
     private int threadsCount = 0;
+    /**
+     * Threads kept from one render to the next in wavefront mode (see keepThreads),
+     * null to start new threads for each render.
+     */
+    private ExecutorService _pool = null;
+    private int _tileSizeBeforeKeep = -1;    // the tile size restored by keepThreads(false) (-1 : none)
     private static final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
     private boolean print = false; // printing progress percentage
 
@@ -353,6 +410,7 @@ public class Render {
      * @param row pixel's row number (pixel index in column)
      */
     private void castRay(int nX, int nY, int col, int row) {
+        _rayTracer.beginPixels(1);
         Ray ray = _camera.constructRayThroughPixel(nX, nY, col, row);
         Color color = _rayTracer.traceRay(ray);
         _imageWriter.writePixel(col, row, color);
@@ -365,21 +423,23 @@ public class Render {
     private void renderImageThreaded() {
         final int nX = _imageWriter.getNx();
         final int nY = _imageWriter.getNy();
-        final Pixel thePixel = new Pixel(nY, nX);
+        final Pixel thePixel = new Pixel(_y1 - _y0, _x1 - _x0);
         // Generate threads
         Thread[] threads = new Thread[threadsCount];
         for (int i = threadsCount - 1; i >= 0; --i) {
             threads[i] = new Thread(() -> {
                 Pixel pixel = new Pixel();
                 while (thePixel.nextPixel(pixel)) {
-                    System.out.println("for the pixel : " + pixel.row + ", " + pixel.col);
+                    int row = _y0 + pixel.row;
+                    int col = _x0 + pixel.col;
+                    System.out.println("for the pixel : " + row + ", " + col);
                     if (antiAliasingFlag) {
-                        //castRayForAntiAliasing1(nX, nY, pixel.col, pixel.row);
-                        //castRayForAntiAliasing2(nX, nY, pixel.col, pixel.row);
-                        //castRayForAntiAliasing3(nX, nY, pixel.col, pixel.row);
-                        castRayForAntiAliasing4(nX, nY, pixel.col, pixel.row);
+                        //castRayForAntiAliasing1(nX, nY, col, row);
+                        //castRayForAntiAliasing2(nX, nY, col, row);
+                        //castRayForAntiAliasing3(nX, nY, col, row);
+                        castRayForAntiAliasing4(nX, nY, col, row);
                     } else {
-                        castRay(nX, nY, pixel.col, pixel.row);
+                        castRay(nX, nY, col, row);
                     }
                 }
             });
@@ -402,6 +462,817 @@ public class Render {
     }
 
 
+    // Wavefront part
+
+    /**
+     * Edge size of the tiles in wavefront mode (0 : wavefront mode off).
+     */
+    private int _tileSize = 0;
+    private static final int DEFAULT_TILE_SIZE = 16;
+
+    /**
+     * To set on the wavefront mode : the image is divided into tiles of tileSize x tileSize pixels,
+     * and all the camera rays of a tile are traced together, stage by stage
+     * (see RayTracerBase.traceBatch), instead of pixel by pixel.
+     * With anti-aliasing, each pixel is sampled with a regular grid of _numOfSamples x _numOfSamples rays
+     * (the adaptive supersampling is not used in that mode).
+     * The tiles are shared between the threads set by setMultithreading.
+     * Chaining method.
+     * @param tileSize the edge size of the tiles, in pixels (0 to set off the mode).
+     * @return this.
+     * @throws IllegalArgumentException if tileSize < 0.
+     */
+    public Render setWavefront(int tileSize) {
+        if (tileSize < 0) {
+            throw new IllegalArgumentException("tileSize must be >= 0");
+        }
+        _tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Getter of _tileSize.
+     * @return the edge size of the tiles in wavefront mode (0 : wavefront mode off).
+     */
+    int getTileSize() {
+        return _tileSize;
+    }
+
+    /**
+     * To set on the wavefront mode.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public Render setWavefront() {
+        return setWavefront(DEFAULT_TILE_SIZE);
+    }
+
+    // Incremental render part
+
+    /**
+     * To render again only the tiles which may change because of the edits of the scene of _rayTracer
+     * since the last render (recorded by the edit methods of Scene, see Scene.getDirtyRegions),
+     * on top of the image of the last render kept by _imageWriter. The edits are then forgotten.
+     * The camera, the resolution and the settings must be the ones of the last render.
+     * The tiles are rendered in wavefront mode (with the default tile size if it is not set yet) :
+     * the last render should be made in wavefront mode too, so that the pixels not rendered again match.
+     * If there is a crop window, only its tiles are rendered.
+     *
+     * @return the number of tiles rendered.
+     * @throws MissingResourceException if one among _imageWriter, _camera or _rayTracer is null.
+     */
+    public int renderDirty() throws MissingResourceException {
+        if (_imageWriter == null || _camera == null || _rayTracer == null) {
+            throw new MissingResourceException
+                    ("at least one of the fields of the Render is null", "Render", "");
+        }
+        int nX = _imageWriter.getNx();
+        int nY = _imageWriter.getNy();
+        setWindow(nX, nY);
+        if (_tileSize == 0) {
+            _tileSize = DEFAULT_TILE_SIZE;
+        }
+
+        List<Rectangle> regions = _rayTracer._scene.getDirtyRegions(_camera, nX, nY, _rayTracer.getShadowSpread());
+        _rayTracer._scene.clearEdits();
+        int tilesX = (_x1 - _x0 + _tileSize - 1) / _tileSize;
+        int tilesY = (_y1 - _y0 + _tileSize - 1) / _tileSize;
+        boolean[] dirty = new boolean[tilesX * tilesY];
+        int count = 0;
+        for (Rectangle region : regions) {
+            // the tiles of the window intersecting region
+            int tx0 = Math.max(0, (region.x - _x0) / _tileSize);
+            int ty0 = Math.max(0, (region.y - _y0) / _tileSize);
+            int tx1 = Math.min(tilesX - 1, Math.floorDiv(region.x + region.width - 1 - _x0, _tileSize));
+            int ty1 = Math.min(tilesY - 1, Math.floorDiv(region.y + region.height - 1 - _y0, _tileSize));
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    if (!dirty[ty * tilesX + tx]) {
+                        dirty[ty * tilesX + tx] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int[] tileList = new int[count];
+        for (int tile = 0, k = 0; tile < dirty.length; tile++) {
+            if (dirty[tile]) {
+                tileList[k++] = tile;
+            }
+        }
+
+        if (_temporal != null) {
+            _temporal.clear();  // the pixels of the history are no longer the ones of the image
+        }
+        _rayTracer.beginRender((_x1 - _x0) * (_y1 - _y0));
+        buildAccelerator();
+        renderImageWavefront(tileList);
+        return count;
+    }
+
+    // Accelerator part
+
+    /**
+     * The kind of the accelerator of the geometries of the scene built by the render
+     * (null : the render does not build it), and the settings of a hierarchy.
+     */
+    private Accelerator.Kind _accelerator = null;
+    private BVH.Build _hierarchyBuild = BVH.Build.SAH;
+    private int _hierarchyWidth = 2;
+    private int _hierarchyBits = 64;
+
+    /**
+     * To make each render build an accelerator of the geometries of the scene (see Accelerator),
+     * before tracing the rays, if it is not built with these settings (the time of the build is in the metrics,
+     * see RenderMetrics.getBuildTime()). An accelerator refitted between the frames of an animation
+     * (see SequenceRenderer) is kept.
+     * A grid suits the scenes of many objects of similar sizes spread evenly; AUTO chooses from the statistics
+     * of the objects (see Grid.suits).
+     * Chaining method.
+     * @param kind the kind of the accelerator (null : the render does not build it).
+     * @return this.
+     */
+    public Render setAccelerator(Accelerator.Kind kind) {
+        _accelerator = kind;
+        return this;
+    }
+
+    /**
+     * To make each render build the bounding volume hierarchy of the geometries of the scene (see BVH),
+     * as accelerator.
+     * SAH gives the fastest renders, LBVH the fastest builds (for the scenes rebuilt at each frame).
+     * The compressed trees (see BVH.compress) take 3 to 4 times less memory (width 4 and 16 bits)
+     * or more (width 8 and 8 bits), for somewhat slower traversals.
+     * Chaining method.
+     * @param build the mode of the build (null : the render does not build the hierarchy).
+     * @param width the number of children of the nodes (2 : a binary tree, not compressed; 4 or 8 : compressed).
+     * @param bits  the number of bits of the quantized bounds of a compressed tree (8 or 16).
+     * @return this.
+     * @throws IllegalArgumentException if width is not 2, 4 or 8, or if the tree is compressed
+     *                                  and bits is not 8 or 16.
+     */
+    public Render setHierarchy(BVH.Build build, int width, int bits) {
+        if (width != 2 && width != 4 && width != 8 || width != 2 && bits != 8 && bits != 16) {
+            throw new IllegalArgumentException("the width must be 2, 4 or 8, and the bits 8 or 16");
+        }
+        if (build == null) {
+            _accelerator = null;
+            return this;
+        }
+        _accelerator = Accelerator.Kind.BVH;
+        _hierarchyBuild = build;
+        _hierarchyWidth = width;
+        _hierarchyBits = width == 2 ? 64 : bits;
+        return this;
+    }
+
+    /**
+     * To make each render build the hierarchy of the geometries of the scene, not compressed.
+     * Wrapper method.
+     * Chaining method.
+     * @param build the mode of the build (null : the render does not build the hierarchy).
+     * @return this.
+     */
+    public Render setHierarchy(BVH.Build build) {
+        return setHierarchy(build, 2, 64);
+    }
+
+    /**
+     * To build the accelerator of the geometries of the scene, if the render builds it and it is not built
+     * with its settings, recording the time of the build in the metrics
+     * (and the description of the accelerator, even if it is not built by the render).
+     * Called after the reset of the metrics.
+     */
+    private void buildAccelerator() {
+        Geometries geometries = _rayTracer._scene._geometries;
+        Accelerator accelerator = geometries.getAccelerator();
+        BVH hierarchy = geometries.getHierarchy();
+        if (_accelerator != null && (accelerator == null || geometries.getAcceleratorKind() != _accelerator
+                || hierarchy != null && (hierarchy.getBuild() != _hierarchyBuild
+                || hierarchy.getWidth() != _hierarchyWidth || hierarchy.getBits() != _hierarchyBits))) {
+            long start = System.nanoTime();
+            geometries.buildAccelerator(_accelerator, _hierarchyBuild, _hierarchyWidth, _hierarchyBits);
+            _rayTracer._metrics.setBuildTime(System.nanoTime() - start);
+            accelerator = geometries.getAccelerator();
+        }
+        if (accelerator != null) {
+            _rayTracer._metrics.setAccelerator(accelerator.toString());
+        }
+    }
+
+    // Temporal reuse part
+
+    /**
+     * The history of the temporal reuse (null : the temporal reuse is off).
+     */
+    private TemporalHistory _temporal = null;
+    private TemporalHistory _activeTemporal = null;     // the one of the current render
+    private static final int DEFAULT_MAX_AGE = 4;
+
+    /**
+     * To set on the temporal reuse, for the frames of an animation with slow camera moves
+     * (see SequenceRenderer) : each renderImage reuses the colors of the previous render
+     * for the pixels which show the same points (see TemporalHistory), and traces the camera rays
+     * (with all their anti-aliasing samples) only for the other pixels. A pixel costs one camera ray
+     * (through its center, to find the point it shows) when its color is reused.
+     * The pixels on the edges of the geometries, the pixels hidden in the previous render,
+     * and the pixels in the regions changed by the recorded edits of the scene (see Scene.getDirtyRegions)
+     * are rendered again. The view-dependent shading (as the specular highlights) of a reused pixel is the one
+     * of the previous camera : maxAge bounds the number of frames a color is reused for.
+     * The render is made in wavefront mode (with the default tile size if it is not set yet).
+     * Chaining method.
+     * @param maxAge the maximal number of consecutive frames the color of a pixel is reused for
+     *               (0 to set off the temporal reuse).
+     * @return this.
+     * @throws IllegalArgumentException if maxAge < 0 or maxAge > 127.
+     */
+    public Render setTemporalReuse(int maxAge) {
+        if (maxAge < 0 || maxAge > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("maxAge must be between 0 and 127");
+        }
+        if (maxAge == 0) {
+            _temporal = null;
+            return this;
+        }
+        _temporal = new TemporalHistory(maxAge);
+        if (_tileSize == 0) {
+            _tileSize = DEFAULT_TILE_SIZE;
+        }
+        return this;
+    }
+
+    /**
+     * To set on the temporal reuse, with the default maximal age.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public Render setTemporalReuse() {
+        return setTemporalReuse(DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * To forget the previous render of the temporal reuse (for example, after a cut of the animation,
+     * or a change of the settings of the ray tracer) : the next render renders all the pixels.
+     * Chaining method.
+     * @return this.
+     */
+    public Render clearHistory() {
+        if (_temporal != null) {
+            _temporal.clear();
+        }
+        return this;
+    }
+
+    /**
+     * To begin the temporal reuse of a render (in wavefront mode only) :
+     * with the regions changed by the edits of the scene since the previous render.
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     */
+    private void beginTemporal(int nX, int nY) {
+        _activeTemporal = _tileSize > 0 ? _temporal : null;
+        if (_activeTemporal == null) {
+            return;
+        }
+        List<Rectangle> dirty = _rayTracer._scene.hasEdits()
+                ? _rayTracer._scene.getDirtyRegions(_camera, nX, nY, _rayTracer.getShadowSpread())
+                : List.of();
+        int samples = antiAliasingFlag ? _numOfSamples : 1;
+        _activeTemporal.begin(_camera, nX, nY, samples * samples, antiAliasingFlag ? 0.5 : 0, dirty);
+    }
+
+    /**
+     * To find the closest points seen through the centers of the pixels of a tile and of its border
+     * (for the temporal reuse).
+     * @param nX     resolution on X axis (number of pixels in row)
+     * @param nY     resolution on Y axis (number of pixels in column)
+     * @param col0   column of the upper left pixel of the tile
+     * @param row0   row of the upper left pixel of the tile
+     * @param width  width of the tile
+     * @param height height of the tile
+     * @return the points (null : the background, or out of the image), line by line,
+     * from (col0 - 1, row0 - 1) to (col0 + width, row0 + height).
+     */
+    private GeoPoint[] centerHits(int nX, int nY, int col0, int row0, int width, int height) {
+        double offset = antiAliasingFlag ? 0.5 : 0;
+        GeoPoint[] hits = new GeoPoint[(width + 2) * (height + 2)];
+        for (int i = -1; i <= height; i++) {
+            for (int j = -1; j <= width; j++) {
+                int x = col0 + j, y = row0 + i;
+                if (x < 0 || y < 0 || x >= nX || y >= nY) {
+                    continue;
+                }
+                Ray ray = _camera.constructRayThroughPixel(nX, nY, x + offset, y + offset);
+                hits[(i + 1) * (width + 2) + j + 1] =
+                        ray.findClosestGeoPoint(_rayTracer._scene._geometries.findGeoIntersections(ray));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * To check if a pixel of a tile is on an edge : if one of its neighbours in the image shows another geometry.
+     * @param hits  the points of the tile and of its border (see centerHits).
+     * @param width width of the tile
+     * @param i     line of the pixel in the tile
+     * @param j     column of the pixel in the tile
+     * @param x     column of the pixel in the image
+     * @param y     line of the pixel in the image
+     * @param nX    resolution on X axis (number of pixels in row)
+     * @param nY    resolution on Y axis (number of pixels in column)
+     * @return true if the pixel is on an edge.
+     */
+    private static boolean isEdge(GeoPoint[] hits, int width, int i, int j, int x, int y, int nX, int nY) {
+        GeoPoint hit = hits[(i + 1) * (width + 2) + j + 1];
+        Geometry geometry = hit == null ? null : hit._geometry;
+        for (int di = -1; di <= 1; di++) {
+            for (int dj = -1; dj <= 1; dj++) {
+                if (x + dj < 0 || y + di < 0 || x + dj >= nX || y + di >= nY) {
+                    continue;
+                }
+                GeoPoint neighbour = hits[(i + 1 + di) * (width + 2) + j + 1 + dj];
+                if ((neighbour == null ? null : neighbour._geometry) != geometry) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Crop window part
+
+    /**
+     * The crop window : the rectangle of pixels rendered (_cropWidth == 0 : the whole image).
+     */
+    private int _cropX = 0;
+    private int _cropY = 0;
+    private int _cropWidth = 0;
+    private int _cropHeight = 0;
+
+    /**
+     * The bounds of the pixels rendered by the current render : columns [_x0, _x1), rows [_y0, _y1).
+     */
+    private int _x0, _y0, _x1, _y1;
+
+    /**
+     * To set the crop window of the render : only the pixels of that rectangle are rendered,
+     * with the same rays as in the render of the whole image (the camera and the resolution are not changed),
+     * so the cost of the render is proportional to the area of the window.
+     * The other pixels of _imageWriter are not written : to composite the window into an existing image,
+     * load it first (ImageWriter.loadImage), or render into the framebuffer of that image.
+     * Chaining method.
+     * @param x      the column of the upper left pixel of the window.
+     * @param y      the row of the upper left pixel of the window.
+     * @param width  the width of the window, in pixels.
+     * @param height the height of the window, in pixels.
+     * @return this.
+     * @throws IllegalArgumentException if x or y < 0, or if width or height <= 0.
+     */
+    public Render setCropWindow(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("the crop window must have a positive size from a pixel of the image");
+        }
+        _cropX = x;
+        _cropY = y;
+        _cropWidth = width;
+        _cropHeight = height;
+        return this;
+    }
+
+    /**
+     * To remove the crop window : the whole image is rendered.
+     * Chaining method.
+     * @return this.
+     */
+    public Render clearCropWindow() {
+        _cropWidth = 0;
+        _cropHeight = 0;
+        return this;
+    }
+
+    /**
+     * To set the bounds of the pixels rendered by the current render, according to the crop window.
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     * @throws IllegalArgumentException if the crop window is not inside the image.
+     */
+    private void setWindow(int nX, int nY) {
+        if (_cropWidth == 0) {
+            _x0 = 0;
+            _y0 = 0;
+            _x1 = nX;
+            _y1 = nY;
+        } else if (_cropX + _cropWidth > nX || _cropY + _cropHeight > nY) {
+            throw new IllegalArgumentException("the crop window must be inside the image");
+        } else {
+            _x0 = _cropX;
+            _y0 = _cropY;
+            _x1 = _cropX + _cropWidth;
+            _y1 = _cropY + _cropHeight;
+        }
+    }
+
+    // Checkpoint part
+
+    /**
+     * The checkpoints of the render (null : no checkpoint).
+     */
+    private Checkpoint _checkpoint = null;
+    private Checkpoint _activeCheckpoint = null;    // the one of the current render
+    private static final long DEFAULT_CHECKPOINT_INTERVAL = 60_000;
+
+    /**
+     * To set on the checkpoints of the render, to resume a long render after an interruption :
+     * every interval, a background thread writes the bitmap of the completed tiles and the pixels of the image
+     * (unless the image is in a framebuffer file, which keeps them) to the file path.
+     * renderImage resumes from that file if it was written for the same scene hash and render settings
+     * (resolution, tile size, anti-aliasing), rendering only the tiles not completed yet.
+     * The file is deleted at the end of the render.
+     * The render is made in wavefront mode (with the default tile size if it is not set yet).
+     * Chaining method.
+     * @param path      the file of the checkpoints.
+     * @param sceneHash the hash of the scene and of the settings of the ray tracer
+     *                  (any change of them must change the hash).
+     * @param interval  the interval between two checkpoints, in milliseconds.
+     * @return this.
+     * @throws IllegalArgumentException if path or sceneHash is null, or if interval <= 0.
+     */
+    public Render setCheckpoint(Path path, String sceneHash, long interval) {
+        if (path == null || sceneHash == null) {
+            throw new IllegalArgumentException("the checkpoint file and the scene hash must not be null");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be > 0");
+        }
+        _checkpoint = new Checkpoint(path, sceneHash, interval);
+        if (_tileSize == 0) {
+            _tileSize = DEFAULT_TILE_SIZE;
+        }
+        return this;
+    }
+
+    /**
+     * To set on the checkpoints of the render, every minute.
+     * Wrapper method.
+     * Chaining method.
+     * @param path      the file of the checkpoints.
+     * @param sceneHash the hash of the scene and of the settings of the ray tracer.
+     * @return this.
+     */
+    public Render setCheckpoint(Path path, String sceneHash) {
+        return setCheckpoint(path, sceneHash, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * The render settings a checkpoint must match to be resumed.
+     * @param nX resolution on X axis (number of pixels in row)
+     * @param nY resolution on Y axis (number of pixels in column)
+     * @return the settings, as a string.
+     */
+    private String checkpointSettings(int nX, int nY) {
+        return nX + "x" + nY + "|window=" + _x0 + "," + _y0 + "," + _x1 + "," + _y1 + "|tile=" + _tileSize
+                + "|aa=" + (antiAliasingFlag ? _numOfSamples : 0) + "|" + _rayTracer.getClass().getName();
+    }
+
+    /**
+     * To check that all the tiles are completed (the render was not interrupted).
+     * @param tiles number of tiles
+     * @return true if all the tiles are completed.
+     */
+    private boolean allTilesDone(int tiles) {
+        for (int tile = 0; tile < tiles; tile++) {
+            if (!_activeCheckpoint.isDone(tile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Virtual threads part
+
+    /**
+     * Is the virtual-thread mode set on, and does each tile run on its own virtual thread.
+     */
+    private boolean _virtualThreads = false;
+    private boolean _virtualTiles = false;
+
+    /**
+     * To set on the virtual-thread mode, for the services rendering many images at once
+     * (each render job on its own virtual thread) :
+     * the render is made in wavefront mode (with the default tile size if it is not set yet),
+     * and its tracing holds a permit of a semaphore shared by all the renders and sized as the number
+     * of processors, so that the concurrent renders do not oversubscribe the processors.
+     * If perTile, the tiles are shared by tasks on their own virtual threads, one per free permit
+     * (at least one, at most one per processor), each holding its permit while it traces its tiles,
+     * else the tiles are traced one after the other on the calling thread (holding one permit).
+     * setMultithreading is not used in that mode.
+     * On a JVM without virtual threads, daemon platform threads are used instead.
+     * Chaining method.
+     * @param perTile true to share the tiles among several virtual threads.
+     * @return this.
+     */
+    public Render setVirtualThreads(boolean perTile) {
+        _virtualThreads = true;
+        _virtualTiles = perTile;
+        if (_tileSize == 0) {
+            _tileSize = DEFAULT_TILE_SIZE;
+        }
+        return this;
+    }
+
+    /**
+     * To set on the virtual-thread mode, with each tile on its own virtual thread.
+     * Wrapper method.
+     * Chaining method.
+     * @return this.
+     */
+    public Render setVirtualThreads() {
+        return setVirtualThreads(true);
+    }
+
+    /**
+     * To write the image of _imageWriter asynchronously (on a virtual thread, without permit),
+     * so that the writing overlaps with the tracing of the next render.
+     * _imageWriter must not be modified before the returned future is completed.
+     *
+     * @return the future completed when the image is written.
+     * @throws MissingResourceException if _imageWriter is null.
+     */
+    public CompletableFuture<Void> writeToImageAsync() throws MissingResourceException {
+        if (_imageWriter == null) {
+            throw new MissingResourceException(
+                    "_imageWriter of the Render object is null", "Render", "");
+        }
+        ImageWriter imageWriter = _imageWriter;
+        return CompletableFuture.runAsync(imageWriter::writeToImage, VirtualThreads.executor());
+    }
+
+    /**
+     * To render the tiles in virtual-thread mode, and to wait for them :
+     * the tiles are shared by a task per free permit of VirtualThreads.CPU_PERMITS (at least one),
+     * each taking the next tile until there is no more, with its own buffers.
+     * @param nX       resolution on X axis (number of pixels in row)
+     * @param nY       resolution on Y axis (number of pixels in column)
+     * @param tilesX   number of tiles in a row
+     * @param tileList the indices of the tiles to render (null : all the tiles)
+     * @param tiles    number of tiles
+     */
+    private void renderTilesVirtual(int nX, int nY, int tilesX, int[] tileList, int tiles) {
+        AtomicInteger nextTile = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Runnable worker = () -> {
+            RayBuffer rays = new RayBuffer();
+            double[] colors = new double[3 * _tileSize * _tileSize];
+            int next;
+            while ((next = nextTile.getAndIncrement()) < tiles) {
+                renderTileOf(nX, nY, tilesX, tileList == null ? next : tileList[next], rays, colors);
+                if (print) {
+                    System.out.print("\r" + 100 * done.incrementAndGet() / tiles + "%");
+                }
+            }
+        };
+        int workers = Math.min(tiles, Runtime.getRuntime().availableProcessors());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        futures.add(VirtualThreads.submitCpuBound(worker, true));
+        for (int w = 1; w < workers; w++) {
+            Future<?> future = VirtualThreads.submitCpuBound(worker, false);
+            if (future == null) {
+                break;      // the other permits are held by other renders
+            }
+            futures.add(future);
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * To render the image in wavefront mode : the threads take the tiles one after the other.
+     * @param tileList the indices of the tiles to render (null : all the tiles)
+     */
+    private void renderImageWavefront(int[] tileList) {
+        final int nX = _imageWriter.getNx();
+        final int nY = _imageWriter.getNy();
+        final int tilesX = (_x1 - _x0 + _tileSize - 1) / _tileSize;
+        final int tiles = tileList != null ? tileList.length : tilesX * ((_y1 - _y0 + _tileSize - 1) / _tileSize);
+        final AtomicInteger nextTile = new AtomicInteger();
+
+        Runnable worker = () -> {
+            RayBuffer rays = new RayBuffer();
+            double[] colors = new double[3 * _tileSize * _tileSize];
+            int next;
+            while ((next = nextTile.getAndIncrement()) < tiles) {
+                renderTileOf(nX, nY, tilesX, tileList == null ? next : tileList[next], rays, colors);
+                if (print) {
+                    System.out.print("\r" + 100 * (next + 1) / tiles + "%");
+                }
+            }
+        };
+
+        // no checkpoint for the render of a list of tiles
+        _activeCheckpoint = tileList == null ? _checkpoint : null;
+        if (_activeCheckpoint != null) {
+            _activeCheckpoint.begin(_imageWriter, checkpointSettings(nX, nY), _x0, _y0, tilesX, _tileSize, tiles);
+        }
+        boolean finished = false;
+        try {
+            if (_virtualThreads && _virtualTiles) {
+                renderTilesVirtual(nX, nY, tilesX, tileList, tiles);
+            } else if (_virtualThreads) {
+                VirtualThreads.runCpuBound(worker);
+            } else if (threadsCount == 0) {
+                worker.run();
+            } else if (_pool != null) {
+                runOnPool(worker);
+            } else {
+                Thread[] threads = new Thread[threadsCount];
+                for (int i = 0; i < threadsCount; i++) {
+                    threads[i] = new Thread(worker);
+                    threads[i].start();
+                }
+                for (Thread thread : threads)
+                    try {
+                        thread.join();
+                    } catch (Exception e) { }
+            }
+            finished = _activeCheckpoint == null || allTilesDone(tiles);
+        } finally {
+            if (_activeCheckpoint != null) {
+                _activeCheckpoint.end(finished);
+            }
+        }
+
+        if (print)
+            System.out.print("\r100%");
+    }
+
+    /**
+     * To keep the threads of the wavefront mode from one render to the next (for a sequence of renders,
+     * see SequenceRenderer), or to shut them down.
+     * While the threads are kept, the render is made in wavefront mode (with the default tile size
+     * if it is not set yet) : the previous tile size is restored when they are shut down.
+     * @param keep true to start the threads, false to shut them down.
+     */
+    void keepThreads(boolean keep) {
+        if (keep && _tileSizeBeforeKeep < 0) {
+            _tileSizeBeforeKeep = _tileSize;
+            if (_tileSize == 0) {
+                _tileSize = DEFAULT_TILE_SIZE;
+            }
+        } else if (!keep && _tileSizeBeforeKeep >= 0) {
+            _tileSize = _tileSizeBeforeKeep;
+            _tileSizeBeforeKeep = -1;
+        }
+        if (keep && _pool == null && threadsCount > 0) {
+            _pool = Executors.newFixedThreadPool(threadsCount, runnable -> {
+                Thread thread = new Thread(runnable, "render");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (!keep && _pool != null) {
+            _pool.shutdown();
+            _pool = null;
+        }
+    }
+
+    /**
+     * To run threadsCount copies of a worker on _pool, and to wait for them.
+     * @param worker the worker.
+     */
+    private void runOnPool(Runnable worker) {
+        List<Future<?>> futures = new ArrayList<>(threadsCount);
+        for (int i = 0; i < threadsCount; i++) {
+            futures.add(_pool.submit(worker));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * To render one tile in wavefront mode, unless it is completed in the checkpoint the render resumes from.
+     * @param nX     resolution on X axis (number of pixels in row)
+     * @param nY     resolution on Y axis (number of pixels in column)
+     * @param tilesX number of tiles in a row
+     * @param tile   index of the tile
+     * @param rays   the buffer for the camera rays of the tile (of the current thread)
+     * @param colors the buffer for the colors of the pixels of the tile (of the current thread)
+     */
+    private void renderTileOf(int nX, int nY, int tilesX, int tile, RayBuffer rays, double[] colors) {
+        int col0 = _x0 + (tile % tilesX) * _tileSize;
+        int row0 = _y0 + (tile / tilesX) * _tileSize;
+        if (_activeCheckpoint != null && _activeCheckpoint.isDone(tile)) {
+            _imageWriter.completePixels(col0, row0, Math.min(_tileSize, _x1 - col0), Math.min(_tileSize, _y1 - row0));
+            return;
+        }
+        renderTile(nX, nY, col0, row0, rays, colors);
+        if (_activeCheckpoint != null) {
+            _activeCheckpoint.complete(tile);
+        }
+    }
+
+    /**
+     * To render one tile in wavefront mode.
+     * @param nX     resolution on X axis (number of pixels in row)
+     * @param nY     resolution on Y axis (number of pixels in column)
+     * @param col0   column of the upper left pixel of the tile
+     * @param row0   row of the upper left pixel of the tile
+     * @param rays   the buffer for the camera rays of the tile (of the current thread)
+     * @param colors the buffer for the colors of the pixels of the tile (of the current thread)
+     */
+    private void renderTile(int nX, int nY, int col0, int row0, RayBuffer rays, double[] colors) {
+        int width = Math.min(_tileSize, _x1 - col0);
+        int height = Math.min(_tileSize, _y1 - row0);
+        int samples = antiAliasingFlag ? _numOfSamples : 1;
+        double weight = 1d / (samples * samples);
+        TemporalHistory temporal = _activeTemporal;
+        GeoPoint[] hits = temporal == null ? null : centerHits(nX, nY, col0, row0, width, height);
+        int[] previous = temporal == null ? null : new int[width * height];
+
+        rays.clear();
+        int traced = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int pixel = i * width + j;
+                if (temporal != null) {
+                    previous[pixel] = temporal.reproject(col0 + j, row0 + i, hits[(i + 1) * (width + 2) + j + 1],
+                            isEdge(hits, width, i, j, col0 + j, row0 + i, nX, nY));
+                    if (previous[pixel] >= 0) {
+                        continue;   // the color of the previous render is reused
+                    }
+                }
+                traced++;
+                if (antiAliasingFlag) {
+                    for (int ii = 0; ii < samples; ii++) {
+                        double i1 = row0 + i + ((double) ii + 0.5) / samples;
+                        for (int jj = 0; jj < samples; jj++) {
+                            double j1 = col0 + j + ((double) jj + 0.5) / samples;
+                            rays.addCameraRay(_camera.constructRayThroughPixel(nX, nY, j1, i1), pixel, weight);
+                        }
+                    }
+                } else {
+                    rays.addCameraRay(_camera.constructRayThroughPixel(nX, nY, col0 + j, row0 + i), pixel, 1.0);
+                }
+            }
+        }
+
+        Arrays.fill(colors, 0, 3 * width * height, 0.0);
+        _rayTracer.beginPixels(traced);
+        _rayTracer.traceBatch(rays, colors);
+
+        int reused = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                int pixel = i * width + j;
+                int p = 3 * pixel;
+                int count = samples * samples;
+                if (temporal != null) {
+                    GeoPoint hit = hits[(i + 1) * (width + 2) + j + 1];
+                    if (previous[pixel] >= 0) {
+                        count = temporal.reuse(col0 + j, row0 + i, previous[pixel], hit, colors, p);
+                        reused++;
+                    } else {
+                        temporal.record(col0 + j, row0 + i, hit, colors, p, count);
+                    }
+                }
+                _imageWriter.writePixel(col0 + j, row0 + i,
+                        new Color(colors[p], colors[p + 1], colors[p + 2]), count);
+            }
+        }
+        if (reused > 0) {
+            _rayTracer._metrics.countReusedPixels(reused);
+        }
+        _imageWriter.completePixels(col0, row0, width, height);
+    }
+
+
     // Mini-Project 1 part
 
     /**
@@ -414,6 +1285,7 @@ public class Render {
      * @param row pixel's row number (pixel index in column)
      */
     private void castRayForAntiAliasing1(int nX, int nY, int col, int row) {
+        _rayTracer.beginPixels(1);
         Color color = new Color(Color.BLACK);
 
         for (int ii = 0; ii < _numOfSamples; ii++) {
@@ -440,6 +1312,7 @@ public class Render {
      * @param row pixel's row number (pixel index in column)
      */
     private void castRayForAntiAliasing2(int nX, int nY, int col, int row) {
+        _rayTracer.beginPixels(1);
         Color color = new Color(Color.BLACK);
         for (int ii = 0; ii < _numOfSamples; ii++) {
             for (int jj = 0; jj < _numOfSamples; jj++) {
@@ -465,6 +1338,7 @@ public class Render {
      * @param row pixel's row number (pixel index in column)
      */
     private void castRayForAntiAliasing3(int nX, int nY, int col, int row) {
+        _rayTracer.beginPixels(1);
         double Rx = _camera.getWidth() / nX;    // width of one pixel
         double Ry = _camera.getHeight() / nY;   // height of one pixel
 
@@ -521,6 +1395,7 @@ public class Render {
      * @param row pixel's row number (pixel index in column)
      */
     private void castRayForAntiAliasing4(int nX, int nY, int col, int row) {
+        _rayTracer.beginPixels(1);
         Color fsColor = checkFirstSamples(nX, nY, col, row);
         _imageWriter.writePixel(col, row, fsColor);
     }
@@ -0,0 +1,204 @@
+package renderer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class RenderMetrics, counters about a render, filled by the ray tracer while the threads of the render
+ * are tracing rays. Thread-safe.
+ * Reset at the beginning of each render (see RayTracerBase.beginRender()).
+ */
+public class RenderMetrics {
+    /**
+     * Number of reflected and refracted rays traced.
+     */
+    private final LongAdder _secondaryRays = new LongAdder();
+
+    /**
+     * Number of shadow rays traced.
+     */
+    private final LongAdder _shadowRays = new LongAdder();
+
+    /**
+     * Number of paths terminated by Russian roulette.
+     */
+    private final LongAdder _rouletteTerminations = new LongAdder();
+
+    /**
+     * Number of secondary rays not traced because the ray budget was exhausted.
+     */
+    private final LongAdder _budgetRefusals = new LongAdder();
+
+    /**
+     * Number of proportions of shadowing interpolated from the shading cache.
+     */
+    private final LongAdder _cacheHits = new LongAdder();
+
+    /**
+     * Number of pixels whose color was reused from the previous render (temporal reuse).
+     */
+    private final LongAdder _reusedPixels = new LongAdder();
+
+    /**
+     * Time of the build of the accelerator of the scene by the render, in nanoseconds (0 if it was not built).
+     */
+    private volatile long _buildTime = 0;
+
+    /**
+     * The description of the accelerator of the scene (see BVH.toString() and Grid.toString()),
+     * null if there is none.
+     */
+    private volatile String _accelerator = null;
+
+    /**
+     * To reset all the counters.
+     */
+    public void reset() {
+        _secondaryRays.reset();
+        _shadowRays.reset();
+        _rouletteTerminations.reset();
+        _budgetRefusals.reset();
+        _cacheHits.reset();
+        _reusedPixels.reset();
+        _buildTime = 0;
+        _accelerator = null;
+    }
+
+    /**
+     * To count one reflected or refracted ray.
+     */
+    void countSecondaryRay() {
+        _secondaryRays.increment();
+    }
+
+    /**
+     * To count one shadow ray.
+     */
+    void countShadowRay() {
+        _shadowRays.increment();
+    }
+
+    /**
+     * To count one path terminated by Russian roulette.
+     */
+    void countRouletteTermination() {
+        _rouletteTerminations.increment();
+    }
+
+    /**
+     * To count one secondary ray refused because of the ray budget.
+     */
+    void countBudgetRefusal() {
+        _budgetRefusals.increment();
+    }
+
+    /**
+     * To count one proportion of shadowing interpolated from the shading cache.
+     */
+    void countCacheHit() {
+        _cacheHits.increment();
+    }
+
+    /**
+     * To count pixels whose color was reused from the previous render.
+     * @param pixels the number of pixels.
+     */
+    void countReusedPixels(long pixels) {
+        _reusedPixels.add(pixels);
+    }
+
+    /**
+     * Setter of the time of the build of the accelerator.
+     * @param nanos the time of the build, in nanoseconds.
+     */
+    void setBuildTime(long nanos) {
+        _buildTime = nanos;
+    }
+
+    /**
+     * Setter of the description of the accelerator.
+     * @param accelerator its layout and its memory.
+     */
+    void setAccelerator(String accelerator) {
+        _accelerator = accelerator;
+    }
+
+    /**
+     * Getter of the number of reflected and refracted rays.
+     * @return the number of secondary rays traced since the last reset.
+     */
+    public long getSecondaryRays() {
+        return _secondaryRays.sum();
+    }
+
+    /**
+     * Getter of the number of shadow rays.
+     * @return the number of shadow rays traced since the last reset.
+     */
+    public long getShadowRays() {
+        return _shadowRays.sum();
+    }
+
+    /**
+     * Getter of the number of paths terminated by Russian roulette.
+     * @return the number of terminations since the last reset.
+     */
+    public long getRouletteTerminations() {
+        return _rouletteTerminations.sum();
+    }
+
+    /**
+     * Getter of the number of secondary rays refused because of the ray budget.
+     * @return the number of refusals since the last reset.
+     */
+    public long getBudgetRefusals() {
+        return _budgetRefusals.sum();
+    }
+
+    /**
+     * Getter of the number of proportions of shadowing interpolated from the shading cache.
+     * @return the number of cache hits since the last reset.
+     */
+    public long getCacheHits() {
+        return _cacheHits.sum();
+    }
+
+    /**
+     * Getter of the number of pixels whose color was reused from the previous render.
+     * @return the number of reused pixels since the last reset.
+     */
+    public long getReusedPixels() {
+        return _reusedPixels.sum();
+    }
+
+    /**
+     * Getter of the time of the build of the accelerator of the scene by the render.
+     * @return the time in nanoseconds (0 if the render did not build it).
+     */
+    public long getBuildTime() {
+        return _buildTime;
+    }
+
+    /**
+     * Getter of the description of the accelerator of the scene : for a hierarchy, its mode of build,
+     * its width, the bits of its bounds, its number of nodes and its bytes per node;
+     * for a grid, its resolution, its number of objects and of references, and its bytes.
+     * @return the description (null if the scene has no accelerator).
+     */
+    public String getAccelerator() {
+        return _accelerator;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderMetrics{" +
+                "secondaryRays=" + getSecondaryRays() +
+                ", shadowRays=" + getShadowRays() +
+                ", rouletteTerminations=" + getRouletteTerminations() +
+                ", budgetRefusals=" + getBudgetRefusals() +
+                ", cacheHits=" + getCacheHits() +
+                ", reusedPixels=" + getReusedPixels() +
+                ", buildTime=" + getBuildTime() / 1e6 + "ms" +
+                ", accelerator=" + getAccelerator() +
+                '}';
+    }
+}
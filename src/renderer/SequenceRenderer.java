@@ -0,0 +1,268 @@
+package renderer;
+
+import elements.Camera;
+import geometries.Instance;
+import primitives.Transform;
+import scene.Scene;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class SequenceRenderer, to render the frames of an animation with one scene and one Render :
+ * for each frame, the instances of the scene are moved by their transforms of the frame,
+ * the boxes of the hierarchy of the geometries of the scene are refitted (see Geometries.refit())
+ * instead of being built again, and the camera is moved by its transform of the frame.
+ * The frames are rendered in wavefront mode, by threads kept from one frame to the next.
+ * With pipelining, the setup of the next frame (its description, its camera and its image)
+ * is made on another thread while the current frame is traced,
+ * and the image of a frame is written while the next one is traced.
+ * With the temporal reuse of the Render (see Render.setTemporalReuse), each frame reuses the colors
+ * of the previous one where the moves of the instances and of the camera allow it.
+ * The images are named imageName_0000, imageName_0001, ...
+ */
+public class SequenceRenderer {
+    /**
+     * Class Frame, the description of a frame : the transforms of the instances, and the camera.
+     * An instance without a transform in the frame keeps its transform of the previous frame.
+     */
+    public static class Frame {
+        private Camera _camera = null;
+        private Transform _cameraTransform = null;
+        private final Map<Instance, Transform> _transforms = new LinkedHashMap<>();
+
+        /**
+         * Setter of _camera : the camera of the frame.
+         * Chaining method.
+         * @param camera the camera of the frame.
+         * @return this.
+         */
+        public Frame setCamera(Camera camera) {
+            _camera = camera;
+            return this;
+        }
+
+        /**
+         * Setter of _cameraTransform : the camera of the frame is the camera of the Render moved by the transform
+         * (unless the camera of the frame is set).
+         * Chaining method.
+         * @param transform the transform of the camera of the Render.
+         * @return this.
+         */
+        public Frame setCameraTransform(Transform transform) {
+            _cameraTransform = transform;
+            return this;
+        }
+
+        /**
+         * To set the transform of an instance in the frame.
+         * Chaining method.
+         * @param instance  an instance of the scene.
+         * @param transform its transform from object space to the scene in the frame.
+         * @return this.
+         */
+        public Frame setTransform(Instance instance, Transform transform) {
+            _transforms.put(instance, transform);
+            return this;
+        }
+    }
+
+    /**
+     * Interface FrameSource, to describe the frames of the animation.
+     * getFrame is called on the setup thread, while the previous frame is traced :
+     * it must not modify the scene (the transforms of its Frame are applied between the frames).
+     */
+    @FunctionalInterface
+    public interface FrameSource {
+        /**
+         * To describe a frame.
+         * @param index the index of the frame.
+         * @return the description of the frame.
+         */
+        Frame getFrame(int index);
+    }
+
+    /**
+     * Class Prepared, a frame ready to be rendered.
+     */
+    private static class Prepared {
+        final Frame _frame;
+        final Camera _camera;
+        final ImageWriter _imageWriter;
+
+        Prepared(Frame frame, Camera camera, ImageWriter imageWriter) {
+            _frame = frame;
+            _camera = camera;
+            _imageWriter = imageWriter;
+        }
+    }
+
+    private final Render _render;
+    private final String _imageName;
+    private final int _nX;
+    private final int _nY;
+
+    /**
+     * Is the setup of a frame made while the previous frame is traced.
+     */
+    private boolean _pipelining = true;
+
+    /**
+     * Throughput of the last sequence.
+     */
+    private double _framesPerMinute = 0;
+
+    /**
+     * SequenceRenderer constructor.
+     * @param render    the Render, with its ray tracer (and its scene), its settings, and the base camera
+     *                  (used for the frames with a camera transform).
+     * @param imageName the prefix of the names of the images.
+     * @param nX        the number of columns of the images.
+     * @param nY        the number of lines of the images.
+     * @throws IllegalArgumentException if nX or nY <= 0.
+     */
+    public SequenceRenderer(Render render, String imageName, int nX, int nY) {
+        if (nX <= 0 || nY <= 0) {
+            throw new IllegalArgumentException("the number of pixels must be > 0");
+        }
+        _render = render;
+        _imageName = imageName;
+        _nX = nX;
+        _nY = nY;
+    }
+
+    /**
+     * Setter of _pipelining.
+     * Chaining method.
+     * @param pipelining true to set up a frame (and to write the image of the previous one)
+     *                   while the previous frame is traced.
+     * @return this.
+     */
+    public SequenceRenderer setPipelining(boolean pipelining) {
+        _pipelining = pipelining;
+        return this;
+    }
+
+    /**
+     * Getter of _framesPerMinute.
+     * @return the number of frames per minute of the last sequence (0 before the first one).
+     */
+    public double getFramesPerMinute() {
+        return _framesPerMinute;
+    }
+
+    /**
+     * To render and write the frames of the animation.
+     * At the end, the camera of the Render is the base camera again, and the instances keep their transforms
+     * of the last frame.
+     * @param frames the number of frames.
+     * @param source the description of the frames.
+     * @throws MissingResourceException if the ray tracer of the Render is null,
+     *                                  or if a frame has no camera and the Render has no camera.
+     */
+    public void render(int frames, FrameSource source) throws MissingResourceException {
+        if (_render._rayTracer == null) {
+            throw new MissingResourceException("_rayTracer of the Render object is null", "Render", "");
+        }
+        Scene scene = _render._rayTracer._scene;
+        Camera base = _render._camera;
+        ExecutorService setup = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sequence-setup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _render.keepThreads(true);
+
+        long start = System.nanoTime();
+        try {
+            Future<Prepared> next = _pipelining && frames > 0 ? setup.submit(prepare(source, 0, base)) : null;
+            CompletableFuture<Void> writing = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < frames; i++) {
+                Prepared prepared = _pipelining ? await(next) : prepare(source, i, base).call();
+
+                // between the frames : moving the instances (recording the edits, for the temporal reuse),
+                // and refitting the hierarchy
+                for (Map.Entry<Instance, Transform> entry : prepared._frame._transforms.entrySet()) {
+                    if (!entry.getValue().equals(entry.getKey().getTransform())) {
+                        scene.geometryChanged(entry.getKey());
+                        entry.getKey().setTransform(entry.getValue());
+                        scene.geometryChanged(entry.getKey());
+                    }
+                }
+                scene._geometries.refit();
+
+                if (_pipelining && i + 1 < frames) {
+                    next = setup.submit(prepare(source, i + 1, base));
+                }
+                _render.setCamera(prepared._camera).setImageWriter(prepared._imageWriter);
+                _render.renderImage();
+                if (_pipelining) {
+                    await(writing);
+                    writing = _render.writeToImageAsync();
+                } else {
+                    _render.writeToImage();
+                }
+            }
+            await(writing);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("the sequence was interrupted", e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            setup.shutdownNow();
+            _render.keepThreads(false);
+            _render.setCamera(base);
+        }
+        _framesPerMinute = frames * 60e9 / Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * To build the task of the setup of a frame.
+     * @param source the description of the frames.
+     * @param index  the index of the frame.
+     * @param base   the camera of the Render.
+     * @return the task, returning the frame ready to be rendered.
+     */
+    private Callable<Prepared> prepare(FrameSource source, int index, Camera base) {
+        return () -> {
+            Frame frame = source.getFrame(index);
+            Camera camera = frame._camera;
+            if (camera == null && base == null) {
+                throw new MissingResourceException("the frame " + index + " has no camera", "Render", "");
+            }
+            if (camera == null) {
+                camera = frame._cameraTransform == null ? base : base.transform(frame._cameraTransform);
+            }
+            return new Prepared(frame, camera,
+                    new ImageWriter(String.format("%s_%04d", _imageName, index), _nX, _nY));
+        };
+    }
+
+    /**
+     * To wait for a task of the sequence.
+     * @param future the future of the task.
+     * @param <T>    the type of the result of the task.
+     * @return the result of the task.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package renderer;
+
+import elements.LightSource;
+import geometries.Geometry;
+import primitives.Point3D;
+import primitives.Vector;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class ShadingCache, a spatial cache of the proportion of shadowing (ktr) of the points of the geometries,
+ * in order to reuse the expensive results of the soft shadows between nearby samples and pixels.
+ * The space is divided into cubic cells of edge _cellSize; a cell is keyed by the geometry, the light source,
+ * the cell of the point and the bin of the normal at the point.
+ * Each cell keeps up to 2 * _samplesPerCell values calculated exactly. Once it has _samplesPerCell values,
+ * the ktr of a point of the cell is interpolated (inverse distance weighting) instead of calculated only if :
+ * - the values of the cell differ by at most _tolerance (no penumbra seen in the cell),
+ * - the point is surrounded by the points of the values (in their bounding box) : no extrapolation.
+ * The interpolated value is a weighted mean of the values, so it is within _tolerance of each of them :
+ * the error is bounded by _tolerance wherever ktr varies monotonically between the points of the values
+ * (a shadow thinner than the spacing of the points may still be missed).
+ * The other points are calculated exactly, and added to the cell while it is not full (extending its box).
+ * No randomness : the result of a lookup depends only on the values already stored in the cell
+ * (with many threads, on the order of the stores, within the bound above).
+ * Thread-safe.
+ */
+class ShadingCache {
+    /**
+     * Number of bins of each coordinate of the normal.
+     */
+    private static final int NORMAL_BINS = 8;
+
+    /**
+     * Maximal number of cells (no more cell is created beyond).
+     */
+    private static final int MAX_CELLS = 1 << 20;
+
+    /**
+     * Relative tolerance of the test of the bounding box of the points of a cell (see Cell.surrounds).
+     */
+    private static final double EPSILON = 1e-9;
+
+    private final double _cellSize;
+    private final double _tolerance;
+    private final int _samplesPerCell;
+
+    private final ConcurrentHashMap<Key, Cell> _cells = new ConcurrentHashMap<>();
+
+    /**
+     * ShadingCache constructor.
+     * @param cellSize       the edge size of the cells.
+     * @param tolerance      the maximal difference between the values of a cell to interpolate them.
+     * @param samplesPerCell the number of values calculated in a cell before interpolating
+     *                       (a cell keeps up to twice as many).
+     */
+    ShadingCache(double cellSize, double tolerance, int samplesPerCell) {
+        _cellSize = cellSize;
+        _tolerance = tolerance;
+        _samplesPerCell = samplesPerCell;
+    }
+
+    /**
+     * To empty the cache.
+     */
+    void clear() {
+        _cells.clear();
+    }
+
+    /**
+     * To find the interpolated ktr of a point.
+     * @param geometry the geometry of the point.
+     * @param light    the light source.
+     * @param point    the point.
+     * @param n        the normal of geometry at point.
+     * @return the interpolated ktr, or NaN if it must be calculated
+     * (too few values in the cell, penumbra, or point out of the points of the values).
+     */
+    double lookup(Geometry geometry, LightSource light, Point3D point, Vector n) {
+        Cell cell = _cells.get(new Key(geometry, light, point, n));
+        if (cell == null) {
+            return Double.NaN;
+        }
+        return cell.interpolate(point);
+    }
+
+    /**
+     * To store the ktr calculated for a point : added to its cell if it is not full.
+     * @param geometry the geometry of the point.
+     * @param light    the light source.
+     * @param point    the point.
+     * @param n        the normal of geometry at point.
+     * @param ktr      the proportion of shadowing of point.
+     */
+    void store(Geometry geometry, LightSource light, Point3D point, Vector n, double ktr) {
+        Key key = new Key(geometry, light, point, n);
+        Cell cell = _cells.get(key);
+        if (cell == null) {
+            if (_cells.size() >= MAX_CELLS) {
+                return;
+            }
+            cell = _cells.computeIfAbsent(key, k -> new Cell());
+        }
+        cell.add(point, ktr);
+    }
+
+    /**
+     * Class Key, the key of a cell : geometry and light source (by identity), cell of the point, bin of the normal.
+     */
+    private class Key {
+        private final Geometry _geometry;
+        private final LightSource _light;
+        private final long _ix, _iy, _iz;
+        private final int _normalBin;
+
+        private Key(Geometry geometry, LightSource light, Point3D point, Vector n) {
+            _geometry = geometry;
+            _light = light;
+            _ix = (long) Math.floor(point.getX() / _cellSize);
+            _iy = (long) Math.floor(point.getY() / _cellSize);
+            _iz = (long) Math.floor(point.getZ() / _cellSize);
+            Point3D head = n.getHead();
+            _normalBin = (bin(head.getX()) * NORMAL_BINS + bin(head.getY())) * NORMAL_BINS + bin(head.getZ());
+        }
+
+        /**
+         * To find the bin of a coordinate of a normalized vector.
+         * @param coordinate the coordinate, in [-1,1].
+         * @return the bin, in [0, NORMAL_BINS - 1].
+         */
+        private int bin(double coordinate) {
+            int bin = (int) Math.floor((coordinate + 1) / 2 * NORMAL_BINS);
+            return Math.max(0, Math.min(NORMAL_BINS - 1, bin));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return _geometry == key._geometry && _light == key._light
+                    && _ix == key._ix && _iy == key._iy && _iz == key._iz && _normalBin == key._normalBin;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = System.identityHashCode(_geometry);
+            h = h * 31 + System.identityHashCode(_light);
+            h = h * 31 + _ix;
+            h = h * 31 + _iy;
+            h = h * 31 + _iz;
+            h = h * 31 + _normalBin;
+            return Long.hashCode(h);
+        }
+    }
+
+    /**
+     * Class Cell, the values calculated in a cell, with their points.
+     */
+    private class Cell {
+        private final double[] _x = new double[2 * _samplesPerCell];
+        private final double[] _y = new double[2 * _samplesPerCell];
+        private final double[] _z = new double[2 * _samplesPerCell];
+        private final double[] _ktr = new double[2 * _samplesPerCell];
+        private int _size = 0;
+        private double _min = Double.POSITIVE_INFINITY;
+        private double _max = Double.NEGATIVE_INFINITY;
+
+        /**
+         * The bounding box of the points of the values.
+         */
+        private double _minX = Double.POSITIVE_INFINITY, _minY = Double.POSITIVE_INFINITY,
+                _minZ = Double.POSITIVE_INFINITY;
+        private double _maxX = Double.NEGATIVE_INFINITY, _maxY = Double.NEGATIVE_INFINITY,
+                _maxZ = Double.NEGATIVE_INFINITY;
+
+        /**
+         * To add a value to the cell, if it is not full.
+         * @param point the point.
+         * @param ktr   the value at point.
+         */
+        private synchronized void add(Point3D point, double ktr) {
+            if (_size == _x.length) {
+                return;
+            }
+            double x = point.getX(), y = point.getY(), z = point.getZ();
+            _x[_size] = x;
+            _y[_size] = y;
+            _z[_size] = z;
+            _ktr[_size] = ktr;
+            _size++;
+            _min = Math.min(_min, ktr);
+            _max = Math.max(_max, ktr);
+            _minX = Math.min(_minX, x);
+            _minY = Math.min(_minY, y);
+            _minZ = Math.min(_minZ, z);
+            _maxX = Math.max(_maxX, x);
+            _maxY = Math.max(_maxY, y);
+            _maxZ = Math.max(_maxZ, z);
+        }
+
+        /**
+         * To check if a point is in the bounding box of the points of the values
+         * (widened by EPSILON * _cellSize, for the points of a flat geometry).
+         * @param x the x coordinate of the point.
+         * @param y the y coordinate of the point.
+         * @param z the z coordinate of the point.
+         * @return true if the point is surrounded by the points of the values.
+         */
+        private boolean surrounds(double x, double y, double z) {
+            double eps = EPSILON * _cellSize;
+            return x >= _minX - eps && x <= _maxX + eps && y >= _minY - eps && y <= _maxY + eps
+                    && z >= _minZ - eps && z <= _maxZ + eps;
+        }
+
+        /**
+         * To interpolate the value at a point (inverse distance weighting).
+         * @param point the point.
+         * @return the interpolated value, or NaN if the cell has too few values, if its values are too different,
+         * or if the point is not surrounded by their points.
+         */
+        private synchronized double interpolate(Point3D point) {
+            double x = point.getX(), y = point.getY(), z = point.getZ();
+            if (_size < _samplesPerCell || _max - _min > _tolerance || !surrounds(x, y, z)) {
+                return Double.NaN;
+            }
+            double sum = 0;
+            double weights = 0;
+            for (int i = 0; i < _size; i++) {
+                double dx = _x[i] - x;
+                double dy = _y[i] - y;
+                double dz = _z[i] - z;
+                double d2 = dx * dx + dy * dy + dz * dz;
+                if (d2 == 0) {
+                    return _ktr[i];
+                }
+                sum += _ktr[i] / d2;
+                weights += 1 / d2;
+            }
+            return sum / weights;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package renderer;
+
+import elements.Camera;
+import geometries.Intersectable;
+import geometries.Intersectable.GeoPoint;
+import primitives.Point3D;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class TemporalHistory, the history of the temporal reuse of the render (see Render.setTemporalReuse) :
+ * for each pixel of the previous frame, its HDR color, its number of samples, the geometry and the depth
+ * of the point seen through its center, and its age (the number of frames its color was reused for).
+ * A pixel of the current frame reuses the color of a pixel of the previous frame if :
+ * - the point seen through its center is projected by the previous camera into that pixel,
+ * - the same geometry is seen through the center of that pixel, at the same depth (else the point was hidden),
+ * - its neighbours see the same geometry (an edge is sampled again, for its anti-aliasing),
+ * - it is not in a region changed by the edits of the scene (see Scene.getDirtyRegions),
+ * - the color of the previous pixel was reused for less than _maxAge frames.
+ * The history is built during a render (each tile writes its own pixels), and becomes the previous frame
+ * at the end of the render.
+ */
+class TemporalHistory {
+    /**
+     * Maximal relative difference between the depths of the same point in the previous frame.
+     */
+    private static final double DEPTH_TOLERANCE = 0.01;
+
+    private final int _maxAge;
+
+    // the previous frame (null : no history)
+    private Camera _camera = null;
+    private int _nX;
+    private int _nY;
+    private int _samples;
+    private double[] _colors;
+    private int[] _sampleCounts;
+    private Intersectable[] _geometries;
+    private double[] _depths;
+    private byte[] _ages;
+
+    // the current frame
+    private Camera _nextCamera;
+    private double[] _nextColors;
+    private int[] _nextSampleCounts;
+    private Intersectable[] _nextGeometries;
+    private double[] _nextDepths;
+    private byte[] _nextAges;
+    private List<Rectangle> _dirty;
+    private double _offset;
+
+    /**
+     * TemporalHistory constructor.
+     * @param maxAge the maximal number of frames the color of a pixel is reused for.
+     */
+    TemporalHistory(int maxAge) {
+        _maxAge = maxAge;
+    }
+
+    /**
+     * To forget the previous frame.
+     */
+    void clear() {
+        _camera = null;
+        _colors = null;
+        _sampleCounts = null;
+        _geometries = null;
+        _depths = null;
+        _ages = null;
+    }
+
+    /**
+     * To begin the render of a frame. The previous frame is forgotten if its resolution or its number
+     * of samples per pixel are not the same.
+     * @param camera  the camera of the frame.
+     * @param nX      the number of columns of the image.
+     * @param nY      the number of lines of the image.
+     * @param samples the number of samples per pixel.
+     * @param offset  the offset of the center of a pixel from its index, for the camera rays
+     *                (0.5 with anti-aliasing, 0 without).
+     * @param dirty   the regions changed by the edits of the scene since the previous frame.
+     */
+    void begin(Camera camera, int nX, int nY, int samples, double offset, List<Rectangle> dirty) {
+        if (_camera != null && (nX != _nX || nY != _nY || samples != _samples || offset != _offset)) {
+            clear();
+        }
+        _nX = nX;
+        _nY = nY;
+        _samples = samples;
+        _offset = offset;
+        _dirty = dirty;
+        _nextCamera = camera;
+        _nextColors = new double[3 * nX * nY];
+        _nextSampleCounts = new int[nX * nY];
+        _nextGeometries = new Intersectable[nX * nY];
+        _nextDepths = new double[nX * nY];
+        _nextAges = new byte[nX * nY];
+        Arrays.fill(_nextAges, (byte) -1);     // not rendered
+    }
+
+    /**
+     * To end the render of a frame : it becomes the previous frame.
+     */
+    void end() {
+        _camera = _nextCamera;
+        _colors = _nextColors;
+        _sampleCounts = _nextSampleCounts;
+        _geometries = _nextGeometries;
+        _depths = _nextDepths;
+        _ages = _nextAges;
+        _nextColors = null;
+        _nextSampleCounts = null;
+        _nextGeometries = null;
+        _nextDepths = null;
+        _nextAges = null;
+    }
+
+    /**
+     * To find the pixel of the previous frame whose color a pixel can reuse.
+     * @param x    the column of the pixel.
+     * @param y    the row of the pixel.
+     * @param hit  the closest point seen through the center of the pixel (null : the background).
+     * @param edge is the pixel on an edge (a neighbour sees another geometry).
+     * @return the index of the pixel of the previous frame, or -1 if the pixel must be rendered.
+     */
+    int reproject(int x, int y, GeoPoint hit, boolean edge) {
+        if (_camera == null || hit == null || edge || isDirty(x, y)) {
+            return -1;
+        }
+        Point3D point = hit._point;
+        double depth = _camera.depth(point);
+        if (depth <= 0) {
+            return -1;
+        }
+        double[] pixel = _camera.project(point, _nX, _nY);
+        int px = (int) Math.floor(pixel[0] - _offset + 0.5);
+        int py = (int) Math.floor(pixel[1] - _offset + 0.5);
+        if (px < 0 || py < 0 || px >= _nX || py >= _nY) {
+            return -1;      // out of the previous frame
+        }
+        int previous = py * _nX + px;
+        if (_ages[previous] < 0 || _ages[previous] >= _maxAge || _geometries[previous] != hit._geometry
+                || Math.abs(_depths[previous] - depth) > DEPTH_TOLERANCE * depth) {
+            return -1;      // not rendered, too old, disoccluded or another geometry
+        }
+        return previous;
+    }
+
+    /**
+     * To check if a pixel is in a region changed by the edits of the scene.
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     * @return true if the pixel is dirty.
+     */
+    private boolean isDirty(int x, int y) {
+        for (Rectangle region : _dirty) {
+            if (region.contains(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * To reuse the color of a pixel of the previous frame for a pixel of the current frame.
+     * @param x        the column of the pixel.
+     * @param y        the row of the pixel.
+     * @param previous the index of the pixel of the previous frame (see reproject).
+     * @param hit      the closest point seen through the center of the pixel.
+     * @param colors   the colors of the pixels of the tile, to set the color of the pixel.
+     * @param p        the index of the red component of the pixel in colors.
+     * @return the number of samples of the color.
+     */
+    int reuse(int x, int y, int previous, GeoPoint hit, double[] colors, int p) {
+        colors[p] = _colors[3 * previous];
+        colors[p + 1] = _colors[3 * previous + 1];
+        colors[p + 2] = _colors[3 * previous + 2];
+        int pixel = y * _nX + x;
+        _nextAges[pixel] = (byte) (_ages[previous] + 1);
+        setPixel(pixel, colors, p, _sampleCounts[previous], hit);
+        return _sampleCounts[previous];
+    }
+
+    /**
+     * To record a pixel rendered in the current frame.
+     * @param x       the column of the pixel.
+     * @param y       the row of the pixel.
+     * @param hit     the closest point seen through the center of the pixel (null : the background).
+     * @param colors  the colors of the pixels of the tile.
+     * @param p       the index of the red component of the pixel in colors.
+     * @param samples the number of samples of the color.
+     */
+    void record(int x, int y, GeoPoint hit, double[] colors, int p, int samples) {
+        int pixel = y * _nX + x;
+        _nextAges[pixel] = 0;
+        setPixel(pixel, colors, p, samples, hit);
+    }
+
+    /**
+     * Helper method : to set the color, the samples, the geometry and the depth of a pixel of the current frame.
+     * @param pixel   the index of the pixel.
+     * @param colors  the colors of the pixels of the tile.
+     * @param p       the index of the red component of the pixel in colors.
+     * @param samples the number of samples of the color.
+     * @param hit     the closest point seen through the center of the pixel (null : the background).
+     */
+    private void setPixel(int pixel, double[] colors, int p, int samples, GeoPoint hit) {
+        _nextColors[3 * pixel] = colors[p];
+        _nextColors[3 * pixel + 1] = colors[p + 1];
+        _nextColors[3 * pixel + 2] = colors[p + 2];
+        _nextSampleCounts[pixel] = samples;
+        _nextGeometries[pixel] = hit == null ? null : hit._geometry;
+        _nextDepths[pixel] = hit == null ? Double.POSITIVE_INFINITY : _nextCamera.depth(hit._point);
+    }
+}
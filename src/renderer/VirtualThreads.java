@@ -0,0 +1,106 @@
+package renderer;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Class VirtualThreads, the executor of the virtual-thread mode of the render (see Render.setVirtualThreads).
+ * The tasks run on virtual threads when the JVM provides them (Java 21+, found by reflection, since the project
+ * is compiled for older versions), else on a cached pool of daemon platform threads.
+ * The CPU-bound tasks (tracing) must hold a permit of CPU_PERMITS, sized as the number of processors
+ * (the carrier threads), so that many concurrent renders do not oversubscribe the processors;
+ * the I/O tasks (image writing) do not need a permit, and so overlap with the tracing.
+ * The permit of a CPU-bound task is taken before its submission (see submitCpuBound), so that the tasks
+ * waiting for the processors do not each block a thread of the executor (a platform thread on Java 17).
+ */
+final class VirtualThreads {
+    /**
+     * Permits for the CPU-bound tasks, shared by all the renders.
+     */
+    static final Semaphore CPU_PERMITS = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The shared executor (its threads are daemon threads, it is never shut down).
+     */
+    private static final ExecutorService EXECUTOR;
+    private static final boolean AVAILABLE;
+
+    static {
+        ExecutorService executor = null;
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            executor = (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // no virtual threads in that JVM
+        }
+        AVAILABLE = executor != null;
+        EXECUTOR = executor != null ? executor : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "render-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * To check if the tasks run on virtual threads.
+     * @return true if the JVM provides virtual threads, false if platform threads are used.
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Getter of the shared executor.
+     * @return the executor of the virtual threads (or of the fallback platform threads).
+     */
+    static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * To run a CPU-bound task on the current thread, holding a permit of CPU_PERMITS.
+     * @param task the task.
+     */
+    static void runCpuBound(Runnable task) {
+        CPU_PERMITS.acquireUninterruptibly();
+        try {
+            task.run();
+        } finally {
+            CPU_PERMITS.release();
+        }
+    }
+
+    /**
+     * To submit a CPU-bound task to the executor, with a permit of CPU_PERMITS taken by the calling thread
+     * (and released by the task when it ends).
+     * @param task the task.
+     * @param wait true to wait for a permit, false to submit the task only if a permit is free.
+     * @return the future of the task, or null if no permit is free and !wait.
+     */
+    static Future<?> submitCpuBound(Runnable task, boolean wait) {
+        if (wait) {
+            CPU_PERMITS.acquireUninterruptibly();
+        } else if (!CPU_PERMITS.tryAcquire()) {
+            return null;
+        }
+        try {
+            return EXECUTOR.submit(() -> {
+                try {
+                    task.run();
+                } finally {
+                    CPU_PERMITS.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            CPU_PERMITS.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package scene;
+
+import elements.Camera;
+import elements.DirectionalLight;
+import elements.LightSource;
+import geometries.BoundingBox;
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Instance;
+import geometries.Intersectable;
+import geometries.SphereSet;
+import primitives.Material;
+import primitives.Point3D;
+import primitives.Vector;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Class DirtyRegions, helper class of Scene : the conservative screen-space regions whose pixels
+ * may change after edits of geometries (each edit is the box containing the geometry before and after it).
+ * For each edited box, the region covers :
+ * - the primary rays : the projection of the box
+ * - the shadows : for each light source, the projection of the shadow volume of the box, extruded away from
+ * the light source (from each corner of the light source, for the lights with a size, and widened by the
+ * spread of the shadow rays of the soft shadows) until it leaves the scene
+ * - the reflections and refractions : the projection of the box of every reflective or transparent geometry
+ * (any of them may show the edited box or its shadows), or instance of a group containing one
+ * An edit that cannot be bounded (an unbounded geometry, a light source inside the shadow volume,
+ * a light source or global change) makes the whole image dirty.
+ */
+class DirtyRegions {
+    /**
+     * The shadow volumes are extruded to FAR_FACTOR times the size of the scene when the scene contains
+     * unbounded geometries (which may receive the shadows far away).
+     */
+    private static final double FAR_FACTOR = 1e6;
+
+    /**
+     * The points closer to the camera plane are clipped.
+     */
+    private static final double NEAR = 1e-6;
+
+    private final Scene _scene;
+    private final Camera _camera;
+    private final int _nX;
+    private final int _nY;
+    private final double _spread;
+    private final List<Rectangle> _regions = new LinkedList<>();
+
+    /**
+     * DirtyRegions constructor.
+     * @param scene  the scene (after the edits).
+     * @param camera the camera of the render.
+     * @param nX     the number of columns of the image.
+     * @param nY     the number of lines of the image.
+     * @param spread the maximal tangent of the angle between a shadow ray and the direction of its light source
+     *               (0 for hard shadows).
+     */
+    DirtyRegions(Scene scene, Camera camera, int nX, int nY, double spread) {
+        _scene = scene;
+        _camera = camera;
+        _nX = nX;
+        _nY = nY;
+        _spread = spread;
+    }
+
+    /**
+     * To calculate the regions of a list of edited boxes.
+     * @param edits the boxes of the edited geometries.
+     * @return the regions (the whole image as one region if an edit cannot be bounded).
+     */
+    List<Rectangle> compute(List<BoundingBox> edits) {
+        if (edits.isEmpty()) {
+            return _regions;
+        }
+        BoundingBox sceneBox = _scene._geometries.getBoundingBox();
+        boolean unbounded = sceneBox.isInfinite();
+        BoundingBox finite = finitePart(_scene._geometries, BoundingBox.EMPTY);
+        for (BoundingBox edit : edits) {
+            finite = finite.union(edit);
+        }
+        double extrusion = unbounded ? FAR_FACTOR * (1 + finite.getDiagonal()) : finite.getDiagonal();
+
+        for (BoundingBox edit : edits) {
+            if (edit.isEmpty()) {
+                continue;
+            }
+            if (edit.isInfinite()) {
+                return wholeImage();
+            }
+            List<Point3D> corners = edit.getCorners();
+            addRegion(corners);
+            for (LightSource light : _scene._lights) {
+                List<Point3D> volume = shadowVolume(edit, corners, light, extrusion);
+                if (volume == null) {
+                    return wholeImage();
+                }
+                addRegion(volume);
+            }
+        }
+        if (!addReflectiveRegions(_scene._geometries)) {
+            return wholeImage();
+        }
+        return _regions;
+    }
+
+    /**
+     * To make the whole image the only region.
+     * @return the regions.
+     */
+    List<Rectangle> wholeImage() {
+        _regions.clear();
+        _regions.add(new Rectangle(0, 0, _nX, _nY));
+        return _regions;
+    }
+
+    /**
+     * To find the box of the bounded geometries of a group.
+     * @param intersectable the group (or a geometry).
+     * @param box           the box found so far.
+     * @return the union of box and of the boxes of the bounded geometries.
+     */
+    private BoundingBox finitePart(Intersectable intersectable, BoundingBox box) {
+        if (intersectable instanceof Geometries) {
+            for (Intersectable element : ((Geometries) intersectable).getIntersectables()) {
+                box = finitePart(element, box);
+            }
+            return box;
+        }
+        BoundingBox own = intersectable.getBoundingBox();
+        return own.isInfinite() ? box : box.union(own);
+    }
+
+    /**
+     * To find the points whose convex hull contains the shadow volume of a box for a light source.
+     * @param edit      the box.
+     * @param corners   the corners of the box.
+     * @param light     the light source.
+     * @param extrusion the minimal length of the extrusion.
+     * @return the points, or null if the light source is too close to the box to bound its shadow.
+     */
+    private List<Point3D> shadowVolume(BoundingBox edit, List<Point3D> corners, LightSource light,
+                                       double extrusion) {
+        List<Point3D> points = new ArrayList<>(corners);
+        double edgeSize = light.getSquareEdgeSize();
+        Point3D center = middle(edit);
+        double distance = light.getDistance(center);
+
+        if (Double.isInfinite(distance)) {      // directional : the same direction from every point
+            double spread = _spread;
+            if (edgeSize > 0 && light instanceof DirectionalLight) {
+                spread = Math.max(spread, edgeSize / Math.sqrt(2) / ((DirectionalLight) light).getFakeDistance(center));
+            }
+            Vector direction = light.getL(center);
+            for (Point3D corner : corners) {
+                addWidened(points, corner.add(direction.scale(extrusion)), extrusion * spread);
+            }
+            return points;
+        }
+
+        // positional : from each corner of the cube containing the light source
+        if (distance < 1e-9) {
+            return null;    // the light source is at the center of the box
+        }
+        Point3D position = center.add(light.getL(center).scale(-distance));
+        List<Point3D> sources = edgeSize > 0 ? new BoundingBox(
+                position.getX() - edgeSize / 2, position.getY() - edgeSize / 2, position.getZ() - edgeSize / 2,
+                position.getX() + edgeSize / 2, position.getY() + edgeSize / 2, position.getZ() + edgeSize / 2)
+                .getCorners() : List.of(position);
+        BoundingBox sourcesBox = BoundingBox.of(sources);
+        double minDistance = distance(edit, sourcesBox);
+        if (minDistance < 1e-9) {
+            return null;    // the light source is inside the box
+        }
+        double maxDistance = 0;
+        for (Point3D corner : corners) {
+            for (Point3D source : sources) {
+                maxDistance = Math.max(maxDistance, corner.distance(source));
+            }
+        }
+        // the farthest points of the shadow are at least at distance extrusion from the box
+        double t = extrusion / minDistance;
+        for (Point3D corner : corners) {
+            for (Point3D source : sources) {
+                Point3D far = new Point3D(corner.getX() + t * (corner.getX() - source.getX()),
+                        corner.getY() + t * (corner.getY() - source.getY()),
+                        corner.getZ() + t * (corner.getZ() - source.getZ()));
+                addWidened(points, far, t * maxDistance * _spread);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * To add a point, or the corners of a cube around it.
+     * @param points     the list of points.
+     * @param point      the point.
+     * @param halfExtent the half of the edge of the cube (0 : the point only).
+     */
+    private void addWidened(List<Point3D> points, Point3D point, double halfExtent) {
+        if (halfExtent <= 0) {
+            points.add(point);
+            return;
+        }
+        points.addAll(new BoundingBox(point.getX() - halfExtent, point.getY() - halfExtent,
+                point.getZ() - halfExtent, point.getX() + halfExtent, point.getY() + halfExtent,
+                point.getZ() + halfExtent).getCorners());
+    }
+
+    /**
+     * To add the regions of the reflective and transparent geometries of a group
+     * (the members of a set of spheres, and the boxes of the other 3D-objects which are not geometries).
+     * @param intersectable the group (or a geometry).
+     * @return false if one of them is unbounded (the whole image is dirty).
+     */
+    private boolean addReflectiveRegions(Intersectable intersectable) {
+        if (intersectable instanceof Geometries) {
+            for (Intersectable element : ((Geometries) intersectable).getIntersectables()) {
+                if (!addReflectiveRegions(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (intersectable instanceof SphereSet) {
+            SphereSet set = (SphereSet) intersectable;
+            for (int m = 0; m < set.getMemberCount(); m++) {
+                if (!addReflectiveRegions(set.getMember(m))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!isReflective(intersectable)) {
+            return true;
+        }
+        BoundingBox box = intersectable.getBoundingBox();
+        if (box.isInfinite()) {
+            return false;
+        }
+        addRegion(box.getCorners());
+        return true;
+    }
+
+    /**
+     * To check if a geometry is reflective or transparent : for an instance of a group, if its material
+     * is, or else if one of the geometries of the group is (or one of the members of a set of spheres).
+     * @param intersectable the geometry (or a group).
+     * @return true if a ray may be reflected or refracted by it.
+     */
+    private static boolean isReflective(Intersectable intersectable) {
+        if (intersectable instanceof Instance && !((Instance) intersectable).hasOwnMaterial()
+                && !(((Instance) intersectable).getGeometry() instanceof Geometry)) {
+            return isReflective(((Instance) intersectable).getGeometry());
+        }
+        if (intersectable instanceof Geometries) {
+            for (Intersectable element : ((Geometries) intersectable).getIntersectables()) {
+                if (isReflective(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (intersectable instanceof SphereSet) {
+            SphereSet set = (SphereSet) intersectable;
+            for (int m = 0; m < set.getMemberCount(); m++) {
+                if (isReflective(set.getMember(m))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!(intersectable instanceof Geometry)) {
+            return true;    // unknown : conservative
+        }
+        Material material = ((Geometry) intersectable).getMaterial();
+        return material._kR != 0 || material._kT != 0;
+    }
+
+    /**
+     * To add the region of the pixels whose rays may pass through the convex hull of points :
+     * the bounding rectangle of the projections of the points in front of the camera and of the intersections
+     * of the segments between the points with the near plane, with a margin of one pixel.
+     * @param points the points.
+     */
+    private void addRegion(List<Point3D> points) {
+        double minJ = Double.POSITIVE_INFINITY, minI = Double.POSITIVE_INFINITY;
+        double maxJ = Double.NEGATIVE_INFINITY, maxI = Double.NEGATIVE_INFINITY;
+        List<Point3D> front = new ArrayList<>();
+        List<Point3D> behind = new ArrayList<>();
+        for (Point3D point : points) {
+            (_camera.depth(point) > NEAR ? front : behind).add(point);
+        }
+        List<Point3D> projected = new ArrayList<>(front);
+        for (Point3D a : front) {       // clipping with the near plane
+            double depthA = _camera.depth(a);
+            for (Point3D b : behind) {
+                double depthB = _camera.depth(b);
+                double s = (depthA - 2 * NEAR) / (depthA - depthB);
+                projected.add(new Point3D(a.getX() + s * (b.getX() - a.getX()),
+                        a.getY() + s * (b.getY() - a.getY()), a.getZ() + s * (b.getZ() - a.getZ())));
+            }
+        }
+        for (Point3D point : projected) {
+            double[] pixel = _camera.project(point, _nX, _nY);
+            minJ = Math.min(minJ, pixel[0]);
+            maxJ = Math.max(maxJ, pixel[0]);
+            minI = Math.min(minI, pixel[1]);
+            maxI = Math.max(maxI, pixel[1]);
+        }
+        if (projected.isEmpty()) {
+            return;     // all behind the camera
+        }
+        int x0 = (int) Math.max(0, Math.floor(Math.max(-1, minJ)) - 1);
+        int y0 = (int) Math.max(0, Math.floor(Math.max(-1, minI)) - 1);
+        int x1 = (int) Math.min(_nX, Math.ceil(Math.min(_nX, maxJ)) + 2);
+        int y1 = (int) Math.min(_nY, Math.ceil(Math.min(_nY, maxI)) + 2);
+        if (x0 < x1 && y0 < y1) {
+            _regions.add(new Rectangle(x0, y0, x1 - x0, y1 - y0));
+        }
+    }
+
+    /**
+     * To find the center of a box.
+     * @param box the box (bounded).
+     * @return its center.
+     */
+    private static Point3D middle(BoundingBox box) {
+        Point3D min = box.getMin();
+        Point3D max = box.getMax();
+        return new Point3D((min.getX() + max.getX()) / 2, (min.getY() + max.getY()) / 2,
+                (min.getZ() + max.getZ()) / 2);
+    }
+
+    /**
+     * To find the distance between two boxes.
+     * @param a the first box.
+     * @param b the second box.
+     * @return the minimal distance between a point of a and a point of b (0 if they overlap).
+     */
+    private static double distance(BoundingBox a, BoundingBox b) {
+        Point3D aMin = a.getMin(), aMax = a.getMax(), bMin = b.getMin(), bMax = b.getMax();
+        double dx = Math.max(0, Math.max(bMin.getX() - aMax.getX(), aMin.getX() - bMax.getX()));
+        double dy = Math.max(0, Math.max(bMin.getY() - aMax.getY(), aMin.getY() - bMax.getY()));
+        double dz = Math.max(0, Math.max(bMin.getZ() - aMax.getZ(), aMin.getZ() - bMax.getZ()));
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -2,11 +2,17 @@
 
 package scene;
 
+import elements.Camera;
 import elements.LightSource;
+import geometries.BoundingBox;
+import geometries.Geometry;
+import geometries.Intersectable;
 import primitives.Color;
 import elements.AmbientLight;
 import geometries.Geometries;
+import primitives.Material;
 
+import java.awt.Rectangle;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -47,6 +53,13 @@ public class Scene {
      */
     public Geometries _geometries;
 
+    /**
+     * The edits of the scene since the last render : the boxes of the edited geometries,
+     * and is there an edit changing the whole image (light sources, background, ambient light).
+     */
+    private final List<BoundingBox> _edits = new LinkedList<>();
+    private boolean _globalEdit = false;
+
     /**
      * Scene constructor, receiving 1 parameter.
      * @param name a String representing the name of the scene.
@@ -68,6 +81,7 @@ public class Scene {
      */
     public Scene setBackground(Color background) {
         _background = background;
+        _globalEdit = true;
         return this;
     }
 
@@ -79,6 +93,7 @@ public class Scene {
      */
     public Scene setAmbientLight(AmbientLight ambientLight) {
         _ambientLight = ambientLight;
+        _globalEdit = true;
         return this;
     }
 
@@ -89,6 +104,7 @@ public class Scene {
      * @return this.
      */
     public Scene setLights(List<LightSource> lights) {
+        _globalEdit = true;
         _lights = new LinkedList<>();
         if (lights != null) {
             for (LightSource light : lights) {
@@ -106,6 +122,156 @@ public class Scene {
      */
     public Scene setGeometries(Geometries geometries) {
         _geometries = geometries;
+        _globalEdit = true;
+        return this;
+    }
+
+    // Edits part : the following methods record the edits, for the incremental render (Render.renderDirty).
+    // The edits made directly on the public fields are not recorded.
+
+    /**
+     * To add geometries to the scene, recording the edit.
+     * Chaining method.
+     * @param geometries the geometries to add.
+     * @return this.
+     */
+    public Scene addGeometry(Intersectable... geometries) {
+        for (Intersectable geometry : geometries) {
+            _geometries.add(geometry);
+            _edits.add(geometry.getBoundingBox());
+        }
+        return this;
+    }
+
+    /**
+     * To remove a geometry from the scene, recording the edit.
+     * Chaining method.
+     * @param geometry the geometry to remove.
+     * @return this.
+     * @throws IllegalArgumentException if geometry is not in _geometries.
+     */
+    public Scene removeGeometry(Intersectable geometry) {
+        if (!_geometries.remove(geometry)) {
+            throw new IllegalArgumentException("the geometry is not in the scene");
+        }
+        _edits.add(geometry.getBoundingBox());
         return this;
     }
+
+    /**
+     * To replace a geometry of the scene by another one (for example, a sphere by the moved sphere),
+     * recording the edit.
+     * Chaining method.
+     * @param oldGeometry the geometry to remove.
+     * @param newGeometry the geometry to add.
+     * @return this.
+     * @throws IllegalArgumentException if oldGeometry is not in _geometries.
+     */
+    public Scene replaceGeometry(Intersectable oldGeometry, Intersectable newGeometry) {
+        removeGeometry(oldGeometry);
+        return addGeometry(newGeometry);
+    }
+
+    /**
+     * To set the material of a geometry of the scene, recording the edit.
+     * Chaining method.
+     * @param geometry the geometry.
+     * @param material the new material of geometry.
+     * @return this.
+     */
+    public Scene setMaterial(Geometry geometry, Material material) {
+        geometry.setMaterial(material);
+        return geometryChanged(geometry);
+    }
+
+    /**
+     * To set the emission of a geometry of the scene, recording the edit.
+     * Chaining method.
+     * @param geometry the geometry.
+     * @param emission the new emission of geometry.
+     * @return this.
+     */
+    public Scene setEmission(Geometry geometry, Color emission) {
+        geometry.setEmission(emission);
+        return geometryChanged(geometry);
+    }
+
+    /**
+     * To record an edit of a geometry made in place (for example, of the fields of its material).
+     * Chaining method.
+     * @param geometry the edited geometry.
+     * @return this.
+     */
+    public Scene geometryChanged(Intersectable geometry) {
+        _edits.add(geometry.getBoundingBox());
+        return this;
+    }
+
+    /**
+     * To add a light source to the scene, recording the edit.
+     * Chaining method.
+     * @param light the light source.
+     * @return this.
+     */
+    public Scene addLight(LightSource light) {
+        _lights.add(light);
+        return lightsChanged();
+    }
+
+    /**
+     * To remove a light source from the scene, recording the edit.
+     * Chaining method.
+     * @param light the light source.
+     * @return this.
+     */
+    public Scene removeLight(LightSource light) {
+        _lights.remove(light);
+        return lightsChanged();
+    }
+
+    /**
+     * To record an edit of the light sources made in place (for example, of the attenuation of a light).
+     * A light source lights the whole scene : all the image is dirty.
+     * Chaining method.
+     * @return this.
+     */
+    public Scene lightsChanged() {
+        _globalEdit = true;
+        return this;
+    }
+
+    /**
+     * To check if the scene was edited since the last render (with the methods recording the edits).
+     * @return true if there is an edit.
+     */
+    public boolean hasEdits() {
+        return _globalEdit || !_edits.isEmpty();
+    }
+
+    /**
+     * To forget the edits (after a render).
+     * Chaining method.
+     * @return this.
+     */
+    public Scene clearEdits() {
+        _edits.clear();
+        _globalEdit = false;
+        return this;
+    }
+
+    /**
+     * To find the regions of the image whose pixels may change because of the edits since the last render.
+     * Conservative (see DirtyRegions) : the primary rays, the shadows and the reflections and refractions
+     * of the edited geometries are covered; a global edit makes the whole image dirty.
+     * @param camera the camera of the render.
+     * @param nX     the number of columns of the image.
+     * @param nY     the number of lines of the image.
+     * @param spread the maximal tangent of the angle between a shadow ray and the direction of its light source
+     *               (0 for hard shadows).
+     * @return the regions (rectangles of pixels, which may overlap), empty if there is no edit.
+     */
+    public List<Rectangle> getDirtyRegions(Camera camera, int nX, int nY, double spread) {
+        DirtyRegions regions = new DirtyRegions(this, camera, nX, nY, spread);
+        return _globalEdit ? regions.wholeImage() : regions.compute(_edits);
+    }
 }
@@ -0,0 +1,298 @@
+package server;
+
+import elements.Camera;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import primitives.Point3D;
+import primitives.Vector;
+import renderer.BasicRayTracer;
+import renderer.ImageWriter;
+import renderer.Render;
+import scene.Scene;
+import xml.XMLParser;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Class RenderJob, a render request of the RenderServer : a scene, a camera and the render settings,
+ * parsed from an XML document of the form :
+ * <pre>
+ * &lt;render-job priority="0" width="500" height="500" threads="1" anti-aliasing="0"&gt;
+ *     &lt;camera position="0 0 1000" to="0 0 -1" up="0 1 0" distance="1000" view-plane="200 200"/&gt;
+ *     &lt;scene background-color="0 0 0"&gt; ... (see XMLParser) &lt;/scene&gt;
+ * &lt;/render-job&gt;
+ * </pre>
+ * Only the width and the height are required among the attributes of render-job.
+ * The number of threads and the anti-aliasing (samples per side of the pixel) are limited by the server
+ * (see parse(byte[], int, int)).
+ * The key of the job is the SHA-256 hash of the scene, the camera and the settings that change the image
+ * (not the priority nor the number of threads), so that two equal jobs have the same key.
+ */
+public class RenderJob {
+    /**
+     * Maximal number of pixels of an image.
+     */
+    private static final long MAX_PIXELS = 4096L * 4096L;
+
+    /**
+     * Default maximal anti-aliasing of a job : samples per side of the pixel (256 rays per pixel).
+     */
+    static final int DEFAULT_MAX_ANTI_ALIASING = 16;
+
+    final int _priority;
+    final int _width;
+    final int _height;
+    final int _threads;
+    final int _antiAliasing;
+    final Scene _scene;
+    final Camera _camera;
+    final String _key;
+
+    /**
+     * RenderJob constructor, used by parse(byte[]).
+     */
+    private RenderJob(int priority, int width, int height, int threads, int antiAliasing,
+                      Scene scene, Camera camera, String key) {
+        _priority = priority;
+        _width = width;
+        _height = height;
+        _threads = threads;
+        _antiAliasing = antiAliasing;
+        _scene = scene;
+        _camera = camera;
+        _key = key;
+    }
+
+    /**
+     * To parse a render job from its XML document, with at most a thread per processor
+     * and the default maximal anti-aliasing.
+     * Wrapper method.
+     * @param xml the bytes of the XML document.
+     * @return the job.
+     * @throws IllegalArgumentException if the document does not meet the RenderJob specifications.
+     */
+    public static RenderJob parse(byte[] xml) throws IllegalArgumentException {
+        return parse(xml, Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_ANTI_ALIASING);
+    }
+
+    /**
+     * To parse a render job from its XML document.
+     * @param xml             the bytes of the XML document.
+     * @param maxThreads      the maximal number of threads of the job.
+     * @param maxAntiAliasing the maximal anti-aliasing of the job.
+     * @return the job.
+     * @throws IllegalArgumentException if the document does not meet the RenderJob specifications,
+     *                                  or if the threads or the anti-aliasing are beyond the limits.
+     */
+    public static RenderJob parse(byte[] xml, int maxThreads, int maxAntiAliasing) throws IllegalArgumentException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // the documents come from the network : no DTD, no external entities
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            builder.setErrorHandler(null);
+            Document document = builder.parse(new ByteArrayInputStream(xml));
+            document.getDocumentElement().normalize();
+            Element root = document.getDocumentElement();
+            if (!root.getNodeName().equals("render-job")) {
+                throw new IllegalArgumentException("root element must be render-job");
+            }
+
+            int priority = getInt(root, "priority", 0);
+            int width = getInt(root, "width", -1);
+            int height = getInt(root, "height", -1);
+            int threads = getInt(root, "threads", 1);
+            int antiAliasing = getInt(root, "anti-aliasing", 0);
+            if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) {
+                throw new IllegalArgumentException("width and height must be > 0 and not too big");
+            }
+            if (threads < 1 || threads > maxThreads) {
+                throw new IllegalArgumentException("threads must be in [1, " + maxThreads + "]");
+            }
+            if (antiAliasing < 0 || antiAliasing > maxAntiAliasing) {
+                throw new IllegalArgumentException("anti-aliasing must be in [0, " + maxAntiAliasing + "]");
+            }
+
+            Element cameraElement = getChild(root, "camera");
+            Element sceneElement = getChild(root, "scene");
+            Camera camera = parseCamera(cameraElement);
+            Scene scene = new Scene("render job");
+            new XMLParser(scene, sceneElement);
+
+            String settings = width + " " + height + " " + antiAliasing + "\n";
+            String key = sha256(settings + serialize(cameraElement) + serialize(sceneElement));
+            return new RenderJob(priority, width, height, threads, antiAliasing, scene, camera, key);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("invalid render job : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * To render the image of the job (in wavefront mode, without printing).
+     * @return the bytes of the png image.
+     * @throws IOException if the image cannot be encoded.
+     */
+    public byte[] render() throws IOException {
+        return render(false);
+    }
+
+    /**
+     * To render the image of the job (in wavefront mode, without printing).
+     * @param virtualThreads true to render each tile on a virtual thread (see Render.setVirtualThreads),
+     *                       instead of the threads of the job.
+     * @return the bytes of the png image.
+     * @throws IOException if the image cannot be encoded.
+     */
+    public byte[] render(boolean virtualThreads) throws IOException {
+        ImageWriter imageWriter = new ImageWriter(_key, _width, _height);
+        BasicRayTracer rayTracer = new BasicRayTracer(_scene);
+        Render render = new Render()
+                .setImageWriter(imageWriter)
+                .setCamera(_camera)
+                .setRayTracer(rayTracer)
+                .setWavefront();
+        if (virtualThreads) {
+            render.setVirtualThreads(true);
+        } else if (_threads > 1) {
+            render.setMultithreading(_threads);
+        }
+        if (_antiAliasing > 0) {
+            render.setAntiAliasing(_antiAliasing);
+        }
+        render.renderImage();
+        return imageWriter.toPngBytes();
+    }
+
+    /**
+     * Getter of _key.
+     * @return the SHA-256 hash (hexadecimal) of the scene, the camera and the settings.
+     */
+    public String getKey() {
+        return _key;
+    }
+
+    /**
+     * Getter of _priority.
+     * @return the priority of the job (the greater first).
+     */
+    public int getPriority() {
+        return _priority;
+    }
+
+    /**
+     * To parse the camera element.
+     * @param element the camera element.
+     * @return the camera.
+     */
+    private static Camera parseCamera(Element element) {
+        Camera camera = new Camera(getPoint(element, "position"),
+                new Vector(getPoint(element, "to")), new Vector(getPoint(element, "up")));
+        camera.setDistance(Double.parseDouble(element.getAttribute("distance")));
+        double[] viewPlane = getDoubles(element.getAttribute("view-plane"));
+        camera.setViewPlaneSize(viewPlane[0], viewPlane[1]);
+        return camera;
+    }
+
+    /**
+     * To find the first child element of an element with a given name.
+     * @param parent the element.
+     * @param name   the name of the child.
+     * @return the child.
+     * @throws IllegalArgumentException if there is no such child.
+     */
+    private static Element getChild(Element parent, String name) {
+        NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node node = children.item(i);
+            if (node.getNodeType() == Node.ELEMENT_NODE && node.getNodeName().equals(name)) {
+                return (Element) node;
+            }
+        }
+        throw new IllegalArgumentException("missing element " + name);
+    }
+
+    /**
+     * To get an integer attribute.
+     * @param element      the element.
+     * @param name         the name of the attribute.
+     * @param defaultValue the value if the attribute is missing.
+     * @return the value of the attribute.
+     */
+    private static int getInt(Element element, String name, int defaultValue) {
+        String value = element.getAttribute(name);
+        return value.isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * To get a point attribute, of the form "x y z".
+     * @param element the element.
+     * @param name    the name of the attribute.
+     * @return the point.
+     */
+    private static Point3D getPoint(Element element, String name) {
+        double[] array = getDoubles(element.getAttribute(name));
+        return new Point3D(array[0], array[1], array[2]);
+    }
+
+    /**
+     * To return an array of doubles from a String containing numbers separated by white spaces.
+     * @param s of the form : "word1 word2 ... wordn"
+     * @return an array of the numbers in s.
+     */
+    private static double[] getDoubles(String s) {
+        String[] stringArray = s.trim().split("\\s+");
+        double[] doubleArray = new double[stringArray.length];
+        for (int i = 0; i < stringArray.length; i++) {
+            doubleArray[i] = Double.parseDouble(stringArray[i]);
+        }
+        return doubleArray;
+    }
+
+    /**
+     * To serialize an element (for the key of the job).
+     * @param element the element.
+     * @return the XML text of the element.
+     * @throws Exception if the element cannot be serialized.
+     */
+    private static String serialize(Element element) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(element), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    /**
+     * To hash a text with SHA-256.
+     * @param text the text.
+     * @return the hash, in hexadecimal.
+     * @throws NoSuchAlgorithmException if SHA-256 is not available.
+     */
+    private static String sha256(String text) throws NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        StringBuilder builder = new StringBuilder();
+        for (byte b : hash) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
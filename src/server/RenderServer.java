@@ -0,0 +1,305 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class RenderServer, a small embedded render service over HTTP, on the loopback interface.
+ * POST /render with a RenderJob XML document as body : the job is queued by priority (the greater first,
+ * then first come first served), rendered by a bounded pool of workers, and the png image is sent back
+ * (Content-Type image/png). The finished images are kept in a LRU cache keyed by RenderJob.getKey(),
+ * and equal jobs submitted while one is rendering wait for the same render.
+ * Header X-Cache of the response : HIT if the image comes from the cache, MISS either.
+ * The threads of a job are limited to its share of the processors (the processors divided among the workers),
+ * and its anti-aliasing to a maximum of the server (see setMaxAntiAliasing).
+ * Errors : 400 for an invalid job (or beyond the limits), 405 for another method, 413 for a too big body, 500 for a render failure.
+ */
+public class RenderServer {
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_CACHE_SIZE = 64;
+    private static final int HANDLER_THREADS = 16;
+    private static final int MAX_BODY_SIZE = 8 << 20;
+
+    private final HttpServer _server;
+    private final ExecutorService _handlers;
+    private final ThreadPoolExecutor _workers;
+    private final Map<String, byte[]> _cache;
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> _inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong _sequence = new AtomicLong();
+    private volatile boolean _virtualThreads = false;
+
+    /**
+     * The limits of the jobs : threads per job, and anti-aliasing (see RenderJob.parse(byte[], int, int)).
+     */
+    private final int _maxThreads;
+    private volatile int _maxAntiAliasing = RenderJob.DEFAULT_MAX_ANTI_ALIASING;
+
+    /**
+     * RenderServer constructor, receiving 3 parameters.
+     * @param port      the port (0 for any free port, see getPort()).
+     * @param workers   the number of jobs rendered at the same time.
+     * @param cacheSize the maximal number of images in the cache (0 : no cache).
+     * @throws IOException if the port cannot be bound.
+     * @throws IllegalArgumentException if workers < 1 or cacheSize < 0.
+     */
+    public RenderServer(int port, int workers, int cacheSize) throws IOException {
+        if (workers < 1 || cacheSize < 0) {
+            throw new IllegalArgumentException("workers must be >= 1 and cacheSize >= 0");
+        }
+        _cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        _workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>());
+        _maxThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / workers);
+        _handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+        _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        _server.createContext("/render", this::handleRender);
+        _server.setExecutor(_handlers);
+    }
+
+    /**
+     * RenderServer constructor, with the default number of workers and size of the cache.
+     * @param port the port (0 for any free port, see getPort()).
+     * @throws IOException if the port cannot be bound.
+     */
+    public RenderServer(int port) throws IOException {
+        this(port, DEFAULT_WORKERS, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * To render the jobs in virtual-thread mode (see Render.setVirtualThreads) :
+     * the tiles of all the jobs run on virtual threads, capped by the number of processors,
+     * so the workers may be many (for many small images at once) without oversubscribing the processors.
+     * Chaining method.
+     * @return this.
+     */
+    public RenderServer setVirtualThreads() {
+        _virtualThreads = true;
+        return this;
+    }
+
+    /**
+     * Setter of _maxAntiAliasing : the jobs with a greater anti-aliasing are refused (400).
+     * Chaining method.
+     * @param maxAntiAliasing the maximal number of samples per side of the pixel of a job.
+     * @return this.
+     * @throws IllegalArgumentException if maxAntiAliasing < 0.
+     */
+    public RenderServer setMaxAntiAliasing(int maxAntiAliasing) {
+        if (maxAntiAliasing < 0) {
+            throw new IllegalArgumentException("maxAntiAliasing must be >= 0");
+        }
+        _maxAntiAliasing = maxAntiAliasing;
+        return this;
+    }
+
+    /**
+     * Getter of _maxThreads.
+     * @return the maximal number of threads of a job.
+     */
+    public int getMaxThreads() {
+        return _maxThreads;
+    }
+
+    /**
+     * To start serving requests.
+     * Chaining method.
+     * @return this.
+     */
+    public RenderServer start() {
+        _server.start();
+        return this;
+    }
+
+    /**
+     * To stop the server : the pending jobs are cancelled.
+     */
+    public void stop() {
+        _server.stop(0);
+        _workers.shutdownNow();
+        _handlers.shutdownNow();
+    }
+
+    /**
+     * Getter of the port of the server.
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return _server.getAddress().getPort();
+    }
+
+    /**
+     * To submit a job : from the cache if its image is there, else joined to the equal job being rendered,
+     * else queued.
+     * @param job the job.
+     * @return the future png image.
+     */
+    public CompletableFuture<byte[]> submit(RenderJob job) {
+        byte[] cached = getCached(job.getKey());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = _inFlight.putIfAbsent(job.getKey(), future);
+        if (existing != null) {
+            return existing;
+        }
+        _workers.execute(new PrioritizedTask(job, future, _sequence.getAndIncrement()));
+        return future;
+    }
+
+    /**
+     * To get an image from the cache.
+     * @param key the key of the job.
+     * @return the image, or null if it is not in the cache.
+     */
+    private byte[] getCached(String key) {
+        synchronized (_cache) {
+            return _cache.get(key);
+        }
+    }
+
+    /**
+     * Class PrioritizedTask, the render of a job in the queue of the workers.
+     * Ordered by priority (the greater first), then by order of submission.
+     */
+    private class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final RenderJob _job;
+        private final CompletableFuture<byte[]> _future;
+        private final long _order;
+
+        private PrioritizedTask(RenderJob job, CompletableFuture<byte[]> future, long order) {
+            _job = job;
+            _future = future;
+            _order = order;
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] png = _job.render(_virtualThreads);
+                synchronized (_cache) {
+                    _cache.put(_job.getKey(), png);
+                }
+                _future.complete(png);
+            } catch (Throwable e) {
+                _future.completeExceptionally(e);
+            } finally {
+                _inFlight.remove(_job.getKey(), _future);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            if (_job.getPriority() != other._job.getPriority()) {
+                return Integer.compare(other._job.getPriority(), _job.getPriority());
+            }
+            return Long.compare(_order, other._order);
+        }
+    }
+
+    /**
+     * To handle a request on /render.
+     * @param exchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handleRender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "POST a render-job XML document");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                sendText(exchange, 413, "render job too big");
+                return;
+            }
+
+            RenderJob job;
+            try {
+                job = RenderJob.parse(body, _maxThreads, _maxAntiAliasing);
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+                return;
+            }
+
+            boolean hit = getCached(job.getKey()) != null;
+            byte[] png;
+            try {
+                png = submit(job).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendText(exchange, 503, "server stopping");
+                return;
+            } catch (ExecutionException e) {
+                sendText(exchange, 500, "render failed : " + e.getCause());
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("X-Cache", hit ? "HIT" : "MISS");
+            exchange.sendResponseHeaders(200, png.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(png);
+            }
+        }
+    }
+
+    /**
+     * To read the body of a request.
+     * @param in the body.
+     * @return the bytes of the body, or null if it is bigger than MAX_BODY_SIZE.
+     * @throws IOException if the body cannot be read.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (out.size() + n > MAX_BODY_SIZE) {
+                return null;
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * To send a text response.
+     * @param exchange the request and its response.
+     * @param status   the HTTP status.
+     * @param text     the text.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
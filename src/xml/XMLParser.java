@@ -1,14 +1,20 @@
 package xml;
 
 import elements.AmbientLight;
+import elements.DirectionalLight;
+import elements.PointLight;
+import elements.SpotLight;
 import geometries.Geometries;
 
 // importing XML-related packages
+import geometries.Geometry;
 import geometries.Sphere;
 import geometries.Triangle;
 import org.w3c.dom.*;
 import primitives.Color;
+import primitives.Material;
 import primitives.Point3D;
+import primitives.Vector;
 import scene.Scene;
 
 import javax.xml.parsers.*;
@@ -17,6 +23,10 @@ import java.io.*;
 /**
  * Class XMLParser, to parse xml files describing a Scene object.
  * Supposing that the XML file meets the Scene specifications.
+ * Optional elements and attributes :
+ * - for the geometries : emission (color), kd, ks, shininess, kt, kr (material)
+ * - lights : directional-light (color, direction), point-light (color, position, kc, kl, kq),
+ * spot-light (color, position, direction, kc, kl, kq)
  * @author Deborah Lellouche
  */
 public class XMLParser {
@@ -51,83 +61,225 @@ public class XMLParser {
             document.getDocumentElement().normalize();
 
             // extracting the root element
-            Element root = document.getDocumentElement();
-
-            // getting all subnodes
-            NodeList rootChildren = root.getChildNodes();
-
-            // setting the backgroundColor of _scene
-            int[] bcArray = getIntFromString(root.getAttribute("background-color"));
-            Color backgroundColor = new Color(bcArray[0], bcArray[1], bcArray[2]);
-            _scene.setBackground(backgroundColor);
-
-            for (int i = 0; i < rootChildren.getLength(); i++) {
-                Node node = rootChildren.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE) {
-
-                    // setting the ambientLight of _scene (Ka is not given)
-                    if (node.getNodeName().equals("ambient-light")) {
-                        int[] alcArray =
-                                getIntFromString(node.getAttributes().getNamedItem("color").getNodeValue());
-                        Color ambientLightColor = new Color(alcArray[0], alcArray[1], alcArray[2]);
-                        AmbientLight ambientLight = new AmbientLight(ambientLightColor, 1d);
-                        _scene.setAmbientLight(ambientLight);
-                    }
+            parseScene(document.getDocumentElement());
+        }
+        catch(Exception e){
+                e.printStackTrace();
+        }
 
-                    // setting the geometries of _scene
-                    if (node.getNodeName().equals("geometries")) {
-                        NodeList geoChildren = node.getChildNodes();
+    }
 
-                        for (int j = 0; j < geoChildren.getLength(); j++) {
-                            Node geo = geoChildren.item(j);
-                            if (geo.getNodeType() == Node.ELEMENT_NODE) {
+    /**
+     * XMLParser constructor, setting the members of the Scene object "scene" in parameter
+     * using the data of an XML element already parsed (for example, a part of a bigger document).
+     * @param scene the Scene object whose members are to be set.
+     * @param root  the XML element describing the scene.
+     * @throws IllegalArgumentException if root is null or does not meet the Scene specifications.
+     */
+    public XMLParser(Scene scene, Element root) {
+        if (root == null) {
+            throw new IllegalArgumentException("xml element of the scene is null");
+        }
 
-                                // adding a sphere to _geometries
-                                if (geo.getNodeName().equals("sphere")) {
-                                    NamedNodeMap m = geo.getAttributes();
-                                    int[] centerArray =
-                                            getIntFromString(m.getNamedItem("center").getNodeValue());
-                                    Point3D center = new Point3D(centerArray[0], centerArray[1], centerArray[2]);
+        _xmlpath = null;
+        _scene = scene;
+        _geometries = new Geometries();
 
-                                    int radius = Integer.parseInt(m.getNamedItem("radius").getNodeValue());
+        try {
+            parseScene(root);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("xml element does not meet the Scene specifications", e);
+        }
+    }
 
-                                    Sphere sphere = new Sphere(radius, center);
-                                    _geometries.add(sphere);
-                                }
+    /**
+     * To set the members of _scene using the data of the XML element describing the scene.
+     * @param root the XML element describing the scene.
+     */
+    private void parseScene(Element root) {
+        // getting all subnodes
+        NodeList rootChildren = root.getChildNodes();
+
+        // setting the backgroundColor of _scene
+        int[] bcArray = getIntFromString(root.getAttribute("background-color"));
+        Color backgroundColor = new Color(bcArray[0], bcArray[1], bcArray[2]);
+        _scene.setBackground(backgroundColor);
+
+        for (int i = 0; i < rootChildren.getLength(); i++) {
+            Node node = rootChildren.item(i);
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+
+                // setting the ambientLight of _scene (Ka is not given)
+                if (node.getNodeName().equals("ambient-light")) {
+                    int[] alcArray =
+                            getIntFromString(node.getAttributes().getNamedItem("color").getNodeValue());
+                    Color ambientLightColor = new Color(alcArray[0], alcArray[1], alcArray[2]);
+                    AmbientLight ambientLight = new AmbientLight(ambientLightColor, 1d);
+                    _scene.setAmbientLight(ambientLight);
+                }
 
-                                // adding a triangle to _geometries
-                                if (geo.getNodeName().equals("triangle")) {
-                                    NamedNodeMap m = geo.getAttributes();
-                                    int[] p0Array =
-                                            getIntFromString(m.getNamedItem("p0").getNodeValue());
-                                    Point3D p0 = new Point3D(p0Array[0], p0Array[1], p0Array[2]);
+                // setting the geometries of _scene
+                if (node.getNodeName().equals("geometries")) {
+                    NodeList geoChildren = node.getChildNodes();
 
-                                    int[] p1Array =
-                                            getIntFromString(m.getNamedItem("p1").getNodeValue());
-                                    Point3D p1 = new Point3D(p1Array[0], p1Array[1], p1Array[2]);
+                    for (int j = 0; j < geoChildren.getLength(); j++) {
+                        Node geo = geoChildren.item(j);
+                        if (geo.getNodeType() == Node.ELEMENT_NODE) {
 
-                                    int[] p2Array =
-                                            getIntFromString(m.getNamedItem("p2").getNodeValue());
-                                    Point3D p2 = new Point3D(p2Array[0], p2Array[1], p2Array[2]);
+                            // adding a sphere to _geometries
+                            if (geo.getNodeName().equals("sphere")) {
+                                NamedNodeMap m = geo.getAttributes();
+                                int[] centerArray =
+                                        getIntFromString(m.getNamedItem("center").getNodeValue());
+                                Point3D center = new Point3D(centerArray[0], centerArray[1], centerArray[2]);
 
-                                    Triangle triangle = new Triangle(p0, p1, p2);
-                                    _geometries.add(triangle);
-                                }
+                                int radius = Integer.parseInt(m.getNamedItem("radius").getNodeValue());
+
+                                Sphere sphere = new Sphere(radius, center);
+                                setAppearance(sphere, m);
+                                _geometries.add(sphere);
+                            }
 
+                            // adding a triangle to _geometries
+                            if (geo.getNodeName().equals("triangle")) {
+                                NamedNodeMap m = geo.getAttributes();
+                                int[] p0Array =
+                                        getIntFromString(m.getNamedItem("p0").getNodeValue());
+                                Point3D p0 = new Point3D(p0Array[0], p0Array[1], p0Array[2]);
 
+                                int[] p1Array =
+                                        getIntFromString(m.getNamedItem("p1").getNodeValue());
+                                Point3D p1 = new Point3D(p1Array[0], p1Array[1], p1Array[2]);
+
+                                int[] p2Array =
+                                        getIntFromString(m.getNamedItem("p2").getNodeValue());
+                                Point3D p2 = new Point3D(p2Array[0], p2Array[1], p2Array[2]);
+
+                                Triangle triangle = new Triangle(p0, p1, p2);
+                                setAppearance(triangle, m);
+                                _geometries.add(triangle);
                             }
 
-                            // eventually, setting the geometries of _scene
-                            _scene.setGeometries(_geometries);
+
+                        }
+
+                        // eventually, setting the geometries of _scene
+                        _scene.setGeometries(_geometries);
+                    }
+                }
+
+                // adding the light sources of _scene
+                if (node.getNodeName().equals("lights")) {
+                    NodeList lightChildren = node.getChildNodes();
+
+                    for (int j = 0; j < lightChildren.getLength(); j++) {
+                        Node light = lightChildren.item(j);
+                        if (light.getNodeType() == Node.ELEMENT_NODE) {
+                            NamedNodeMap m = light.getAttributes();
+                            Color color = getColor(m.getNamedItem("color").getNodeValue());
+
+                            if (light.getNodeName().equals("directional-light")) {
+                                Vector direction = getVector(m.getNamedItem("direction").getNodeValue());
+                                _scene._lights.add(new DirectionalLight(color, direction));
+                            }
+
+                            if (light.getNodeName().equals("point-light")
+                                    || light.getNodeName().equals("spot-light")) {
+                                Point3D position = getPoint(m.getNamedItem("position").getNodeValue());
+                                PointLight pointLight = light.getNodeName().equals("spot-light")
+                                        ? new SpotLight(color, position,
+                                        getVector(m.getNamedItem("direction").getNodeValue()))
+                                        : new PointLight(color, position);
+                                if (m.getNamedItem("kc") != null) {
+                                    pointLight.setKc(Double.parseDouble(m.getNamedItem("kc").getNodeValue()));
+                                }
+                                if (m.getNamedItem("kl") != null) {
+                                    pointLight.setKl(Double.parseDouble(m.getNamedItem("kl").getNodeValue()));
+                                }
+                                if (m.getNamedItem("kq") != null) {
+                                    pointLight.setKq(Double.parseDouble(m.getNamedItem("kq").getNodeValue()));
+                                }
+                                _scene._lights.add(pointLight);
+                            }
                         }
                     }
                 }
             }
         }
-        catch(Exception e){
-                e.printStackTrace();
+    }
+
+    /**
+     * To set the emission and the material of a geometry from the optional attributes of its element.
+     * @param geometry the geometry.
+     * @param m        the attributes of the element of the geometry.
+     */
+    private void setAppearance(Geometry geometry, NamedNodeMap m) {
+        if (m.getNamedItem("emission") != null) {
+            geometry.setEmission(getColor(m.getNamedItem("emission").getNodeValue()));
+        }
+        Material material = geometry.getMaterial();
+        if (m.getNamedItem("kd") != null) {
+            material.setKd(Double.parseDouble(m.getNamedItem("kd").getNodeValue()));
+        }
+        if (m.getNamedItem("ks") != null) {
+            material.setKs(Double.parseDouble(m.getNamedItem("ks").getNodeValue()));
+        }
+        if (m.getNamedItem("shininess") != null) {
+            material.setShininess(Integer.parseInt(m.getNamedItem("shininess").getNodeValue()));
+        }
+        if (m.getNamedItem("kt") != null) {
+            material.setKt(Double.parseDouble(m.getNamedItem("kt").getNodeValue()));
+        }
+        if (m.getNamedItem("kr") != null) {
+            material.setKr(Double.parseDouble(m.getNamedItem("kr").getNodeValue()));
+        }
+    }
+
+    /**
+     * To return a Color from a String containing its 3 components separated by white spaces.
+     * @param s of the form : "r g b"
+     * @return the color.
+     */
+    private Color getColor(String s) {
+        double[] array = getDoubleFromString(s);
+        return new Color(array[0], array[1], array[2]);
+    }
+
+    /**
+     * To return a Point3D from a String containing its 3 coordinates separated by white spaces.
+     * @param s of the form : "x y z"
+     * @return the point.
+     */
+    private Point3D getPoint(String s) {
+        double[] array = getDoubleFromString(s);
+        return new Point3D(array[0], array[1], array[2]);
+    }
+
+    /**
+     * To return a Vector from a String containing its 3 coordinates separated by white spaces.
+     * @param s of the form : "x y z"
+     * @return the vector.
+     */
+    private Vector getVector(String s) {
+        return new Vector(getPoint(s));
+    }
+
+    /**
+     * To return an array of doubles from a String containing numbers separated one from another
+     * by white spaces.
+     * @param s of the form : "word1 word2 ... wordn"
+     * @return an array of the numbers in s.
+     * @throws NumberFormatException if a word is not a number.
+     */
+    private double[] getDoubleFromString(String s) {
+        String[] stringArray = s.trim().split("\\s+");
+        double[] doubleArray = new double[stringArray.length];
+
+        for (int i = 0; i < stringArray.length; i++) {
+            doubleArray[i] = Double.parseDouble(stringArray[i]);
         }
 
+        return doubleArray;
     }
 
     /**
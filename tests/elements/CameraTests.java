@@ -6,6 +6,7 @@ import elements.Camera;
 import primitives.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Testing Camera Class
@@ -63,4 +64,22 @@ public class CameraTests {
 
     }
 
+
+    /**
+     * Test method for {@link elements.Camera#project(Point3D, int, int)}.
+     */
+    @Test
+    public void testProject() {
+        Camera camera = new Camera(Point3D.ZERO, new Vector(0, 0, 1), new Vector(0, -1, 0))
+                .setDistance(10).setViewPlaneSize(6, 6);
+
+        // TC01: a point on the ray through a pixel is projected on that pixel
+        Ray ray = camera.constructRayThroughPixel(3, 3, 2, 1);
+        double[] pixel = camera.project(ray.getPoint(25), 3, 3);
+        assertEquals(2, pixel[0], 1e-9, "Wrong column");
+        assertEquals(1, pixel[1], 1e-9, "Wrong line");
+
+        // TC02: a point behind the camera
+        assertThrows(IllegalArgumentException.class, () -> camera.project(new Point3D(0, 0, -1), 3, 3));
+    }
 }
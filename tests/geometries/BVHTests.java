@@ -0,0 +1,145 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for geometries.BVH class
+ */
+class BVHTests {
+
+    /**
+     * Helper method : spheres and triangles of various sizes, and an unbounded plane.
+     * @return the objects.
+     */
+    private static List<Intersectable> objects() {
+        Random random = new Random(11);
+        List<Intersectable> objects = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Point3D center = new Point3D(random.nextDouble() * 60, random.nextDouble() * 60, random.nextDouble() * 60);
+            if (i % 2 == 0) {
+                objects.add(new Sphere(0.5 + random.nextDouble() * 3, center));
+            } else {
+                objects.add(new Triangle(center, center.add(new Vector(4, random.nextDouble(), 1)),
+                        center.add(new Vector(random.nextDouble(), 4, -1))));
+            }
+        }
+        objects.add(new Plane(new Point3D(0, 0, -5), new Vector(0, 0, 1)));
+        return objects;
+    }
+
+    /**
+     * Helper method : the sorted distances of the intersection points from the head of a ray.
+     * @param ray  the ray.
+     * @param list the intersection points (null if there is none).
+     * @return the distances.
+     */
+    private static double[] distances(Ray ray, List<Intersectable.GeoPoint> list) {
+        return list == null ? new double[0]
+                : list.stream().mapToDouble(gp -> gp._point.distance(ray.getP0())).sorted().toArray();
+    }
+
+    /**
+     * Helper method : to check that an accelerator finds the same intersections as the list of its objects.
+     * @param message     the message of the failure.
+     * @param objects     the list of the objects.
+     * @param accelerator the accelerator.
+     */
+    private static void assertSameIntersections(String message, Geometries objects, Intersectable accelerator) {
+        Random random = new Random(5);
+        for (int r = 0; r < 300; r++) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 60, random.nextDouble() * 60, 100),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            assertArrayEquals(distances(ray, objects.findGeoIntersections(ray)),
+                    distances(ray, accelerator.findGeoIntersections(ray)), 1e-9, message + " : ray " + r);
+        }
+        // rays along the axes, and from inside the hierarchy
+        for (Ray ray : List.of(new Ray(new Point3D(30, 30, 100), new Vector(0, 0, -1)),
+                new Ray(new Point3D(-10, 30, 30), new Vector(1, 0, 0)),
+                new Ray(new Point3D(30, 30, 30), new Vector(0.2, 1, 0.3)))) {
+            assertArrayEquals(distances(ray, objects.findGeoIntersections(ray)),
+                    distances(ray, accelerator.findGeoIntersections(ray)), 1e-9, message + " : " + ray);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        List<Intersectable> objects = objects();
+        Geometries list = new Geometries(objects.toArray(new Intersectable[0]));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the flat tree of each mode of build finds the same intersections as the list
+        for (BVH.Build build : BVH.Build.values()) {
+            BVH bvh = new BVH(objects, build);
+            assertTrue(bvh.getNodes() > 1, "The tree must have inner nodes");
+            assertSameIntersections(build.name(), list, bvh);
+        }
+
+        // TC02 : the compressed trees find the same intersections
+        for (int width : new int[]{4, 8}) {
+            for (int bits : new int[]{8, 16}) {
+                BVH bvh = new BVH(objects);
+                bvh.compress(width, bits);
+                assertEquals(width, bvh.getWidth(), "Wrong width of the compressed tree");
+                assertSameIntersections("compressed " + width + "x" + bits, list, bvh);
+            }
+        }
+
+        // TC03 : a group with its own hierarchy in a leaf (nested traversals)
+        Geometries group = new Geometries(objects().subList(0, 40).toArray(new Intersectable[0])).buildHierarchy();
+        List<Intersectable> nested = new ArrayList<>(objects.subList(40, 200));
+        nested.add(group);
+        Geometries nestedList = new Geometries(objects.subList(40, 200).toArray(new Intersectable[0]));
+        nestedList.add(objects.subList(0, 40).toArray(new Intersectable[0]));
+        assertSameIntersections("nested", nestedList, new BVH(nested));
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : an empty tree, and a tree of unbounded objects only
+        Ray ray = new Ray(new Point3D(30, 30, 100), new Vector(0, 0, -1));
+        assertNull(new BVH(List.of()).findGeoIntersections(ray), "No point in an empty tree");
+        assertEquals(1, new BVH(List.of(objects.get(200))).findGeoIntersections(ray).size(),
+                "The unbounded plane only");
+
+        // TC12 : a single object (the root is a leaf)
+        BVH single = new BVH(List.of(new Sphere(1, new Point3D(30, 30, 30))));
+        assertEquals(1, single.getNodes(), "The root must be a leaf");
+        assertEquals(2, single.findGeoIntersections(ray).size(), "Wrong number of points");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#refit()}.
+     */
+    @Test
+    void testRefit() {
+        List<Intersectable> objects = new ArrayList<>();
+        List<Instance> instances = new ArrayList<>();
+        for (Intersectable object : objects().subList(0, 100)) {
+            Instance instance = new Instance(object);
+            instances.add(instance);
+            objects.add(instance);
+        }
+        Geometries list = new Geometries(objects.toArray(new Intersectable[0]));
+        BVH bvh = new BVH(objects);
+        BVH compressed = new BVH(objects);
+        compressed.compress(4, 16);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the objects moved, the refitted trees find the intersections at the new places
+        for (int i = 0; i < instances.size(); i++) {
+            instances.get(i).setTransform(Transform.translation(i % 3 * 7 - 7, i % 5 * 3 - 6, i % 2 * 10));
+        }
+        bvh.refit();
+        compressed.refit();
+        assertSameIntersections("refitted", list, bvh);
+        assertSameIntersections("refitted compressed", list, compressed);
+    }
+}
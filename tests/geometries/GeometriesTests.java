@@ -67,4 +67,205 @@ class GeometriesTests {
     }
 
 
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Geometries#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        Sphere sphere = new Sphere(1, new Point3D(3, 0, 8));
+        Triangle triangle = new Triangle(
+                new Point3D(1, 0, 0), new Point3D(4, 4, 0), new Point3D(5, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : bounded geometries : union of their boxes
+        assertEquals(new BoundingBox(1, -1, 0, 5, 4, 9), new Geometries(sphere, triangle).getBoundingBox(),
+                "Wrong box of bounded geometries");
+
+        // TC02 : with an unbounded geometry
+        assertTrue(new Geometries(sphere, new Plane(new Point3D(0, 0, 10), new Vector(0, 0, 1)))
+                .getBoundingBox().isInfinite(), "Box of an unbounded geometry must be infinite");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : empty group
+        assertTrue(new Geometries().getBoundingBox().isEmpty(), "Box of an empty group must be empty");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildHierarchy()} and {@link geometries.Geometries#refit()}.
+     */
+    @Test
+    void testBuildHierarchy() {
+        Geometries geometries = new Geometries(new Plane(new Point3D(0, 0, -10), new Vector(0, 0, 1)));
+        Instance moving = new Instance(new Sphere(1, new Point3D(0, 0, 0)));
+        geometries.add(moving);
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                geometries.add(new Sphere(0.4, new Point3D(3 * i, 3 * j, 0)));
+            }
+        }
+        Ray[] rays = {
+                new Ray(new Point3D(3, 6, 5), new Vector(0, 0, -1)),
+                new Ray(new Point3D(-5, -5, 0), new Vector(1, 1, 0)),
+                new Ray(new Point3D(0.5, 0.5, 5), new Vector(0, 0, -1)),
+                new Ray(new Point3D(-1, 30, 0.1), new Vector(1, 0, 0))};
+        int[] expected = new int[rays.length];
+        for (int r = 0; r < rays.length; r++) {
+            List<Point3D> result = geometries.findIntersections(rays[r]);
+            expected[r] = result == null ? 0 : result.size();
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the hierarchy finds the same intersections as the list
+        geometries.buildHierarchy();
+        assertNotNull(geometries.getHierarchy(), "The hierarchy must be built");
+        for (int r = 0; r < rays.length; r++) {
+            List<Point3D> result = geometries.findIntersections(rays[r]);
+            assertEquals(expected[r], result == null ? 0 : result.size(), "Wrong number of points with the hierarchy");
+        }
+
+        // TC02 : after a move and a refit, the moved geometry is found at its new place
+        Ray ray = new Ray(new Point3D(100, 100, 5), new Vector(0, 0, -1));
+        assertEquals(1, geometries.findIntersections(ray).size(), "Only the plane before the move");
+        moving.setTransform(Transform.translation(100, 100, 0));
+        geometries.refit();
+        assertEquals(3, geometries.findIntersections(ray).size(), "The moved sphere must be found after refit");
+        assertEquals(1, geometries.findIntersections(rays[2]).size(), "The moved sphere must not be found anymore");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : adding a geometry drops the hierarchy
+        geometries.add(new Sphere(1, new Point3D(200, 200, 0)));
+        assertNull(geometries.getHierarchy(), "The hierarchy must be dropped");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildHierarchy(BVH.Build)}
+     * and {@link geometries.Geometries#buildHierarchy(BVH.Build, int, int)}.
+     */
+    @Test
+    void testBuildModes() {
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 30; j++) {
+                geometries.add(new Sphere(0.4, new Point3D(3 * i, 3 * j, (i * 7 + j * 13) % 5)));
+            }
+        }
+        // five spheres at the same place (the same centers and the same Morton codes)
+        for (int k = 0; k < 5; k++) {
+            geometries.add(new Sphere(0.1 * (k + 1), new Point3D(-10, -10, 0)));
+        }
+        Ray[] rays = {
+                new Ray(new Point3D(3, 6, 10), new Vector(0, 0, -1)),
+                new Ray(new Point3D(-5, -5, 0), new Vector(1, 1, 0)),
+                new Ray(new Point3D(-10, -10, 10), new Vector(0, 0, -1)),
+                new Ray(new Point3D(-1, 30, 0.1), new Vector(1, 0, 0.01))};
+        int[] expected = new int[rays.length];
+        for (int r = 0; r < rays.length; r++) {
+            List<Point3D> result = geometries.findIntersections(rays[r]);
+            expected[r] = result == null ? 0 : result.size();
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : each mode finds the same intersections as the list
+        for (BVH.Build build : BVH.Build.values()) {
+            geometries.buildHierarchy(build);
+            assertEquals(build, geometries.getHierarchy().getBuild(), "Wrong mode of the hierarchy");
+            for (int r = 0; r < rays.length; r++) {
+                List<Point3D> result = geometries.findIntersections(rays[r]);
+                assertEquals(expected[r], result == null ? 0 : result.size(),
+                        "Wrong number of points with the hierarchy " + build);
+            }
+        }
+
+        // TC02 : each compressed tree finds the same intersections, with less memory
+        long memory = geometries.buildHierarchy(BVH.Build.SAH).getHierarchy().getMemory();
+        int[][] compressions = {{4, 8}, {4, 16}, {8, 8}, {8, 16}};
+        for (int[] compression : compressions) {
+            geometries.buildHierarchy(BVH.Build.SAH, compression[0], compression[1]);
+            BVH hierarchy = geometries.getHierarchy();
+            assertEquals(compression[0], hierarchy.getWidth(), "Wrong width of the hierarchy");
+            assertEquals(compression[1], hierarchy.getBits(), "Wrong bits of the hierarchy");
+            assertTrue(hierarchy.getMemory() < memory, "A compressed tree must take less memory");
+            for (int r = 0; r < rays.length; r++) {
+                List<Point3D> result = geometries.findIntersections(rays[r]);
+                assertEquals(expected[r], result == null ? 0 : result.size(),
+                        "Wrong number of points with the compressed hierarchy " + hierarchy);
+            }
+        }
+
+        // TC03 : a compressed tree is refitted after a move
+        Instance moving = new Instance(new Sphere(1, new Point3D(0, 0, 0)));
+        geometries.add(moving);
+        geometries.buildHierarchy(BVH.Build.MEDIAN, 4, 8);
+        Ray ray = new Ray(new Point3D(500, 500, 5), new Vector(0, 0, -1));
+        assertNull(geometries.findIntersections(ray), "No sphere before the move");
+        moving.setTransform(Transform.translation(500, 500, 0));
+        geometries.refit();
+        assertEquals(2, geometries.findIntersections(ray).size(), "The moved sphere must be found after refit");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : the mode and the compression of the last build are kept by a rebuild
+        geometries.add(new Sphere(1, new Point3D(200, 200, 0)));
+        geometries.refit();
+        assertEquals(BVH.Build.MEDIAN, geometries.getHierarchy().getBuild(), "The mode must be kept");
+        assertEquals(4, geometries.getHierarchy().getWidth(), "The compression must be kept");
+
+        // TC12 : wrong compressions
+        assertThrows(IllegalArgumentException.class, () -> geometries.buildHierarchy(BVH.Build.SAH, 3, 8),
+                "The width must be 2, 4 or 8");
+        assertThrows(IllegalArgumentException.class, () -> geometries.buildHierarchy(BVH.Build.SAH, 4, 12),
+                "The bits must be 8 or 16");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildAccelerator(geometries.Accelerator.Kind)}
+     * with a subgroup holding an unbounded object.
+     */
+    @Test
+    void testUnboundedSubgroup() {
+        Geometries room = new Geometries(new Plane(new Point3D(0, 0, -1), new Vector(0, 0, 1)));
+        for (int i = 0; i < 10; i++) {
+            room.add(new Sphere(1, new Point3D(3 * i, 0, 0)));
+        }
+        Geometries geometries = new Geometries(room, new Sphere(1, new Point3D(0, 10, 0)));
+        Ray[] rays = {new Ray(new Point3D(3, 0, 5), new Vector(0, 0, -1)),
+                new Ray(new Point3D(0, 10, 5), new Vector(0, 0, -1)),
+                new Ray(new Point3D(100, 100, 5), new Vector(0, 0, -1))};
+        int[] expected = {3, 3, 1};
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the subgroup is merged : its plane is tested separately, its spheres are in the tree
+        for (Accelerator.Kind kind : Accelerator.Kind.values()) {
+            geometries.buildAccelerator(kind);
+            for (int r = 0; r < rays.length; r++) {
+                assertEquals(expected[r], geometries.findIntersections(rays[r]).size(),
+                        "Wrong number of points with the accelerator " + kind);
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a sphere added to the merged subgroup is found after refit
+        Ray ray = new Ray(new Point3D(50, 50, 5), new Vector(0, 0, -1));
+        room.add(new Sphere(1, new Point3D(50, 50, 0)));
+        geometries.refit();
+        assertEquals(3, geometries.findIntersections(ray).size(), "The added sphere must be found after refit");
+
+        // TC12 : a sphere added to (or removed from) the merged subgroup is found (or not) without refit
+        geometries.buildAccelerator(Accelerator.Kind.BVH);
+        Sphere added = new Sphere(1, new Point3D(-50, 50, 0));
+        Ray addedRay = new Ray(new Point3D(-50, 50, 5), new Vector(0, 0, -1));
+        room.add(added);
+        assertNull(geometries.getAccelerator(), "The accelerator must be dropped");
+        assertEquals(3, geometries.findIntersections(addedRay).size(), "The added sphere must be found");
+        geometries.buildAccelerator(Accelerator.Kind.BVH);
+        room.remove(added);
+        assertEquals(1, geometries.findIntersections(addedRay).size(), "The removed sphere must not be found");
+
+        // TC13 : a group nested in a merged subgroup drops the accelerators of both groups
+        Geometries corner = new Geometries(new Plane(new Point3D(0, 0, -2), new Vector(0, 0, 1)));
+        room.add(corner);
+        geometries.buildAccelerator(Accelerator.Kind.BVH);
+        corner.add(added);
+        assertEquals(4, geometries.findIntersections(addedRay).size(), "The sphere added to the nested group");
+    }
+}
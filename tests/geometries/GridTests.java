@@ -0,0 +1,103 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for geometries.Grid class
+ */
+class GridTests {
+
+    /**
+     * Helper method : spheres of the same size, spread evenly in a cube.
+     * @param count the number of spheres.
+     * @return the spheres.
+     */
+    private static List<Intersectable> bubbles(int count) {
+        Random random = new Random(7);
+        List<Intersectable> spheres = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            spheres.add(new Sphere(1, new Point3D(random.nextDouble() * 40, random.nextDouble() * 40,
+                    random.nextDouble() * 40)));
+        }
+        return spheres;
+    }
+
+    /**
+     * Test method for {@link geometries.Grid#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        List<Intersectable> objects = bubbles(300);
+        objects.add(new Sphere(15, new Point3D(20, 20, 20)));       // a sphere in many cells
+        objects.add(new Plane(new Point3D(0, 0, -10), new Vector(0, 0, 1)));
+        Geometries list = new Geometries(objects.toArray(new Intersectable[0]));
+        Grid grid = new Grid(objects);
+        Random random = new Random(3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the grid finds the same intersections as the list, each once
+        for (int r = 0; r < 200; r++) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 40, random.nextDouble() * 40, 60),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<Point3D> expected = list.findIntersections(ray);
+            List<Point3D> result = grid.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of points");
+        }
+
+        // TC02 : a ray starting inside the grid
+        Ray inside = new Ray(new Point3D(20, 20, 20), new Vector(1, 0.3, 0.2));
+        assertEquals(list.findIntersections(inside).size(), grid.findIntersections(inside).size(),
+                "Wrong number of points from inside");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a ray along an axis (parallel to the faces of the cells)
+        Ray axis = new Ray(new Point3D(20, 20, 60), new Vector(0, 0, -1));
+        assertEquals(list.findIntersections(axis).size(), grid.findIntersections(axis).size(),
+                "Wrong number of points along an axis");
+
+        // TC12 : a ray missing the grid finds the unbounded plane only
+        assertEquals(1, grid.findIntersections(new Ray(new Point3D(100, 100, 60), new Vector(0, 0, -1))).size(),
+                "Only the plane out of the grid");
+
+        // TC13 : an empty grid
+        assertNull(new Grid(List.of()).findGeoIntersections(axis), "No point in an empty grid");
+    }
+
+    /**
+     * Test method for {@link geometries.Grid#suits(java.util.List)}.
+     */
+    @Test
+    void testSuits() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : many spheres of the same size spread evenly
+        assertTrue(Grid.suits(bubbles(500)), "A grid suits evenly spread spheres");
+
+        // TC02 : spheres of very different sizes
+        List<Intersectable> sizes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sizes.add(new Sphere(i % 10 == 0 ? 100 : 0.1, new Point3D(i % 8 * 10, i / 8 % 8 * 10, i / 64 * 10)));
+        }
+        assertFalse(Grid.suits(sizes), "A grid does not suit objects of various sizes");
+
+        // TC03 : spheres gathered in two clusters far from each other
+        List<Intersectable> clusters = new ArrayList<>();
+        for (Intersectable sphere : bubbles(500)) {
+            Point3D center = ((Sphere) sphere).getCenter();
+            double shift = clusters.size() % 2 == 0 ? 0 : 10000;
+            clusters.add(new Sphere(1, center.add(new Vector(shift + 1e-3, 0, 0))));
+        }
+        assertFalse(Grid.suits(clusters), "A grid does not suit clustered objects");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : too few objects
+        assertFalse(Grid.suits(bubbles(10)), "A grid does not suit a few objects");
+    }
+}
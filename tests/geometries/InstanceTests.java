@@ -0,0 +1,82 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static primitives.Util.isZero;
+
+/**
+ * JUnit5 for geometries.Instance class
+ */
+class InstanceTests {
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Sphere sphere = new Sphere(1, new Point3D(0, 0, 0));
+        Instance instance = new Instance(sphere, Transform.scaling(2).then(Transform.translation(10, 0, 0)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the ray crosses the transformed sphere
+        List<Intersectable.GeoPoint> result = instance.findGeoIntersections(
+                new Ray(new Point3D(10, 0, -5), new Vector(0, 0, 1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertSame(instance, result.get(0)._geometry, "The geometry of the points must be the instance");
+        assertTrue(isZero(Math.abs(result.get(0)._point.getZ()) - 2), "Wrong point");
+
+        // TC02 : the ray crosses the sphere at its place in object space only
+        assertNull(instance.findGeoIntersections(new Ray(new Point3D(0, 0, -5), new Vector(0, 0, 1))),
+                "No point at the place of the sphere in object space");
+
+        // TC03 : the normal is the transformed normal
+        assertEquals(new Vector(-1, 0, 0), instance.getNormal(new Point3D(8, 0, 0)), "Wrong normal");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(primitives.Ray)} with a shared group.
+     */
+    @Test
+    void testSharedGroup() {
+        Triangle triangle = new Triangle(new Point3D(-1, -1, 0), new Point3D(1, -1, 0), new Point3D(0, 1, 0));
+        Geometries mesh = new Geometries(triangle);
+        Instance first = new Instance(mesh, Transform.translation(-5, 0, 0));
+        Instance second = new Instance(mesh, Transform.translation(5, 0, 0))
+                .setMaterial(new Material().setKr(0.5));
+        Geometries scene = new Geometries(first, second).buildHierarchy();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : each instance is found at its place, with the triangle hit in object space as local point
+        Ray ray = new Ray(new Point3D(5, 0, -1), new Vector(0, 0, 1));
+        List<Intersectable.GeoPoint> result = scene.findGeoIntersections(ray);
+        assertEquals(1, result.size(), "Wrong number of points");
+        Intersectable.GeoPoint gp = result.get(0);
+        assertEquals(new Point3D(5, 0, 0), gp._point, "Wrong point");
+        assertSame(second, gp._geometry, "The geometry of the point must be the instance");
+        assertSame(triangle, gp._local._geometry, "The geometry of the local point must be the triangle");
+        assertEquals(new Point3D(0, 0, 0), gp._local._point, "Wrong local point");
+        assertEquals(0.5, gp._geometry.getMaterialAt(gp)._kR, "The material of the instance must be used");
+
+        // TC02 : the group is shared, and has its own hierarchy
+        assertNotNull(mesh.getHierarchy(), "The hierarchy of the shared group must be built");
+        gp = scene.findGeoIntersections(new Ray(new Point3D(-5, 0, -1), new Vector(0, 0, 1))).get(0);
+        assertSame(first, gp._geometry, "The geometry of the point must be the instance");
+        assertEquals(0d, gp._geometry.getMaterialAt(gp)._kR, "The material of the triangle must be used");
+
+        // TC03 : the normal of a group, at an intersection point and at a point of a geometry of the group
+        Instance rotated = new Instance(mesh, Transform.rotation(new Vector(1, 0, 0), Math.PI / 2));
+        gp = rotated.findGeoIntersections(new Ray(new Point3D(0, -1, 0), new Vector(0, 1, 0))).get(0);
+        Vector normal = rotated.getNormalAt(gp);
+        assertTrue(isZero(Math.abs(normal.dotProduct(new Vector(0, 1, 0))) - 1), "Wrong normal at the point");
+        assertEquals(normal, rotated.getNormal(gp._point), "Wrong normal of the group");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a point out of the group has no normal
+        assertThrows(IllegalArgumentException.class, () -> rotated.getNormal(new Point3D(0, 3, 0)),
+                "A point out of the group has no normal");
+    }
+}
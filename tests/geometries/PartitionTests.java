@@ -0,0 +1,66 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for geometries.Partition class
+ */
+class PartitionTests {
+
+    /**
+     * Helper method : small spheres in a row.
+     * @param count the number of spheres.
+     * @return the spheres.
+     */
+    private static List<Intersectable> row(int count) {
+        List<Intersectable> spheres = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            spheres.add(new Sphere(1, new Point3D(3 * i, 0, 0)));
+        }
+        return spheres;
+    }
+
+    /**
+     * Test method for {@link geometries.Partition#Partition(java.util.List)}.
+     */
+    @Test
+    void testPartition() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : a plane, a tube and a huge backdrop are separated, the spheres are bounded tightly
+        List<Intersectable> objects = row(20);
+        Plane floor = new Plane(new Point3D(0, 0, -1), new Vector(0, 0, 1));
+        Tube tube = new Tube(new Ray(new Point3D(0, 5, 0), new Vector(1, 0, 0)), 1);
+        Triangle backdrop = new Triangle(new Point3D(-5000, 100, -5000), new Point3D(5000, 100, -5000),
+                new Point3D(0, 100, 5000));
+        objects.add(floor);
+        objects.add(tube);
+        objects.add(backdrop);
+        Partition partition = new Partition(objects);
+        assertEquals(20, partition._bounded.length, "Wrong number of bounded objects");
+        assertEquals(List.of(floor, tube, backdrop), List.of(partition._separate), "Wrong separate objects");
+        assertEquals(58, partition._box._maxX, 1e-10, "The box must be fitted to the spheres");
+        assertEquals(1, partition._box._maxY, 1e-10, "The box must be fitted to the spheres");
+
+        // TC02 : objects of similar sizes stay bounded
+        assertEquals(0, new Partition(row(20))._separate.length, "No separate object");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : too few objects to separate the huge ones
+        List<Intersectable> few = row(3);
+        few.add(backdrop);
+        assertEquals(4, new Partition(few)._bounded.length, "The backdrop stays bounded among a few objects");
+
+        // TC12 : at most MAX_OUTLIERS huge objects are separated
+        List<Intersectable> many = row(20);
+        for (int i = 0; i < 12; i++) {
+            many.add(new Sphere(1000 + i, new Point3D(0, 0, 0)));
+        }
+        assertEquals(8, new Partition(many)._separate.length, "Only the largest huge objects are separated");
+    }
+}
@@ -0,0 +1,103 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for geometries.SphereSet class
+ */
+class SphereSetTests {
+
+    /**
+     * Test method for {@link geometries.SphereSet#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Random random = new Random(11);
+        int count = 500;
+        double[] centers = new double[3 * count];
+        double[] radii = new double[count];
+        int[] materials = new int[count];
+        Geometries list = new Geometries();
+        for (int i = 0; i < count; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                centers[3 * i + axis] = random.nextDouble() * 40;
+            }
+            radii[i] = 0.5 + random.nextDouble();
+            materials[i] = i % 3;
+            list.add(new Sphere(radii[i], new Point3D(centers[3 * i], centers[3 * i + 1], centers[3 * i + 2])));
+        }
+        SphereSet set = new SphereSet(centers, radii, materials);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the set finds the same points as the spheres
+        for (int r = 0; r < 200; r++) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 40, random.nextDouble() * 40, 60),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<Point3D> expected = list.findIntersections(ray);
+            List<Point3D> result = set.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of points");
+        }
+
+        // TC02 : the points of a sphere have its member as geometry, with the normal of the sphere
+        SphereSet two = new SphereSet(new double[]{0, 0, 0, 10, 0, 0}, new double[]{1, 2}, new int[]{0, 1});
+        List<GeoPoint> points = two.findGeoIntersections(new Ray(new Point3D(10, 0, 5), new Vector(0, 0, -1)));
+        assertEquals(2, points.size(), "Wrong number of points");
+        assertSame(two.getMember(1), points.get(0)._geometry, "Wrong member");
+        assertEquals(new Point3D(10, 0, -2), points.get(0)._point, "Wrong point");
+        assertEquals(new Vector(0, 0, -1), points.get(0)._geometry.getNormal(points.get(0)._point),
+                "Wrong normal");
+
+        // TC03 : a ray starting inside a sphere
+        assertEquals(1, two.findGeoIntersections(new Ray(new Point3D(0, 0, 0), new Vector(0, 1, 0))).size(),
+                "One point from inside");
+
+        // TC04 : a member finds the points of its spheres only, and has the box of its spheres
+        Ray both = new Ray(new Point3D(-5, 0, 0), new Vector(1, 0, 0));
+        assertEquals(4, two.findGeoIntersections(both).size(), "Wrong number of points of the set");
+        List<Point3D> memberPoints = two.getMember(1).findIntersections(both);
+        assertEquals(List.of(new Point3D(12, 0, 0), new Point3D(8, 0, 0)), memberPoints, "Wrong points of the member");
+        assertEquals(new BoundingBox(-1, -1, -1, 1, 1, 1), two.getMember(0).getBoundingBox(),
+                "Wrong box of the member");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a ray tangent to a sphere
+        assertNull(two.findGeoIntersections(new Ray(new Point3D(0, 1, -5), new Vector(0, 0, 1))),
+                "No point for a tangent ray");
+
+        // TC12 : a point of another member has no normal in this member
+        assertThrows(IllegalArgumentException.class, () -> two.getMember(1).getNormal(new Point3D(0, 0, 1)),
+                "Not a point of the member");
+
+        // TC13 : an empty set
+        assertNull(new SphereSet(new double[0], new double[0]).findGeoIntersections(
+                new Ray(new Point3D(0, 0, 5), new Vector(0, 0, -1))), "No point in an empty set");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#SphereSet(double[], double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // =============== Boundary Values Tests ==================
+        // TC11 : the lengths of the arrays do not match
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(new double[3], new double[2]),
+                "Wrong length of the centers");
+        // TC12 : a radius 0
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(new double[3], new double[1]),
+                "Wrong radius");
+        // TC13 : a negative index of material
+        assertThrows(IllegalArgumentException.class,
+                () -> new SphereSet(new double[3], new double[]{1}, new int[]{-1}), "Wrong index of material");
+        // TC14 : an index of material with no sphere
+        assertThrows(IllegalArgumentException.class,
+                () -> new SphereSet(new double[6], new double[]{1, 1}, new int[]{0, 2}), "Unused index of material");
+    }
+}
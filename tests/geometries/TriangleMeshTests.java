@@ -0,0 +1,187 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for geometries.TriangleMesh class
+ */
+class TriangleMeshTests {
+
+    /**
+     * Helper method : a grid of n x n squares in the plane z = 0 (2 triangles per square, side 1).
+     * @param n      the number of squares on a side.
+     * @param bumped true to lift the vertices randomly (a terrain).
+     * @return the vertices and the triangles of the mesh.
+     */
+    private static Object[] terrain(int n, boolean bumped) {
+        Random random = new Random(5);
+        float[] vertices = new float[3 * (n + 1) * (n + 1)];
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                int v = 3 * (i * (n + 1) + j);
+                vertices[v] = i;
+                vertices[v + 1] = j;
+                vertices[v + 2] = bumped ? random.nextFloat() : 0;
+            }
+        }
+        int[] triangles = new int[6 * n * n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int a = i * (n + 1) + j, b = a + n + 1;
+                triangles[k++] = a;
+                triangles[k++] = b;
+                triangles[k++] = b + 1;
+                triangles[k++] = a;
+                triangles[k++] = b + 1;
+                triangles[k++] = a + 1;
+            }
+        }
+        return new Object[]{vertices, triangles};
+    }
+
+    /**
+     * Helper method : the same mesh as separate triangles.
+     * @param vertices  the vertices of the mesh.
+     * @param triangles the triangles of the mesh.
+     * @return the triangles as a group.
+     */
+    private static Geometries triangles(float[] vertices, int[] triangles) {
+        List<Intersectable> list = new ArrayList<>();
+        for (int t = 0; t < triangles.length; t += 3) {
+            Point3D[] points = new Point3D[3];
+            for (int k = 0; k < 3; k++) {
+                int v = 3 * triangles[t + k];
+                points[k] = new Point3D(vertices[v], vertices[v + 1], vertices[v + 2]);
+            }
+            list.add(new Triangle(points[0], points[1], points[2]));
+        }
+        return new Geometries(list.toArray(new Intersectable[0]));
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Object[] terrain = terrain(20, true);
+        TriangleMesh mesh = new TriangleMesh((float[]) terrain[0], (int[]) terrain[1]);
+        Geometries list = triangles((float[]) terrain[0], (int[]) terrain[1]);
+        Random random = new Random(3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the mesh finds the same points as its triangles
+        for (int r = 0; r < 200; r++) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 20, random.nextDouble() * 20, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            List<Point3D> expected = list.findIntersections(ray);
+            List<Point3D> result = mesh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "Wrong number of points");
+            if (expected != null) {
+                assertTrue(expected.get(0).distance(result.get(0)) < 1e-5, "Wrong point");
+            }
+        }
+
+        // TC02 : a ray missing the mesh
+        assertNull(mesh.findIntersections(new Ray(new Point3D(-5, -5, 10), new Vector(0, 0, -1))),
+                "No point out of the mesh");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a ray through a vertex shared by 6 triangles finds at least a point (no crack)
+        Object[] flat = terrain(4, false);
+        TriangleMesh plane = new TriangleMesh((float[]) flat[0], (int[]) flat[1]);
+        assertNotNull(plane.findIntersections(new Ray(new Point3D(2, 2, 1), new Vector(0, 0, -1))),
+                "A point on a vertex");
+
+        // TC12 : a ray through a diagonal edge
+        assertNotNull(plane.findIntersections(new Ray(new Point3D(1.5, 1.5, 1), new Vector(0, 0, -1))),
+                "A point on an edge");
+
+        // TC13 : a ray in the plane of the mesh
+        assertNull(plane.findIntersections(new Ray(new Point3D(-1, 1.5, 0), new Vector(1, 0, 0))),
+                "No point for a ray in the plane of the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(primitives.Point3D)}.
+     */
+    @Test
+    void testGetNormal() {
+        Object[] flat = terrain(4, false);
+        TriangleMesh plane = new TriangleMesh((float[]) flat[0], (int[]) flat[1]);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : a point inside a triangle
+        assertEquals(1, Math.abs(plane.getNormal(new Point3D(1.7, 1.2, 0)).getHead().getZ()), 1e-10,
+                "Wrong normal");
+
+        // TC02 : a point out of the mesh
+        assertThrows(IllegalArgumentException.class, () -> plane.getNormal(new Point3D(1.7, 1.2, 1)),
+                "A point out of the mesh has no normal");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a point on an edge
+        assertEquals(1, Math.abs(plane.getNormal(new Point3D(1.5, 1.5, 0)).getHead().getZ()), 1e-10,
+                "Wrong normal on an edge");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#write(java.nio.file.Path)}.
+     */
+    @Test
+    void testWrite() throws IOException {
+        Object[] terrain = terrain(10, true);
+        TriangleMesh mesh = new TriangleMesh((float[]) terrain[0], (int[]) terrain[1]);
+        Path path = Files.createTempFile("mesh", ".rtm");
+        try {
+            mesh.write(path);
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01 : the mapped mesh finds the same points as the mesh
+            try (TriangleMesh mapped = new TriangleMesh(path)) {
+                assertEquals(mesh.getTriangleCount(), mapped.getTriangleCount(), "Wrong number of triangles");
+                Random random = new Random(9);
+                for (int r = 0; r < 50; r++) {
+                    Ray ray = new Ray(new Point3D(random.nextDouble() * 10, random.nextDouble() * 10, 5),
+                            new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+                    List<Point3D> expected = mesh.findIntersections(ray);
+                    List<Point3D> result = mapped.findIntersections(ray);
+                    assertEquals(expected, result, "Wrong points of the mapped mesh");
+                }
+            }
+
+            // TC02 : a file which is not a mesh file
+            Files.write(path, new byte[64]);
+            assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(path), "Not a mesh file");
+
+            // TC03 : a truncated mesh file, whose sections cannot be mapped
+            mesh.write(path);
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+            assertThrows(UncheckedIOException.class, () -> new TriangleMesh(path), "Truncated mesh file");
+        } finally {
+            Files.delete(path);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : the lengths of the arrays are not multiples of 3
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new float[4], new int[3]),
+                "Wrong length of the vertices");
+        // TC12 : an index out of the vertices
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new float[9], new int[]{0, 1, 3}),
+                "Wrong index");
+    }
+}
@@ -8,6 +8,13 @@ import primitives.*;
 import renderer.*;
 import scene.Scene;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Test rendering a basic image
  *
@@ -239,5 +246,67 @@ public class LightsTests {
 
     }
 
+    /**
+     * Produce a picture of a sphere on a triangle lighted by area light sources (soft shadows).
+     */
+    @Test
+    public void sphereTriangleAreaLights() {
+        scene2._geometries.add(triangle1.setMaterial(new Material().setKd(0.6).setKs(0.2).setShininess(30)),
+                new Sphere(20, new Point3D(0, -20, -110)) //
+                        .setEmission(new Color(java.awt.Color.BLUE)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)));
+        scene2._lights.add(new RectangleLight(new Color(400, 250, 150), new Point3D(30, 30, -20),
+                new Vector(0, 0, -1), 40, 20) //
+                .setKl(0.0005).setKq(0.0001));
+        scene2._lights.add(new SphereLight(new Color(150, 150, 300), new Point3D(-60, 40, -60), 10) //
+                .setKl(0.0005).setKq(0.0001));
+
+        ImageWriter imageWriter = new ImageWriter("sphereTriangleAreaLights", 500, 500);
+        Render render = new Render()//
+                .setImageWriter(imageWriter) //
+                .setCamera(camera2) //
+                .setRayTracer(new BasicRayTracer(scene2).setAreaLightSamples(16));
+        render.renderImage();
+        render.writeToImage();
+    }
 
+    /**
+     * Produce a picture of a sphere and a triangle lighted by a spot light without size, with soft shadows :
+     * the square of the light source is the one seen under the angle of the soft shadows,
+     * so the penumbra is narrow, and the picture is almost the one with hard shadows (the baseline).
+     * @throws IOException if the pictures cannot be read.
+     */
+    @Test
+    public void sphereTriangleSoftShadowsDefault() throws IOException {
+        scene2._geometries.add(triangle1.setMaterial(new Material().setKd(0.6).setKs(0.2).setShininess(30)),
+                new Sphere(20, new Point3D(0, -20, -110)) //
+                        .setEmission(new Color(java.awt.Color.BLUE)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(30)));
+        scene2._lights.add(new SpotLight(new Color(500, 300, 300), new Point3D(40, 40, 115), new Vector(-1, -1, -4)) //
+                .setKl(0.0005).setKq(0.0001));
+
+        ImageWriter baseline = new ImageWriter("sphereTriangleHardShadows", 200, 200);
+        new Render().setImageWriter(baseline).setCamera(camera2).setWavefront() //
+                .setRayTracer(new BasicRayTracer(scene2)).renderImage();
+        ImageWriter imageWriter = new ImageWriter("sphereTriangleSoftShadowsDefault", 200, 200);
+        Render render = new Render()//
+                .setImageWriter(imageWriter) //
+                .setCamera(camera2) //
+                .setWavefront() //
+                .setRayTracer(new BasicRayTracer(scene2).setSoftShadows());
+        render.renderImage();
+        render.writeToImage();
+
+        BufferedImage hard = ImageIO.read(new ByteArrayInputStream(baseline.toPngBytes()));
+        BufferedImage soft = ImageIO.read(new ByteArrayInputStream(imageWriter.toPngBytes()));
+        int penumbra = 0;
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                if (hard.getRGB(x, y) != soft.getRGB(x, y)) {
+                    penumbra++;
+                }
+            }
+        }
+        assertTrue(penumbra < 200, "The penumbra of a light source without size must be narrow : " + penumbra);
+    }
 }
@@ -0,0 +1,74 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static primitives.Util.isZero;
+
+/**
+ * JUnit5 for primitives.Transform class
+ */
+class TransformTests {
+
+    /**
+     * Test method for {@link primitives.Transform#apply(primitives.Point3D)}.
+     */
+    @Test
+    void testApply() {
+        Point3D point = new Point3D(1, 2, 3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : translation
+        assertEquals(new Point3D(2, 4, 6), Transform.translation(new Vector(1, 2, 3)).apply(point),
+                "Wrong translated point");
+
+        // TC02 : rotation of a quarter of a turn around the Z axis
+        Point3D rotated = Transform.rotation(new Vector(0, 0, 1), Math.PI / 2).apply(point);
+        assertTrue(isZero(rotated.distance(new Point3D(-2, 1, 3))), "Wrong rotated point");
+
+        // TC03 : composition (scaling, then translation)
+        assertEquals(new Point3D(3, 5, 7),
+                Transform.scaling(2).then(Transform.translation(1, 1, 1)).apply(point), "Wrong composed transform");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : singular transform
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1),
+                "A singular transform must not be built");
+    }
+
+    /**
+     * Test method for {@link primitives.Transform#inverse()}.
+     */
+    @Test
+    void testInverse() {
+        Transform transform = Transform.rotation(new Vector(1, 1, 0), 0.7)
+                .then(Transform.scaling(2, 3, 4)).then(Transform.translation(5, -1, 2));
+        Point3D point = new Point3D(1, 2, 3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the inverse transform
+        assertTrue(isZero(transform.inverse().apply(transform.apply(point)).distance(point)), "Wrong inverse");
+
+        // TC02 : the inverse application
+        assertTrue(isZero(transform.applyInverse(transform.apply(point)).distance(point)), "Wrong inverse point");
+
+        // TC03 : the transformed normal stays orthogonal to the transformed vectors
+        Vector normal = new Vector(0, 0, 1);
+        Vector tangent = new Vector(1, 2, 0);
+        assertTrue(isZero(transform.applyToNormal(normal).dotProduct(transform.applyToVector(tangent))),
+                "The transformed normal must be orthogonal to the transformed surface");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a small uniform scaling is invertible
+        Transform small = Transform.scaling(1e-5);
+        assertEquals(new Point3D(1, 2, 3), small.applyInverse(small.apply(new Point3D(1, 2, 3))),
+                "Wrong inverse of a small scaling");
+
+        // TC12 : a flat transform is not invertible, whatever its scale
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1e6, 1e6, 0),
+                "A flat scaling must not be invertible");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Transform(new double[]{1e-4, 2e-4, 0, 2e-4, 4e-4, 0, 0, 0, 1e-4}, 0, 0, 0),
+                "A matrix with dependent rows must not be invertible");
+    }
+}
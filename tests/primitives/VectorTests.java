@@ -166,4 +166,23 @@ class VectorTests {
             out.println("Good : normalize() make a new vector with the values " +
                     "of the original vector after normalisation");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Vector#findOrthogonal()}
+     */
+    @Test
+    void testFindOrthogonal() {
+        // ============ EP Tests ============
+        // Test that the result is a unit vector orthogonal to this
+        Vector vr = v1.findOrthogonal();
+        assertTrue(isZero(vr.dotProduct(v1)), "findOrthogonal() result is not orthogonal to this");
+        assertEquals(1, vr.length(), 0.00001, "findOrthogonal() result is not normalized");
+
+        // ============ Boundary Values Tests ============
+        // Test vectors parallel to the axes (no coordinate z for the first one)
+        Vector v3 = new Vector(1, 0, 0);
+        assertTrue(isZero(v3.findOrthogonal().dotProduct(v3)), "findOrthogonal() wrong result for X axis");
+        Vector v4 = new Vector(0, 0, -2);
+        assertTrue(isZero(v4.findOrthogonal().dotProduct(v4)), "findOrthogonal() wrong result for Z axis");
+    }
+}
@@ -0,0 +1,195 @@
+package renderer;
+
+import elements.AmbientLight;
+import elements.DirectionalLight;
+import elements.PointLight;
+import elements.SpotLight;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for renderer.BasicRayTracer class
+ */
+class BasicRayTracerTests {
+
+    /**
+     * Test method for {@link renderer.BasicRayTracer#setManyLights(int)} :
+     * a point covered by only a part of the LightTree.
+     */
+    @Test
+    void testManyLights() {
+        Scene scene = new Scene("many lights");
+        scene._geometries.add(new Plane(Point3D.ZERO, new Vector(0, 0, 1))
+                .setMaterial(new Material().setKd(0.8)));
+        // the light sources influencing the point (0, 0, 0)
+        for (int i = 0; i < 4; i++) {
+            scene._lights.add(new PointLight(new Color(100, 100, 100), new Point3D(-50 + 2 * i, 0, 10))
+                    .setKl(0).setKq(0.0001));
+        }
+        // the light sources of the other leaf : their box contains the point, but none of their spheres
+        // of influence (radius 25 at a distance of 30), so the samples through that leaf find no light source
+        for (int i = 0; i < 4; i++) {
+            scene._lights.add(new PointLight(new Color(50, 50, 50),
+                    new Point3D(i < 2 ? -20 : 20, i % 2 == 0 ? -20 : 20, 10))
+                    .setKl(0).setKq((50 / 0.0005 - 1) / (25 * 25)));
+        }
+        Ray ray = new Ray(new Point3D(0, 0, 10), new Vector(0, 0, -1));
+
+        BasicRayTracer exact = new BasicRayTracer(scene);
+        exact.beginRender();
+        double expected = exact.traceRay(ray).r;
+        assertTrue(expected > 0, "The point must be lit");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the average of the estimations is the exact sum over all the light sources
+        BasicRayTracer sampled = new BasicRayTracer(scene).setManyLights(8);
+        sampled.beginRender();
+        int count = 4000;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += sampled.traceRay(ray).r;
+        }
+        assertEquals(expected, sum / count, 0.03 * expected, "The many-lights estimation must be unbiased");
+    }
+
+    /**
+     * Test method for {@link renderer.BasicRayTracer#setRayBudget(long)} :
+     * a ray between two parallel mirrors, bouncing from one to the other.
+     */
+    @Test
+    void testRayBudget() {
+        Scene scene = new Scene("mirrors");
+        scene._geometries.add(
+                new Plane(Point3D.ZERO, new Vector(0, 0, 1)).setEmission(new Color(10, 0, 0))
+                        .setMaterial(new Material().setKr(0.5)),
+                new Plane(new Point3D(0, 0, 10), new Vector(0, 0, 1)).setEmission(new Color(10, 0, 0))
+                        .setMaterial(new Material().setKr(0.5)));
+        Ray ray = new Ray(new Point3D(0, 0, 5), new Vector(0, 0, -1));
+        double unlimited = new BasicRayTracer(scene).traceRay(ray).r;
+        // the emission of the first point, and of the points of 3 secondary rays
+        double threeRays = 10 * (1 + 0.5 + 0.25 + 0.125);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the budget is shared evenly among the pixels, the last pixel has the share of the first one
+        BasicRayTracer tracer = new BasicRayTracer(scene).setRayBudget(12);
+        tracer.beginRender(4);
+        for (int pixel = 0; pixel < 4; pixel++) {
+            tracer.beginPixels(1);
+            assertEquals(threeRays, tracer.traceRay(ray).r, 1e-9, "Wrong share of the budget of the pixel " + pixel);
+        }
+        assertEquals(12, tracer.getMetrics().getSecondaryRays(), "The whole budget must be used");
+
+        // TC02 : the share of a tile of pixels
+        tracer.beginRender(4);
+        tracer.beginPixels(4);
+        assertEquals(unlimited, tracer.traceRay(ray).r, 1e-9, "The share of the tile is enough for one ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : without the number of pixels, the whole budget is the share of one pixel
+        tracer.beginRender();
+        assertEquals(unlimited, tracer.traceRay(ray).r, 1e-9, "The whole budget for one pixel");
+        assertTrue(unlimited > threeRays, "The ray must bounce more than 3 times");
+    }
+
+    /**
+     * Test method for {@link renderer.BasicRayTracer#traceBatch(RayBuffer, double[])} :
+     * a scene with shadows, reflection and refraction.
+     */
+    @Test
+    void testTraceBatch() {
+        Scene scene = new Scene("wavefront").setBackground(new Color(5, 10, 15))
+                .setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene._geometries.add(
+                new Plane(Point3D.ZERO, new Vector(0, 0, 1))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(20).setKr(0.4)),
+                new Sphere(20, new Point3D(0, 0, 30)).setEmission(new Color(20, 0, 40))
+                        .setMaterial(new Material().setKd(0.3).setKs(0.5).setShininess(50).setKt(0.6)),
+                new Triangle(new Point3D(-60, -60, 5), new Point3D(60, -60, 5), new Point3D(0, -20, 70))
+                        .setEmission(new Color(0, 30, 10))
+                        .setMaterial(new Material().setKd(0.6).setKr(0.3)));
+        scene._lights.add(new PointLight(new Color(500, 300, 200), new Point3D(40, 40, 100)).setKl(0.001));
+        scene._lights.add(new SpotLight(new Color(300, 500, 300), new Point3D(-50, 30, 80), new Vector(1, -0.5, -1)));
+        scene._lights.add(new DirectionalLight(new Color(100, 100, 150), new Vector(-1, 1, -2)));
+        BasicRayTracer tracer = new BasicRayTracer(scene);
+        tracer.beginRender();
+
+        RayBuffer rays = new RayBuffer();
+        Ray[] cameraRays = new Ray[400];
+        for (int i = 0; i < cameraRays.length; i++) {
+            cameraRays[i] = new Ray(new Point3D(0, 0, 200), new Vector(i % 20 * 8 - 76, i / 20 * 8 - 76, -200));
+            rays.addCameraRay(cameraRays[i], i, 1);
+        }
+        double[] colors = new double[3 * cameraRays.length];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the colors of the batch are the colors of the rays traced one by one
+        tracer.traceBatch(rays, colors);
+        for (int i = 0; i < cameraRays.length; i++) {
+            Color expected = tracer.traceRay(cameraRays[i]);
+            assertEquals(expected.r, colors[3 * i], 1e-9, "Wrong red of the ray " + i);
+            assertEquals(expected.g, colors[3 * i + 1], 1e-9, "Wrong green of the ray " + i);
+            assertEquals(expected.b, colors[3 * i + 2], 1e-9, "Wrong blue of the ray " + i);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : the weighted rays of a same pixel are added
+        rays.clear();
+        rays.addCameraRay(cameraRays[0], 0, 0.25);
+        rays.addCameraRay(cameraRays[210], 0, 0.75);
+        colors = new double[3];
+        tracer.traceBatch(rays, colors);
+        Color expected = tracer.traceRay(cameraRays[0]).scale(0.25).add(tracer.traceRay(cameraRays[210]).scale(0.75));
+        assertEquals(expected.r, colors[0], 1e-9, "Wrong weighted color of the pixel");
+    }
+
+    /**
+     * Test method for {@link renderer.BasicRayTracer#setSoftShadowsTolerance(double)} :
+     * a floor, a light source of edge 20 at the height 100, and the half of the space x < 0 covered
+     * at the height 50 (the penumbra is around x = 0).
+     */
+    @Test
+    void testSoftShadows() {
+        Scene scene = new Scene("penumbra");
+        scene._geometries.add(
+                new Plane(Point3D.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKd(1)),
+                new Triangle(new Point3D(0, -1000, 50), new Point3D(0, 1000, 50), new Point3D(-1000, 0, 50)));
+        scene._lights.add(new PointLight(new Color(100, 100, 100), new Point3D(0, 0, 100), 20).setKl(0).setKq(0));
+        BasicRayTracer hard = new BasicRayTracer(scene);
+        hard.beginRender();
+        BasicRayTracer soft = new BasicRayTracer(scene).setSoftShadows(9);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : a fully lit point costs 5 sample rays (the corners and the center of the square)
+        Ray lit = new Ray(new Point3D(60, 0, 10), new Vector(0, 0, -1));
+        soft.beginRender();
+        assertEquals(hard.traceRay(lit).r, soft.traceRay(lit).r, 1e-9, "Wrong color of a lit point");
+        assertEquals(5, soft.getMetrics().getShadowRays(), "Wrong number of sample rays of a lit point");
+
+        // TC02 : a point in the umbra costs 5 sample rays
+        soft.beginRender();
+        assertEquals(0, soft.traceRay(new Ray(new Point3D(-60, 0, 10), new Vector(0, 0, -1))).r, 1e-9,
+                "Wrong color of a point in the umbra");
+        assertEquals(5, soft.getMetrics().getShadowRays(), "Wrong number of sample rays of a point in the umbra");
+
+        // TC03 : a point in the penumbra is subdivided, and partly lit
+        Ray penumbra = new Ray(new Point3D(1, 0, 10), new Vector(0, 0, -1));
+        soft.beginRender();
+        double color = soft.traceRay(penumbra).r;
+        assertTrue(color > 0.2 * hard.traceRay(penumbra).r && color < 0.8 * hard.traceRay(penumbra).r,
+                "A point in the penumbra must be partly lit");
+        long rays = soft.getMetrics().getShadowRays();
+        assertTrue(rays > 5 && rays < 81, "The penumbra must be subdivided, but not fully sampled");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : with the maximal tolerance, the penumbra is interpolated from the first 5 sample rays
+        soft.setSoftShadowsTolerance(1).beginRender();
+        soft.traceRay(penumbra);
+        assertEquals(5, soft.getMetrics().getShadowRays(), "The penumbra must not be subdivided");
+    }
+}
@@ -3,6 +3,11 @@ package renderer;
 import org.junit.jupiter.api.Test;
 import primitives.Color;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -37,4 +42,35 @@ class ImageWriterTests {
 
         imageWriter.writeToImage();
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link renderer.ImageWriter#setParallelEncoding(int)}.
+     */
+    @Test
+    void testParallelEncoding() throws IOException {
+        int nX = 301;
+        int nY = 517;   // several bands, the last one incomplete
+        ImageWriter imageWriter = new ImageWriter("parallel", nX, nY);
+        for (int i = 0; i < nY; i++) {
+            for (int j = 0; j < nX; j++) {
+                imageWriter.writePixel(j, i, new Color((i * j) % 256, (i + 3 * j) % 256, (i ^ j) % 256));
+            }
+        }
+
+        for (int level : new int[]{0, 1, -1, 9}) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+                    imageWriter.setParallelEncoding(level).toPngBytes()));
+            assertEquals(nX, image.getWidth(), "wrong width at level " + level);
+            assertEquals(nY, image.getHeight(), "wrong height at level " + level);
+            for (int i = 0; i < nY; i++) {
+                for (int j = 0; j < nX; j++) {
+                    assertEquals(new Color((i * j) % 256, (i + 3 * j) % 256, (i ^ j) % 256).getColor().getRGB(),
+                            image.getRGB(j, i), "wrong pixel at level " + level);
+                }
+            }
+        }
+
+        // TC: wrong compression level
+        assertThrows(IllegalArgumentException.class, () -> imageWriter.setParallelEncoding(10));
+    }
+}
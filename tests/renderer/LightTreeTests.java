@@ -0,0 +1,90 @@
+package renderer;
+
+import elements.DirectionalLight;
+import elements.LightSource;
+import elements.PointLight;
+import elements.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for renderer.LightTree class
+ */
+class LightTreeTests {
+    /**
+     * The minimal intensity of the spheres of influence.
+     */
+    private static final double THRESHOLD = 0.01;
+
+    /**
+     * Test method for {@link renderer.LightTree#findLights(primitives.Point3D)}.
+     */
+    @Test
+    void testFindLights() {
+        Random random = new Random(5);
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            lights.add(new PointLight(new Color(50 + random.nextDouble() * 100, 20, 20),
+                    new Point3D(random.nextDouble() * 400, random.nextDouble() * 400, random.nextDouble() * 400))
+                    .setKl(0.01).setKq(0.005));
+        }
+        DirectionalLight sun = new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1));
+        lights.add(sun);
+        LightTree tree = new LightTree(lights, THRESHOLD);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the light sources found are the ones whose sphere of influence contains the point
+        for (int p = 0; p < 200; p++) {
+            Point3D point = new Point3D(random.nextDouble() * 400, random.nextDouble() * 400,
+                    random.nextDouble() * 400);
+            Set<LightSource> expected = new HashSet<>();
+            for (LightSource light : lights) {
+                if (light.getDistance(point) <= light.getCutoffDistance(THRESHOLD)) {
+                    expected.add(light);
+                }
+            }
+            assertEquals(expected, new HashSet<>(tree.findLights(point)), "Wrong light sources for " + point);
+        }
+
+        // TC02 : the global light source influences a point far from all the others
+        assertEquals(List.of(sun), tree.findLights(new Point3D(1e5, 1e5, 1e5)), "Only the global light source");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a light source too weak to influence any point is not in the tree
+        LightTree weak = new LightTree(List.of(new PointLight(new Color(0.001, 0, 0), Point3D.ZERO)), THRESHOLD);
+        assertTrue(weak.findLights(Point3D.ZERO).isEmpty(), "A too weak light source influences no point");
+    }
+
+    /**
+     * Test method for {@link elements.PointLight#getCutoffDistance(double)}
+     * and {@link elements.SpotLight#isInCone(primitives.Point3D)}.
+     */
+    @Test
+    void testCutoff() {
+        PointLight light = new PointLight(new Color(100, 50, 20), Point3D.ZERO).setKl(0.01).setKq(0.005);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : at the cutoff distance, the intensity is the threshold
+        double cutoff = light.getCutoffDistance(THRESHOLD);
+        assertEquals(THRESHOLD, light.getIntensity(new Point3D(cutoff, 0, 0)).r, 1e-9, "Wrong cutoff distance");
+
+        // TC02 : a spot light does not influence the points behind it
+        SpotLight spot = new SpotLight(new Color(100, 50, 20), Point3D.ZERO, new Vector(0, 0, -1));
+        assertTrue(spot.isInCone(new Point3D(1, 1, -1)), "A point in front of the spot");
+        assertFalse(spot.isInCone(new Point3D(1, 1, 1)), "A point behind the spot");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : without attenuation with distance, the light source influences the whole scene
+        assertEquals(Double.POSITIVE_INFINITY,
+                new PointLight(new Color(100, 50, 20), Point3D.ZERO).setKl(0).setKq(0).getCutoffDistance(THRESHOLD),
+                "No cutoff without attenuation");
+    }
+}
@@ -0,0 +1,118 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for renderer.MappedFrameBuffer class
+ */
+class MappedFrameBufferTests {
+
+    /**
+     * Test method for {@link renderer.MappedFrameBuffer#set(int, int, Color, int)}
+     * and {@link renderer.MappedFrameBuffer#accumulate(int, int, Color, int)}.
+     */
+    @Test
+    void testSetAccumulate() throws IOException {
+        Path path = Files.createTempFile("framebuffer", ".bin");
+        try (MappedFrameBuffer frameBuffer = new MappedFrameBuffer(path, 37, 21, 8)) {
+            // TC01: HDR color, not clamped
+            frameBuffer.set(36, 20, new Color(300, 20, 0.5), 4);
+            Color color = frameBuffer.getColor(36, 20);
+            assertEquals(300, color.r, 1e-4, "wrong red");
+            assertEquals(20, color.g, 1e-4, "wrong green");
+            assertEquals(0.5, color.b, 1e-4, "wrong blue");
+            assertEquals(4, frameBuffer.getSamples(36, 20), "wrong number of samples");
+
+            // TC02: average of the samples
+            frameBuffer.accumulate(36, 20, new Color(100, 20, 0.5), 4);
+            assertEquals(200, frameBuffer.getColor(36, 20).r, 1e-4, "wrong average");
+            assertEquals(8, frameBuffer.getSamples(36, 20), "wrong number of samples");
+
+            // TC03: a pixel not rendered
+            assertEquals(0, frameBuffer.getSamples(0, 0), "pixel not rendered has samples");
+
+            // TC04: row clamped to 8 bits
+            int[] rgb = new int[37];
+            frameBuffer.getRow(20, rgb);
+            assertEquals(new java.awt.Color(200, 20, 0).getRGB(), rgb[36], "wrong clamped pixel");
+
+            // TC05: pixel out of the framebuffer
+            assertThrows(IllegalArgumentException.class, () -> frameBuffer.getColor(37, 0));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.MappedFrameBuffer#MappedFrameBuffer(Path, int, int, int)} on an existing file.
+     */
+    @Test
+    void testReopen() throws IOException {
+        Path path = Files.createTempFile("framebuffer", ".bin");
+        try {
+            try (MappedFrameBuffer frameBuffer = new MappedFrameBuffer(path, 50, 40)) {
+                assertEquals(0, frameBuffer.getTag(), "tag of a new file");
+                frameBuffer.set(49, 39, new Color(1, 2, 3), 1);
+                frameBuffer.setTag(0x1234_5678_9ABCL);
+            }
+
+            // TC01: the pixels and the tag are kept
+            try (MappedFrameBuffer frameBuffer = new MappedFrameBuffer(path, 50, 40)) {
+                assertEquals(3, frameBuffer.getColor(49, 39).b, 1e-6, "pixel not kept");
+                assertEquals(1, frameBuffer.getSamples(49, 39), "samples not kept");
+                assertEquals(0x1234_5678_9ABCL, frameBuffer.getTag(), "tag not kept");
+            }
+
+            // TC02: other dimensions
+            assertThrows(IllegalArgumentException.class, () -> new MappedFrameBuffer(path, 40, 50));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.MappedFrameBuffer#MappedFrameBuffer(Path, int, int, int)}
+     * on a file which is not a framebuffer.
+     */
+    @Test
+    void testBadHeader() throws IOException {
+        Path path = Files.createTempFile("framebuffer", ".bin");
+        Path descriptors = Path.of("/proc/self/fd");
+        try {
+            Files.write(path, new byte[64]);
+            long open = Files.isDirectory(descriptors) ? countFiles(descriptors) : 0;
+
+            // TC01: the header is refused, and the file is closed
+            for (int i = 0; i < 50; i++) {
+                assertThrows(IllegalArgumentException.class, () -> new MappedFrameBuffer(path, 50, 40),
+                        "not a framebuffer");
+            }
+            if (Files.isDirectory(descriptors)) {
+                assertTrue(countFiles(descriptors) < open + 10, "the refused files must be closed");
+            }
+            assertEquals(64, Files.size(path), "a refused file must not be changed");
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Helper method : the number of files in a directory.
+     * @param directory the directory.
+     * @return the number of files.
+     * @throws IOException if the directory cannot be listed.
+     */
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
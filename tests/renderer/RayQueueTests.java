@@ -0,0 +1,61 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for renderer.RayQueue class
+ */
+class RayQueueTests {
+
+    /**
+     * Test method for {@link renderer.RayQueue#poll()}.
+     */
+    @Test
+    void testPoll() {
+        RayQueue queue = new RayQueue();
+        Ray[] rays = new Ray[3];
+        for (int i = 0; i < rays.length; i++) {
+            rays[i] = new Ray(new Point3D(i, 0, 0), new Vector(0, 0, 1));
+            queue.push(rays[i], 0.1 * i, 0.2 * i, 0.3 * i, i);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the entries in the order they were pushed, the rays themselves (no copy)
+        for (int i = 0; i < rays.length; i++) {
+            assertFalse(queue.isEmpty(), "The queue must not be empty");
+            assertSame(rays[i], queue.poll(), "Wrong ray of the entry " + i);
+            assertEquals(0.1 * i, queue.getK(), 1e-12, "Wrong k of the entry " + i);
+            assertEquals(0.2 * i, queue.getWeight(), 1e-12, "Wrong weight of the entry " + i);
+            assertEquals(0.3 * i, queue.getMissWeight(), 1e-12, "Wrong missWeight of the entry " + i);
+            assertEquals(i, queue.getLevel(), "Wrong level of the entry " + i);
+        }
+        assertTrue(queue.isEmpty(), "The queue must be empty");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : pushing and polling more entries than the initial capacity, with entries left at the head
+        Ray ray = new Ray(Point3D.ZERO, new Vector(1, 0, 0));
+        int next = 0;
+        for (int i = 0; i < 100; i++) {
+            queue.push(ray, 0, 0, 0, i);
+            if (i % 3 == 0) {
+                queue.poll();
+                assertEquals(next++, queue.getLevel(), "The queue must be FIFO");
+            }
+        }
+        while (!queue.isEmpty()) {
+            assertSame(ray, queue.poll(), "Wrong ray");
+            assertEquals(next++, queue.getLevel(), "The queue must be FIFO");
+        }
+        assertEquals(100, next, "All the entries must be polled");
+
+        // TC12 : a cleared queue is empty
+        queue.push(rays[2], 0.5, 1, 1, 7);
+        queue.clear();
+        assertTrue(queue.isEmpty(), "The cleared queue must be empty");
+    }
+}
@@ -8,6 +8,14 @@ import primitives.*;
 import scene.Scene;
 import xml.XMLParser;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 
 /**
  * Test rendering a basic image
@@ -113,7 +121,400 @@ public class RenderTests {
         render.writeToImage();
     }
 
+    /**
+     * The camera of the tests of the render modes.
+     */
+    private Camera modesCamera = new Camera(new Point3D(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0)) //
+            .setDistance(1000) //
+            .setViewPlaneSize(200, 150);
 
+    /**
+     * Helper method : a scene for the tests of the render modes, with shadows, reflection and refraction
+     * (and no random effect, so that two renders are the same).
+     * @return the scene.
+     */
+    private Scene modesScene() {
+        Scene scene = new Scene("Render modes scene") //
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.1)) //
+                .setBackground(new Color(10, 20, 30));
+        scene._geometries.add(
+                new Plane(new Point3D(0, 0, -200), new Vector(0, 0, 1)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.2).setShininess(20).setKr(0.3)),
+                new Sphere(40, new Point3D(-30, 0, -100)).setEmission(new Color(0, 0, 100)) //
+                        .setMaterial(new Material().setKd(0.4).setKs(0.4).setShininess(50).setKt(0.5)),
+                new Triangle(new Point3D(20, -60, -150), new Point3D(90, -40, -150), new Point3D(60, 50, -120)) //
+                        .setEmission(new Color(60, 20, 0)) //
+                        .setMaterial(new Material().setKd(0.6).setKr(0.2)));
+        scene._lights.add(new PointLight(new Color(600, 400, 300), new Point3D(100, 100, 100)).setKl(0.0005));
+        scene._lights.add(new SpotLight(new Color(300, 500, 300), new Point3D(-100, 50, 50), new Vector(1, -0.5, -2)));
+        return scene;
+    }
 
-}
+    /**
+     * Helper method : the pixels of an image.
+     * @param imageWriter the image.
+     * @return the packed RGB values of the pixels, row after row.
+     */
+    private static int[] pixels(ImageWriter imageWriter) {
+        int nX = imageWriter.getNx();
+        int[] pixels = new int[nX * imageWriter.getNy()];
+        int[] row = new int[nX];
+        for (int y = 0; y < imageWriter.getNy(); y++) {
+            imageWriter.getRow(y, row);
+            System.arraycopy(row, 0, pixels, y * nX, nX);
+        }
+        return pixels;
+    }
+
+    /**
+     * Helper method : to render the scene of the render modes in wavefront mode.
+     * @param scene the scene.
+     * @return the image.
+     */
+    private ImageWriter renderWavefront(Scene scene) {
+        ImageWriter imageWriter = new ImageWriter("render modes", 80, 60);
+        new Render().setImageWriter(imageWriter).setCamera(modesCamera).setRayTracer(new BasicRayTracer(scene)) //
+                .setWavefront(16).renderImage();
+        return imageWriter;
+    }
+
+    /**
+     * Test method for {@link renderer.Render#setVirtualThreads(boolean)}.
+     */
+    @Test
+    public void testVirtualThreads() {
+        Scene scene = modesScene();
+        int[] expected = pixels(renderWavefront(scene));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the tiles shared by several tasks
+        ImageWriter imageWriter = new ImageWriter("virtual threads", 80, 60);
+        new Render().setImageWriter(imageWriter).setCamera(modesCamera).setRayTracer(new BasicRayTracer(scene)) //
+                .setWavefront(16).setVirtualThreads(true).renderImage();
+        assertArrayEquals(expected, pixels(imageWriter), "The tasks must render the whole image");
+
+        // TC02 : the tiles traced on the calling thread
+        imageWriter = new ImageWriter("virtual threads", 80, 60);
+        new Render().setImageWriter(imageWriter).setCamera(modesCamera).setRayTracer(new BasicRayTracer(scene)) //
+                .setWavefront(16).setVirtualThreads(false).renderImage();
+        assertArrayEquals(expected, pixels(imageWriter), "The calling thread must render the whole image");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : all the permits held by another render : the render waits for one
+        int permits = VirtualThreads.CPU_PERMITS.availablePermits();
+        VirtualThreads.CPU_PERMITS.acquireUninterruptibly(permits);
+        Thread release = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            VirtualThreads.CPU_PERMITS.release(permits);
+        });
+        release.start();
+        imageWriter = new ImageWriter("virtual threads", 80, 60);
+        new Render().setImageWriter(imageWriter).setCamera(modesCamera).setRayTracer(new BasicRayTracer(scene)) //
+                .setWavefront(16).setVirtualThreads(true).renderImage();
+        assertArrayEquals(expected, pixels(imageWriter), "The render must wait for a permit");
+        assertEquals(permits, VirtualThreads.CPU_PERMITS.availablePermits(), "The permits must be released");
+    }
+
+    /**
+     * Class Tripwire, a geometry never hit, which interrupts the render (throws) after a number of rays.
+     */
+    private static class Tripwire extends Geometry {
+        private final AtomicLong _rays = new AtomicLong();
+        private volatile long _limit = Long.MAX_VALUE;
+
+        @Override
+        public Vector getNormal(Point3D point) {
+            return null;
+        }
+
+        @Override
+        public List<GeoPoint> findGeoIntersections(Ray ray) {
+            if (_rays.incrementAndGet() > _limit) {
+                throw new IllegalStateException("render interrupted");
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Render#setCheckpoint(Path, String, long)} :
+     * a render interrupted, then resumed.
+     * @throws IOException if the temporary files cannot be made.
+     */
+    @Test
+    public void testCheckpoint() throws IOException {
+        Scene scene = modesScene();
+        Tripwire tripwire = new Tripwire();
+        scene._geometries.add(tripwire);
+        int[] expected = pixels(renderWavefront(scene));
+        long fullRays = tripwire._rays.get();
+        Path directory = Files.createTempDirectory("checkpoint");
+        Path checkpoint = directory.resolve("render.ckpt");
+        Path file = directory.resolve("render.fb");
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01 : the image in the heap, interrupted in the middle of the render
+            ImageWriter imageWriter = new ImageWriter("checkpoint", 80, 60);
+            Render render = new Render().setImageWriter(imageWriter).setCamera(modesCamera) //
+                    .setRayTracer(new BasicRayTracer(scene)).setWavefront(16).setCheckpoint(checkpoint, "scene");
+            tripwire._rays.set(0);
+            tripwire._limit = fullRays / 2;
+            assertThrows(IllegalStateException.class, render::renderImage, "The render must be interrupted");
+            assertTrue(Files.exists(checkpoint), "The interrupted render must leave a checkpoint");
+            tripwire._rays.set(0);
+            tripwire._limit = Long.MAX_VALUE;
+            imageWriter = new ImageWriter("checkpoint", 80, 60);
+            render.setImageWriter(imageWriter).renderImage();
+            assertArrayEquals(expected, pixels(imageWriter), "The resumed render must be the whole render");
+            assertTrue(tripwire._rays.get() < fullRays, "The completed tiles must not be rendered again");
+            assertFalse(Files.exists(checkpoint), "The finished render must delete its checkpoint");
+
+            // TC02 : the image in a framebuffer file, interrupted then resumed
+            MappedFrameBuffer frameBuffer = new MappedFrameBuffer(file, 80, 60);
+            imageWriter = new ImageWriter("checkpoint", frameBuffer);
+            render.setImageWriter(imageWriter);
+            tripwire._limit = Long.MAX_VALUE;
+            render.renderImage();
+            int[] expectedFile = pixels(imageWriter);
+            frameBuffer.close();
+            Files.delete(file);
+
+            frameBuffer = new MappedFrameBuffer(file, 80, 60);
+            render.setImageWriter(new ImageWriter("checkpoint", frameBuffer));
+            tripwire._rays.set(0);
+            tripwire._limit = fullRays / 2;
+            assertThrows(IllegalStateException.class, render::renderImage, "The render must be interrupted");
+            frameBuffer.close();
+            frameBuffer = new MappedFrameBuffer(file, 80, 60);
+            imageWriter = new ImageWriter("checkpoint", frameBuffer);
+            tripwire._rays.set(0);
+            tripwire._limit = Long.MAX_VALUE;
+            render.setImageWriter(imageWriter).renderImage();
+            assertArrayEquals(expectedFile, pixels(imageWriter), "The resumed render must be the whole render");
+            assertTrue(tripwire._rays.get() < fullRays, "The completed tiles must not be rendered again");
+            frameBuffer.close();
+
+            // =============== Boundary Values Tests ==================
+            // TC11 : the framebuffer file recreated after the interruption : the render starts from the beginning
+            Files.delete(file);
+            frameBuffer = new MappedFrameBuffer(file, 80, 60);
+            render.setImageWriter(new ImageWriter("checkpoint", frameBuffer));
+            tripwire._rays.set(0);
+            tripwire._limit = fullRays / 2;
+            assertThrows(IllegalStateException.class, render::renderImage, "The render must be interrupted");
+            frameBuffer.close();
+            Files.delete(file);
+            frameBuffer = new MappedFrameBuffer(file, 80, 60);
+            imageWriter = new ImageWriter("checkpoint", frameBuffer);
+            tripwire._rays.set(0);
+            tripwire._limit = Long.MAX_VALUE;
+            render.setImageWriter(imageWriter).renderImage();
+            assertArrayEquals(expectedFile, pixels(imageWriter), "The tiles of the lost framebuffer must be rendered");
+            assertEquals(fullRays, tripwire._rays.get(), "The whole image must be rendered again");
+            frameBuffer.close();
+
+            // TC12 : a checkpoint of another scene is not resumed
+            render.setImageWriter(new ImageWriter("checkpoint", 80, 60));
+            tripwire._rays.set(0);
+            tripwire._limit = fullRays / 2;
+            assertThrows(IllegalStateException.class, render::renderImage, "The render must be interrupted");
+            imageWriter = new ImageWriter("checkpoint", 80, 60);
+            tripwire._rays.set(0);
+            tripwire._limit = Long.MAX_VALUE;
+            render.setCheckpoint(checkpoint, "another scene").setImageWriter(imageWriter).renderImage();
+            assertArrayEquals(expected, pixels(imageWriter), "The render must start from the beginning");
+            assertEquals(fullRays, tripwire._rays.get(), "The whole image must be rendered again");
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Render#setCropWindow(int, int, int, int)}.
+     */
+    @Test
+    public void testCropWindow() {
+        Scene scene = modesScene();
+        int[] expected = pixels(renderWavefront(scene));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : a window not aligned on the tiles, by one thread and by several threads
+        for (int threads : new int[]{0, 3}) {
+            ImageWriter imageWriter = new ImageWriter("crop", 80, 60);
+            Render render = new Render().setImageWriter(imageWriter).setCamera(modesCamera) //
+                    .setRayTracer(new BasicRayTracer(scene)).setWavefront(16).setCropWindow(21, 13, 37, 29);
+            if (threads > 0) {
+                render.setMultithreading(threads);
+            }
+            render.renderImage();
+            int[] crop = pixels(imageWriter);
+            for (int y = 0; y < 60; y++) {
+                for (int x = 0; x < 80; x++) {
+                    boolean inside = x >= 21 && x < 58 && y >= 13 && y < 42;
+                    assertEquals(inside ? expected[y * 80 + x] : 0xFF000000, crop[y * 80 + x],
+                            "Wrong pixel (" + x + ", " + y + ") of the crop window");
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : the window of the whole image
+        ImageWriter imageWriter = new ImageWriter("crop", 80, 60);
+        new Render().setImageWriter(imageWriter).setCamera(modesCamera).setRayTracer(new BasicRayTracer(scene)) //
+                .setWavefront(16).setCropWindow(0, 0, 80, 60).renderImage();
+        assertArrayEquals(expected, pixels(imageWriter), "The window of the whole image");
+
+        // TC12 : a window out of the image
+        Render render = new Render().setImageWriter(new ImageWriter("crop", 80, 60)).setCamera(modesCamera) //
+                .setRayTracer(new BasicRayTracer(scene)).setWavefront(16).setCropWindow(70, 0, 11, 10);
+        assertThrows(IllegalArgumentException.class, render::renderImage, "The window must be inside the image");
+    }
+
+    /**
+     * Test method for {@link renderer.Render#renderDirty()} : an object moved after a render.
+     */
+    @Test
+    public void testRenderDirty() {
+        // no reflective nor transparent geometry : the changes are bounded around the ball and its shadow
+        Scene scene = new Scene("Dirty scene") //
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.1)) //
+                .setBackground(new Color(10, 20, 30));
+        scene.addGeometry(new Plane(new Point3D(0, 0, -200), new Vector(0, 0, 1)) //
+                        .setMaterial(new Material().setKd(0.5).setKs(0.2).setShininess(20)),
+                new Triangle(new Point3D(20, -60, -150), new Point3D(90, -40, -150), new Point3D(60, 50, -120)) //
+                        .setEmission(new Color(60, 20, 0)).setMaterial(new Material().setKd(0.6)));
+        scene.addLight(new PointLight(new Color(600, 400, 300), new Point3D(-100, -100, 800)).setKl(0.0005));
+        Sphere ball = new Sphere(10, new Point3D(50, 40, -60));
+        ball.setEmission(new Color(100, 0, 0)).setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(30));
+        scene.addGeometry(ball);
+        ImageWriter imageWriter = new ImageWriter("dirty", 80, 60);
+        Render render = new Render().setImageWriter(imageWriter).setCamera(modesCamera) //
+                .setRayTracer(new BasicRayTracer(scene)).setWavefront(16);
+        render.renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : only the tiles changed by the move are rendered again, the image is the one of a full render
+        Sphere moved = new Sphere(10, new Point3D(70, 45, -60));
+        moved.setEmission(new Color(100, 0, 0)).setMaterial(new Material().setKd(0.5).setKs(0.3).setShininess(30));
+        scene.replaceGeometry(ball, moved);
+        int tiles = render.renderDirty();
+        assertTrue(tiles > 0 && tiles < 20, "Wrong number of tiles rendered again : " + tiles);
+        assertArrayEquals(pixels(renderWavefront(scene)), pixels(imageWriter), "The image must be the full render");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : no edit, no tile rendered
+        assertEquals(0, render.renderDirty(), "No tile must be rendered without edit");
+    }
+
+    /**
+     * Test method for {@link renderer.Render#renderDirty()} with a reflective set of spheres :
+     * a ball added out of the mirror spheres, but seen in them.
+     */
+    @Test
+    public void testRenderDirtySphereSet() {
+        Scene scene = new Scene("Dirty sphere set") //
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.1)) //
+                .setBackground(new Color(10, 20, 30));
+        SphereSet mirrors = new SphereSet(new double[]{-40, 0, -100, -60, 40, -100}, new double[]{25, 15});
+        mirrors.getMember(0).setEmission(new Color(0, 0, 30)).setMaterial(new Material().setKd(0.2).setKr(0.7));
+        scene.addGeometry(mirrors);
+        scene.addLight(new PointLight(new Color(600, 400, 300), new Point3D(-100, -100, 800)).setKl(0.0005));
+        ImageWriter imageWriter = new ImageWriter("dirty sphere set", 80, 60);
+        Render render = new Render().setImageWriter(imageWriter).setCamera(modesCamera) //
+                .setRayTracer(new BasicRayTracer(scene)).setWavefront(16);
+        render.renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the reflection of the added ball in the mirror spheres is rendered again
+        Sphere ball = new Sphere(15, new Point3D(50, 0, -100));
+        ball.setEmission(new Color(150, 80, 0)).setMaterial(new Material().setKd(0.5));
+        scene.addGeometry(ball);
+        render.renderDirty();
+        assertArrayEquals(pixels(renderWavefront(scene)), pixels(imageWriter), "The image must be the full render");
+    }
+
+    /**
+     * Test method for {@link renderer.SequenceRenderer#render(int, SequenceRenderer.FrameSource)} :
+     * the settings of the Render after a sequence.
+     */
+    @Test
+    public void testSequenceSettings() {
+        Render render = new Render().setImageWriter(new ImageWriter("sequence", 80, 60)).setCamera(modesCamera) //
+                .setRayTracer(new BasicRayTracer(modesScene()));
 
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : the Render goes back to the mode it had before the sequence
+        new SequenceRenderer(render, "sequence", 80, 60).render(0, index -> new SequenceRenderer.Frame());
+        assertEquals(0, render.getTileSize(), "The Render must not stay in wavefront mode");
+
+        // TC02 : the tile size set before the sequence is kept
+        render.setWavefront(8);
+        new SequenceRenderer(render, "sequence", 80, 60).render(0, index -> new SequenceRenderer.Frame());
+        assertEquals(8, render.getTileSize(), "The tile size must be kept");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : the threads shut down twice (the tile size is restored once)
+        render.setWavefront(0);
+        render.keepThreads(true);
+        assertEquals(16, render.getTileSize(), "The sequence must be rendered in wavefront mode");
+        render.keepThreads(false);
+        render.setWavefront(4);
+        render.keepThreads(false);
+        assertEquals(4, render.getTileSize(), "The tile size must be restored once");
+    }
+
+    /**
+     * Test method for {@link renderer.Render#setTemporalReuse(int)} :
+     * a ball in front of a triangle, lit by the ambient light only (no shadow moves with the ball).
+     */
+    @Test
+    public void testTemporalReuse() {
+        Scene scene = new Scene("Temporal scene") //
+                .setAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.1)) //
+                .setBackground(new Color(10, 20, 30));
+        scene._geometries.add(new Triangle(new Point3D(-150, -100, -150), new Point3D(150, -100, -150),
+                new Point3D(0, 150, -150)).setEmission(new Color(60, 20, 0)).setMaterial(new Material().setKd(0.6)));
+        Sphere ball = new Sphere(15, new Point3D(-20, 0, -60));
+        ball.setEmission(new Color(100, 0, 0));
+        scene._geometries.add(ball);
+        ImageWriter imageWriter = new ImageWriter("temporal", 80, 60);
+        Render render = new Render().setImageWriter(imageWriter).setCamera(modesCamera) //
+                .setRayTracer(new BasicRayTracer(scene)).setTemporalReuse();
+        render.renderImage();
+        assertEquals(0, render.getMetrics().getReusedPixels(), "The first render has no history");
+        int[] first = pixels(imageWriter);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : with a static camera, the pixels inside the geometries are reused, the image is the same
+        render.renderImage();
+        long reused = render.getMetrics().getReusedPixels();
+        assertTrue(reused > 0, "The history must be reused with a static camera");
+        assertArrayEquals(first, pixels(imageWriter), "The image must be the same with a static camera");
+
+        // TC02 : the moved ball (not recorded as an edit of the scene) rejects the history of its pixels,
+        // the others are still reused
+        Sphere moved = new Sphere(15, new Point3D(20, 10, -60));
+        moved.setEmission(new Color(100, 0, 0));
+        scene._geometries.remove(ball);
+        scene._geometries.add(moved);
+        render.renderImage();
+        assertTrue(render.getMetrics().getReusedPixels() > 0, "The pixels far from the ball must be reused");
+        assertTrue(render.getMetrics().getReusedPixels() < reused, "The pixels of the ball must not be reused");
+        assertArrayEquals(pixels(renderWavefront(scene)), pixels(imageWriter), "The image must be the full render");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a color is reused for maxAge frames only
+        render.setTemporalReuse(1);
+        render.renderImage();
+        render.renderImage();
+        assertTrue(render.getMetrics().getReusedPixels() > 0, "The colors of the first frame must be reused");
+        render.renderImage();
+        assertEquals(0, render.getMetrics().getReusedPixels(), "The colors reused once must not be reused again");
+    }
+}
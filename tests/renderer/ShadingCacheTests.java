@@ -0,0 +1,74 @@
+package renderer;
+
+import elements.LightSource;
+import elements.PointLight;
+import geometries.Geometry;
+import geometries.Plane;
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point3D;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for renderer.ShadingCache class
+ */
+class ShadingCacheTests {
+
+    /**
+     * Test method for {@link renderer.ShadingCache#lookup(Geometry, LightSource, Point3D, Vector)} :
+     * a cell of edge 10 of a plane, with 4 values at the corners of the square [2,6]x[2,6].
+     */
+    @Test
+    void testLookup() {
+        Vector n = new Vector(0, 0, 1);
+        Geometry plane = new Plane(Point3D.ZERO, n);
+        LightSource light = new PointLight(new Color(100, 100, 100), new Point3D(0, 0, 50));
+        ShadingCache cache = new ShadingCache(10, 0.05, 4);
+        double[] values = {0.5, 0.52, 0.51, 0.53};
+        for (int i = 0; i < 4; i++) {
+            Point3D point = new Point3D(2 + i % 2 * 4, 2 + i / 2 * 4, 0);
+            assertTrue(Double.isNaN(cache.lookup(plane, light, point, n)), "The cell is not full yet");
+            cache.store(plane, light, point, n, values[i]);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01 : a point surrounded by the values is interpolated, within their range, always the same
+        double ktr = cache.lookup(plane, light, new Point3D(3, 5, 0), n);
+        assertTrue(ktr >= 0.5 && ktr <= 0.53, "The interpolation must be within the values");
+        assertEquals(ktr, cache.lookup(plane, light, new Point3D(3, 5, 0), n), "The lookup must be deterministic");
+
+        // TC02 : a point of the cell out of the values is calculated (no extrapolation)
+        assertTrue(Double.isNaN(cache.lookup(plane, light, new Point3D(8, 5, 0), n)),
+                "A point out of the values must not be interpolated");
+
+        // TC03 : the calculated point extends the values of the cell
+        cache.store(plane, light, new Point3D(8, 5, 0), n, 0.52);
+        assertFalse(Double.isNaN(cache.lookup(plane, light, new Point3D(7, 5, 0), n)),
+                "The values must be extended by the calculated point");
+
+        // TC04 : a shadow edge seen in the cell : no more interpolation
+        cache.store(plane, light, new Point3D(8, 8, 0), n, 0);
+        assertTrue(Double.isNaN(cache.lookup(plane, light, new Point3D(3, 5, 0), n)),
+                "A cell with a penumbra must not be interpolated");
+
+        // =============== Boundary Values Tests ==================
+        // TC11 : a point on the boundary of the values, and a value itself
+        ShadingCache edge = new ShadingCache(10, 0.05, 4);
+        for (int i = 0; i < 4; i++) {
+            edge.store(plane, light, new Point3D(2 + i % 2 * 4, 2 + i / 2 * 4, 0), n, values[i]);
+        }
+        assertFalse(Double.isNaN(edge.lookup(plane, light, new Point3D(6, 4, 0), n)),
+                "A point on the boundary of the values must be interpolated");
+        assertEquals(0.52, edge.lookup(plane, light, new Point3D(6, 2, 0), n), "The value at its own point");
+
+        // TC12 : values differing by the tolerance exactly are interpolated
+        ShadingCache range = new ShadingCache(10, 0.5, 4);
+        for (int i = 0; i < 4; i++) {
+            range.store(plane, light, new Point3D(2 + i % 2 * 4, 2 + i / 2 * 4, 0), n, i % 2 * 0.5);
+        }
+        assertEquals(0.25, range.lookup(plane, light, new Point3D(4, 4, 0), n), 1e-12,
+                "Wrong interpolation at the center");
+    }
+}
@@ -0,0 +1,120 @@
+package server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit5 for server.RenderServer class (on localhost)
+ */
+class RenderServerTests {
+    private static final String JOB = "<render-job priority=\"1\" width=\"40\" height=\"30\">"
+            + "<camera position=\"0 0 1000\" to=\"0 0 -1\" up=\"0 1 0\" distance=\"1000\" view-plane=\"200 150\"/>"
+            + "<scene background-color=\"0 0 0\">"
+            + "<ambient-light color=\"20 20 20\"/>"
+            + "<geometries><sphere center=\"0 0 -100\" radius=\"50\" emission=\"0 0 200\" kd=\"0.5\" ks=\"0.5\""
+            + " shininess=\"100\"/></geometries>"
+            + "<lights><point-light color=\"500 300 0\" position=\"-50 -50 50\" kl=\"0.00001\" kq=\"0.000001\"/>"
+            + "</lights>"
+            + "</scene></render-job>";
+
+    private RenderServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new RenderServer(0, 2, 4).start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * To post a body to /render.
+     * @param body the body.
+     * @return the connection, with the response.
+     */
+    private HttpURLConnection post(String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + "/render");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+
+    /**
+     * Test method for the request POST /render, and for the cache of the images.
+     */
+    @Test
+    void testRender() throws IOException {
+        // ============ EP Tests ============
+        // Test that a valid job returns a png image of the right size, rendered
+        HttpURLConnection connection = post(JOB);
+        assertEquals(200, connection.getResponseCode(), "ERROR : wrong status for a valid job");
+        assertEquals("image/png", connection.getContentType(), "ERROR : wrong content type");
+        assertEquals("MISS", connection.getHeaderField("X-Cache"), "ERROR : first render comes from the cache");
+        byte[] png;
+        try (InputStream in = connection.getInputStream()) {
+            png = in.readAllBytes();
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(40, image.getWidth(), "ERROR : wrong width");
+        assertEquals(30, image.getHeight(), "ERROR : wrong height");
+        assertNotEquals(0, image.getRGB(20, 15) & 0xFFFFFF, "ERROR : the sphere is not rendered");
+
+        // Test that the same job (with another priority) comes from the cache, with the same image
+        connection = post(JOB.replace("priority=\"1\"", "priority=\"5\""));
+        assertEquals(200, connection.getResponseCode(), "ERROR : wrong status for a cached job");
+        assertEquals("HIT", connection.getHeaderField("X-Cache"), "ERROR : second render not from the cache");
+        try (InputStream in = connection.getInputStream()) {
+            assertArrayEquals(png, in.readAllBytes(), "ERROR : cached image differs");
+        }
+    }
+
+    /**
+     * Test method for the errors of the request POST /render.
+     */
+    @Test
+    void testInvalidJob() throws IOException {
+        // ============ EP Tests ============
+        // Test that a document which is not a render job is refused
+        assertEquals(400, post("<scene background-color=\"0 0 0\"/>").getResponseCode(),
+                "ERROR : wrong status for an invalid job");
+
+        // ============ Boundary Values Tests ============
+        // Test that a job without camera is refused
+        assertEquals(400, post("<render-job width=\"10\" height=\"10\"><scene background-color=\"0 0 0\"/>"
+                + "</render-job>").getResponseCode(), "ERROR : wrong status for a job without camera");
+
+        // Test that a job with more threads than its share of the processors is refused
+        int maxThreads = server.getMaxThreads();
+        assertEquals(400, post(JOB.replace("priority=\"1\"", "threads=\"" + (maxThreads + 1) + "\""))
+                .getResponseCode(), "ERROR : wrong status for too many threads");
+
+        // Test that a job with more anti-aliasing than the maximum of the server is refused
+        server.setMaxAntiAliasing(4);
+        assertEquals(400, post(JOB.replace("priority=\"1\"", "anti-aliasing=\"5\"")).getResponseCode(),
+                "ERROR : wrong status for too much anti-aliasing");
+
+        // Test that the limits themselves are accepted
+        assertEquals(200, post(JOB.replace("priority=\"1\"",
+                "threads=\"" + maxThreads + "\" anti-aliasing=\"4\"")).getResponseCode(),
+                "ERROR : wrong status for a job at the limits");
+    }
+}